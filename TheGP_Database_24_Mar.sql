@@ -131,6 +131,8 @@ CREATE TABLE `log` (
   PRIMARY KEY (`id_log`),
   UNIQUE KEY `id_log_UNIQUE` (`id_log`),
   KEY `patient_log_idx` (`id_patient`),
+  KEY `patient_log_time_idx` (`id_patient`,`timestamp`,`id_log`),
+  KEY `log_time_idx` (`timestamp`,`id_log`),
   CONSTRAINT `patient_log` FOREIGN KEY (`id_patient`) REFERENCES `patient` (`id_patient`)
 ) ENGINE=InnoDB AUTO_INCREMENT=11 DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_general_ci;
 /*!40101 SET character_set_client = @saved_cs_client */;
@@ -162,6 +164,8 @@ CREATE TABLE `notification` (
   PRIMARY KEY (`id_notif`),
   UNIQUE KEY `id_notif_UNIQUE` (`id_notif`),
   KEY `id_patient_idx` (`id_patient`),
+  KEY `patient_notif_time_idx` (`id_patient`,`timestamp`,`id_notif`),
+  KEY `patient_new_notif_idx` (`id_patient`,`is_new`,`timestamp`,`id_notif`),
   CONSTRAINT `id_patient` FOREIGN KEY (`id_patient`) REFERENCES `patient` (`id_patient`)
 ) ENGINE=InnoDB AUTO_INCREMENT=11 DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_general_ci;
 /*!40101 SET character_set_client = @saved_cs_client */;
@@ -215,6 +219,80 @@ UNLOCK TABLES;
 --
 -- Dumping routines for database 'thegeneralpractitioner'
 --
+/*!50003 DROP PROCEDURE IF EXISTS `book_appointment` */;
+/*!50003 SET @saved_cs_client      = @@character_set_client */ ;
+/*!50003 SET @saved_cs_results     = @@character_set_results */ ;
+/*!50003 SET @saved_col_connection = @@collation_connection */ ;
+/*!50003 SET character_set_client  = utf8mb4 */ ;
+/*!50003 SET character_set_results = utf8mb4 */ ;
+/*!50003 SET collation_connection  = utf8mb4_general_ci */ ;
+/*!50003 SET @saved_sql_mode       = @@sql_mode */ ;
+/*!50003 SET sql_mode              = 'STRICT_TRANS_TABLES,NO_ENGINE_SUBSTITUTION' */ ;
+DELIMITER ;;
+CREATE DEFINER=`root`@`localhost` PROCEDURE `book_appointment`(
+	id_patient INT,
+    id_doctor INT,
+    booking_time DATETIME,
+    booking_type VARCHAR(100),
+    notification_header VARCHAR(100),
+    notification_message VARCHAR(1000),
+    log_message VARCHAR(1000)
+)
+BEGIN
+	DECLARE created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP;
+	DECLARE new_booking INT;
+	DECLARE EXIT HANDLER FOR SQLEXCEPTION
+	BEGIN
+		ROLLBACK;
+		RESIGNAL;
+	END;
+
+	START TRANSACTION;
+
+	insert into booking (id_patient, id_doctor, booking_time, timestamp, type)
+    values (id_patient, id_doctor, booking_time, created_at, booking_type);
+	SET new_booking = LAST_INSERT_ID();
+
+	INSERT INTO notification (id_patient, header, message, timestamp)
+    VALUES (id_patient, notification_header, notification_message, created_at);
+
+	INSERT INTO log (message, id_patient, timestamp)
+    VALUES (log_message, id_patient, created_at);
+
+	COMMIT;
+
+	select new_booking as id_booking, created_at as timestamp;
+
+END ;;
+DELIMITER ;
+/*!50003 SET sql_mode              = @saved_sql_mode */ ;
+/*!50003 SET character_set_client  = @saved_cs_client */ ;
+/*!50003 SET character_set_results = @saved_cs_results */ ;
+/*!50003 SET collation_connection  = @saved_col_connection */ ;
+/*!50003 DROP PROCEDURE IF EXISTS `count_new_notifications` */;
+/*!50003 SET @saved_cs_client      = @@character_set_client */ ;
+/*!50003 SET @saved_cs_results     = @@character_set_results */ ;
+/*!50003 SET @saved_col_connection = @@collation_connection */ ;
+/*!50003 SET character_set_client  = utf8mb4 */ ;
+/*!50003 SET character_set_results = utf8mb4 */ ;
+/*!50003 SET collation_connection  = utf8mb4_general_ci */ ;
+/*!50003 SET @saved_sql_mode       = @@sql_mode */ ;
+/*!50003 SET sql_mode              = 'STRICT_TRANS_TABLES,NO_ENGINE_SUBSTITUTION' */ ;
+DELIMITER ;;
+CREATE DEFINER=`root`@`localhost` PROCEDURE `count_new_notifications`(
+	id_patient INT
+)
+BEGIN
+
+	SELECT COUNT(*) AS new_count FROM notification
+    WHERE notification.id_patient = id_patient AND notification.is_new = b'1';
+
+END ;;
+DELIMITER ;
+/*!50003 SET sql_mode              = @saved_sql_mode */ ;
+/*!50003 SET character_set_client  = @saved_cs_client */ ;
+/*!50003 SET character_set_results = @saved_cs_results */ ;
+/*!50003 SET collation_connection  = @saved_col_connection */ ;
 /*!50003 DROP PROCEDURE IF EXISTS `delete_booking` */;
 /*!50003 SET @saved_cs_client      = @@character_set_client */ ;
 /*!50003 SET @saved_cs_results     = @@character_set_results */ ;
@@ -353,6 +431,27 @@ DELIMITER ;
 /*!50003 SET character_set_client  = @saved_cs_client */ ;
 /*!50003 SET character_set_results = @saved_cs_results */ ;
 /*!50003 SET collation_connection  = @saved_col_connection */ ;
+/*!50003 DROP PROCEDURE IF EXISTS `email_in_use` */;
+/*!50003 SET @saved_cs_client      = @@character_set_client */ ;
+/*!50003 SET @saved_cs_results     = @@character_set_results */ ;
+/*!50003 SET @saved_col_connection = @@collation_connection */ ;
+/*!50003 SET character_set_client  = utf8mb4 */ ;
+/*!50003 SET character_set_results = utf8mb4 */ ;
+/*!50003 SET collation_connection  = utf8mb4_general_ci */ ;
+/*!50003 SET @saved_sql_mode       = @@sql_mode */ ;
+/*!50003 SET sql_mode              = 'STRICT_TRANS_TABLES,NO_ENGINE_SUBSTITUTION' */ ;
+DELIMITER ;;
+CREATE DEFINER=`root`@`localhost` PROCEDURE `email_in_use`(
+	IN email VARCHAR(500)
+)
+BEGIN
+	SELECT EXISTS(SELECT 1 FROM patient WHERE patient.email=email) AS in_use;
+END ;;
+DELIMITER ;
+/*!50003 SET sql_mode              = @saved_sql_mode */ ;
+/*!50003 SET character_set_client  = @saved_cs_client */ ;
+/*!50003 SET character_set_results = @saved_cs_results */ ;
+/*!50003 SET collation_connection  = @saved_col_connection */ ;
 /*!50003 DROP PROCEDURE IF EXISTS `find_doctor` */;
 /*!50003 SET @saved_cs_client      = @@character_set_client */ ;
 /*!50003 SET @saved_cs_results     = @@character_set_results */ ;
@@ -460,6 +559,61 @@ BEGIN
 
 	select * from booking where booking.id_doctor = id_doctor;
 
+END ;;
+DELIMITER ;
+/*!50003 SET sql_mode              = @saved_sql_mode */ ;
+/*!50003 SET character_set_client  = @saved_cs_client */ ;
+/*!50003 SET character_set_results = @saved_cs_results */ ;
+/*!50003 SET collation_connection  = @saved_col_connection */ ;
+/*!50003 DROP PROCEDURE IF EXISTS `get_bookings_doctor_range` */;
+/*!50003 SET @saved_cs_client      = @@character_set_client */ ;
+/*!50003 SET @saved_cs_results     = @@character_set_results */ ;
+/*!50003 SET @saved_col_connection = @@collation_connection */ ;
+/*!50003 SET character_set_client  = utf8mb4 */ ;
+/*!50003 SET character_set_results = utf8mb4 */ ;
+/*!50003 SET collation_connection  = utf8mb4_general_ci */ ;
+/*!50003 SET @saved_sql_mode       = @@sql_mode */ ;
+/*!50003 SET sql_mode              = 'STRICT_TRANS_TABLES,NO_ENGINE_SUBSTITUTION' */ ;
+DELIMITER ;;
+CREATE DEFINER=`root`@`localhost` PROCEDURE `get_bookings_doctor_range`(
+	id_doctor INT,
+    from_time DATETIME,
+    to_time DATETIME
+)
+BEGIN
+
+	select * from booking
+    where booking.id_doctor = id_doctor and booking.booking_time >= from_time and booking.booking_time < to_time
+    order by booking.booking_time asc;
+
+END ;;
+DELIMITER ;
+/*!50003 SET sql_mode              = @saved_sql_mode */ ;
+/*!50003 SET character_set_client  = @saved_cs_client */ ;
+/*!50003 SET character_set_results = @saved_cs_results */ ;
+/*!50003 SET collation_connection  = @saved_col_connection */ ;
+/*!50003 DROP PROCEDURE IF EXISTS `get_bookings_doctors_range` */;
+/*!50003 SET @saved_cs_client      = @@character_set_client */ ;
+/*!50003 SET @saved_cs_results     = @@character_set_results */ ;
+/*!50003 SET @saved_col_connection = @@collation_connection */ ;
+/*!50003 SET character_set_client  = utf8mb4 */ ;
+/*!50003 SET character_set_results = utf8mb4 */ ;
+/*!50003 SET collation_connection  = utf8mb4_general_ci */ ;
+/*!50003 SET @saved_sql_mode       = @@sql_mode */ ;
+/*!50003 SET sql_mode              = 'STRICT_TRANS_TABLES,NO_ENGINE_SUBSTITUTION' */ ;
+DELIMITER ;;
+CREATE DEFINER=`root`@`localhost` PROCEDURE `get_bookings_doctors_range`(
+	doctor_ids JSON,
+    from_time DATETIME,
+    to_time DATETIME
+)
+BEGIN
+
+	select booking.* from json_table(doctor_ids, '$[*]' columns (id_doctor INT path '$')) as doctors
+    join booking on booking.id_doctor = doctors.id_doctor
+    where booking.booking_time >= from_time and booking.booking_time < to_time
+    order by booking.id_doctor asc, booking.booking_time asc;
+
 END ;;
 DELIMITER ;
 /*!50003 SET sql_mode              = @saved_sql_mode */ ;
@@ -483,6 +637,90 @@ BEGIN
 
 	select * from booking where booking.id_patient = id_patient;
 
+END ;;
+DELIMITER ;
+/*!50003 SET sql_mode              = @saved_sql_mode */ ;
+/*!50003 SET character_set_client  = @saved_cs_client */ ;
+/*!50003 SET character_set_results = @saved_cs_results */ ;
+/*!50003 SET collation_connection  = @saved_col_connection */ ;
+/*!50003 DROP PROCEDURE IF EXISTS `get_bookings_patient_range` */;
+/*!50003 SET @saved_cs_client      = @@character_set_client */ ;
+/*!50003 SET @saved_cs_results     = @@character_set_results */ ;
+/*!50003 SET @saved_col_connection = @@collation_connection */ ;
+/*!50003 SET character_set_client  = utf8mb4 */ ;
+/*!50003 SET character_set_results = utf8mb4 */ ;
+/*!50003 SET collation_connection  = utf8mb4_general_ci */ ;
+/*!50003 SET @saved_sql_mode       = @@sql_mode */ ;
+/*!50003 SET sql_mode              = 'STRICT_TRANS_TABLES,NO_ENGINE_SUBSTITUTION' */ ;
+DELIMITER ;;
+CREATE DEFINER=`root`@`localhost` PROCEDURE `get_bookings_patient_range`(
+	id_patient INT,
+    from_time DATETIME,
+    to_time DATETIME,
+    newest_first BOOLEAN,
+    max_rows INT
+)
+BEGIN
+
+	IF newest_first THEN
+		select * from booking
+        where booking.id_patient = id_patient and booking.booking_time >= from_time and booking.booking_time < to_time
+        order by booking.booking_time desc
+        limit max_rows;
+	ELSE
+		select * from booking
+        where booking.id_patient = id_patient and booking.booking_time >= from_time and booking.booking_time < to_time
+        order by booking.booking_time asc
+        limit max_rows;
+	END IF;
+
+END ;;
+DELIMITER ;
+/*!50003 SET sql_mode              = @saved_sql_mode */ ;
+/*!50003 SET character_set_client  = @saved_cs_client */ ;
+/*!50003 SET character_set_results = @saved_cs_results */ ;
+/*!50003 SET collation_connection  = @saved_col_connection */ ;
+/*!50003 DROP PROCEDURE IF EXISTS `get_bookings_patient_range_doctor` */;
+/*!50003 SET @saved_cs_client      = @@character_set_client */ ;
+/*!50003 SET @saved_cs_results     = @@character_set_results */ ;
+/*!50003 SET @saved_col_connection = @@collation_connection */ ;
+/*!50003 SET character_set_client  = utf8mb4 */ ;
+/*!50003 SET character_set_results = utf8mb4 */ ;
+/*!50003 SET collation_connection  = utf8mb4_general_ci */ ;
+/*!50003 SET @saved_sql_mode       = @@sql_mode */ ;
+/*!50003 SET sql_mode              = 'STRICT_TRANS_TABLES,NO_ENGINE_SUBSTITUTION' */ ;
+DELIMITER ;;
+CREATE DEFINER=`root`@`localhost` PROCEDURE `get_bookings_patient_range_doctor`(
+	id_patient INT,
+    from_time DATETIME,
+    to_time DATETIME,
+    newest_first BOOLEAN,
+    max_rows INT
+)
+BEGIN
+
+	IF newest_first THEN
+		select booking.*,
+			doctor.first_name as doctor_first_name,
+            doctor.middle_name as doctor_middle_name,
+            doctor.last_name as doctor_last_name
+        from booking
+        join doctor on doctor.id_doctor = booking.id_doctor
+        where booking.id_patient = id_patient and booking.booking_time >= from_time and booking.booking_time < to_time
+        order by booking.booking_time desc
+        limit max_rows;
+	ELSE
+		select booking.*,
+			doctor.first_name as doctor_first_name,
+            doctor.middle_name as doctor_middle_name,
+            doctor.last_name as doctor_last_name
+        from booking
+        join doctor on doctor.id_doctor = booking.id_doctor
+        where booking.id_patient = id_patient and booking.booking_time >= from_time and booking.booking_time < to_time
+        order by booking.booking_time asc
+        limit max_rows;
+	END IF;
+
 END ;;
 DELIMITER ;
 /*!50003 SET sql_mode              = @saved_sql_mode */ ;
@@ -636,6 +874,40 @@ BEGIN
 
 	SELECT * FROM log;
 
+END ;;
+DELIMITER ;
+/*!50003 SET sql_mode              = @saved_sql_mode */ ;
+/*!50003 SET character_set_client  = @saved_cs_client */ ;
+/*!50003 SET character_set_results = @saved_cs_results */ ;
+/*!50003 SET collation_connection  = @saved_col_connection */ ;
+/*!50003 DROP PROCEDURE IF EXISTS `get_logs_page` */;
+/*!50003 SET @saved_cs_client      = @@character_set_client */ ;
+/*!50003 SET @saved_cs_results     = @@character_set_results */ ;
+/*!50003 SET @saved_col_connection = @@collation_connection */ ;
+/*!50003 SET character_set_client  = utf8mb4 */ ;
+/*!50003 SET character_set_results = utf8mb4 */ ;
+/*!50003 SET collation_connection  = utf8mb4_general_ci */ ;
+/*!50003 SET @saved_sql_mode       = @@sql_mode */ ;
+/*!50003 SET sql_mode              = 'STRICT_TRANS_TABLES,NO_ENGINE_SUBSTITUTION' */ ;
+DELIMITER ;;
+CREATE DEFINER=`root`@`localhost` PROCEDURE `get_logs_page`(
+    before_time TIMESTAMP,
+    before_id INT,
+    page_size INT
+)
+BEGIN
+
+	IF before_time IS NULL THEN
+		SELECT * FROM log
+        ORDER BY log.timestamp DESC, log.id_log DESC
+        LIMIT page_size;
+	ELSE
+		SELECT * FROM log
+        WHERE (log.timestamp, log.id_log) < (before_time, before_id)
+        ORDER BY log.timestamp DESC, log.id_log DESC
+        LIMIT page_size;
+	END IF;
+
 END ;;
 DELIMITER ;
 /*!50003 SET sql_mode              = @saved_sql_mode */ ;
@@ -659,6 +931,42 @@ BEGIN
 
 	SELECT * FROM log WHERE log.id_patient = id_patient;
 
+END ;;
+DELIMITER ;
+/*!50003 SET sql_mode              = @saved_sql_mode */ ;
+/*!50003 SET character_set_client  = @saved_cs_client */ ;
+/*!50003 SET character_set_results = @saved_cs_results */ ;
+/*!50003 SET collation_connection  = @saved_col_connection */ ;
+/*!50003 DROP PROCEDURE IF EXISTS `get_logs_patient_page` */;
+/*!50003 SET @saved_cs_client      = @@character_set_client */ ;
+/*!50003 SET @saved_cs_results     = @@character_set_results */ ;
+/*!50003 SET @saved_col_connection = @@collation_connection */ ;
+/*!50003 SET character_set_client  = utf8mb4 */ ;
+/*!50003 SET character_set_results = utf8mb4 */ ;
+/*!50003 SET collation_connection  = utf8mb4_general_ci */ ;
+/*!50003 SET @saved_sql_mode       = @@sql_mode */ ;
+/*!50003 SET sql_mode              = 'STRICT_TRANS_TABLES,NO_ENGINE_SUBSTITUTION' */ ;
+DELIMITER ;;
+CREATE DEFINER=`root`@`localhost` PROCEDURE `get_logs_patient_page`(
+	id_patient INT,
+    before_time TIMESTAMP,
+    before_id INT,
+    page_size INT
+)
+BEGIN
+
+	IF before_time IS NULL THEN
+		SELECT * FROM log
+        WHERE log.id_patient = id_patient
+        ORDER BY log.timestamp DESC, log.id_log DESC
+        LIMIT page_size;
+	ELSE
+		SELECT * FROM log
+        WHERE log.id_patient = id_patient AND (log.timestamp, log.id_log) < (before_time, before_id)
+        ORDER BY log.timestamp DESC, log.id_log DESC
+        LIMIT page_size;
+	END IF;
+
 END ;;
 DELIMITER ;
 /*!50003 SET sql_mode              = @saved_sql_mode */ ;
@@ -726,6 +1034,110 @@ BEGIN
 
 	SELECT * FROM notification WHERE notification.id_patient=id_patient;
 
+END ;;
+DELIMITER ;
+/*!50003 SET sql_mode              = @saved_sql_mode */ ;
+/*!50003 SET character_set_client  = @saved_cs_client */ ;
+/*!50003 SET character_set_results = @saved_cs_results */ ;
+/*!50003 SET collation_connection  = @saved_col_connection */ ;
+/*!50003 DROP PROCEDURE IF EXISTS `get_notifications_patient_page` */;
+/*!50003 SET @saved_cs_client      = @@character_set_client */ ;
+/*!50003 SET @saved_cs_results     = @@character_set_results */ ;
+/*!50003 SET @saved_col_connection = @@collation_connection */ ;
+/*!50003 SET character_set_client  = utf8mb4 */ ;
+/*!50003 SET character_set_results = utf8mb4 */ ;
+/*!50003 SET collation_connection  = utf8mb4_general_ci */ ;
+/*!50003 SET @saved_sql_mode       = @@sql_mode */ ;
+/*!50003 SET sql_mode              = 'STRICT_TRANS_TABLES,NO_ENGINE_SUBSTITUTION' */ ;
+DELIMITER ;;
+CREATE DEFINER=`root`@`localhost` PROCEDURE `get_notifications_patient_page`(
+	id_patient INT,
+    before_time TIMESTAMP,
+    before_id INT,
+    page_size INT
+)
+BEGIN
+
+	IF before_time IS NULL THEN
+		SELECT * FROM notification
+        WHERE notification.id_patient = id_patient
+        ORDER BY notification.timestamp DESC, notification.id_notif DESC
+        LIMIT page_size;
+	ELSE
+		SELECT * FROM notification
+        WHERE notification.id_patient = id_patient AND (notification.timestamp, notification.id_notif) < (before_time, before_id)
+        ORDER BY notification.timestamp DESC, notification.id_notif DESC
+        LIMIT page_size;
+	END IF;
+
+END ;;
+DELIMITER ;
+/*!50003 SET sql_mode              = @saved_sql_mode */ ;
+/*!50003 SET character_set_client  = @saved_cs_client */ ;
+/*!50003 SET character_set_results = @saved_cs_results */ ;
+/*!50003 SET collation_connection  = @saved_col_connection */ ;
+/*!50003 DROP PROCEDURE IF EXISTS `get_notifications_patient_since` */;
+/*!50003 SET @saved_cs_client      = @@character_set_client */ ;
+/*!50003 SET @saved_cs_results     = @@character_set_results */ ;
+/*!50003 SET @saved_col_connection = @@collation_connection */ ;
+/*!50003 SET character_set_client  = utf8mb4 */ ;
+/*!50003 SET character_set_results = utf8mb4 */ ;
+/*!50003 SET collation_connection  = utf8mb4_general_ci */ ;
+/*!50003 SET @saved_sql_mode       = @@sql_mode */ ;
+/*!50003 SET sql_mode              = 'STRICT_TRANS_TABLES,NO_ENGINE_SUBSTITUTION' */ ;
+DELIMITER ;;
+CREATE DEFINER=`root`@`localhost` PROCEDURE `get_notifications_patient_since`(
+	id_patient INT,
+    after_id INT,
+    changed_since TIMESTAMP
+)
+BEGIN
+
+	SELECT * FROM notification
+    WHERE notification.id_patient = id_patient AND notification.id_notif > after_id
+    UNION
+    SELECT * FROM notification
+    WHERE notification.id_patient = id_patient AND notification.timestamp >= changed_since
+    ORDER BY id_notif;
+
+END ;;
+DELIMITER ;
+/*!50003 SET sql_mode              = @saved_sql_mode */ ;
+/*!50003 SET character_set_client  = @saved_cs_client */ ;
+/*!50003 SET character_set_results = @saved_cs_results */ ;
+/*!50003 SET collation_connection  = @saved_col_connection */ ;
+/*!50003 DROP PROCEDURE IF EXISTS `get_notifications_patient_status_page` */;
+/*!50003 SET @saved_cs_client      = @@character_set_client */ ;
+/*!50003 SET @saved_cs_results     = @@character_set_results */ ;
+/*!50003 SET @saved_col_connection = @@collation_connection */ ;
+/*!50003 SET character_set_client  = utf8mb4 */ ;
+/*!50003 SET character_set_results = utf8mb4 */ ;
+/*!50003 SET collation_connection  = utf8mb4_general_ci */ ;
+/*!50003 SET @saved_sql_mode       = @@sql_mode */ ;
+/*!50003 SET sql_mode              = 'STRICT_TRANS_TABLES,NO_ENGINE_SUBSTITUTION' */ ;
+DELIMITER ;;
+CREATE DEFINER=`root`@`localhost` PROCEDURE `get_notifications_patient_status_page`(
+	id_patient INT,
+    is_new BIT,
+    before_time TIMESTAMP,
+    before_id INT,
+    page_size INT
+)
+BEGIN
+
+	IF before_time IS NULL THEN
+		SELECT * FROM notification
+        WHERE notification.id_patient = id_patient AND notification.is_new = is_new
+        ORDER BY notification.timestamp DESC, notification.id_notif DESC
+        LIMIT page_size;
+	ELSE
+		SELECT * FROM notification
+        WHERE notification.id_patient = id_patient AND notification.is_new = is_new
+			AND (notification.timestamp, notification.id_notif) < (before_time, before_id)
+        ORDER BY notification.timestamp DESC, notification.id_notif DESC
+        LIMIT page_size;
+	END IF;
+
 END ;;
 DELIMITER ;
 /*!50003 SET sql_mode              = @saved_sql_mode */ ;
@@ -755,6 +1167,25 @@ DELIMITER ;
 /*!50003 SET character_set_client  = @saved_cs_client */ ;
 /*!50003 SET character_set_results = @saved_cs_results */ ;
 /*!50003 SET collation_connection  = @saved_col_connection */ ;
+/*!50003 DROP PROCEDURE IF EXISTS `get_patient_emails` */;
+/*!50003 SET @saved_cs_client      = @@character_set_client */ ;
+/*!50003 SET @saved_cs_results     = @@character_set_results */ ;
+/*!50003 SET @saved_col_connection = @@collation_connection */ ;
+/*!50003 SET character_set_client  = utf8mb4 */ ;
+/*!50003 SET character_set_results = utf8mb4 */ ;
+/*!50003 SET collation_connection  = utf8mb4_general_ci */ ;
+/*!50003 SET @saved_sql_mode       = @@sql_mode */ ;
+/*!50003 SET sql_mode              = 'STRICT_TRANS_TABLES,NO_ENGINE_SUBSTITUTION' */ ;
+DELIMITER ;;
+CREATE DEFINER=`root`@`localhost` PROCEDURE `get_patient_emails`()
+BEGIN
+	SELECT email FROM patient;
+END ;;
+DELIMITER ;
+/*!50003 SET sql_mode              = @saved_sql_mode */ ;
+/*!50003 SET character_set_client  = @saved_cs_client */ ;
+/*!50003 SET character_set_results = @saved_cs_results */ ;
+/*!50003 SET collation_connection  = @saved_col_connection */ ;
 /*!50003 DROP PROCEDURE IF EXISTS `get_patients` */;
 /*!50003 SET @saved_cs_client      = @@character_set_client */ ;
 /*!50003 SET @saved_cs_results     = @@character_set_results */ ;
@@ -795,9 +1226,12 @@ CREATE DEFINER=`root`@`localhost` PROCEDURE `insert_booking`(
     prescription VARCHAR(1000)
 )
 BEGIN
+	DECLARE created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP;
 
-	insert into booking (id_patient, id_doctor, booking_time, type, details, prescription)
-    values (id_patient, id_doctor, booking_time, booking_type, booking_details, prescription);
+	insert into booking (id_patient, id_doctor, booking_time, timestamp, type, details, prescription)
+    values (id_patient, id_doctor, booking_time, created_at, booking_type, booking_details, prescription);
+
+	select LAST_INSERT_ID() as id_booking, created_at as timestamp;
 
 END ;;
 DELIMITER ;
@@ -874,10 +1308,39 @@ CREATE DEFINER=`root`@`localhost` PROCEDURE `insert_log`(
 	message VARCHAR(1000),
     id_patient INT
 )
+BEGIN
+	DECLARE created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP;
+	
+    INSERT INTO log (message, id_patient, timestamp)
+    VALUES (message, id_patient, created_at);
+
+    SELECT LAST_INSERT_ID() AS id_log, created_at AS timestamp;
+    
+END ;;
+DELIMITER ;
+/*!50003 SET sql_mode              = @saved_sql_mode */ ;
+/*!50003 SET character_set_client  = @saved_cs_client */ ;
+/*!50003 SET character_set_results = @saved_cs_results */ ;
+/*!50003 SET collation_connection  = @saved_col_connection */ ;
+/*!50003 DROP PROCEDURE IF EXISTS `insert_log_at` */;
+/*!50003 SET @saved_cs_client      = @@character_set_client */ ;
+/*!50003 SET @saved_cs_results     = @@character_set_results */ ;
+/*!50003 SET @saved_col_connection = @@collation_connection */ ;
+/*!50003 SET character_set_client  = utf8mb4 */ ;
+/*!50003 SET character_set_results = utf8mb4 */ ;
+/*!50003 SET collation_connection  = utf8mb4_general_ci */ ;
+/*!50003 SET @saved_sql_mode       = @@sql_mode */ ;
+/*!50003 SET sql_mode              = 'STRICT_TRANS_TABLES,NO_ENGINE_SUBSTITUTION' */ ;
+DELIMITER ;;
+CREATE DEFINER=`root`@`localhost` PROCEDURE `insert_log_at`(
+	message VARCHAR(1000),
+    id_patient INT,
+    log_time TIMESTAMP
+)
 BEGIN
 	
-    INSERT INTO log (message, id_patient)
-    VALUES (message, id_patient);
+    INSERT INTO log (message, id_patient, timestamp)
+    VALUES (message, id_patient, log_time);
     
 END ;;
 DELIMITER ;
@@ -901,8 +1364,11 @@ CREATE DEFINER=`root`@`localhost` PROCEDURE `insert_notification`(
     message VARCHAR(1000)
 )
 BEGIN
+	DECLARE created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP;
+
+	INSERT INTO notification (id_patient, header, message, timestamp) VALUES (id_patient, header, message, created_at);
 
-	INSERT INTO notification (id_patient, header, message) VALUES (id_patient, header, message);
+	SELECT LAST_INSERT_ID() AS id_notif, created_at AS timestamp;
 
 END ;;
 DELIMITER ;
@@ -961,6 +1427,96 @@ BEGIN
 	WHERE
 		notification.id_notif = id_notif;
 
+END ;;
+DELIMITER ;
+/*!50003 SET sql_mode              = @saved_sql_mode */ ;
+/*!50003 SET character_set_client  = @saved_cs_client */ ;
+/*!50003 SET character_set_results = @saved_cs_results */ ;
+/*!50003 SET collation_connection  = @saved_col_connection */ ;
+/*!50003 DROP PROCEDURE IF EXISTS `notifications_not_new` */;
+/*!50003 SET @saved_cs_client      = @@character_set_client */ ;
+/*!50003 SET @saved_cs_results     = @@character_set_results */ ;
+/*!50003 SET @saved_col_connection = @@collation_connection */ ;
+/*!50003 SET character_set_client  = utf8mb4 */ ;
+/*!50003 SET character_set_results = utf8mb4 */ ;
+/*!50003 SET collation_connection  = utf8mb4_general_ci */ ;
+/*!50003 SET @saved_sql_mode       = @@sql_mode */ ;
+/*!50003 SET sql_mode              = 'STRICT_TRANS_TABLES,NO_ENGINE_SUBSTITUTION' */ ;
+DELIMITER ;;
+CREATE DEFINER=`root`@`localhost` PROCEDURE `notifications_not_new`(
+	id_patient INT,
+    id_list TEXT
+)
+BEGIN
+
+	UPDATE notification
+    SET
+		is_new = false
+	WHERE
+		notification.id_patient = id_patient
+        AND notification.is_new = true
+        AND (id_list IS NULL OR FIND_IN_SET(notification.id_notif, id_list) > 0);
+
+	SELECT ROW_COUNT() AS updated;
+
+END ;;
+DELIMITER ;
+/*!50003 SET sql_mode              = @saved_sql_mode */ ;
+/*!50003 SET character_set_client  = @saved_cs_client */ ;
+/*!50003 SET character_set_results = @saved_cs_results */ ;
+/*!50003 SET collation_connection  = @saved_col_connection */ ;
+/*!50003 DROP PROCEDURE IF EXISTS `reschedule_appointment` */;
+/*!50003 SET @saved_cs_client      = @@character_set_client */ ;
+/*!50003 SET @saved_cs_results     = @@character_set_results */ ;
+/*!50003 SET @saved_col_connection = @@collation_connection */ ;
+/*!50003 SET character_set_client  = utf8mb4 */ ;
+/*!50003 SET character_set_results = utf8mb4 */ ;
+/*!50003 SET collation_connection  = utf8mb4_general_ci */ ;
+/*!50003 SET @saved_sql_mode       = @@sql_mode */ ;
+/*!50003 SET sql_mode              = 'STRICT_TRANS_TABLES,NO_ENGINE_SUBSTITUTION' */ ;
+DELIMITER ;;
+CREATE DEFINER=`root`@`localhost` PROCEDURE `reschedule_appointment`(
+	id_booking INT,
+    id_patient INT,
+    id_doctor INT,
+    booking_time DATETIME,
+    booking_type VARCHAR(100),
+    booking_details VARCHAR(1000),
+    prescription VARCHAR(1000),
+    notification_header VARCHAR(100),
+    notification_message VARCHAR(1000),
+    log_message VARCHAR(1000)
+)
+BEGIN
+	DECLARE EXIT HANDLER FOR SQLEXCEPTION
+	BEGIN
+		ROLLBACK;
+		RESIGNAL;
+	END;
+
+	START TRANSACTION;
+
+	update booking
+    set
+		booking.id_patient = id_patient,
+        booking.id_doctor = id_doctor,
+        booking.booking_time = booking_time,
+        booking.type = booking_type,
+        booking.details = booking_details,
+        booking.prescription = prescription
+	where
+		booking.id_booking = id_booking;
+
+	INSERT INTO notification (id_patient, header, message)
+    VALUES (id_patient, notification_header, notification_message);
+
+	INSERT INTO log (message, id_patient)
+    VALUES (log_message, id_patient);
+
+	COMMIT;
+
+	select * from booking where booking.id_booking = id_booking;
+
 END ;;
 DELIMITER ;
 /*!50003 SET sql_mode              = @saved_sql_mode */ ;
@@ -997,6 +1553,9 @@ BEGIN
         booking.prescription = prescription
 	where
 		booking.id_booking = id_booking;
+
+	-- Return the updated row, so it does not have to be read again
+	select * from booking where booking.id_booking = id_booking;
 END ;;
 DELIMITER ;
 /*!50003 SET sql_mode              = @saved_sql_mode */ ;
@@ -1161,6 +1720,7 @@ CREATE DEFINER=`root`@`localhost` PROCEDURE `update_patient`(
 )
 BEGIN
 
+	-- A null doctor keeps the patient's current doctor
 	UPDATE patient
     SET
 		patient.email = email,
@@ -1171,11 +1731,14 @@ BEGIN
         patient.date_of_birth = date_of_birth,
         patient.gender = gender,
         patient.telephone_number = telephone_number,
-        patient.id_doctor = id_doctor
+        patient.id_doctor = COALESCE(id_doctor, patient.id_doctor)
         
 	WHERE
 		patient.id_patient = id_patient;
         
+	-- Return the updated row, so it does not have to be read again
+	SELECT * FROM patient WHERE patient.id_patient = id_patient;
+        
 END ;;
 DELIMITER ;
 /*!50003 SET sql_mode              = @saved_sql_mode */ ;
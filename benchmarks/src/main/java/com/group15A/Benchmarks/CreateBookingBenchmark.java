@@ -0,0 +1,205 @@
+package com.group15A.Benchmarks;
+
+import com.group15A.DataAccess.DataAccess;
+import com.group15A.DataModel.Booking;
+import com.group15A.DataModel.Doctor;
+import com.group15A.DataModel.Patient;
+
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Measures the latency of DataAccess.createBooking while the booking table grows,
+ * next to the cost of reading the whole booking table (what createBooking used to do after every insert).
+ *
+ * Needs the local thegeneralpractitioner database. Filler bookings are placed far in the future and are
+ * deleted when the benchmark finishes.
+ *
+ * Arguments: [comma separated table sizes] [samples per size]
+ * e.g. 10000,100000,1000000,3000000 200
+ */
+public class CreateBookingBenchmark {
+    private static final LocalDateTime MEASURED_START = LocalDateTime.of(2150, 1, 1, 0, 0);
+    private static final LocalDateTime FILLER_START = LocalDateTime.of(2200, 1, 1, 0, 0);
+    private static final int ROWS_PER_INSERT = 1000;
+    private static final int FULL_READ_SAMPLES = 5;
+
+    private final DataAccess dataAccess;
+    private final List<Integer> patientIDs = new ArrayList<>();
+    private final List<Integer> doctorIDs = new ArrayList<>();
+    private long fillerRows = 0;
+    private int measuredBookings = 0;
+
+    public static void main(String[] args) throws Exception {
+        long[] sizes = Arrays.stream((args.length > 0 ? args[0] : "10000,100000,1000000,3000000").split(","))
+                .mapToLong(Long::parseLong)
+                .toArray();
+        int samples = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+
+        CreateBookingBenchmark benchmark = new CreateBookingBenchmark();
+        try {
+            benchmark.run(sizes, samples);
+        } finally {
+            benchmark.cleanUp();
+            benchmark.dataAccess.getConnectionPool().shutdown();
+        }
+    }
+
+    /**
+     * Constructor for the benchmark, loads the ids of the existing patients and doctors
+     * @throws Exception if the database could not be reached
+     */
+    public CreateBookingBenchmark() throws Exception {
+        this.dataAccess = new DataAccess();
+
+        try (Connection connection = dataAccess.getConnectionPool().getConnection();
+             Statement statement = connection.createStatement()) {
+            ResultSet patients = statement.executeQuery("SELECT id_patient FROM patient");
+            while (patients.next()) {
+                patientIDs.add(patients.getInt(1));
+            }
+            ResultSet doctors = statement.executeQuery("SELECT id_doctor FROM doctor");
+            while (doctors.next()) {
+                doctorIDs.add(doctors.getInt(1));
+            }
+        }
+    }
+
+    /**
+     * Grow the booking table to each size in turn and measure createBooking at that size
+     * @param sizes The number of bookings in the table for each measurement
+     * @param samples The number of bookings to create at each size
+     * @throws Exception if the database could not be queried
+     */
+    public void run(long[] sizes, int samples) throws Exception {
+        Patient patient = dataAccess.getPatient(patientIDs.get(0));
+        Doctor doctor = dataAccess.getDoctor(patient);
+
+        // Warm up the connection pool, the statement cache and the JIT
+        measureCreateBooking(patient, doctor, Math.min(samples, 50));
+
+        System.out.println("table_rows,create_p50_ms,create_p99_ms,create_mean_ms,full_table_read_ms");
+        for (long size : sizes) {
+            growBookingTable(size);
+            long[] createNanos = measureCreateBooking(patient, doctor, samples);
+            long[] fullReadNanos = measureFullTableRead();
+
+            System.out.printf("%d,%.3f,%.3f,%.3f,%.3f%n",
+                    countBookings(),
+                    percentile(createNanos, 0.50) / 1e6,
+                    percentile(createNanos, 0.99) / 1e6,
+                    Arrays.stream(createNanos).average().orElse(0) / 1e6,
+                    percentile(fullReadNanos, 0.50) / 1e6
+            );
+        }
+    }
+
+    /**
+     * Create the given number of bookings through DataAccess and time each call
+     * @return The latency of each call, in nanoseconds
+     */
+    private long[] measureCreateBooking(Patient patient, Doctor doctor, int samples) throws Exception {
+        long[] nanos = new long[samples];
+        for (int i = 0; i < samples; i++) {
+            Timestamp bookingTime = Timestamp.valueOf(MEASURED_START.plusMinutes(5L * measuredBookings++));
+
+            long start = System.nanoTime();
+            Booking booking = dataAccess.createBooking(patient, doctor, bookingTime, "Other");
+            nanos[i] = System.nanoTime() - start;
+
+            if (!booking.getBookingTime().equals(bookingTime)) {
+                throw new IllegalStateException("createBooking returned the wrong booking: " + booking);
+            }
+        }
+        return nanos;
+    }
+
+    /**
+     * Time reading every booking, which is what createBooking did before it returned the generated id
+     * @return The latency of each read, in nanoseconds
+     */
+    private long[] measureFullTableRead() throws Exception {
+        long[] nanos = new long[FULL_READ_SAMPLES];
+        for (int i = 0; i < FULL_READ_SAMPLES; i++) {
+            long start = System.nanoTime();
+            dataAccess.getBookings();
+            nanos[i] = System.nanoTime() - start;
+        }
+        return nanos;
+    }
+
+    /**
+     * Insert filler bookings until the table holds at least the given number of rows.
+     * Every filler booking has its own booking time, so the patient and doctor unique keys always hold.
+     * @param targetRows The number of bookings the table should hold
+     */
+    private void growBookingTable(long targetRows) throws SQLException {
+        long missing = targetRows - countBookings();
+        if (missing <= 0) {
+            return;
+        }
+
+        try (Connection connection = dataAccess.getConnectionPool().getConnection()) {
+            connection.setAutoCommit(false);
+            while (missing > 0) {
+                int rows = (int) Math.min(ROWS_PER_INSERT, missing);
+                StringBuilder sql = new StringBuilder("INSERT INTO booking (id_patient, id_doctor, booking_time, type) VALUES ");
+                for (int i = 0; i < rows; i++) {
+                    sql.append(i == 0 ? "(?, ?, ?, 'Other')" : ", (?, ?, ?, 'Other')");
+                }
+
+                try (PreparedStatement statement = connection.prepareStatement(sql.toString())) {
+                    for (int i = 0; i < rows; i++) {
+                        statement.setInt(3 * i + 1, patientIDs.get((int) (fillerRows % patientIDs.size())));
+                        statement.setInt(3 * i + 2, doctorIDs.get((int) (fillerRows % doctorIDs.size())));
+                        statement.setTimestamp(3 * i + 3, Timestamp.valueOf(FILLER_START.plusMinutes(fillerRows)));
+                        fillerRows++;
+                    }
+                    statement.executeUpdate();
+                }
+                connection.commit();
+                missing -= rows;
+            }
+        }
+    }
+
+    /**
+     * @return The number of rows in the booking table
+     */
+    private long countBookings() throws SQLException {
+        try (Connection connection = dataAccess.getConnectionPool().getConnection();
+             Statement statement = connection.createStatement()) {
+            ResultSet result = statement.executeQuery("SELECT COUNT(*) FROM booking");
+            result.next();
+            return result.getLong(1);
+        }
+    }
+
+    /**
+     * Delete every booking created by the benchmark
+     */
+    private void cleanUp() {
+        try (Connection connection = dataAccess.getConnectionPool().getConnection();
+             PreparedStatement statement = connection.prepareStatement("DELETE FROM booking WHERE booking_time >= ?")) {
+            statement.setTimestamp(1, Timestamp.valueOf(MEASURED_START));
+            statement.executeUpdate();
+        } catch (SQLException ex) {
+            System.err.println("Could not delete the benchmark bookings: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * @param values The measured values
+     * @param fraction The percentile, between 0 and 1
+     * @return The value at the given percentile
+     */
+    private static long percentile(long[] values, double fraction) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(fraction * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+}
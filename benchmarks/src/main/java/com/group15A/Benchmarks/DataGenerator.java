@@ -0,0 +1,413 @@
+package com.group15A.Benchmarks;
+
+import com.group15A.DataAccess.ConnectionPool;
+import com.group15A.DataAccess.DataAccess;
+import com.group15A.Utils.Randomiser;
+import org.mindrot.jbcrypt.BCrypt;
+
+import java.sql.*;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fills the local thegeneralpractitioner database with a production-sized synthetic dataset:
+ * doctors with their certifications, patients, years of bookings, notifications and logs.
+ *
+ * Every patient's password is Password1*, hashed with BCrypt like RegisterLogic does, so any of them can log in.
+ * Patient i is registered with doctor i % doctors. The bookings of each doctor are spread over their 15 minute
+ * slots on weekdays between 9:00 and 17:00, one booking per slot, so neither the doctor's nor the patient's
+ * unique booking time is ever broken. Past bookings get details and a prescription from the Randomiser.
+ *
+ * The work is split into tasks run on a pool of threads: hashing the passwords of a chunk of patients, the
+ * bookings of one doctor, the notifications and logs of a chunk of patients. Each task streams its rows into
+ * the database with multi-row INSERT statements of batch rows, committing after each of them, so only a batch
+ * per thread is ever held in memory. The tasks borrow their connections from the connection pool, so for more
+ * than 10 threads the pool has to be made bigger with -Dgp.pool.maxSize.
+ *
+ * Arguments are key=value pairs, all optional:
+ *   doctors=200                 the number of doctors
+ *   patients=100000             the number of patients
+ *   years=3                     the number of years of bookings, the last of them in the future
+ *   bookingsPerYear=8           the bookings of each patient in a year
+ *   notifications=20            the notifications of each patient
+ *   logs=40                     the logs of each patient
+ *   threads=(number of cores)   the number of threads
+ *   batch=1000                  the rows in one INSERT statement
+ *   bcryptRounds=10             the BCrypt cost, 10 like the application, lower for a faster (but weaker) dataset
+ * The defaults make about 8.5 million rows.
+ *
+ * The generated rows are added after the existing ones and are not deleted afterwards.
+ */
+public class DataGenerator {
+    private static final String PASSWORD = "Password1*";
+    private static final int PATIENT_CHUNK = 1000;
+    private static final int SLOTS_PER_DAY = 32;
+    private static final String[] FIRST_NAMES = {"Amelia", "Oliver", "Isla", "George", "Ava", "Harry", "Mia", "Jack", "Emily", "Noah", "Grace", "Leo"};
+    private static final String[] LAST_NAMES = {"Smith", "Jones", "Taylor", "Brown", "Williams", "Wilson", "Johnson", "Davies", "Patel", "Wright", "Walker", "Evans"};
+    private static final String[] GENDERS = {"Male", "Female", "Other"};
+    private static final String[] BOOKING_TYPES = {"Other", "Routine Checkup", "Emergency Checkup", "Telephone Session", "Surgery",
+            "Physical Checkup", "Mental Health Checkup", "Blood Testing", "General Consultation"};
+    private static final String[] DEGREES = {"MSc", "phD", "MBBS", "MD"};
+    private static final String[] FIELDS = {"Neurology", "Dermatology", "Medical genetics", "Radiation oncology", "Ophthalmology",
+            "Cardiology", "Paediatrics", "General practice"};
+    private static final String[] NOTIFICATIONS = {"Created New Booking", "Rescheduled Booking", "Cancelled Booking", "Prescription ready"};
+    private static final String[] LOGS = {"manually logged in, successfully", "has viewed their bookings", "has scheduled a booking",
+            "has rescheduled a booking", "has updated their profile"};
+
+    private final int doctorCount;
+    private final int patientCount;
+    private final int years;
+    private final int bookingsPerYear;
+    private final int notificationsPerPatient;
+    private final int logsPerPatient;
+    private final int threadCount;
+    private final int batchSize;
+    private final int bcryptRounds;
+
+    private final ConnectionPool connectionPool;
+    private final String runID = Long.toString(System.currentTimeMillis(), 36);
+    private final Map<String, LongAdder> rowCounts = new ConcurrentHashMap<>();
+    private final LocalDateTime now = LocalDateTime.now().withNano(0);
+    private final List<LocalDate> workingDays = new ArrayList<>();
+
+    private int firstDoctorID;
+    private int firstPatientID;
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            String[] pair = arg.split("=", 2);
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Arguments are key=value pairs, not " + arg);
+            }
+            options.put(pair[0], pair[1]);
+        }
+
+        DataAccess dataAccess = new DataAccess();
+        try {
+            new DataGenerator(
+                    dataAccess.getConnectionPool(),
+                    Integer.parseInt(options.getOrDefault("doctors", "200")),
+                    Integer.parseInt(options.getOrDefault("patients", "100000")),
+                    Integer.parseInt(options.getOrDefault("years", "3")),
+                    Integer.parseInt(options.getOrDefault("bookingsPerYear", "8")),
+                    Integer.parseInt(options.getOrDefault("notifications", "20")),
+                    Integer.parseInt(options.getOrDefault("logs", "40")),
+                    Integer.parseInt(options.getOrDefault("threads", Integer.toString(Runtime.getRuntime().availableProcessors()))),
+                    Integer.parseInt(options.getOrDefault("batch", "1000")),
+                    Integer.parseInt(options.getOrDefault("bcryptRounds", "10"))
+            ).run();
+        } finally {
+            dataAccess.getConnectionPool().shutdown();
+        }
+    }
+
+    /**
+     * Constructor for the data generator
+     * @throws IllegalArgumentException if the doctors do not have enough slots for the bookings
+     */
+    public DataGenerator(ConnectionPool connectionPool, int doctorCount, int patientCount, int years, int bookingsPerYear,
+                         int notificationsPerPatient, int logsPerPatient, int threadCount, int batchSize, int bcryptRounds) {
+        this.connectionPool = connectionPool;
+        this.doctorCount = Math.max(1, doctorCount);
+        this.patientCount = patientCount;
+        this.years = Math.max(1, years);
+        this.bookingsPerYear = bookingsPerYear;
+        this.notificationsPerPatient = notificationsPerPatient;
+        this.logsPerPatient = logsPerPatient;
+        this.threadCount = Math.max(1, threadCount);
+        this.batchSize = Math.max(1, batchSize);
+        this.bcryptRounds = bcryptRounds;
+
+        // The bookings run from years - 1 years ago to a year from now
+        LocalDate day = now.toLocalDate().minusYears(this.years - 1);
+        LocalDate end = now.toLocalDate().plusYears(1);
+        for (; day.isBefore(end); day = day.plusDays(1)) {
+            if (day.getDayOfWeek() != DayOfWeek.SATURDAY && day.getDayOfWeek() != DayOfWeek.SUNDAY) {
+                workingDays.add(day);
+            }
+        }
+
+        long slots = (long) workingDays.size() * SLOTS_PER_DAY;
+        long bookingsPerDoctor = bookingsPerDoctor(0);
+        if (bookingsPerDoctor > slots) {
+            throw new IllegalArgumentException("Each doctor would need " + bookingsPerDoctor + " bookings but only has "
+                    + slots + " slots, use more doctors or fewer bookings");
+        }
+    }
+
+    /**
+     * @param doctor The index of the doctor
+     * @return The number of patients registered with the doctor
+     */
+    private int patientsOf(int doctor) {
+        return patientCount / doctorCount + (doctor < patientCount % doctorCount ? 1 : 0);
+    }
+
+    private long bookingsPerDoctor(int doctor) {
+        return (long) patientsOf(doctor) * bookingsPerYear * years;
+    }
+
+    /**
+     * Generate the whole dataset, one table after the other, as the later tables refer to the earlier ones
+     * @throws Exception if the database could not be written to
+     */
+    public void run() throws Exception {
+        this.firstDoctorID = maxID("doctor", "id_doctor") + 1;
+        this.firstPatientID = maxID("patient", "id_patient") + 1;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        long start = System.nanoTime();
+        try {
+            runPhase(executor, "doctors", List.of(this::insertDoctors));
+
+            List<Callable<Void>> tasks = new ArrayList<>();
+            for (int first = 0; first < patientCount; first += PATIENT_CHUNK) {
+                int from = first;
+                tasks.add(() -> insertPatients(from, Math.min(patientCount, from + PATIENT_CHUNK)));
+            }
+            runPhase(executor, "patients", tasks);
+
+            tasks = new ArrayList<>();
+            for (int doctor = 0; doctor < doctorCount; doctor++) {
+                int index = doctor;
+                tasks.add(() -> insertBookings(index));
+            }
+            for (int first = 0; first < patientCount; first += PATIENT_CHUNK) {
+                int from = first;
+                tasks.add(() -> insertNotificationsAndLogs(from, Math.min(patientCount, from + PATIENT_CHUNK)));
+            }
+            runPhase(executor, "bookings, notifications and logs", tasks);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        long total = rowCounts.values().stream().mapToLong(LongAdder::sum).sum();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%nInserted %d rows in %.1f s (%.0f rows/s)%n", total, seconds, total / seconds);
+        new TreeMap<>(rowCounts).forEach((table, rows) -> System.out.printf("  %-14s %d%n", table, rows.sum()));
+        System.out.printf("Patient emails: gen.%s.<n>@email.com, password: %s%n", runID, PASSWORD);
+    }
+
+    /**
+     * Run the tasks of one phase and wait for all of them
+     */
+    private void runPhase(ExecutorService executor, String name, List<Callable<Void>> tasks) throws Exception {
+        long start = System.nanoTime();
+        System.out.printf("Generating %s (%d tasks)%n", name, tasks.size());
+        for (Future<Void> task : executor.invokeAll(tasks)) {
+            try {
+                task.get();
+            } catch (ExecutionException ex) {
+                throw ex.getCause() instanceof Exception ? (Exception) ex.getCause() : ex;
+            }
+        }
+        System.out.printf("  done in %.1f s%n", (System.nanoTime() - start) / 1e9);
+    }
+
+    private Void insertDoctors() throws SQLException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        try (Connection connection = connectionPool.getConnection();
+             BatchInsert doctors = new BatchInsert(connection, "doctor", "id_doctor", "email", "first_name", "middle_name",
+                     "last_name", "date_of_birth", "gender", "telephone_number")) {
+            for (int i = 0; i < doctorCount; i++) {
+                doctors.add(firstDoctorID + i, "gen.doctor." + runID + "." + i + "@email.com", pick(random, FIRST_NAMES), null,
+                        pick(random, LAST_NAMES), birthDate(random, 30, 65), pick(random, GENDERS), phoneNumber(random));
+            }
+        }
+        try (Connection connection = connectionPool.getConnection();
+             BatchInsert certifications = new BatchInsert(connection, "certification", "id_doctor", "name", "field", "dateObtained")) {
+            for (int i = 0; i < doctorCount; i++) {
+                for (int j = 1 + random.nextInt(3); j > 0; j--) {
+                    certifications.add(firstDoctorID + i, pick(random, DEGREES), pick(random, FIELDS), birthDate(random, 1, 30));
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Hash the passwords of the patients from and to (exclusive), then insert them
+     */
+    private Void insertPatients(int from, int to) throws SQLException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String[] hashes = new String[to - from];
+        for (int i = 0; i < hashes.length; i++) {
+            hashes[i] = BCrypt.hashpw(PASSWORD, BCrypt.gensalt(bcryptRounds));
+        }
+
+        try (Connection connection = connectionPool.getConnection();
+             BatchInsert patients = new BatchInsert(connection, "patient", "id_patient", "email", "password", "first_name",
+                     "middle_name", "last_name", "date_of_birth", "gender", "telephone_number", "id_doctor")) {
+            for (int i = from; i < to; i++) {
+                patients.add(firstPatientID + i, "gen." + runID + "." + i + "@email.com", hashes[i - from], pick(random, FIRST_NAMES),
+                        null, pick(random, LAST_NAMES), birthDate(random, 1, 95), pick(random, GENDERS), phoneNumber(random),
+                        firstDoctorID + i % doctorCount);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Insert the bookings of one doctor. The doctor's patients take turns, and the bookings are spread evenly over
+     * the doctor's slots with at most one booking in each, so no two bookings of the doctor or of a patient clash.
+     */
+    private Void insertBookings(int doctor) throws SQLException {
+        int patients = patientsOf(doctor);
+        long bookings = bookingsPerDoctor(doctor);
+        if (bookings == 0) {
+            return null;
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Randomiser randomiser = new Randomiser();
+        long stride = (long) workingDays.size() * SLOTS_PER_DAY / bookings;
+        try (Connection connection = connectionPool.getConnection();
+             BatchInsert insert = new BatchInsert(connection, "booking", "id_patient", "id_doctor", "booking_time", "timestamp",
+                     "type", "details", "prescription")) {
+            for (long i = 0; i < bookings; i++) {
+                long slot = i * stride + (stride > 1 ? random.nextLong(stride) : 0);
+                LocalDateTime bookingTime = workingDays.get((int) (slot / SLOTS_PER_DAY)).atTime(9, 0)
+                        .plusMinutes(15 * (slot % SLOTS_PER_DAY));
+                LocalDateTime created = bookingTime.minusDays(1 + random.nextInt(30));
+                boolean past = bookingTime.isBefore(now);
+
+                insert.add(
+                        firstPatientID + doctor + (int) (i % patients) * doctorCount,
+                        firstDoctorID + doctor,
+                        Timestamp.valueOf(bookingTime),
+                        Timestamp.valueOf(created.isAfter(now) ? now : created),
+                        pick(random, BOOKING_TYPES),
+                        past ? randomiser.getRandDetails() : null,
+                        past ? randomiser.getRandPrescription() : null
+                );
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Insert the notifications and logs of the patients from and to (exclusive), at random times in the past.
+     * Only notifications from the last 30 days can still be new.
+     */
+    private Void insertNotificationsAndLogs(int from, int to) throws SQLException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long first = Timestamp.valueOf(workingDays.get(0).atStartOfDay()).getTime();
+        long last = Timestamp.valueOf(now).getTime();
+        long recent = Timestamp.valueOf(now.minusDays(30)).getTime();
+
+        try (Connection connection = connectionPool.getConnection();
+             BatchInsert notifications = new BatchInsert(connection, "notification", "id_patient", "header", "message", "timestamp", "is_new");
+             BatchInsert logs = new BatchInsert(connection, "log", "id_patient", "message", "timestamp")) {
+            for (int i = from; i < to; i++) {
+                int patientID = firstPatientID + i;
+                for (int j = 0; j < notificationsPerPatient; j++) {
+                    long time = first + (long) (random.nextDouble() * (last - first));
+                    String header = pick(random, NOTIFICATIONS);
+                    notifications.add(patientID, header, header + " with Dr " + pick(random, LAST_NAMES), new Timestamp(time / 1000 * 1000),
+                            time >= recent && random.nextBoolean());
+                }
+                for (int j = 0; j < logsPerPatient; j++) {
+                    long time = first + (long) (random.nextDouble() * (last - first));
+                    logs.add(patientID, "Patient " + patientID + " " + pick(random, LOGS), new Timestamp(time / 1000 * 1000));
+                }
+            }
+        }
+        return null;
+    }
+
+    private int maxID(String table, String column) throws SQLException {
+        try (Connection connection = connectionPool.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery("SELECT COALESCE(MAX(" + column + "), 0) FROM " + table)) {
+            result.next();
+            return result.getInt(1);
+        }
+    }
+
+    private static String pick(Random random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private java.sql.Date birthDate(Random random, int minAge, int maxAge) {
+        return java.sql.Date.valueOf(now.toLocalDate().minusYears(minAge).minusDays(random.nextInt(365 * (maxAge - minAge) + 1)));
+    }
+
+    private static String phoneNumber(Random random) {
+        return "07" + (100_000_000 + random.nextInt(900_000_000));
+    }
+
+    /**
+     * Inserts rows into one table with multi-row INSERT statements, committing each statement on its own
+     */
+    private class BatchInsert implements AutoCloseable {
+        private final Connection connection;
+        private final String table;
+        private final String[] columns;
+        private final List<Object[]> rows = new ArrayList<>();
+        private PreparedStatement fullBatch;
+
+        private BatchInsert(Connection connection, String table, String... columns) throws SQLException {
+            this.connection = connection;
+            this.table = table;
+            this.columns = columns;
+            connection.setAutoCommit(false);
+        }
+
+        private void add(Object... values) throws SQLException {
+            rows.add(values);
+            if (rows.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        private void flush() throws SQLException {
+            if (rows.isEmpty()) {
+                return;
+            }
+            // The statement for a full batch is prepared once, the last and smaller batch gets its own
+            PreparedStatement statement;
+            if (rows.size() == batchSize) {
+                if (fullBatch == null) {
+                    fullBatch = connection.prepareStatement(insertSQL(batchSize));
+                }
+                statement = fullBatch;
+            } else {
+                statement = connection.prepareStatement(insertSQL(rows.size()));
+            }
+
+            int parameter = 1;
+            for (Object[] row : rows) {
+                for (Object value : row) {
+                    statement.setObject(parameter++, value);
+                }
+            }
+            statement.executeUpdate();
+            connection.commit();
+            if (statement != fullBatch) {
+                statement.close();
+            }
+
+            rowCounts.computeIfAbsent(table, key -> new LongAdder()).add(rows.size());
+            rows.clear();
+        }
+
+        private String insertSQL(int rowCount) {
+            String row = "(" + String.join(", ", Collections.nCopies(columns.length, "?")) + ")";
+            return "INSERT INTO " + table + " (" + String.join(", ", columns) + ") VALUES "
+                    + String.join(", ", Collections.nCopies(rowCount, row));
+        }
+
+        @Override
+        public void close() throws SQLException {
+            flush();
+            if (fullBatch != null) {
+                fullBatch.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.group15A.Benchmarks;
+
+import com.group15A.Utils.DataModification;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the date formatting done for every booking, log and notification shown:
+ * DataModification.fullDate and shortDateTime.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DateFormatBenchmark {
+    private final Timestamp timestamp = Timestamp.valueOf(LocalDateTime.of(2022, 3, 24, 14, 30));
+
+    @Benchmark
+    public String fullDate() {
+        return DataModification.fullDate(timestamp);
+    }
+
+    @Benchmark
+    public String shortDateTime() {
+        return DataModification.shortDateTime(timestamp);
+    }
+}
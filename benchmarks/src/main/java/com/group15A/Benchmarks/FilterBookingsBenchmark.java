@@ -0,0 +1,83 @@
+package com.group15A.Benchmarks;
+
+import com.group15A.BusinessLogic.ViewBookingLogic;
+import com.group15A.DataAccess.DataAccessFactory;
+import com.group15A.DataAccess.InMemoryDataAccess;
+import com.group15A.DataModel.BookingWithDoctor;
+import com.group15A.DataModel.Doctor;
+import com.group15A.DataModel.Patient;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures ViewBookingLogic.filterBookings, and the first page of it the bookings page loads, for a patient
+ * with a large number of bookings, using the in-memory data access so no database is needed.
+ *
+ * Half of the patient's bookings are in the past and half in the future, six hours apart. The filters are
+ * the ones the bookings page offers: every booking, one year, one month of one year, and one month of every year,
+ * the last being picked out of the whole list rather than queried as a range.
+ *
+ * The in-memory data is shared by the whole JVM, so every set of parameters must run in its own fork.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dgp.dataAccess=memory")
+public class FilterBookingsBenchmark {
+    private static final long HOURS_APART = 6;
+
+    @Param({"1000", "10000", "100000"})
+    public int bookings;
+
+    @Param({"all", "year", "month", "monthOfEveryYear"})
+    public String filter;
+
+    @Param({"true", "false"})
+    public boolean pastBookings;
+
+    private ViewBookingLogic viewBookingLogic;
+    private Integer patientID;
+    private String month;
+    private String year;
+
+    @Setup
+    public void setUp() throws Exception {
+        System.setProperty(DataAccessFactory.ENGINE_PROPERTY, DataAccessFactory.MEMORY);
+        InMemoryDataAccess dataAccess = InMemoryDataAccess.getShared();
+
+        Doctor doctor = new Doctor(Integer.MAX_VALUE, "benchmark.doctor@email.com", "Benchmark", null, "Doctor",
+                java.sql.Date.valueOf("1970-01-01"), "Other", "01234567");
+        dataAccess.addDoctor(doctor, List.of());
+        Patient patient = dataAccess.registerPatient(new Patient("benchmark.patient@email.com", "", "Benchmark", null,
+                "Patient", java.sql.Date.valueOf("1990-01-01"), "Other", "01234567"), doctor);
+        this.patientID = patient.getPatientID();
+
+        // Odd minutes, so no booking lands on the same time as a booking from the SQL dump
+        LocalDateTime first = LocalDateTime.now().withSecond(0).withNano(0).withMinute(7).minusHours(HOURS_APART * bookings / 2);
+        for (int i = 0; i < bookings; i++) {
+            dataAccess.createBooking(patient, doctor, Timestamp.valueOf(first.plusHours(HOURS_APART * i)), "Other");
+        }
+
+        this.viewBookingLogic = new ViewBookingLogic();
+        LocalDate today = LocalDate.now();
+        this.month = filter.equals("month") || filter.equals("monthOfEveryYear") ? String.valueOf(today.getMonthValue()) : "Month (All)";
+        this.year = filter.equals("year") || filter.equals("month") ? String.valueOf(today.getYear()) : "Year (All)";
+    }
+
+    @Benchmark
+    public List<BookingWithDoctor> filterBookings() throws Exception {
+        return viewBookingLogic.filterBookings(month, year, patientID, pastBookings);
+    }
+
+    @Benchmark
+    public List<BookingWithDoctor> filterBookingsFirstPage() throws Exception {
+        return viewBookingLogic.filterBookingsPage(month, year, patientID, pastBookings, null, ViewBookingLogic.PAGE_SIZE + 1);
+    }
+}
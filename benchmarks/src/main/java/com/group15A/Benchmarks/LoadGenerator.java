@@ -0,0 +1,417 @@
+package com.group15A.Benchmarks;
+
+import com.group15A.BusinessLogic.*;
+import com.group15A.CustomExceptions.CustomException;
+import com.group15A.DataAccess.CallStatistics;
+import com.group15A.DataAccess.DataAccessFactory;
+import com.group15A.DataAccess.Histogram;
+import com.group15A.DataModel.BookingWithDoctor;
+import com.group15A.DataModel.Doctor;
+import com.group15A.DataModel.Patient;
+import com.group15A.Utils.ErrorCode;
+
+import java.io.File;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Drives the business layer with many simulated patients at once, to find out how many patients
+ * one database behind the application can serve.
+ *
+ * Every simulated patient is registered first, then logs in and keeps picking an operation from the scenario mix,
+ * waiting a random think time between two operations. The patients are tasks on a pool of platform threads
+ * (the project targets Java 16, which has no virtual threads), so thousands of patients share a few dozen threads,
+ * and a patient thinking holds no thread at all.
+ *
+ * At the end it prints, for each operation, the throughput and the p50/p99/p99.9 latency, followed by the errors
+ * broken down by ErrorCode. Against MySQL it also prints the slowest stored procedures.
+ *
+ * Arguments are key=value pairs, all optional:
+ *   engine=mysql|memory    the local MySQL database (default) or the in-memory stand-in
+ *   patients=1000          the number of simulated patients
+ *   threads=64             the number of threads running them
+ *   seconds=60             how long to run after the patients are registered
+ *   thinkMs=500            the longest think time, the actual one is random between 0 and this
+ *   mix=login:5,register:2,book:15,reschedule:5,filter:40,notifications:33
+ *                          the relative weight of each operation
+ * e.g. engine=memory patients=5000 threads=32 seconds=30 mix=filter:80,notifications:20
+ *
+ * Against MySQL, the patients and bookings it creates are left in the database.
+ */
+public class LoadGenerator {
+    private static final String DEFAULT_MIX = "login:5,register:2,book:15,reschedule:5,filter:40,notifications:33";
+    private static final String PASSWORD = "Password1*";
+    private static final String[] BOOKING_MINUTES = {"00", "15", "30", "45"};
+
+    /**
+     * The operations a simulated patient can do
+     */
+    enum Operation {
+        LOGIN, REGISTER, BOOK, RESCHEDULE, FILTER, NOTIFICATIONS
+    }
+
+    private final int patientCount;
+    private final int threadCount;
+    private final long runNanos;
+    private final int thinkMs;
+    private final Operation[] mix;
+
+    private final String runID = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicInteger registered = new AtomicInteger();
+    private final Map<Operation, Histogram> latencies = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> skipped = new EnumMap<>(Operation.class);
+    private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+
+    private LogInLogic logInLogic;
+    private RegisterLogic registerLogic;
+    private AddBookingLogic addBookingLogic;
+    private ViewBookingLogic viewBookingLogic;
+    private HomeLogic homeLogic;
+    private List<Doctor> doctors;
+
+    private ScheduledExecutorService executor;
+    private volatile long endTime;
+
+    /**
+     * One simulated patient. Only ever used by one thread at a time, as its next operation is scheduled
+     * once the previous one has finished.
+     */
+    private static class SimulatedPatient {
+        private final String email;
+        private Patient patient;
+
+        private SimulatedPatient(String email) {
+            this.email = email;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            String[] pair = arg.split("=", 2);
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Arguments are key=value pairs, not " + arg);
+            }
+            options.put(pair[0], pair[1]);
+        }
+
+        System.setProperty(DataAccessFactory.ENGINE_PROPERTY, options.getOrDefault("engine", DataAccessFactory.MYSQL));
+        // Every login saves a session, which must not replace the session of whoever uses the application
+        File sessionFile = File.createTempFile("load-generator", ".session");
+        sessionFile.deleteOnExit();
+        System.setProperty("gp.sessionFile", sessionFile.getPath());
+
+        LoadGenerator generator = new LoadGenerator(
+                Integer.parseInt(options.getOrDefault("patients", "1000")),
+                Integer.parseInt(options.getOrDefault("threads", "64")),
+                Integer.parseInt(options.getOrDefault("seconds", "60")),
+                Integer.parseInt(options.getOrDefault("thinkMs", "500")),
+                options.getOrDefault("mix", DEFAULT_MIX)
+        );
+        generator.run();
+    }
+
+    /**
+     * Constructor for the load generator
+     * @param patientCount The number of simulated patients
+     * @param threadCount The number of threads running them
+     * @param seconds How long to run for
+     * @param thinkMs The longest time a patient waits between two operations
+     * @param mix The weight of each operation, e.g. "login:5,filter:95"
+     */
+    public LoadGenerator(int patientCount, int threadCount, int seconds, int thinkMs, String mix) {
+        this.patientCount = patientCount;
+        this.threadCount = threadCount;
+        this.runNanos = TimeUnit.SECONDS.toNanos(seconds);
+        this.thinkMs = Math.max(0, thinkMs);
+        this.mix = parseMix(mix);
+
+        for (Operation operation : Operation.values()) {
+            latencies.put(operation, new Histogram());
+            skipped.put(operation, new LongAdder());
+        }
+    }
+
+    /**
+     * Turn the scenario mix into a table with one entry per unit of weight, so picking a random entry
+     * picks each operation with the probability of its weight
+     */
+    private static Operation[] parseMix(String mix) {
+        List<Operation> table = new ArrayList<>();
+        for (String part : mix.split(",")) {
+            String[] pair = part.trim().split(":");
+            Operation operation = Operation.valueOf(pair[0].trim().toUpperCase());
+            int weight = pair.length > 1 ? Integer.parseInt(pair[1].trim()) : 1;
+            for (int i = 0; i < weight; i++) {
+                table.add(operation);
+            }
+        }
+        if (table.isEmpty()) {
+            throw new IllegalArgumentException("The scenario mix has no operations: " + mix);
+        }
+        return table.toArray(new Operation[0]);
+    }
+
+    /**
+     * Register the patients, run the scenario for the configured time and print the report
+     * @throws Exception if the business layer could not be set up
+     */
+    public void run() throws Exception {
+        this.logInLogic = new LogInLogic();
+        this.registerLogic = new RegisterLogic();
+        this.addBookingLogic = new AddBookingLogic();
+        this.viewBookingLogic = new ViewBookingLogic();
+        this.homeLogic = new HomeLogic();
+        this.doctors = new DoctorLogic().getDoctors();
+        if (doctors.isEmpty()) {
+            throw new IllegalStateException("There are no doctors to register the patients with");
+        }
+
+        this.executor = Executors.newScheduledThreadPool(threadCount, new ThreadFactory() {
+            private final AtomicInteger created = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "simulated-patients-" + created.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+
+        List<SimulatedPatient> patients = registerPatients();
+        resetStatistics();
+
+        System.out.printf("Running %d patients on %d threads for %d s%n", patients.size(), threadCount, TimeUnit.NANOSECONDS.toSeconds(runNanos));
+        long start = System.nanoTime();
+        this.endTime = start + runNanos;
+        for (SimulatedPatient patient : patients) {
+            // Spread the first operations over one think time, so the patients do not all start at once
+            scheduleNext(patient);
+        }
+
+        TimeUnit.NANOSECONDS.sleep(endTime - System.nanoTime());
+        executor.shutdown();
+        if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+            System.err.println("Some operations were still running after 30 s");
+            executor.shutdownNow();
+        }
+        printReport(System.nanoTime() - start);
+    }
+
+    /**
+     * Register every simulated patient, in parallel on the pool
+     * @return The patients that were registered
+     */
+    private List<SimulatedPatient> registerPatients() throws InterruptedException {
+        System.out.printf("Registering %d patients%n", patientCount);
+        List<Callable<SimulatedPatient>> registrations = new ArrayList<>();
+        for (int i = 0; i < patientCount; i++) {
+            registrations.add(() -> {
+                SimulatedPatient patient = new SimulatedPatient(newEmail());
+                register(patient.email);
+                return patient;
+            });
+        }
+
+        List<SimulatedPatient> patients = new ArrayList<>();
+        for (Future<SimulatedPatient> registration : executor.invokeAll(registrations)) {
+            try {
+                patients.add(registration.get());
+            } catch (ExecutionException ex) {
+                countError(Operation.REGISTER, ex.getCause());
+            }
+        }
+        if (patients.isEmpty()) {
+            printErrors();
+            throw new IllegalStateException("No patient could be registered");
+        }
+        return patients;
+    }
+
+    private String newEmail() {
+        return "load." + runID + "." + registered.incrementAndGet() + "@email.com";
+    }
+
+    private Patient register(String email) throws CustomException {
+        Doctor doctor = doctors.get(ThreadLocalRandom.current().nextInt(doctors.size()));
+        return registerLogic.register("Load", "", "Patient", "1990-01-01", "Other", "0123456789",
+                email, email, PASSWORD, PASSWORD, doctor);
+    }
+
+    /**
+     * Run the patient's next operation after a random think time, unless the run is over
+     */
+    private void scheduleNext(SimulatedPatient patient) {
+        long delay = thinkMs == 0 ? 0 : ThreadLocalRandom.current().nextLong(thinkMs);
+        if (System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay) >= endTime) {
+            return;
+        }
+        try {
+            executor.schedule(() -> {
+                runOperation(patient);
+                scheduleNext(patient);
+            }, delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException ex) {
+            // The run is being shut down
+        }
+    }
+
+    /**
+     * Pick an operation from the mix and run it as the given patient, logging them in first if needed
+     */
+    private void runOperation(SimulatedPatient patient) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Operation operation = patient.patient == null ? Operation.LOGIN : mix[random.nextInt(mix.length)];
+        BookingWithDoctor booking = null;
+        try {
+            if (operation == Operation.RESCHEDULE) {
+                // Finding the booking is not part of the measured operation
+                List<BookingWithDoctor> bookings = viewBookingLogic.getBookings(patient.patient.getPatientID(), false);
+                if (bookings.isEmpty()) {
+                    skipped.get(operation).increment();
+                    return;
+                }
+                booking = bookings.get(random.nextInt(bookings.size()));
+            }
+        } catch (Exception ex) {
+            countError(operation, ex);
+            return;
+        }
+
+        long start = System.nanoTime();
+        try {
+            perform(operation, patient, booking);
+        } catch (Exception ex) {
+            countError(operation, ex);
+        } finally {
+            latencies.get(operation).record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+        }
+    }
+
+    /**
+     * Run one operation
+     * @param booking The booking to reschedule, if the operation is RESCHEDULE
+     */
+    private void perform(Operation operation, SimulatedPatient patient, BookingWithDoctor booking) throws Exception {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        switch (operation) {
+            case LOGIN:
+                int patientID = logInLogic.login(patient.email, PASSWORD, false).getLoggedInPatientID();
+                patient.patient = homeLogic.getPatient(patientID);
+                break;
+            case REGISTER:
+                register(newEmail());
+                break;
+            case BOOK:
+                addBookingLogic.createNewBooking(randomFutureDate(), randomHour(), randomMinute(), "Routine Checkup",
+                        patient.patient.getPatientID());
+                break;
+            case RESCHEDULE:
+                addBookingLogic.rescheduleBooking(randomFutureDate(), randomHour(), randomMinute(), booking.getType(),
+                        patient.patient.getPatientID(), booking);
+                break;
+            case FILTER:
+                boolean allMonths = random.nextBoolean();
+                String month = allMonths ? "Month (All)" : Integer.toString(random.nextInt(1, 13));
+                String year = !allMonths && random.nextBoolean() ? "Year (All)" : Integer.toString(LocalDate.now().getYear());
+                viewBookingLogic.filterBookingsPage(month, year, patient.patient.getPatientID(), random.nextBoolean(),
+                        null, ViewBookingLogic.PAGE_SIZE + 1);
+                break;
+            case NOTIFICATIONS:
+                homeLogic.getNotifications(patient.patient);
+                break;
+        }
+    }
+
+    private static String randomFutureDate() {
+        return LocalDate.now().plusDays(ThreadLocalRandom.current().nextInt(1, 366)).toString();
+    }
+
+    private static String randomHour() {
+        return String.format("%02d", ThreadLocalRandom.current().nextInt(9, 17));
+    }
+
+    private static String randomMinute() {
+        return BOOKING_MINUTES[ThreadLocalRandom.current().nextInt(BOOKING_MINUTES.length)];
+    }
+
+    /**
+     * Count a failed operation under each of its error codes, or under the exception's name if it has none
+     */
+    private void countError(Operation operation, Throwable ex) {
+        List<String> causes = new ArrayList<>();
+        if (ex instanceof CustomException) {
+            for (ErrorCode code : ((CustomException) ex).getErrorList()) {
+                if (code != null) {
+                    causes.add(code.name());
+                }
+            }
+        }
+        if (causes.isEmpty()) {
+            causes.add(ex.getClass().getSimpleName());
+        }
+        for (String cause : causes) {
+            errors.computeIfAbsent(operation + " " + cause, key -> new LongAdder()).increment();
+        }
+    }
+
+    private long errorCount(Operation operation) {
+        return errors.entrySet().stream()
+                .filter(entry -> entry.getKey().startsWith(operation + " "))
+                .mapToLong(entry -> entry.getValue().sum())
+                .sum();
+    }
+
+    /**
+     * Forget what was measured while registering the patients
+     */
+    private void resetStatistics() {
+        latencies.values().forEach(Histogram::reset);
+        skipped.values().forEach(LongAdder::reset);
+        errors.clear();
+        CallStatistics.getInstance().reset();
+    }
+
+    private void printReport(long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        System.out.printf("%nFinished in %.1f s%n", seconds);
+        System.out.printf("%-14s %10s %10s %10s %10s %10s %10s %8s %8s%n",
+                "operation", "count", "ops/s", "p50_ms", "p99_ms", "p999_ms", "max_ms", "errors", "skipped");
+        for (Operation operation : Operation.values()) {
+            Histogram histogram = latencies.get(operation);
+            System.out.printf("%-14s %10d %10.1f %10.2f %10.2f %10.2f %10.2f %8d %8d%n",
+                    operation.name().toLowerCase(),
+                    histogram.getCount(),
+                    histogram.getCount() / seconds,
+                    histogram.getPercentile(50) / 1e3,
+                    histogram.getPercentile(99) / 1e3,
+                    histogram.getPercentile(99.9) / 1e3,
+                    histogram.getMax() / 1e3,
+                    errorCount(operation),
+                    skipped.get(operation).sum()
+            );
+        }
+        printErrors();
+
+        CallStatistics statistics = CallStatistics.getInstance();
+        if (statistics.getTotalCalls() > 0) {
+            System.out.println("\nSlowest stored procedures:");
+            for (String procedure : statistics.getSlowestProcedures()) {
+                System.out.println("  " + procedure);
+            }
+        }
+    }
+
+    private void printErrors() {
+        if (errors.isEmpty()) {
+            return;
+        }
+        System.out.println("\nErrors:");
+        errors.entrySet().stream()
+                .sorted(Map.Entry.<String, LongAdder>comparingByValue(Comparator.comparingLong(LongAdder::sum)).reversed())
+                .forEach(entry -> System.out.printf("  %-50s %d%n", entry.getKey(), entry.getValue().sum()));
+    }
+}
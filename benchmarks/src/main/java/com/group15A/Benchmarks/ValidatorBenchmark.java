@@ -0,0 +1,51 @@
+package com.group15A.Benchmarks;
+
+import com.group15A.Utils.ErrorCode;
+import com.group15A.Validator.Validator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the validation run on every registration and profile edit:
+ * Validator.verifyPassword, verifyEmail and verifyDate, for valid and invalid input.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidatorBenchmark {
+    @Param({"valid", "invalid"})
+    public String input;
+
+    private Validator validator;
+    private String password;
+    private String email;
+    private String date;
+
+    @Setup
+    public void setUp() {
+        this.validator = new Validator();
+        boolean valid = input.equals("valid");
+        this.password = valid ? "Password1*" : "password";
+        this.email = valid ? "dneal@email.com" : "dneal@email";
+        this.date = valid ? "1990-02-28" : "1990-02-30";
+    }
+
+    @Benchmark
+    public ErrorCode verifyPassword() {
+        return validator.verifyPassword(password);
+    }
+
+    @Benchmark
+    public ErrorCode verifyEmail() {
+        return validator.verifyEmail(email);
+    }
+
+    @Benchmark
+    public ErrorCode verifyDate() {
+        return validator.verifyDate(date);
+    }
+}
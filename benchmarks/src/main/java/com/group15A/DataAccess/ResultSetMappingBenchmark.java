@@ -0,0 +1,81 @@
+package com.group15A.DataAccess;
+
+import com.group15A.DataModel.Booking;
+import com.group15A.DataModel.Log;
+import com.group15A.DataModel.Notification;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures turning query results into entities, in DataAccess.getBookingsFromDB, getLogsFromDB and
+ * getNotificationsFromDB, for result sets of different sizes held in memory.
+ *
+ * It is in the DataAccess package because the mapping methods are package-private.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResultSetMappingBenchmark {
+    @Param({"10", "200", "10000"})
+    public int rows;
+
+    private final List<Map<String, Object>> bookingRows = new ArrayList<>();
+    private final List<Map<String, Object>> logRows = new ArrayList<>();
+    private final List<Map<String, Object>> notificationRows = new ArrayList<>();
+
+    @Setup
+    public void setUp() {
+        long start = Timestamp.valueOf("2022-03-24 09:00:00").getTime();
+        for (int i = 0; i < rows; i++) {
+            Timestamp timestamp = new Timestamp(start + TimeUnit.MINUTES.toMillis(15L * i));
+            bookingRows.add(Map.of(
+                    "id_booking", i + 1,
+                    "id_doctor", i % 10 + 1,
+                    "id_patient", i % 50 + 1,
+                    "booking_time", timestamp,
+                    "timestamp", timestamp,
+                    "type", "Check-up",
+                    "details", "Booking details " + i,
+                    "prescription", "Prescription " + i
+            ));
+            logRows.add(Map.of(
+                    "id_log", i + 1,
+                    "message", "Booked an appointment " + i,
+                    "id_patient", i % 50 + 1,
+                    "timestamp", timestamp
+            ));
+            notificationRows.add(Map.of(
+                    "id_notif", i + 1,
+                    "id_patient", i % 50 + 1,
+                    "header", "Booking confirmed",
+                    "message", "Your booking " + i + " has been confirmed",
+                    "timestamp", timestamp,
+                    "is_new", i % 2 == 0
+            ));
+        }
+    }
+
+    @Benchmark
+    public List<Booking> getBookingsFromDB() throws SQLException {
+        return DataAccess.getBookingsFromDB(SyntheticResultSet.of(bookingRows));
+    }
+
+    @Benchmark
+    public List<Log> getLogsFromDB() throws SQLException {
+        return DataAccess.getLogsFromDB(SyntheticResultSet.of(logRows));
+    }
+
+    @Benchmark
+    public List<Notification> getNotificationsFromDB() throws SQLException {
+        return DataAccess.getNotificationsFromDB(SyntheticResultSet.of(notificationRows));
+    }
+}
@@ -0,0 +1,50 @@
+package com.group15A.DataAccess;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A ResultSet over rows held in memory, so the mapping from result sets to entities can be measured without a database.
+ *
+ * Only the getters the DataAccess mapping uses are supported (next, getInt, getString, getTimestamp and getBoolean
+ * by column name). It is a proxy, so every call costs a little more than it would on a driver's result set, but
+ * the cost is the same from one release to the next.
+ */
+class SyntheticResultSet {
+    private SyntheticResultSet() {
+    }
+
+    /**
+     * @param rows The rows, each mapping a column name to its value
+     * @return A result set positioned before the first of the rows
+     */
+    static ResultSet of(List<Map<String, Object>> rows) {
+        int[] current = {-1};
+        return (ResultSet) Proxy.newProxyInstance(
+                ResultSet.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "next":
+                            return ++current[0] < rows.size();
+                        case "getInt":
+                            Object number = rows.get(current[0]).get((String) args[0]);
+                            return number == null ? 0 : ((Number) number).intValue();
+                        case "getBoolean":
+                            return Boolean.TRUE.equals(rows.get(current[0]).get((String) args[0]));
+                        case "getString":
+                            return (String) rows.get(current[0]).get((String) args[0]);
+                        case "getTimestamp":
+                            return (Timestamp) rows.get(current[0]).get((String) args[0]);
+                        case "close":
+                            return null;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                }
+        );
+    }
+}
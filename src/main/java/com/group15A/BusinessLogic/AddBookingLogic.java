@@ -1,7 +1,8 @@
 package com.group15A.BusinessLogic;
 
 import com.group15A.CustomExceptions.*;
-import com.group15A.DataAccess.DataAccess;
+import com.group15A.DataAccess.DataAccessFactory;
+import com.group15A.DataAccess.IDataAccess;
 import com.group15A.DataModel.Booking;
 import com.group15A.DataModel.Doctor;
 import com.group15A.DataModel.Patient;
@@ -10,6 +11,7 @@ import com.group15A.Utils.ErrorCode;
 import com.group15A.Validator.Validator;
 
 import java.sql.Timestamp;
+import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
 
@@ -20,7 +22,8 @@ import java.util.List;
  */
 public class AddBookingLogic implements IAddBooking {
     private final Validator validator;
-    private final DataAccess dataAccessLayer;
+    private final IDataAccess dataAccessLayer;
+    private final AvailabilityLogic availabilityLogic;
 
     /**
      * Constructor for the add booking logic
@@ -28,7 +31,8 @@ public class AddBookingLogic implements IAddBooking {
      */
     public AddBookingLogic() throws DatabaseException {
         this.validator = new Validator();
-        this.dataAccessLayer = new DataAccess();
+        this.dataAccessLayer = DataAccessFactory.create();
+        this.availabilityLogic = new AvailabilityLogic();
     }
 
     /**
@@ -39,6 +43,7 @@ public class AddBookingLogic implements IAddBooking {
      * @param minute the minute the booking starts
      * @param patientID which patient the booking relates to
      * @throws CustomException If any issues connecting to the database or creating the new booking
+     * @throws ExistingBookingException If the patient or their doctor already has a booking at that time
      */
     @Override
     public void createNewBooking(String date, String hour, String minute, String type, Integer patientID) throws CustomException {
@@ -52,21 +57,18 @@ public class AddBookingLogic implements IAddBooking {
         Patient patient = this.dataAccessLayer.getPatient(patientID);
         Doctor doctor = this.getPatientDoctor(patient);
         Timestamp bookingDateTime = Timestamp.valueOf(timestamp);
-        // Checks if booking is unique
-        this.isNewBooking(bookingDateTime, patient);
 
-        Booking newBooking = this.dataAccessLayer.createBooking(
+        // The booking, its notification on the home panel and the log of the scheduling are saved in one transaction.
+        // The database rejects a booking that clashes with one of the patient's or the doctor's bookings
+        this.dataAccessLayer.createBooking(
                 patient,
                 doctor,
                 bookingDateTime,
-                type
+                type,
+                "Created New Booking",
+                "Created a booking on "+ DataModification.fullDate(bookingDateTime)+" with Dr "+doctor.getFullName(),
+                "Patient "+patient.getFirstName()+" "+patient.getLastName()+" has scheduled a booking with Dr. " + doctor.getLastName() + " on " + DataModification.shortDateTime(bookingDateTime)
         );
-
-        // Show a new notification that the booking has been made to the user on the home panel
-        this.dataAccessLayer.createNotification(patient, "Created New Booking", "Created a booking on "+ DataModification.fullDate(bookingDateTime)+" with Dr "+doctor.getFullName());
-
-        // Create a log to register the scheduling of a booking
-        this.dataAccessLayer.createLog(patient, "Patient "+patient.getFirstName()+" "+patient.getLastName()+" has scheduled a booking with Dr. " + dataAccessLayer.getDoctor(patient).getLastName() + " on " + DataModification.shortDateTime(newBooking.getBookingTime()));
     }
 
     /**
@@ -96,38 +98,6 @@ public class AddBookingLogic implements IAddBooking {
         }
     }
 
-    /**
-     * Checks if the patient hasn't already made the booking
-     * @param bookingDateTime the booking time
-     * @param patient the patient object
-     * @throws CustomException if booking is not unique
-     */
-    private void isNewBooking(Timestamp bookingDateTime, Patient patient) throws CustomException {
-        // Finally, check if booking with the same time had already been made
-        if (!this.verifyBookingIsNew(bookingDateTime, patient)) {
-            throw new ExistingBookingException();
-        }
-    }
-
-    /**
-     * Used by isNewBooking to check against all patient bookings for no matching booking
-     * @param bookingTime the booking to be checked
-     * @param patient
-     * @return true or false if booking is unique or not
-     * @throws CustomException if issues with getBookings from the DAL
-     */
-    private Boolean verifyBookingIsNew(Timestamp bookingTime, Patient patient) throws CustomException {
-        List<Booking> allPatientBookings = this.dataAccessLayer.getBookings(patient);
-
-        for (Booking b : allPatientBookings) {
-            if (b.getBookingTime().equals(bookingTime)) {
-                return false;
-            }
-        }
-
-        return true;
-    }
-
     /**
      * Checks if date + hour + minute is in the format: yyyy-mm-dd hh:mm:ss
      * @param hour
@@ -153,6 +123,7 @@ public class AddBookingLogic implements IAddBooking {
      * @param patientID
      * @param booking booking to be edited and then updated in the database
      * @throws CustomException If any issues connecting to the database or updating the booking
+     * @throws ExistingBookingException If the patient or their doctor already has a booking at that time
      */
     @Override
     public void rescheduleBooking(String date, String hour, String minute, String type, Integer patientID, Booking booking) throws CustomException {
@@ -167,18 +138,15 @@ public class AddBookingLogic implements IAddBooking {
         this.isImpossibleBooking(booking.getBookingTime().toString());
         Patient patient = this.dataAccessLayer.getPatient(patientID);
         Doctor doctor = this.getPatientDoctor(patient);
-        this.isNewBooking(booking.getBookingTime(), patient);
 
-        booking = this.dataAccessLayer.updateBooking(booking);
-        this.dataAccessLayer.createNotification(
-                patient,
+        // The booking, its notification and the log of the rescheduling are saved in one transaction
+        this.dataAccessLayer.updateBooking(
+                booking,
                 "Rescheduled Booking",
                 "Changed booking with Dr "+doctor.getFullName()+", from "+oldBookingTimestamp+
-                        " to "+DataModification.fullDate(booking.getBookingTime())
+                        " to "+DataModification.fullDate(booking.getBookingTime()),
+                "Patient "+patient.getFirstName()+" "+patient.getLastName()+" has rescheduled a booking with Dr. " + doctor.getLastName() + " from " + DataModification.shortDateTime(oldBookingTime) + " to " + DataModification.shortDateTime(booking.getBookingTime())
         );
-
-        // Create a log to register the rescheduling of a booking
-        this.dataAccessLayer.createLog(patient, "Patient "+patient.getFirstName()+" "+patient.getLastName()+" has rescheduled a booking with Dr. " + dataAccessLayer.getDoctor(patient).getLastName() + " from " + DataModification.shortDateTime(oldBookingTime) + " to " + DataModification.shortDateTime(booking.getBookingTime()));
     }
 
     /**
@@ -196,6 +164,18 @@ public class AddBookingLogic implements IAddBooking {
         return this.dataAccessLayer.getDoctor(patient);
     }
 
+    /**
+     * Gets the next free slots of the patient's doctor, so the patient can pick a time that is not taken
+     * @param patient
+     * @param count the number of slots to get
+     * @return the start times of the free slots, soonest first
+     * @throws CustomException if issues getting the doctor or their bookings
+     */
+    @Override
+    public List<LocalDateTime> getNextFreeSlots(Patient patient, int count) throws CustomException {
+        return this.availabilityLogic.findFreeSlots(this.getPatientDoctor(patient), LocalDateTime.now(), count);
+    }
+
     /**
      * Get the patient from the integer id
      * @param patientID
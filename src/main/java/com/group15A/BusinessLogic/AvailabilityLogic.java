@@ -0,0 +1,108 @@
+package com.group15A.BusinessLogic;
+
+import com.group15A.CustomExceptions.CustomException;
+import com.group15A.CustomExceptions.DatabaseException;
+import com.group15A.DataAccess.DataAccessFactory;
+import com.group15A.DataAccess.IDataAccess;
+import com.group15A.DataModel.Booking;
+import com.group15A.DataModel.Doctor;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Contains backend functionality for finding the free booking slots of doctors
+ */
+public class AvailabilityLogic implements IAvailability {
+    private final IDataAccess dataAccessLayer;
+
+    private static final int SEARCH_DAYS = 28;
+    private static final int MAX_SEARCH_DAYS = 366;
+
+    /**
+     * Constructor for the availability logic
+     * @throws DatabaseException if issues connecting to the database
+     */
+    public AvailabilityLogic() throws DatabaseException {
+        this.dataAccessLayer = DataAccessFactory.create();
+    }
+
+    /**
+     * Gets the booked and free slots of a doctor, loading the doctor's bookings in the range with one query
+     * @param doctor
+     * @param firstDay the first day of the range
+     * @param lastDay the last day of the range, inclusive
+     * @return the doctor's availability over the range
+     * @throws CustomException if issues getting the doctor's bookings
+     */
+    @Override
+    public DoctorAvailability getAvailability(Doctor doctor, LocalDate firstDay, LocalDate lastDay) throws CustomException {
+        return DoctorAvailability.fromBookings(
+                doctor.getDoctorID(),
+                firstDay,
+                lastDay,
+                this.dataAccessLayer.getBookings(
+                        doctor,
+                        Timestamp.valueOf(firstDay.atStartOfDay()),
+                        Timestamp.valueOf(lastDay.plusDays(1).atStartOfDay())
+                )
+        );
+    }
+
+    /**
+     * Gets the booked and free slots of each of the given doctors, loading all of their bookings in the range with one query
+     * @param doctors
+     * @param firstDay the first day of the range
+     * @param lastDay the last day of the range, inclusive
+     * @return the availability of each doctor, by doctor id
+     * @throws CustomException if issues getting the doctors' bookings
+     */
+    @Override
+    public Map<Integer, DoctorAvailability> getAvailability(List<Doctor> doctors, LocalDate firstDay, LocalDate lastDay) throws CustomException {
+        Map<Integer, List<Booking>> bookingsByDoctor = new HashMap<>();
+        for (Doctor d : doctors) {
+            bookingsByDoctor.put(d.getDoctorID(), new ArrayList<>());
+        }
+        List<Booking> bookings = this.dataAccessLayer.getBookings(
+                doctors,
+                Timestamp.valueOf(firstDay.atStartOfDay()),
+                Timestamp.valueOf(lastDay.plusDays(1).atStartOfDay())
+        );
+        for (Booking b : bookings) {
+            bookingsByDoctor.get(b.getDoctorID()).add(b);
+        }
+
+        Map<Integer, DoctorAvailability> availability = new HashMap<>();
+        for (Map.Entry<Integer, List<Booking>> e : bookingsByDoctor.entrySet()) {
+            availability.put(e.getKey(), DoctorAvailability.fromBookings(e.getKey(), firstDay, lastDay, e.getValue()));
+        }
+        return availability;
+    }
+
+    /**
+     * Finds the doctor's first free slots at or after the given time.
+     * The search starts with the next four weeks and doubles the range, up to a year, until enough slots are found.
+     * @param doctor
+     * @param from the earliest time to consider
+     * @param count the number of slots to find
+     * @return the start times of the free slots, in order, fewer than count if the year ahead is booked up
+     * @throws CustomException if issues getting the doctor's bookings
+     */
+    @Override
+    public List<LocalDateTime> findFreeSlots(Doctor doctor, LocalDateTime from, int count) throws CustomException {
+        int days = SEARCH_DAYS;
+        while (true) {
+            DoctorAvailability availability = this.getAvailability(doctor, from.toLocalDate(), from.toLocalDate().plusDays(days - 1));
+            List<LocalDateTime> freeSlots = availability.nextFreeSlots(from, count);
+            if (freeSlots.size() == count || days >= MAX_SEARCH_DAYS) {
+                return freeSlots;
+            }
+            days = Math.min(MAX_SEARCH_DAYS, days * 2);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.group15A.BusinessLogic;
+
+import com.group15A.DataModel.Booking;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The booked and free booking slots of one doctor over a range of days.
+ *
+ * A working day runs from 9:00 to 17:55 in 5 minute slots, the times that can be picked in the AddBookingPanel,
+ * which is 108 slots. Every day is kept as a bitset in two longs, slots 0-63 in the first and slots 64-107 in the
+ * second, with a bit set for every booked slot, so finding free slots only takes bit operations.
+ */
+public class DoctorAvailability {
+    public static final LocalTime DAY_START = LocalTime.of(9, 0);
+    public static final int SLOT_MINUTES = 5;
+    public static final int SLOTS_PER_DAY = 108;
+
+    private static final long SECOND_WORD_MASK = (1L << (SLOTS_PER_DAY - 64)) - 1;
+
+    private final Integer doctorID;
+    private final LocalDate firstDay;
+    private final int dayCount;
+    private final long[] bookedSlots;
+
+    /**
+     * Constructor for the availability of a doctor, with every slot free
+     * @param doctorID the doctor's id
+     * @param firstDay the first day of the range
+     * @param lastDay the last day of the range, inclusive
+     */
+    public DoctorAvailability(Integer doctorID, LocalDate firstDay, LocalDate lastDay) {
+        if (lastDay.isBefore(firstDay)) {
+            throw new IllegalArgumentException("The last day is before the first day");
+        }
+        this.doctorID = doctorID;
+        this.firstDay = firstDay;
+        this.dayCount = (int) ChronoUnit.DAYS.between(firstDay, lastDay) + 1;
+        this.bookedSlots = new long[2 * dayCount];
+    }
+
+    /**
+     * Build the availability of a doctor from their bookings
+     * @param doctorID the doctor's id
+     * @param firstDay the first day of the range
+     * @param lastDay the last day of the range, inclusive
+     * @param bookings the doctor's bookings, the ones outside the range are ignored
+     * @return the doctor's availability
+     */
+    public static DoctorAvailability fromBookings(Integer doctorID, LocalDate firstDay, LocalDate lastDay, List<Booking> bookings) {
+        DoctorAvailability availability = new DoctorAvailability(doctorID, firstDay, lastDay);
+        for (Booking b : bookings) {
+            availability.markBooked(b.getBookingTime().toLocalDateTime());
+        }
+        return availability;
+    }
+
+    /**
+     * @param time a time of day
+     * @return the slot the time falls in, or -1 if it is outside the working day
+     */
+    public static int slotOf(LocalTime time) {
+        if (time.isBefore(DAY_START)) {
+            return -1;
+        }
+        int minutes = (int) ChronoUnit.MINUTES.between(DAY_START, time);
+        if (minutes >= SLOTS_PER_DAY * SLOT_MINUTES) {
+            return -1;
+        }
+        return minutes / SLOT_MINUTES;
+    }
+
+    /**
+     * @param slot a slot of the working day
+     * @return the time the slot starts at
+     */
+    public static LocalTime timeOf(int slot) {
+        return DAY_START.plusMinutes((long) slot * SLOT_MINUTES);
+    }
+
+    /**
+     * Mark the slot at the given time as booked. Times outside the range or the working day are ignored.
+     * @param time the booking time
+     */
+    public void markBooked(LocalDateTime time) {
+        int day = dayIndex(time.toLocalDate());
+        int slot = slotOf(time.toLocalTime());
+        if (day < 0 || slot < 0) {
+            return;
+        }
+        bookedSlots[2 * day + slot / 64] |= 1L << (slot % 64);
+    }
+
+    /**
+     * @param time a booking time
+     * @return true if the time is within the range and the working day and its slot is not booked
+     */
+    public boolean isFree(LocalDateTime time) {
+        int day = dayIndex(time.toLocalDate());
+        int slot = slotOf(time.toLocalTime());
+        if (day < 0 || slot < 0) {
+            return false;
+        }
+        return (bookedSlots[2 * day + slot / 64] & (1L << (slot % 64))) == 0;
+    }
+
+    /**
+     * @param day a day within the range
+     * @return the number of free slots on that day, 0 for a day outside the range
+     */
+    public int countFreeSlots(LocalDate day) {
+        int index = dayIndex(day);
+        if (index < 0) {
+            return 0;
+        }
+        return Long.bitCount(~bookedSlots[2 * index]) + Long.bitCount(~bookedSlots[2 * index + 1] & SECOND_WORD_MASK);
+    }
+
+    /**
+     * Find the first free slots starting at or after the given time, in order
+     * @param from the earliest time to consider
+     * @param count the maximum number of slots to find
+     * @return the start times of the free slots, fewer than count if the range runs out
+     */
+    public List<LocalDateTime> nextFreeSlots(LocalDateTime from, int count) {
+        List<LocalDateTime> freeSlots = new ArrayList<>(Math.max(0, Math.min(count, SLOTS_PER_DAY)));
+        if (count <= 0) {
+            return freeSlots;
+        }
+
+        int day = (int) ChronoUnit.DAYS.between(firstDay, from.toLocalDate());
+        int firstSlot = 0;
+        if (day < 0) {
+            day = 0;
+        } else if (from.toLocalTime().isAfter(DAY_START)) {
+            // Round the time up to the next slot boundary
+            long nanos = ChronoUnit.NANOS.between(DAY_START, from.toLocalTime());
+            long slotNanos = TimeUnit.MINUTES.toNanos(SLOT_MINUTES);
+            firstSlot = (int) Math.min(SLOTS_PER_DAY, (nanos + slotNanos - 1) / slotNanos);
+        }
+
+        for (; day < dayCount; day++, firstSlot = 0) {
+            LocalDate date = firstDay.plusDays(day);
+            for (int word = firstSlot / 64; word < 2; word++) {
+                long free = ~bookedSlots[2 * day + word];
+                if (word == 1) {
+                    free &= SECOND_WORD_MASK;
+                }
+                if (word == firstSlot / 64) {
+                    free &= -1L << (firstSlot % 64);
+                }
+
+                while (free != 0) {
+                    int slot = 64 * word + Long.numberOfTrailingZeros(free);
+                    freeSlots.add(LocalDateTime.of(date, timeOf(slot)));
+                    if (freeSlots.size() == count) {
+                        return freeSlots;
+                    }
+                    // Clear the lowest set bit
+                    free &= free - 1;
+                }
+            }
+        }
+
+        return freeSlots;
+    }
+
+    /**
+     * @param date a day
+     * @return the index of the day in the range, or -1 if it is outside the range
+     */
+    private int dayIndex(LocalDate date) {
+        long index = ChronoUnit.DAYS.between(firstDay, date);
+        return (index < 0 || index >= dayCount) ? -1 : (int) index;
+    }
+
+    public Integer getDoctorID() {return doctorID;}
+
+    public LocalDate getFirstDay() {return firstDay;}
+
+    public LocalDate getLastDay() {return firstDay.plusDays(dayCount - 1);}
+}
@@ -1,7 +1,8 @@
 package com.group15A.BusinessLogic;
 
 import com.group15A.CustomExceptions.DatabaseException;
-import com.group15A.DataAccess.DataAccess;
+import com.group15A.DataAccess.DataAccessFactory;
+import com.group15A.DataAccess.IDataAccess;
 import com.group15A.DataModel.Doctor;
 
 import java.util.List;
@@ -14,14 +15,14 @@ import java.util.List;
  * @author Wenbo Wu
  */
 public class DoctorLogic implements IDoctor {
-    private final DataAccess dataAccessLayer;
+    private final IDataAccess dataAccessLayer;
 
     /**
      * Constructor for the doctor logic
      * @throws DatabaseException if there was an issue connecting to the database
      */
     public DoctorLogic() throws DatabaseException {
-        this.dataAccessLayer = new DataAccess();
+        this.dataAccessLayer = DataAccessFactory.create();
     }
 
     /**
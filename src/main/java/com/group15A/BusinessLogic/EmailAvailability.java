@@ -0,0 +1,191 @@
+package com.group15A.BusinessLogic;
+
+import com.group15A.CustomExceptions.DatabaseException;
+import com.group15A.CustomExceptions.NullDataException;
+import com.group15A.DataAccess.DataAccessFactory;
+import com.group15A.DataAccess.IDataAccess;
+import com.group15A.Utils.BloomFilter;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Tells whether an email is already registered, so registration can turn a taken email down
+ * before spending a few hundred milliseconds hashing the password.
+ *
+ * A Bloom filter of every registered email is loaded once in the background, and emails registered through
+ * this program are added to it as they are. An email the filter has never seen is free without asking the
+ * database. Any other email, or any email before the filter is loaded, is looked up in the database, which
+ * has a unique index on email, since the filter can be wrong about an email being there. The filter is loaded
+ * again, twice as big, once more emails have been added to it than it was sized for.
+ *
+ * Patients registered by another copy of the program are not in the filter, so they are reported as free,
+ * but inserting the patient still fails with EMAIL_IN_USE, as it did before.
+ */
+public class EmailAvailability {
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+    private static final long MIN_CAPACITY = 1 << 16;
+
+    private static volatile EmailAvailability shared;
+
+    private final IDataAccess dataAccessLayer;
+    private final AtomicBoolean loading = new AtomicBoolean();
+    private final LongAdder filterAnswers = new LongAdder();
+    private final LongAdder databaseChecks = new LongAdder();
+
+    // Both only changed while holding the lock of this object
+    private volatile BloomFilter filter;
+    private Set<String> registeredWhileLoading;
+
+    /**
+     * Get the email availability shared by every logic class, creating it on first use
+     * and starting to load its filter in the background
+     *
+     * @return the shared email availability
+     * @throws DatabaseException if there was an issue connecting to the database
+     */
+    public static EmailAvailability getShared() throws DatabaseException {
+        EmailAvailability availability = shared;
+        if (availability == null) {
+            synchronized (EmailAvailability.class) {
+                availability = shared;
+                if (availability == null) {
+                    availability = new EmailAvailability(DataAccessFactory.create());
+                    availability.loadInBackground();
+                    shared = availability;
+                }
+            }
+        }
+        return availability;
+    }
+
+    /**
+     * Constructor for an EmailAvailability that asks the database about every email until load() is called
+     *
+     * @param dataAccessLayer the Data Access Layer to check emails with
+     */
+    public EmailAvailability(IDataAccess dataAccessLayer) {
+        this.dataAccessLayer = dataAccessLayer;
+    }
+
+    /**
+     * Load the filter from the email of every registered patient, replacing the current one.
+     * Emails registered while it is loading are added to it too.
+     *
+     * @throws DatabaseException if there was an issue in querying the database
+     */
+    public void load() throws DatabaseException {
+        synchronized (this) {
+            this.registeredWhileLoading = new HashSet<>();
+        }
+        try {
+            List<String> emails = this.dataAccessLayer.getPatientEmails();
+            BloomFilter loaded = new BloomFilter(Math.max(MIN_CAPACITY, emails.size() * 2L), FALSE_POSITIVE_RATE);
+            for (String email : emails) {
+                loaded.add(emailKey(email));
+            }
+
+            synchronized (this) {
+                for (String email : this.registeredWhileLoading) {
+                    loaded.add(email);
+                }
+                this.filter = loaded;
+            }
+        } finally {
+            synchronized (this) {
+                this.registeredWhileLoading = null;
+            }
+        }
+    }
+
+    /**
+     * Load the filter on a background thread, unless it is already loading
+     */
+    public void loadInBackground() {
+        if (!this.loading.compareAndSet(false, true)) {
+            return;
+        }
+        Thread thread = new Thread(() -> {
+            try {
+                load();
+            } catch (DatabaseException e) {
+                System.err.println("Could not load the registered emails: " + e.getMessage());
+            } finally {
+                this.loading.set(false);
+            }
+        }, "email-availability-loader");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * @param email the email
+     * @return true if a patient is registered with the email, ignoring case
+     * @throws NullDataException if the email is missing
+     * @throws DatabaseException if there was an issue in querying the database
+     */
+    public boolean isEmailInUse(String email) throws NullDataException, DatabaseException {
+        if (email == null || email.isBlank()) {
+            throw new NullDataException("Null email in the isEmailInUse method");
+        }
+        String key = emailKey(email);
+        BloomFilter current = this.filter;
+        if (current != null && !current.mightContain(key)) {
+            this.filterAnswers.increment();
+            return false;
+        }
+        this.databaseChecks.increment();
+        return this.dataAccessLayer.isEmailInUse(key);
+    }
+
+    /**
+     * Note that a patient has been registered with the email
+     *
+     * @param email the email
+     */
+    public void emailRegistered(String email) {
+        String key = emailKey(email);
+        BloomFilter current;
+        synchronized (this) {
+            current = this.filter;
+            if (current != null) {
+                current.add(key);
+            }
+            if (this.registeredWhileLoading != null) {
+                this.registeredWhileLoading.add(key);
+            }
+        }
+        if (current != null && current.getAddedCount() > current.getCapacity()) {
+            loadInBackground();
+        }
+    }
+
+    /**
+     * @return true once the filter has been loaded
+     */
+    public boolean isLoaded() {
+        return this.filter != null;
+    }
+
+    /**
+     * @return the number of emails found to be free by the filter alone
+     */
+    public long getFilterAnswers() {
+        return this.filterAnswers.sum();
+    }
+
+    /**
+     * @return the number of emails looked up in the database
+     */
+    public long getDatabaseChecks() {
+        return this.databaseChecks.sum();
+    }
+
+    private static String emailKey(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -4,11 +4,13 @@ import com.group15A.CustomExceptions.CustomException;
 import com.group15A.CustomExceptions.DatabaseException;
 import com.group15A.CustomExceptions.InvalidDataException;
 import com.group15A.CustomExceptions.PatientNotFoundException;
-import com.group15A.DataAccess.DataAccess;
+import com.group15A.DataAccess.DataAccessFactory;
+import com.group15A.DataAccess.IDataAccess;
 import com.group15A.DataModel.Notification;
 import com.group15A.DataModel.Patient;
 import com.group15A.Session;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -17,7 +19,7 @@ import java.util.List;
  * @author Milovan Gveric
  */
 public class HomeLogic implements IHome {
-    private final DataAccess dataAccessLayer;
+    private final IDataAccess dataAccessLayer;
 
     /**
      * Constructor for home logic
@@ -25,7 +27,7 @@ public class HomeLogic implements IHome {
      * @throws DatabaseException if issues connecting to database
      */
     public HomeLogic() throws DatabaseException {
-        this.dataAccessLayer = new DataAccess();
+        this.dataAccessLayer = DataAccessFactory.create();
     }
 
     /**
@@ -40,6 +42,23 @@ public class HomeLogic implements IHome {
         return this.dataAccessLayer.getNotifications(patient);
     }
 
+    /**
+     * Gets a page of the patient's archived (read) notifications, newest first
+     *
+     * @param patient the patient whose notifications you want to get
+     * @param lastNotification the last notification of the previous page, or null for the first page
+     * @param limit the maximum number of notifications in the page
+     * @return the archived notifications older than lastNotification
+     * @throws CustomException if issues with patient or notifications in database
+     */
+    @Override
+    public List<Notification> getArchivedNotifications(Patient patient, Notification lastNotification, int limit) throws CustomException {
+        if (lastNotification == null) {
+            return this.dataAccessLayer.getNotificationsPage(patient, false, null, 0, limit);
+        }
+        return this.dataAccessLayer.getNotificationsPage(patient, false, lastNotification.getTimestamp(), lastNotification.getNotifID(), limit);
+    }
+
     /**
      * Get the patient from the integer id
      *
@@ -66,12 +85,35 @@ public class HomeLogic implements IHome {
         this.dataAccessLayer.setNotificationSeen(notification);
     }
 
+    /**
+     * Marks several of the patient's notifications as read at once
+     *
+     * @param patient the patient whose notifications they are
+     * @param notificationIDs the ids of the notifications to be marked as read
+     * @throws CustomException if issues in updating the notification records in the database
+     */
+    @Override
+    public void readNotifications(Patient patient, Collection<Integer> notificationIDs) throws CustomException {
+        this.dataAccessLayer.setNotificationsSeen(patient, notificationIDs);
+    }
+
+    /**
+     * Marks all of the patient's notifications as read at once
+     *
+     * @param patient the patient whose notifications they are
+     * @throws CustomException if issues in updating the notification records in the database
+     */
+    @Override
+    public void readAllNotifications(Patient patient) throws CustomException {
+        this.dataAccessLayer.setAllNotificationsSeen(patient);
+    }
+
     /**
      * Logs the log-out of the patient in the current session
      */
     @Override
     public void logOut() throws Exception {
         Patient patient = this.dataAccessLayer.getPatient(Session.loadFromFile().getLoggedInPatientID());
-        this.dataAccessLayer.createLog(patient, "Patient " + patient.getFirstName() + " " + patient.getLastName() + " has logged out");
+        this.dataAccessLayer.queueLog(patient, "Patient " + patient.getFirstName() + " " + patient.getLastName() + " has logged out");
     }
 }
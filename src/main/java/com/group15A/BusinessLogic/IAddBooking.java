@@ -4,6 +4,9 @@ import com.group15A.DataModel.Booking;
 import com.group15A.DataModel.Doctor;
 import com.group15A.DataModel.Patient;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 /**
  * The interface for AddBookingLogic
  *
@@ -17,4 +20,6 @@ public interface IAddBooking {
     Doctor getPatientDoctor(Patient patient) throws Exception;
 
     Patient getPatient(Integer patientID) throws Exception;
+
+    List<LocalDateTime> getNextFreeSlots(Patient patient, int count) throws Exception;
 }
\ No newline at end of file
@@ -0,0 +1,19 @@
+package com.group15A.BusinessLogic;
+
+import com.group15A.DataModel.Doctor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The interface for AvailabilityLogic
+ */
+public interface IAvailability {
+    DoctorAvailability getAvailability(Doctor doctor, LocalDate firstDay, LocalDate lastDay) throws Exception;
+
+    Map<Integer, DoctorAvailability> getAvailability(List<Doctor> doctors, LocalDate firstDay, LocalDate lastDay) throws Exception;
+
+    List<LocalDateTime> findFreeSlots(Doctor doctor, LocalDateTime from, int count) throws Exception;
+}
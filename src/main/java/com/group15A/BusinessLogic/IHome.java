@@ -2,6 +2,7 @@ package com.group15A.BusinessLogic;
 
 import com.group15A.DataModel.Notification;
 import com.group15A.DataModel.Patient;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -12,9 +13,15 @@ import java.util.List;
 public interface IHome {
     List<Notification> getNotifications(Patient patient) throws Exception;
 
+    List<Notification> getArchivedNotifications(Patient patient, Notification lastNotification, int limit) throws Exception;
+
     Patient getPatient(Integer patientID) throws Exception;
 
     void readNotification(Notification notification) throws Exception;
 
+    void readNotifications(Patient patient, Collection<Integer> notificationIDs) throws Exception;
+
+    void readAllNotifications(Patient patient) throws Exception;
+
     void logOut() throws Exception;
 }
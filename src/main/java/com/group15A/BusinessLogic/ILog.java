@@ -10,4 +10,6 @@ import java.util.List;
  */
 public interface ILog {
     List<Log> getLogs(Integer patientID) throws Exception;
+
+    List<Log> getLogsPage(Integer patientID, Log lastLog, int limit) throws Exception;
 }
@@ -0,0 +1,16 @@
+package com.group15A.BusinessLogic;
+
+import com.group15A.CustomExceptions.CustomException;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Path;
+
+/**
+ * The interface for PatientImportLogic
+ */
+public interface IPatientImport {
+    ImportReport importPatients(Path csvFile) throws IOException, CustomException;
+
+    ImportReport importPatients(Reader csv) throws IOException, CustomException;
+}
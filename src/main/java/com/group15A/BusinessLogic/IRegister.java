@@ -2,6 +2,7 @@ package com.group15A.BusinessLogic;
 
 import com.group15A.DataModel.Doctor;
 import com.group15A.DataModel.Patient;
+import com.group15A.Utils.ErrorCode;
 
 /**
  * The interface for RegisterLogic
@@ -12,4 +13,6 @@ import com.group15A.DataModel.Patient;
 public interface IRegister {
     Patient register(String fName, String mName, String lName, String DoB, String gender, String phoneNo,
                      String email, String confirmEmail, String password, String confirmPassword, Doctor chosenDoctor) throws Exception;
+
+    ErrorCode checkEmail(String email) throws Exception;
 }
@@ -1,6 +1,7 @@
 package com.group15A.BusinessLogic;
 
 import com.group15A.DataModel.Booking;
+import com.group15A.DataModel.BookingWithDoctor;
 import com.group15A.DataModel.Doctor;
 import java.util.List;
 
@@ -10,9 +11,11 @@ import java.util.List;
  * @author Milovan Gveric
  */
 public interface IViewBooking {
-    List<Booking> getBookings(Integer patientID, Boolean viewPastBooking) throws Exception;
+    List<BookingWithDoctor> getBookings(Integer patientID, Boolean viewPastBooking) throws Exception;
 
-    List<Booking> filterBookings(String month, String year, Integer patientID, Boolean pastBookingFlag) throws Exception;
+    List<BookingWithDoctor> filterBookings(String month, String year, Integer patientID, Boolean pastBookingFlag) throws Exception;
+
+    List<BookingWithDoctor> filterBookingsPage(String month, String year, Integer patientID, Boolean pastBookingFlag, Booking lastBooking, int limit) throws Exception;
 
     Doctor getDoctor(Integer doctorID) throws Exception;
 
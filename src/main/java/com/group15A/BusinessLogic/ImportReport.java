@@ -0,0 +1,95 @@
+package com.group15A.BusinessLogic;
+
+import com.group15A.Utils.ErrorCode;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The outcome of a bulk patient import: how many patients were imported and why every other row was not.
+ */
+public class ImportReport {
+    private final List<RowError> rowErrors = new ArrayList<>();
+    private int imported;
+    private long elapsedMillis;
+
+    /**
+     * A row of the file that was not imported
+     */
+    public static class RowError {
+        private final int line;
+        private final String email;
+        private final List<ErrorCode> errors;
+
+        /**
+         * Constructor for a row that was not imported
+         * @param line the line number of the row in the file, starting at 1 for the header
+         * @param email the email in the row, to help find the patient, or an empty string
+         * @param errors the reasons the row was not imported
+         */
+        public RowError(int line, String email, List<ErrorCode> errors) {
+            this.line = line;
+            this.email = email;
+            this.errors = List.copyOf(errors);
+        }
+
+        public int getLine() {
+            return line;
+        }
+
+        public String getEmail() {
+            return email;
+        }
+
+        public List<ErrorCode> getErrors() {
+            return errors;
+        }
+
+        @Override
+        public String toString() {
+            return "Line " + line + " (" + email + "): " + errors;
+        }
+    }
+
+    void addImported(int count) {
+        imported += count;
+    }
+
+    void addError(int line, String email, List<ErrorCode> errors) {
+        rowErrors.add(new RowError(line, email, errors));
+    }
+
+    void finish(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+        rowErrors.sort(Comparator.comparingInt(RowError::getLine));
+    }
+
+    /**
+     * @return the number of patients that were registered
+     */
+    public int getImported() {
+        return imported;
+    }
+
+    /**
+     * @return the number of rows that were not imported
+     */
+    public int getFailed() {
+        return rowErrors.size();
+    }
+
+    /**
+     * @return the rows that were not imported, in the order of the file
+     */
+    public List<RowError> getRowErrors() {
+        return rowErrors;
+    }
+
+    /**
+     * @return how long the import took, in milliseconds
+     */
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+}
@@ -1,7 +1,8 @@
 package com.group15A.BusinessLogic;
 
 import com.group15A.CustomExceptions.DatabaseException;
-import com.group15A.DataAccess.DataAccess;
+import com.group15A.DataAccess.DataAccessFactory;
+import com.group15A.DataAccess.IDataAccess;
 import com.group15A.DataModel.Patient;
 import com.group15A.Session;
 import com.group15A.CustomExceptions.CustomException;
@@ -18,7 +19,7 @@ import java.util.List;
  * @author Wenbo Wu
  */
 public class LogInLogic implements ILogIn {
-    private final DataAccess dataAccessLayer;
+    private final IDataAccess dataAccessLayer;
     private final Validator validator;
 
     /**
@@ -29,7 +30,7 @@ public class LogInLogic implements ILogIn {
      * @throws DatabaseException if there was an issue connecting to the database
      */
     public LogInLogic() throws DatabaseException {
-        this.dataAccessLayer = new DataAccess();
+        this.dataAccessLayer = DataAccessFactory.create();
         this.validator = new Validator();
     }
 
@@ -59,7 +60,7 @@ public class LogInLogic implements ILogIn {
             throw new CustomException("Invalid Password", List.of(ErrorCode.WRONG_PASSWORD));
         }
 
-        dataAccessLayer.createLog(patientToLogIn, "Patient " + patientToLogIn.getFirstName() + " " + patientToLogIn.getLastName() + " manually logged in, successfully");
+        dataAccessLayer.queueLog(patientToLogIn, "Patient " + patientToLogIn.getFirstName() + " " + patientToLogIn.getLastName() + " manually logged in, successfully");
 
         Session session = new Session(patientToLogIn, stayLoggedIn);
         session.saveToFile();
@@ -2,7 +2,8 @@ package com.group15A.BusinessLogic;
 
 import com.group15A.CustomExceptions.CustomException;
 import com.group15A.CustomExceptions.DatabaseException;
-import com.group15A.DataAccess.DataAccess;
+import com.group15A.DataAccess.DataAccessFactory;
+import com.group15A.DataAccess.IDataAccess;
 import com.group15A.DataModel.Log;
 import com.group15A.DataModel.Patient;
 
@@ -14,7 +15,7 @@ import java.util.List;
  * @author Milovan Gveric
  */
 public class LogLogic implements ILog {
-    private final DataAccess dataAccessLayer;
+    private final IDataAccess dataAccessLayer;
 
     /**
      * Constructor for LogLogic
@@ -22,7 +23,7 @@ public class LogLogic implements ILog {
      * @throws DatabaseException if issues connecting to the database
      */
     public LogLogic() throws DatabaseException {
-        this.dataAccessLayer = new DataAccess();
+        this.dataAccessLayer = DataAccessFactory.create();
     }
 
     /**
@@ -36,4 +37,22 @@ public class LogLogic implements ILog {
         Patient patient = this.dataAccessLayer.getPatient(patientID);
         return this.dataAccessLayer.getLogs(patient);
     }
+
+    /**
+     * Gets a page of a user's logs, newest first
+     *
+     * @param patientID the id of the user
+     * @param lastLog the last log of the previous page, or null for the first page
+     * @param limit the maximum number of logs in the page
+     * @return the logs of the user that are older than lastLog
+     * @throws CustomException if issues getting logs from DAL
+     */
+    @Override
+    public List<Log> getLogsPage(Integer patientID, Log lastLog, int limit) throws CustomException {
+        Patient patient = this.dataAccessLayer.getPatient(patientID);
+        if (lastLog == null) {
+            return this.dataAccessLayer.getLogsPage(patient, null, 0, limit);
+        }
+        return this.dataAccessLayer.getLogsPage(patient, lastLog.getTimestamp(), lastLog.getLogID(), limit);
+    }
 }
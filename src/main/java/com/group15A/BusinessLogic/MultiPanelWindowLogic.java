@@ -4,7 +4,8 @@ import com.group15A.CustomExceptions.CustomException;
 import com.group15A.CustomExceptions.DatabaseException;
 import com.group15A.CustomExceptions.InvalidDataException;
 import com.group15A.CustomExceptions.PatientNotFoundException;
-import com.group15A.DataAccess.DataAccess;
+import com.group15A.DataAccess.DataAccessFactory;
+import com.group15A.DataAccess.IDataAccess;
 import com.group15A.DataModel.Patient;
 import com.group15A.Session;
 
@@ -15,7 +16,7 @@ import com.group15A.Session;
  * @author Milovan Gveric
  */
 public class MultiPanelWindowLogic implements IMultiPanelWindow {
-    private final DataAccess dataAccessLayer;
+    private final IDataAccess dataAccessLayer;
 
     /**
      * Constructor for MultiPanelWindowLogic
@@ -23,7 +24,7 @@ public class MultiPanelWindowLogic implements IMultiPanelWindow {
      * @throws DatabaseException if issues connecting to the database
      */
     public MultiPanelWindowLogic() throws DatabaseException {
-        this.dataAccessLayer = new DataAccess();
+        this.dataAccessLayer = DataAccessFactory.create();
     }
 
     /**
@@ -51,13 +52,13 @@ public class MultiPanelWindowLogic implements IMultiPanelWindow {
 
 
     /**
-     * Creates a log for the current patient
+     * Queues a log for the current patient, it is written to the database in the background
      * @param patient
      * @param msg the log message
      * @throws CustomException if any issues creating the log
      */
     @Override
     public void createLog(Patient patient, String msg) throws CustomException {
-        this.dataAccessLayer.createLog(patient, msg);
+        this.dataAccessLayer.queueLog(patient, msg);
     }
 }
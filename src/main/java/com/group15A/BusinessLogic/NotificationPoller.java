@@ -0,0 +1,81 @@
+package com.group15A.BusinessLogic;
+
+import com.group15A.CustomExceptions.CustomException;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Syncs a NotificationSync in the background and reports when its notifications change.
+ *
+ * It polls every MIN_DELAY_MS while notifications keep changing. Each poll that finds nothing new
+ * doubles the delay, up to MAX_DELAY_MS, and a change brings it back down. A failed poll waits the
+ * maximum delay before trying again. The delays can be set with the gp.notificationPoll.minMs and
+ * gp.notificationPoll.maxMs system properties.
+ */
+public class NotificationPoller {
+    private static final long MIN_DELAY_MS = Long.getLong("gp.notificationPoll.minMs", 5_000);
+    private static final long MAX_DELAY_MS = Long.getLong("gp.notificationPoll.maxMs", 120_000);
+
+    private final NotificationSync notificationSync;
+    private final Runnable onChange;
+    private final ScheduledExecutorService executor;
+    private volatile boolean stopped = false;
+    private long delayMs = MIN_DELAY_MS;
+
+    /**
+     * Constructor for a notification poller
+     *
+     * @param notificationSync the notifications to keep up to date
+     * @param onChange called on the polling thread whenever a poll finds added or changed notifications
+     */
+    public NotificationPoller(NotificationSync notificationSync, Runnable onChange) {
+        this.notificationSync = notificationSync;
+        this.onChange = onChange;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "notification-poller");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Start polling, the first poll is after the minimum delay
+     */
+    public void start() {
+        this.executor.schedule(this::poll, MIN_DELAY_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stop polling for good
+     */
+    public void stop() {
+        this.stopped = true;
+        this.executor.shutdownNow();
+    }
+
+    private void poll() {
+        if (stopped) {
+            return;
+        }
+
+        try {
+            if (notificationSync.sync()) {
+                delayMs = MIN_DELAY_MS;
+                onChange.run();
+            } else {
+                delayMs = Math.min(delayMs * 2, MAX_DELAY_MS);
+            }
+        } catch (CustomException e) {
+            delayMs = MAX_DELAY_MS;
+        }
+
+        try {
+            this.executor.schedule(this::poll, delayMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // Stopped while polling
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.group15A.BusinessLogic;
+
+import com.group15A.CustomExceptions.CustomException;
+import com.group15A.CustomExceptions.DatabaseException;
+import com.group15A.DataAccess.DataAccessFactory;
+import com.group15A.DataAccess.IDataAccess;
+import com.group15A.DataModel.Notification;
+import com.group15A.DataModel.Patient;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Keeps one patient's new (unread) notifications up to date without reloading them.
+ *
+ * The first sync loads the count of new notifications and the RECENT_LIMIT most recent of them,
+ * which costs the same however many notifications the patient has. The notifications that were
+ * already seen (the archive) are not kept here, they are loaded a page at a time when asked for.
+ *
+ * It remembers the highest notification id and the latest timestamp it has seen, and each later sync
+ * only fetches the notifications added or changed after those. Notifications deleted from the
+ * database stay in the copy until a new NotificationSync is made.
+ */
+public class NotificationSync {
+    /**
+     * The most new notifications that are loaded in full
+     */
+    public static final int RECENT_LIMIT = 50;
+
+    // Also look a little before the latest timestamp seen, so rows committed a moment after
+    // they were timestamped are not missed. Rows fetched again are simply compared and ignored.
+    private static final long OVERLAP_MS = 5_000;
+
+    private final IDataAccess dataAccessLayer;
+    private final Patient patient;
+    private final Map<Integer, Notification> newNotifications = new HashMap<>();
+    private final Map<Integer, Notification> seen = new HashMap<>();
+    private boolean loaded = false;
+    private int newCount = 0;
+    private int lastID = 0;
+    private Timestamp lastChange = null;
+    private boolean archiveChanged = false;
+    private int version = 0;
+
+    /**
+     * Constructor for a notification sync, which starts out empty
+     *
+     * @param patient the patient whose notifications are kept
+     * @throws DatabaseException if issues connecting to database
+     */
+    public NotificationSync(Patient patient) throws DatabaseException {
+        this.dataAccessLayer = DataAccessFactory.create();
+        this.patient = patient;
+    }
+
+    /**
+     * Load the recent new notifications the first time, after that fetch the notifications
+     * added or changed since the last sync
+     *
+     * @return true if any notification was added or changed
+     * @throws CustomException if issues getting the notifications from the database
+     */
+    public synchronized boolean sync() throws CustomException {
+        if (!loaded) {
+            load();
+            version++;
+            return true;
+        }
+
+        Timestamp since = lastChange == null ? null : new Timestamp(lastChange.getTime() - OVERLAP_MS);
+        boolean changed = false;
+        for (Notification notification : this.dataAccessLayer.getNotificationsSince(patient, lastID, since)) {
+            if (apply(notification)) {
+                changed = true;
+                if (!notification.isNew()) {
+                    archiveChanged = true;
+                }
+            }
+        }
+
+        if (changed) {
+            newCount = this.dataAccessLayer.countNewNotifications(patient);
+            version++;
+        }
+        return changed;
+    }
+
+    private void load() throws CustomException {
+        newCount = this.dataAccessLayer.countNewNotifications(patient);
+        for (Notification notification : this.dataAccessLayer.getNotificationsPage(patient, true, null, 0, RECENT_LIMIT)) {
+            apply(notification);
+        }
+
+        // Start the delta sync from the newest notification, new or not
+        for (Notification newest : this.dataAccessLayer.getNotificationsPage(patient, null, 0, 1)) {
+            remember(newest);
+        }
+        loaded = true;
+    }
+
+    /**
+     * Keep or drop a fetched notification depending on whether it is new
+     *
+     * @return true if it was not seen before in this state
+     */
+    private boolean apply(Notification notification) {
+        Notification previous = seen.put(notification.getNotifID(), notification);
+        remember(notification);
+
+        if (notification.isNew()) {
+            newNotifications.put(notification.getNotifID(), notification);
+        } else {
+            newNotifications.remove(notification.getNotifID());
+        }
+        return previous == null || !isSame(previous, notification);
+    }
+
+    private void remember(Notification notification) {
+        lastID = Math.max(lastID, notification.getNotifID());
+        if (lastChange == null || notification.getTimestamp().after(lastChange)) {
+            lastChange = notification.getTimestamp();
+        }
+    }
+
+    /**
+     * @return the new notifications as of the last sync, oldest first, at most RECENT_LIMIT
+     * of them plus any that arrived since they were loaded
+     */
+    public synchronized List<Notification> getNewNotifications() {
+        // Copies, so marking one as read does not change what the next sync compares against
+        var notifications = new ArrayList<Notification>(newNotifications.size());
+        for (Notification notification : newNotifications.values()) {
+            notifications.add(new Notification(notification.getNotifID(), notification.getPatientID(), notification.getHeader(),
+                    notification.getMessage(), notification.getTimestamp(), notification.isNew()));
+        }
+        notifications.sort(Comparator.comparing(Notification::getTimestamp).thenComparing(Notification::getNotifID));
+        return notifications;
+    }
+
+    /**
+     * @return the number of new notifications the patient has, including the ones not loaded
+     */
+    public synchronized int getNewCount() {
+        return newCount;
+    }
+
+    /**
+     * Check whether notifications were archived (marked as seen) since this was last called,
+     * so the archive needs to be loaded again
+     *
+     * @return true if the archive changed
+     */
+    public synchronized boolean takeArchiveChanged() {
+        boolean changed = archiveChanged;
+        archiveChanged = false;
+        return changed;
+    }
+
+    /**
+     * @return a number that goes up every time a sync finds changes
+     */
+    public synchronized int getVersion() {
+        return version;
+    }
+
+    /**
+     * @return the patient whose notifications are kept
+     */
+    public Patient getPatient() {
+        return patient;
+    }
+
+    private static boolean isSame(Notification a, Notification b) {
+        return a.isNew() == b.isNew()
+                && Objects.equals(a.getTimestamp(), b.getTimestamp())
+                && Objects.equals(a.getHeader(), b.getHeader())
+                && Objects.equals(a.getMessage(), b.getMessage());
+    }
+}
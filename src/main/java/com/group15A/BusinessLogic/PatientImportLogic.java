@@ -0,0 +1,423 @@
+package com.group15A.BusinessLogic;
+
+import com.group15A.CustomExceptions.*;
+import com.group15A.DataAccess.DataAccessFactory;
+import com.group15A.DataAccess.IDataAccess;
+import com.group15A.DataModel.Doctor;
+import com.group15A.DataModel.Patient;
+import com.group15A.Utils.DataModification;
+import com.group15A.Utils.ErrorCode;
+import com.group15A.Validator.Validator;
+import org.mindrot.jbcrypt.BCrypt;
+
+import java.io.IOException;
+import java.io.LineNumberReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Contains backend functionality for registering many patients at once from a CSV file,
+ * such as when a practice moves its patient list over from another system
+ *
+ * The file starts with a header row naming the columns first_name, middle_name, last_name, date_of_birth,
+ * gender, phone_no, email and password, in any order, and optionally doctor, holding the id or email of the
+ * patient's doctor. Patients without a doctor are shared out between all the doctors in turn.
+ * Fields may be quoted, but may not hold line breaks.
+ *
+ * The file is read in chunks of CHUNK_SIZE rows, and every chunk goes through a pipeline:
+ * the rows are checked with the same rules as RegisterLogic on a fork-join pool, their emails and doctors are
+ * checked against the rest of the file and their emails against EmailAvailability, their passwords are hashed
+ * on a bounded pool of CPU threads, and they are then inserted in one JDBC batch on a thread of their own,
+ * while the next chunk is read, checked and hashed.
+ * Hashing is by far the slowest step, so an import runs about as many times faster as there are cores.
+ * A row that cannot be imported is put in the report with the reasons why, and the rest of the file carries on.
+ *
+ * The gp.import.chunkSize, gp.import.validationThreads and gp.import.hashThreads system properties
+ * change the chunk size and the size of the pools.
+ */
+public class PatientImportLogic implements IPatientImport {
+    public static final List<String> COLUMNS = List.of(
+            "first_name", "middle_name", "last_name", "date_of_birth", "gender", "phone_no", "email", "password");
+    public static final String DOCTOR_COLUMN = "doctor";
+
+    private static final int CHUNK_SIZE = Integer.getInteger("gp.import.chunkSize", 1000);
+    private static final int VALIDATION_THREADS = Integer.getInteger("gp.import.validationThreads", Runtime.getRuntime().availableProcessors());
+    private static final int HASH_THREADS = Integer.getInteger("gp.import.hashThreads", Runtime.getRuntime().availableProcessors());
+    private static final int VALIDATION_THRESHOLD = 64;
+
+    private final IDataAccess dataAccessLayer;
+    private final Validator validator;
+    private final EmailAvailability emailAvailability;
+
+    /**
+     * One row of the file, with everything worked out about it so far
+     */
+    private static class Row {
+        private final int line;
+        private final String[] fields;
+        private final List<ErrorCode> errors = new ArrayList<>();
+        private String email = "";
+        private Patient patient;
+        private Doctor doctor;
+
+        private Row(int line, String[] fields) {
+            this.line = line;
+            this.fields = fields;
+        }
+    }
+
+    /**
+     * The constructor for the PatientImportLogic class.
+     * Creates connection to DAL and creates a validator to
+     * validate the imported patients' details
+     *
+     * @throws DatabaseException if there was an issue connecting to the database
+     */
+    public PatientImportLogic() throws DatabaseException {
+        this.dataAccessLayer = DataAccessFactory.create();
+        this.validator = new Validator();
+        this.emailAvailability = EmailAvailability.getShared();
+    }
+
+    /**
+     * Register every valid patient in a CSV file
+     *
+     * @param csvFile the file, in UTF-8
+     * @return the report of the import
+     * @throws IOException if the file could not be read
+     * @throws CustomException if the file has no header row, or a column is missing, or there are no doctors
+     */
+    @Override
+    public ImportReport importPatients(Path csvFile) throws IOException, CustomException {
+        try (Reader reader = Files.newBufferedReader(csvFile, StandardCharsets.UTF_8)) {
+            return importPatients(reader);
+        }
+    }
+
+    /**
+     * Register every valid patient read from CSV text
+     *
+     * @param csv the text, which is not closed
+     * @return the report of the import
+     * @throws IOException if the text could not be read
+     * @throws CustomException if there is no header row, or a column is missing, or there are no doctors
+     */
+    @Override
+    public ImportReport importPatients(Reader csv) throws IOException, CustomException {
+        long start = System.nanoTime();
+        LineNumberReader reader = new LineNumberReader(csv);
+
+        String header = reader.readLine();
+        if (header == null) {
+            throw new CustomException("The file is empty");
+        }
+        int[] columns = findColumns(parseLine(header));
+
+        List<Doctor> doctors = this.dataAccessLayer.getDoctors();
+        if (doctors.isEmpty()) {
+            throw new CustomException("There are no doctors to register patients with", List.of(ErrorCode.DOCTOR_NOT_CHOSEN));
+        }
+        Map<String, Doctor> doctorsByKey = new HashMap<>();
+        for (Doctor doctor : doctors) {
+            doctorsByKey.put(String.valueOf(doctor.getDoctorID()), doctor);
+            doctorsByKey.put(doctor.getEmail().toLowerCase(), doctor);
+        }
+
+        ImportReport report = new ImportReport();
+        Set<String> emailsInFile = new HashSet<>();
+        int nextDoctor = 0;
+
+        ForkJoinPool validationPool = new ForkJoinPool(VALIDATION_THREADS);
+        ThreadPoolExecutor hashPool = new ThreadPoolExecutor(HASH_THREADS, HASH_THREADS, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(HASH_THREADS * 4), new ThreadPoolExecutor.CallerRunsPolicy());
+        ExecutorService insertExecutor = Executors.newSingleThreadExecutor();
+        try {
+            List<Row> inserting = null;
+            Future<List<ErrorCode>> insert = null;
+
+            List<Row> chunk;
+            while (!(chunk = readChunk(reader, columns)).isEmpty()) {
+                validationPool.invoke(new ValidateRows(chunk, 0, chunk.size()));
+
+                // Checking the emails and doctors against the rest of the file has to be done in file order
+                List<Row> valid = new ArrayList<>(chunk.size());
+                for (Row row : chunk) {
+                    if (row.errors.isEmpty()) {
+                        String doctorKey = columns[COLUMNS.size()] < 0 ? "" : row.fields[COLUMNS.size()].trim().toLowerCase();
+                        if (doctorKey.isEmpty()) {
+                            row.doctor = doctors.get(nextDoctor);
+                            nextDoctor = (nextDoctor + 1) % doctors.size();
+                        } else {
+                            row.doctor = doctorsByKey.get(doctorKey);
+                        }
+                        if (row.doctor == null) {
+                            row.errors.add(ErrorCode.DOCTOR_NOT_CHOSEN);
+                        }
+                        if (!emailsInFile.add(row.email) || isEmailInUse(row.email)) {
+                            row.errors.add(ErrorCode.EMAIL_IN_USE);
+                        }
+                    }
+                    if (row.errors.isEmpty()) {
+                        valid.add(row);
+                    } else {
+                        report.addError(row.line, row.email, row.errors);
+                    }
+                }
+
+                hashPasswords(valid, hashPool);
+
+                // Only one chunk is inserted at a time, so wait for the last one before queueing this one
+                if (insert != null) {
+                    finishInsert(inserting, insert, report);
+                }
+                List<Patient> patients = valid.stream().map(row -> row.patient).collect(Collectors.toList());
+                List<Doctor> patientDoctors = valid.stream().map(row -> row.doctor).collect(Collectors.toList());
+                inserting = valid;
+                insert = insertExecutor.submit(() -> this.dataAccessLayer.registerPatients(patients, patientDoctors));
+            }
+            if (insert != null) {
+                finishInsert(inserting, insert, report);
+            }
+        } finally {
+            validationPool.shutdownNow();
+            hashPool.shutdownNow();
+            insertExecutor.shutdownNow();
+        }
+
+        report.finish(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return report;
+    }
+
+    /**
+     * @param email an email
+     * @return true if the email is known to be registered already, so the row need not be hashed.
+     * If that cannot be checked, inserting the row will find out.
+     */
+    private boolean isEmailInUse(String email) {
+        try {
+            return this.emailAvailability.isEmailInUse(email);
+        } catch (CustomException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Find where each column is in the header row
+     *
+     * @param header the fields of the header row
+     * @return the index of each of the COLUMNS and then of the doctor column, which is -1 if there is none
+     * @throws CustomException if a column other than the doctor column is missing
+     */
+    private static int[] findColumns(String[] header) throws CustomException {
+        List<String> names = Stream.of(header).map(name -> name.trim().toLowerCase()).collect(Collectors.toList());
+        int[] columns = new int[COLUMNS.size() + 1];
+        for (int i = 0; i < COLUMNS.size(); i++) {
+            columns[i] = names.indexOf(COLUMNS.get(i));
+            if (columns[i] < 0) {
+                throw new CustomException("The file has no " + COLUMNS.get(i) + " column");
+            }
+        }
+        columns[COLUMNS.size()] = names.indexOf(DOCTOR_COLUMN);
+        return columns;
+    }
+
+    /**
+     * Read the next rows of the file, skipping blank lines
+     *
+     * @param reader the file
+     * @param columns the index of each column, from findColumns
+     * @return up to CHUNK_SIZE rows, with their fields in the order of COLUMNS and the doctor last,
+     * or an empty list at the end of the file
+     * @throws IOException if the file could not be read
+     */
+    private static List<Row> readChunk(LineNumberReader reader, int[] columns) throws IOException {
+        List<Row> chunk = new ArrayList<>(CHUNK_SIZE);
+        String line;
+        while (chunk.size() < CHUNK_SIZE && (line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            String[] read = parseLine(line);
+            String[] fields = new String[columns.length];
+            for (int i = 0; i < columns.length; i++) {
+                // A short row is given empty fields, which the validator turns down
+                fields[i] = columns[i] >= 0 && columns[i] < read.length ? read[columns[i]] : "";
+            }
+            chunk.add(new Row(reader.getLineNumber(), fields));
+        }
+        return chunk;
+    }
+
+    /**
+     * Split a line of CSV into its fields. A field in double quotes may hold commas,
+     * and two double quotes in a quoted field stand for one.
+     *
+     * @param line the line
+     * @return the fields
+     */
+    static String[] parseLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields.toArray(new String[0]);
+    }
+
+    /**
+     * Checks a range of rows with the same rules as RegisterLogic, splitting it in half until it is small
+     */
+    private class ValidateRows extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Row> rows;
+        private final int from;
+        private final int to;
+
+        private ValidateRows(List<Row> rows, int from, int to) {
+            this.rows = rows;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= VALIDATION_THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    validate(rows.get(i));
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new ValidateRows(rows, from, middle), new ValidateRows(rows, middle, to));
+        }
+    }
+
+    /**
+     * Check the fields of a row, and build its patient, without a password hash yet, if they are valid
+     *
+     * @param row the row
+     */
+    private void validate(Row row) {
+        String fName = DataModification.capitalize(row.fields[0].trim());
+        String mName = DataModification.capitalize(row.fields[1].trim());
+        String lName = DataModification.capitalize(row.fields[2].trim());
+        String DoB = row.fields[3].trim();
+        String gender = DataModification.capitalize(row.fields[4].trim());
+        String phoneNo = row.fields[5].trim();
+        String password = row.fields[7];
+        row.email = row.fields[6].trim().toLowerCase();
+
+        Stream.of(
+                this.validator.verifyFirstName(fName),
+                this.validator.verifyMiddleName(mName),
+                this.validator.verifyLastName(lName),
+                this.validator.verifyDate(DoB),
+                this.validator.verifyGender(gender),
+                this.validator.verifyPhoneNo(phoneNo),
+                this.validator.verifyEmail(row.email),
+                this.validator.verifyPassword(password)
+        ).filter(Objects::nonNull).forEach(row.errors::add);
+        if (!row.errors.isEmpty()) {
+            return;
+        }
+
+        Date dateConv = Date.from(LocalDate.parse(DoB).atStartOfDay(ZoneId.systemDefault()).toInstant());
+        row.patient = new Patient(row.email, password, fName, mName, lName, dateConv, gender, phoneNo);
+    }
+
+    /**
+     * Replace the passwords of the rows' patients with their hashes, on the hashing pool.
+     * When the pool is busy the calling thread hashes too, rather than queueing every row of the chunk.
+     *
+     * @param rows the rows
+     * @param hashPool the hashing pool
+     */
+    private static void hashPasswords(List<Row> rows, ExecutorService hashPool) throws CustomException {
+        List<Future<String>> hashes = new ArrayList<>(rows.size());
+        for (Row row : rows) {
+            String password = row.patient.getPassHash();
+            hashes.add(hashPool.submit(() -> BCrypt.hashpw(password, BCrypt.gensalt())));
+        }
+        for (int i = 0; i < rows.size(); i++) {
+            rows.get(i).patient.setPassHash(waitFor(hashes.get(i)));
+        }
+    }
+
+    /**
+     * Wait for a chunk to be inserted and add the outcome of every row to the report.
+     * If the whole chunk could not be inserted, every row of it is reported with a DATABASE_ERROR.
+     *
+     * @param rows the rows of the chunk
+     * @param insert the insert of the chunk
+     * @param report the report
+     */
+    private void finishInsert(List<Row> rows, Future<List<ErrorCode>> insert, ImportReport report) throws CustomException {
+        List<ErrorCode> outcomes;
+        try {
+            outcomes = waitFor(insert);
+        } catch (CustomException e) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw e;
+            }
+            outcomes = Collections.nCopies(rows.size(), ErrorCode.DATABASE_ERROR);
+        }
+
+        int imported = 0;
+        for (int i = 0; i < rows.size(); i++) {
+            if (outcomes.get(i) == null) {
+                imported++;
+                this.emailAvailability.emailRegistered(rows.get(i).email);
+            } else {
+                report.addError(rows.get(i).line, rows.get(i).email, List.of(outcomes.get(i)));
+            }
+        }
+        report.addImported(imported);
+    }
+
+    /**
+     * @param future a task on one of the pools
+     * @return the result of the task
+     * @throws CustomException if the task failed, or the import was interrupted
+     */
+    private static <T> T waitFor(Future<T> future) throws CustomException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof CustomException) {
+                throw (CustomException) e.getCause();
+            }
+            throw new CustomException("The import failed: " + e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CustomException("The import was interrupted");
+        }
+    }
+}
@@ -1,7 +1,8 @@
 package com.group15A.BusinessLogic;
 
 import com.group15A.CustomExceptions.*;
-import com.group15A.DataAccess.DataAccess;
+import com.group15A.DataAccess.DataAccessFactory;
+import com.group15A.DataAccess.IDataAccess;
 import com.group15A.DataModel.Doctor;
 import com.group15A.DataModel.Patient;
 import com.group15A.Utils.DataModification;
@@ -24,8 +25,9 @@ import java.util.*;
  * @author Wenbo Wu
  */
 public class RegisterLogic implements IRegister {
-    private final DataAccess dataAccessLayer;
+    private final IDataAccess dataAccessLayer;
     private final Validator validator;
+    private final EmailAvailability emailAvailability;
 
     /**
      * The constructor for the RegisterLogic class.
@@ -35,8 +37,33 @@ public class RegisterLogic implements IRegister {
      * @throws DatabaseException if there was an issue connecting to the database
      */
     public RegisterLogic() throws DatabaseException {
-        this.dataAccessLayer = new DataAccess();
+        this.dataAccessLayer = DataAccessFactory.create();
         this.validator = new Validator();
+        this.emailAvailability = EmailAvailability.getShared();
+    }
+
+    /**
+     * Check an email while it is being typed, without registering anything
+     *
+     * @param email email
+     * @return WRONG_EMAIL if the email is missing or invalid format, EMAIL_IN_USE if a patient
+     * is already registered with it, otherwise null indicating no error
+     * @throws DatabaseException if there was an issue in querying the database
+     */
+    @Override
+    public ErrorCode checkEmail(String email) throws DatabaseException {
+        if (email == null) {
+            return ErrorCode.WRONG_EMAIL;
+        }
+        email = email.trim().toLowerCase(Locale.ROOT);
+        if (this.validator.verifyEmail(email) != null) {
+            return ErrorCode.WRONG_EMAIL;
+        }
+        try {
+            return this.emailAvailability.isEmailInUse(email) ? ErrorCode.EMAIL_IN_USE : null;
+        } catch (NullDataException e) {
+            return ErrorCode.WRONG_EMAIL;
+        }
     }
 
     /**
@@ -71,7 +98,7 @@ public class RegisterLogic implements IRegister {
      */
     public void registerLog(Patient patient) throws InvalidDataException, NullDataException, DatabaseException {
         try {
-            dataAccessLayer.createLog(
+            dataAccessLayer.queueLog(
                     patient,
                     "Patient " + patient.getFirstName() + " " + patient.getLastName() + " has successfully registered with Dr. " + dataAccessLayer.getDoctor(patient).getLastName()
             );
@@ -127,6 +154,11 @@ public class RegisterLogic implements IRegister {
             throw new CustomException("Invalid Form Details", errorsList);
         }
 
+        // Turn a taken email down before the slow password hash
+        if (this.emailAvailability.isEmailInUse(email)) {
+            throw new EmailInUseException();
+        }
+
         // Attempt to convert to Date object from SimpleDateFormat, as new Date(String) is deprecated
         DateFormat df = new SimpleDateFormat("yyyy-MM-dd");
         Date dateConv;
@@ -139,10 +171,17 @@ public class RegisterLogic implements IRegister {
         // Hash password
         String passHash = BCrypt.hashpw(password, BCrypt.gensalt());
 
-        return this.dataAccessLayer.registerPatient(
-                new Patient(email, passHash, fName, mName, lName, dateConv, gender, phoneNo),
-                chosenDoctor
-        );
-
+        try {
+            Patient registered = this.dataAccessLayer.registerPatient(
+                    new Patient(email, passHash, fName, mName, lName, dateConv, gender, phoneNo),
+                    chosenDoctor
+            );
+            this.emailAvailability.emailRegistered(email);
+            return registered;
+        } catch (EmailInUseException e) {
+            // Registered since the check, e.g. by another copy of the program
+            this.emailAvailability.emailRegistered(email);
+            throw e;
+        }
     }
 }
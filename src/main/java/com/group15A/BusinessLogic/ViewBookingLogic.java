@@ -2,15 +2,17 @@ package com.group15A.BusinessLogic;
 
 import com.group15A.CustomExceptions.CustomException;
 import com.group15A.CustomExceptions.DatabaseException;
-import com.group15A.DataAccess.DataAccess;
+import com.group15A.DataAccess.DataAccessFactory;
+import com.group15A.DataAccess.IDataAccess;
 import com.group15A.DataModel.Booking;
+import com.group15A.DataModel.BookingWithDoctor;
 import com.group15A.DataModel.Doctor;
 import com.group15A.Utils.ErrorCode;
 import com.group15A.Validator.Validator;
 
 import java.sql.Timestamp;
+import java.time.LocalDate;
 import java.util.ArrayList;
-import java.util.Calendar;
 import java.util.List;
 
 /**
@@ -19,46 +21,72 @@ import java.util.List;
  * @author Milovan Gveric
  */
 public class ViewBookingLogic implements IViewBooking {
-    private final DataAccess dataAccessLayer;
+    private final IDataAccess dataAccessLayer;
     private final Validator validator;
 
+    /**
+     * The number of bookings the bookings page shows at a time
+     */
+    public static final int PAGE_SIZE = 50;
+
+    // How many bookings are read at a time when picking out the same month of every year
+    private static final int MONTH_SCAN_PAGE = 200;
+
     /**
      * Constructor for the view booking logic
      * @throws DatabaseException if issues connecting to the database
      */
     public ViewBookingLogic() throws DatabaseException {
-        this.dataAccessLayer = new DataAccess();
+        this.dataAccessLayer = DataAccessFactory.create();
         this.validator = new Validator();
     }
 
     /**
-     * Gets all the bookings belonging to the patient
+     * Gets all of the patient's past or future bookings, the past ones newest first and the future ones soonest first.
+     * Each booking comes with its doctor's name, so displaying them needs no lookup per booking.
      * @param patientID
      * @param pastBookingFlag flag to get either all past or future bookings
-     * @return the list of all the patient's bookings
+     * @return the list of the patient's past or future bookings, with their doctors
      * @throws CustomException if issues getting bookings, or with patient
      */
     @Override
-    public List<Booking> getBookings(Integer patientID, Boolean pastBookingFlag) throws CustomException {
-        List<Booking> patientBookings = this.dataAccessLayer.getBookings(this.dataAccessLayer.getPatient(patientID));
-        List<Booking> patientNewBookings = new ArrayList<>();
-        Timestamp today = new Timestamp(System.currentTimeMillis());
-
-        // Remove all old bookings from the return list
-        for (Booking b : patientBookings) {
+    public List<BookingWithDoctor> getBookings(Integer patientID, Boolean pastBookingFlag) throws CustomException {
+        return this.getBookings(patientID, pastBookingFlag, null, null, null, Integer.MAX_VALUE);
+    }
 
-            if (pastBookingFlag) {
-                if (b.getBookingTime().before(today)) {
-                    patientNewBookings.add(b);
-                }
-            } else {
-                if (b.getBookingTime().after(today)) {
-                    patientNewBookings.add(b);
-                }
+    /**
+     * Gets the patient's past or future bookings within the given range that come after the given booking,
+     * the range being narrowed down to the past or the future by the database query
+     * @param patientID
+     * @param pastBookingFlag flag to get either past or future bookings
+     * @param from the start of the range, inclusive, or null for no lower bound
+     * @param to the end of the range, exclusive, or null for no upper bound
+     * @param after the booking time the bookings come after, i.e. older than it for past bookings
+     *              and later than it for future bookings, or null to start at the start of the range.
+     *              A patient has at most one booking at any time, so the booking time alone marks where a page ends.
+     * @param limit the maximum number of bookings to get
+     * @return the list of bookings
+     * @throws CustomException if issues getting bookings, or with patient
+     */
+    private List<BookingWithDoctor> getBookings(Integer patientID, boolean pastBookingFlag, Timestamp from, Timestamp to, Timestamp after, int limit) throws CustomException {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        if (pastBookingFlag) {
+            to = (to == null || to.after(now)) ? now : to;
+            if (after != null && to.after(after)) {
+                to = after;
+            }
+        } else {
+            from = (from == null || from.before(now)) ? now : from;
+            if (after != null && !from.after(after)) {
+                from = new Timestamp(after.getTime() + 1);
             }
         }
 
-        return patientNewBookings;
+        if (from != null && to != null && !from.before(to)) {
+            return new ArrayList<>();
+        }
+
+        return this.dataAccessLayer.getBookingsWithDoctor(this.dataAccessLayer.getPatient(patientID), from, to, pastBookingFlag, limit);
     }
 
     /**
@@ -71,41 +99,68 @@ public class ViewBookingLogic implements IViewBooking {
      * @throws CustomException if any issues with getBookings DAL method
      */
     @Override
-    public List<Booking> filterBookings(String month, String year, Integer patientID, Boolean pastBookingFlag) throws CustomException {
+    public List<BookingWithDoctor> filterBookings(String month, String year, Integer patientID, Boolean pastBookingFlag) throws CustomException {
+        return this.filterBookingsPage(month, year, patientID, pastBookingFlag, null, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Gets a page of the past/future bookings that match the month and year dropdown selections,
+     * in the same order as filterBookings()
+     * @param month could be integer (in string) or string: 'Month (All)'
+     * @param year could be integer (in string) or string: 'Year (All)'
+     * @param patientID
+     * @param pastBookingFlag flag to get either past or future bookings
+     * @param lastBooking the last booking of the previous page, or null for the first page
+     * @param limit the maximum number of bookings in the page
+     * @return the bookings that match the filters and come after lastBooking
+     * @throws CustomException if any issues with getBookings DAL method
+     */
+    @Override
+    public List<BookingWithDoctor> filterBookingsPage(String month, String year, Integer patientID, Boolean pastBookingFlag, Booking lastBooking, int limit) throws CustomException {
         if (!this.validator.isNum(year) && !this.validator.isNum(month) && !month.equals("Month (All)") && !year.equals("Year (All)")) {
             throw new CustomException("Month or Year aren't numbers", List.of(ErrorCode.WRONG_DATE));
         }
 
-        List<Booking> allBookings = this.getBookings(patientID, pastBookingFlag);
-        List<Booking> newBookings = new ArrayList<>();
-        Calendar cal = Calendar.getInstance();
+        boolean allMonths = month.equals("Month (All)");
+        boolean allYears = year.equals("Year (All)");
+        Timestamp after = lastBooking == null ? null : lastBooking.getBookingTime();
 
-        Timestamp filterDate;
-        int filterMonth = -1;
-        int filterYear = -1;
-
-        if (!month.equals("Month (All)")) {
-            filterDate = Timestamp.valueOf("1900" + "-" + month + "-" + "01 " + "00:00:00");
-            cal.setTimeInMillis(filterDate.getTime());
-            filterMonth = cal.get(Calendar.MONTH);
+        if (allYears && allMonths) {
+            return this.getBookings(patientID, pastBookingFlag, null, null, after, limit);
         }
 
-        if (!year.equals("Year (All)")) {
-            filterDate = Timestamp.valueOf(year + "-" + "01" + "-" + "01 " + "00:00:00");
-            cal.setTimeInMillis(filterDate.getTime());
-            filterYear = cal.get(Calendar.YEAR);
+        if (!allYears) {
+            // A single month or a single year is one range of booking times
+            LocalDate rangeStart = allMonths ? LocalDate.of(Integer.parseInt(year), 1, 1) : LocalDate.of(Integer.parseInt(year), Integer.parseInt(month), 1);
+            LocalDate rangeEnd = allMonths ? rangeStart.plusYears(1) : rangeStart.plusMonths(1);
+
+            return this.getBookings(
+                    patientID,
+                    pastBookingFlag,
+                    Timestamp.valueOf(rangeStart.atStartOfDay()),
+                    Timestamp.valueOf(rangeEnd.atStartOfDay()),
+                    after,
+                    limit
+            );
         }
 
-        for (Booking b : allBookings) {
-            cal.setTimeInMillis(b.getBookingTime().getTime());
-            // Check booking is in the same month and year
-            if ( (cal.get(Calendar.MONTH) == filterMonth && cal.get(Calendar.YEAR) == filterYear) ||
-                 (cal.get(Calendar.MONTH) == filterMonth && year.equals("Year (All)"))                   ||
-                 (month.equals("Month (All)") && cal.get(Calendar.YEAR) == filterYear)                    ||
-                 (month.equals("Month (All)") && year.equals("Year (All)"))
-            ) {
-                newBookings.add(b);
+        // The same month of every year is not a single range, so it is picked out of the past or future bookings
+        int filterMonth = Integer.parseInt(month);
+        List<BookingWithDoctor> newBookings = new ArrayList<>();
+        while (newBookings.size() < limit) {
+            List<BookingWithDoctor> read = this.getBookings(patientID, pastBookingFlag, null, null, after, MONTH_SCAN_PAGE);
+            for (BookingWithDoctor b : read) {
+                if (b.getBookingTime().toLocalDateTime().getMonthValue() == filterMonth) {
+                    newBookings.add(b);
+                    if (newBookings.size() == limit) {
+                        break;
+                    }
+                }
+            }
+            if (read.size() < MONTH_SCAN_PAGE) {
+                break;
             }
+            after = read.get(read.size() - 1).getBookingTime();
         }
 
         return newBookings;
@@ -3,7 +3,8 @@ package com.group15A.BusinessLogic;
 import com.group15A.CustomExceptions.CustomException;
 import com.group15A.CustomExceptions.DatabaseException;
 import com.group15A.CustomExceptions.SameDoctorException;
-import com.group15A.DataAccess.DataAccess;
+import com.group15A.DataAccess.DataAccessFactory;
+import com.group15A.DataAccess.IDataAccess;
 import com.group15A.DataModel.Doctor;
 import com.group15A.DataModel.Patient;
 
@@ -14,14 +15,14 @@ import com.group15A.DataModel.Patient;
  * @author Milovan Gveric
  */
 public class ViewProfileLogic implements IViewProfile {
-    private final DataAccess dataAccessLayer;
+    private final IDataAccess dataAccessLayer;
 
     /**
      * Constructor for view profile logic
      * @throws DatabaseException if issues connecting to the database
      */
     public ViewProfileLogic() throws DatabaseException {
-        this.dataAccessLayer = new DataAccess();
+        this.dataAccessLayer = DataAccessFactory.create();
     }
 
     /**
@@ -43,6 +44,6 @@ public class ViewProfileLogic implements IViewProfile {
 
         this.dataAccessLayer.changeDoctor(patient, newDoctor);
         this.dataAccessLayer.createNotification(patient, "Doctor Changed", "You changed your doctor from "+oldDoctor.getFullName()+" to "+newDoctor.getFullName());
-        this.dataAccessLayer.createLog(patient, "Patient " + patient.getFirstName() + " " + patient.getLastName() + " has changed their doctor from Dr. " +oldDoctor.getLastName() + " to Dr. " + newDoctor.getLastName());
+        this.dataAccessLayer.queueLog(patient, "Patient " + patient.getFirstName() + " " + patient.getLastName() + " has changed their doctor from Dr. " +oldDoctor.getLastName() + " to Dr. " + newDoctor.getLastName());
     }
 }
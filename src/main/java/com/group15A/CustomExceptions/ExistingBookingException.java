@@ -1,5 +1,9 @@
 package com.group15A.CustomExceptions;
 
+import com.group15A.Utils.ErrorCode;
+
+import java.util.List;
+
 /**
  * Exception encountered when making new booking conflicts with the booking time of a
  * previously made booking
@@ -15,4 +19,25 @@ public class ExistingBookingException extends CustomException
     {
         super("A booking at that time already exists");
     }
+
+    /**
+     * Constructor for the ExistingBookingException. It creates a Custom Exception with the given error code,
+     * PATIENT_BOOKING_CLASH or DOCTOR_BOOKING_CLASH, and a suitable error message
+     * @param errorCode Whether the patient or the doctor already has a booking at that time
+     */
+    public ExistingBookingException(ErrorCode errorCode)
+    {
+        super(errorCode == ErrorCode.DOCTOR_BOOKING_CLASH
+                        ? "The doctor already has a booking at that time"
+                        : "The patient already has a booking at that time",
+                List.of(errorCode));
+    }
+
+    /**
+     * @return True if the clash is with another booking of the same doctor
+     */
+    public boolean isDoctorClash()
+    {
+        return getErrorList().contains(ErrorCode.DOCTOR_BOOKING_CLASH);
+    }
 }
@@ -0,0 +1,193 @@
+package com.group15A.DataAccess;
+
+import com.group15A.DataModel.Log;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An append-only file holding the audit log events that could not be written to the database.
+ *
+ * Every event is one line: the time in milliseconds, the patient id and the escaped message, separated by tabs.
+ * Before the events are replayed the file is moved aside, so events spooled during the replay go to a new file
+ * and the moved file is only deleted once its events have been committed.
+ * Events the database rejects are appended to a quarantine file in the same format, which is never replayed.
+ */
+class AuditLogSpool
+{
+    private final Path spoolFile;
+    private final Path replayFile;
+    private final Path quarantineFile;
+
+    /**
+     * Constructor for the AuditLogSpool class
+     * @param spoolFile The file the events are appended to
+     */
+    AuditLogSpool(Path spoolFile)
+    {
+        this.spoolFile = spoolFile;
+        this.replayFile = spoolFile.resolveSibling(spoolFile.getFileName() + ".replay");
+        this.quarantineFile = spoolFile.resolveSibling(spoolFile.getFileName() + ".rejected");
+    }
+
+    /**
+     * Append the given events to the spool file and force them to disk
+     * @param logs The events
+     * @throws IOException if the events could not be written
+     */
+    void append(List<Log> logs) throws IOException
+    {
+        write(spoolFile, logs, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Append an event the database rejects to the quarantine file and force it to disk
+     * @param log The event
+     * @throws IOException if the event could not be written
+     */
+    void quarantine(Log log) throws IOException
+    {
+        write(quarantineFile, List.of(log), StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Replace the events returned by takePending() with the given ones, when only some of them were written
+     * @param logs The events that are still to be written
+     * @throws IOException if the events could not be written
+     */
+    void replacePending(List<Log> logs) throws IOException
+    {
+        Path newReplayFile = replayFile.resolveSibling(replayFile.getFileName() + ".new");
+        write(newReplayFile, logs, StandardOpenOption.TRUNCATE_EXISTING);
+        Files.move(newReplayFile, replayFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static void write(Path file, List<Log> logs, StandardOpenOption mode) throws IOException
+    {
+        StringBuilder lines = new StringBuilder();
+        for(Log log : logs) {
+            lines.append(log.getTimestamp().getTime()).append('\t')
+                    .append(log.getPatientID()).append('\t')
+                    .append(escape(log.getMessage())).append('\n');
+        }
+
+        Path directory = file.toAbsolutePath().getParent();
+        if(directory != null)
+            Files.createDirectories(directory);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, mode)) {
+            ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining())
+                channel.write(buffer);
+            channel.force(false);
+        }
+    }
+
+    /**
+     * @return True if there are spooled events that have not been replayed yet
+     */
+    boolean hasPending()
+    {
+        return Files.exists(replayFile) || Files.exists(spoolFile);
+    }
+
+    /**
+     * Move the spooled events aside and read them back. A replay that did not finish is picked up first.
+     * Lines that cannot be read, such as one cut short by a crash, are skipped.
+     * @return The spooled events, oldest first
+     * @throws IOException if the spool file could not be read
+     */
+    List<Log> takePending() throws IOException
+    {
+        if(!Files.exists(replayFile)) {
+            if(!Files.exists(spoolFile))
+                return new ArrayList<>();
+            Files.move(spoolFile, replayFile, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        var logs = new ArrayList<Log>();
+        try (BufferedReader reader = Files.newBufferedReader(replayFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split("\t", 3);
+                if(fields.length < 3)
+                    continue;
+                try {
+                    logs.add(new Log(null, unescape(fields[2]), Integer.parseInt(fields[1]), new Timestamp(Long.parseLong(fields[0]))));
+                } catch (NumberFormatException ex) {
+                    // Skip the damaged line
+                }
+            }
+        }
+        return logs;
+    }
+
+    /**
+     * Forget the events returned by takePending(), once they have been written to the database
+     * @throws IOException if the replayed file could not be deleted
+     */
+    void commitPending() throws IOException
+    {
+        Files.deleteIfExists(replayFile);
+    }
+
+    /**
+     * @return The file the events are appended to
+     */
+    Path getSpoolFile()
+    {
+        return spoolFile;
+    }
+
+    /**
+     * @return The file the events the database rejects are appended to
+     */
+    Path getQuarantineFile()
+    {
+        return quarantineFile;
+    }
+
+    private static String escape(String message)
+    {
+        StringBuilder escaped = new StringBuilder(message.length());
+        for(char c : message.toCharArray()) {
+            switch (c) {
+                case '\\' -> escaped.append("\\\\");
+                case '\t' -> escaped.append("\\t");
+                case '\n' -> escaped.append("\\n");
+                case '\r' -> escaped.append("\\r");
+                default -> escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+
+    private static String unescape(String message)
+    {
+        StringBuilder unescaped = new StringBuilder(message.length());
+        for(int i = 0; i < message.length(); i++) {
+            char c = message.charAt(i);
+            if(c == '\\' && i + 1 < message.length()) {
+                char next = message.charAt(++i);
+                switch (next) {
+                    case 't' -> unescaped.append('\t');
+                    case 'n' -> unescaped.append('\n');
+                    case 'r' -> unescaped.append('\r');
+                    default -> unescaped.append(next);
+                }
+            } else {
+                unescaped.append(c);
+            }
+        }
+        return unescaped.toString();
+    }
+}
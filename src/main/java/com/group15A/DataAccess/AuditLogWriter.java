@@ -0,0 +1,470 @@
+package com.group15A.DataAccess;
+
+import com.group15A.DataModel.Log;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Writes audit log events to the database on a background thread, so the caller never waits on log I/O.
+ *
+ * Events are put on a bounded lock-free queue and written in batches, each batch in a single transaction.
+ * A batch is written once BATCH_SIZE events are waiting or FLUSH_INTERVAL_MS has passed since the last one.
+ * If the database cannot be reached the batch is appended to a local spool file, and the spooled events are
+ * written before any newer ones once the database is back. If the database rejects a batch for any other reason,
+ * such as an event for a patient deleted since, the events are written one at a time and the ones still rejected
+ * are moved to a quarantine file next to the spool file, so one bad event never holds up the rest.
+ * Events are dropped, and counted, when the queue is full or they are quarantined.
+ * The queue is flushed when the program exits.
+ */
+public class AuditLogWriter
+{
+    private static final int QUEUE_CAPACITY = Integer.getInteger("gp.auditLog.queueCapacity", 10_000);
+    private static final int BATCH_SIZE = Integer.getInteger("gp.auditLog.batchSize", 100);
+    private static final long FLUSH_INTERVAL_MS = Long.getLong("gp.auditLog.flushIntervalMs", 200);
+    private static final long RETRY_INTERVAL_MS = 5_000;
+    private static final long SHUTDOWN_TIMEOUT_MS = 5_000;
+    private static final Path SPOOL_FILE = Paths.get(System.getProperty("gp.auditLog.spoolFile",
+            Paths.get(System.getProperty("user.home"), ".thegeneralpractitioner", "audit-log.spool").toString()));
+
+    private static volatile AuditLogWriter instance;
+
+    /**
+     * Where the writer gets its connections from, such as a ConnectionPool
+     */
+    @FunctionalInterface
+    public interface ConnectionSource
+    {
+        Connection getConnection() throws SQLException;
+    }
+
+    private final ConnectionSource connectionSource;
+    private final AuditLogSpool spool;
+    private final Queue<Log> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queueDepth = new AtomicInteger();
+    private final Thread writer;
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong spooled = new AtomicLong();
+    private final AtomicLong replayed = new AtomicLong();
+    private final AtomicLong quarantined = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong failedFlushes = new AtomicLong();
+    private final AtomicLong totalFlushNanos = new AtomicLong();
+    private volatile long lastFlushNanos = 0;
+    private volatile long maxFlushNanos = 0;
+
+    private volatile boolean running = true;
+    private volatile boolean flushRequested = false;
+    private volatile boolean flushing = false;
+    private long nextReplayAttempt = 0;
+
+    /**
+     * Constructor for the AuditLogWriter class, which starts its writer thread.
+     * Use getInstance() to get the writer shared by all DataAccess objects.
+     * @param connectionSource Where the writer gets its connections from
+     * @param spoolFile The file events are spooled to while the database cannot be reached
+     */
+    public AuditLogWriter(ConnectionSource connectionSource, Path spoolFile)
+    {
+        this.connectionSource = connectionSource;
+        this.spool = new AuditLogSpool(spoolFile);
+
+        this.writer = new Thread(this::run, "audit-log-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Get the shared audit log writer, starting it on first use
+     * @param connectionPool The pool the writer borrows its connections from
+     * @return The audit log writer
+     */
+    public static AuditLogWriter getInstance(ConnectionPool connectionPool)
+    {
+        AuditLogWriter auditLogWriter = instance;
+        if(auditLogWriter == null) {
+            synchronized (AuditLogWriter.class) {
+                auditLogWriter = instance;
+                if(auditLogWriter == null) {
+                    auditLogWriter = new AuditLogWriter(connectionPool::getConnection, SPOOL_FILE);
+                    Runtime.getRuntime().addShutdownHook(new Thread(auditLogWriter::shutdown, "audit-log-shutdown"));
+                    instance = auditLogWriter;
+                }
+            }
+        }
+        return auditLogWriter;
+    }
+
+    /**
+     * Put an event on the queue. Never blocks.
+     * @param log The event, with a null id
+     * @return True if the event was queued, false if it was dropped because the queue is full
+     */
+    public boolean submit(Log log)
+    {
+        int depth;
+        do {
+            depth = queueDepth.get();
+            if(depth >= QUEUE_CAPACITY || !running) {
+                dropped.incrementAndGet();
+                return false;
+            }
+        } while (!queueDepth.compareAndSet(depth, depth + 1));
+
+        queue.offer(log);
+        submitted.incrementAndGet();
+        if(depth + 1 == BATCH_SIZE)
+            LockSupport.unpark(writer);
+        return true;
+    }
+
+    /**
+     * Ask the writer to flush now and wait until every queued event has been handled
+     * @param timeoutMillis The longest time to wait
+     * @return True if the queue was flushed in time
+     */
+    public boolean awaitFlushed(long timeoutMillis)
+    {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        flushRequested = true;
+        LockSupport.unpark(writer);
+        while (queueDepth.get() > 0 || flushing) {
+            if(System.nanoTime() - deadline >= 0 || !writer.isAlive())
+                return false;
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        return true;
+    }
+
+    /**
+     * Stop taking events, flush the queue and wait for the writer to finish
+     */
+    public void shutdown()
+    {
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(SHUTDOWN_TIMEOUT_MS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * The writer loop. Waits until a batch is full, the flush interval has passed or a flush was asked for.
+     */
+    private void run()
+    {
+        final long flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(FLUSH_INTERVAL_MS);
+        long lastFlush = System.nanoTime();
+        while (running) {
+            long waited = System.nanoTime() - lastFlush;
+            if(queueDepth.get() < BATCH_SIZE && waited < flushIntervalNanos && !flushRequested) {
+                LockSupport.parkNanos(this, flushIntervalNanos - waited);
+                continue;
+            }
+            flush();
+            lastFlush = System.nanoTime();
+        }
+        flush();
+    }
+
+    /**
+     * Write every queued event. Spooled events are replayed first, and while they cannot be replayed
+     * new events are spooled behind them, so the events reach the database in the order they happened.
+     */
+    private void flush()
+    {
+        flushing = true;
+        flushRequested = false;
+        try {
+            boolean databaseAvailable = !spool.hasPending() || replaySpool();
+
+            List<Log> batch;
+            while (!(batch = drain()).isEmpty()) {
+                if(databaseAvailable)
+                    databaseAvailable = writeBatch(batch);
+                else
+                    spoolBatch(batch);
+            }
+        } finally {
+            flushing = false;
+        }
+    }
+
+    /**
+     * @return Up to BATCH_SIZE events taken from the queue
+     */
+    private List<Log> drain()
+    {
+        var batch = new ArrayList<Log>(Math.min(BATCH_SIZE, Math.max(queueDepth.get(), 1)));
+        Log log;
+        while (batch.size() < BATCH_SIZE && (log = queue.poll()) != null) {
+            batch.add(log);
+        }
+        queueDepth.addAndGet(-batch.size());
+        return batch;
+    }
+
+    /**
+     * Write a batch to the database. If the database cannot be reached the batch is spooled,
+     * and if it rejects the batch the events are written one at a time.
+     * @param batch The events
+     * @return True if the database could be reached for the whole batch
+     */
+    private boolean writeBatch(List<Log> batch)
+    {
+        long start = System.nanoTime();
+        try {
+            insert(batch);
+            written.addAndGet(batch.size());
+            recordFlush(System.nanoTime() - start);
+            return true;
+        } catch (SQLException ex) {
+            failedFlushes.incrementAndGet();
+            List<Log> unwritten = isConnectionError(ex) ? batch : insertOneByOne(batch);
+            if(unwritten.isEmpty())
+                return true;
+            nextReplayAttempt = System.currentTimeMillis() + RETRY_INTERVAL_MS;
+            spoolBatch(unwritten);
+            return false;
+        }
+    }
+
+    /**
+     * Write the spooled events to the database, unless the last attempt was too recent.
+     * If the database rejects them, they are written one at a time as in writeBatch().
+     * @return True if no spooled events are left
+     */
+    private boolean replaySpool()
+    {
+        if(System.currentTimeMillis() < nextReplayAttempt)
+            return false;
+
+        long start = System.nanoTime();
+        try {
+            List<Log> pending = spool.takePending();
+            try {
+                insert(pending);
+                replayed.addAndGet(pending.size());
+                written.addAndGet(pending.size());
+                recordFlush(System.nanoTime() - start);
+            } catch (SQLException ex) {
+                failedFlushes.incrementAndGet();
+                if(isConnectionError(ex)) {
+                    nextReplayAttempt = System.currentTimeMillis() + RETRY_INTERVAL_MS;
+                    return false;
+                }
+                long writtenBefore = written.get();
+                List<Log> unwritten = insertOneByOne(pending);
+                replayed.addAndGet(written.get() - writtenBefore);
+                if(!unwritten.isEmpty()) {
+                    // Keep only the events that were not written, so none are written twice
+                    spool.replacePending(unwritten);
+                    nextReplayAttempt = System.currentTimeMillis() + RETRY_INTERVAL_MS;
+                    return false;
+                }
+            }
+            spool.commitPending();
+            return true;
+        } catch (IOException ex) {
+            failedFlushes.incrementAndGet();
+            nextReplayAttempt = System.currentTimeMillis() + RETRY_INTERVAL_MS;
+            return false;
+        }
+    }
+
+    /**
+     * Write the events one at a time, after the database rejected them as a batch.
+     * The events it rejects on their own are quarantined and counted as dropped.
+     * @param logs The events
+     * @return The events that were not written because the database could no longer be reached, oldest first
+     */
+    private List<Log> insertOneByOne(List<Log> logs)
+    {
+        for(int i = 0; i < logs.size(); i++) {
+            Log log = logs.get(i);
+            try {
+                insert(List.of(log));
+                written.incrementAndGet();
+            } catch (SQLException ex) {
+                if(isConnectionError(ex))
+                    return logs.subList(i, logs.size());
+                quarantine(log, ex);
+            }
+        }
+        return List.of();
+    }
+
+    /**
+     * Move an event the database rejects to the quarantine file, where it can be looked at, and count it as dropped
+     * @param log The event
+     * @param reason Why the database rejected it
+     */
+    private void quarantine(Log log, SQLException reason)
+    {
+        dropped.incrementAndGet();
+        quarantined.incrementAndGet();
+        try {
+            spool.quarantine(log);
+            System.err.println("Quarantined an audit log event for patient " + log.getPatientID() + " in " +
+                    spool.getQuarantineFile() + ": " + reason.getMessage());
+        } catch (IOException ex) {
+            System.err.println("Dropped an audit log event for patient " + log.getPatientID() + ": " + reason.getMessage());
+        }
+    }
+
+    /**
+     * @param ex An exception thrown while writing events
+     * @return True if it means the database could not be reached, rather than that it rejected the events
+     */
+    public static boolean isConnectionError(SQLException ex)
+    {
+        for(Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if(cause instanceof SQLTransientConnectionException || cause instanceof SQLNonTransientConnectionException
+                    || cause instanceof SQLRecoverableException)
+                return true;
+            // SQL states of class 08 are connection errors
+            if(cause instanceof SQLException && ((SQLException) cause).getSQLState() != null
+                    && ((SQLException) cause).getSQLState().startsWith("08"))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Insert the given events in one transaction
+     * @param logs The events
+     * @throws SQLException if the events could not be inserted; none of them are kept in that case.
+     * If no connection could be had it is an SQLTransientConnectionException.
+     */
+    private void insert(List<Log> logs) throws SQLException
+    {
+        if(logs.isEmpty())
+            return;
+
+        Connection borrowed;
+        try {
+            borrowed = connectionSource.getConnection();
+        } catch (SQLException ex) {
+            throw new SQLTransientConnectionException("Could not get a connection", ex.getSQLState(), ex);
+        }
+        try (Connection connection = borrowed) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareCall("CALL insert_log_at(?, ?, ?);")) {
+                int pending = 0;
+                for(Log log : logs) {
+                    statement.setString(1, log.getMessage());
+                    statement.setInt(2, log.getPatientID());
+                    statement.setTimestamp(3, log.getTimestamp());
+                    statement.addBatch();
+                    if(++pending == BATCH_SIZE) {
+                        statement.executeBatch();
+                        pending = 0;
+                    }
+                }
+                if(pending > 0)
+                    statement.executeBatch();
+                connection.commit();
+            } catch (SQLException ex) {
+                connection.rollback();
+                throw ex;
+            }
+        }
+    }
+
+    /**
+     * Append a batch to the spool file. The events are dropped if even that fails.
+     * @param batch The events
+     */
+    private void spoolBatch(List<Log> batch)
+    {
+        try {
+            spool.append(batch);
+            spooled.addAndGet(batch.size());
+        } catch (IOException ex) {
+            dropped.addAndGet(batch.size());
+            System.err.println("Could not spool " + batch.size() + " audit log events to " + spool.getSpoolFile() + ": " + ex.getMessage());
+        }
+    }
+
+    private void recordFlush(long nanos)
+    {
+        flushes.incrementAndGet();
+        totalFlushNanos.addAndGet(nanos);
+        lastFlushNanos = nanos;
+        if(nanos > maxFlushNanos)
+            maxFlushNanos = nanos;
+    }
+
+    //region Metrics
+
+    public int getQueueDepth() {return queueDepth.get();}
+
+    public int getQueueCapacity() {return QUEUE_CAPACITY;}
+
+    public long getSubmitted() {return submitted.get();}
+
+    public long getWritten() {return written.get();}
+
+    public long getDropped() {return dropped.get();}
+
+    public long getSpooled() {return spooled.get();}
+
+    public long getReplayed() {return replayed.get();}
+
+    public long getQuarantined() {return quarantined.get();}
+
+    public long getFlushes() {return flushes.get();}
+
+    public long getFailedFlushes() {return failedFlushes.get();}
+
+    public boolean hasSpooledEvents() {return spool.hasPending();}
+
+    public double getLastFlushMillis() {return lastFlushNanos / 1e6;}
+
+    public double getMaxFlushMillis() {return maxFlushNanos / 1e6;}
+
+    /**
+     * @return The average time taken to write a batch to the database, in milliseconds
+     */
+    public double getAverageFlushMillis()
+    {
+        long count = flushes.get();
+        if(count == 0)
+            return 0;
+        return totalFlushNanos.get() / 1e6 / count;
+    }
+
+    //endregion
+
+    @Override
+    public String toString()
+    {
+        return "AuditLogWriter{" +
+                "queued=" + getQueueDepth() + "/" + getQueueCapacity() +
+                ", submitted=" + getSubmitted() +
+                ", written=" + getWritten() +
+                ", dropped=" + getDropped() +
+                ", spooled=" + getSpooled() +
+                ", replayed=" + getReplayed() +
+                ", quarantined=" + getQuarantined() +
+                ", flushes=" + getFlushes() +
+                ", failedFlushes=" + getFailedFlushes() +
+                String.format(", flushMs(avg/last/max)=%.2f/%.2f/%.2f", getAverageFlushMillis(), getLastFlushMillis(), getMaxFlushMillis()) +
+                '}';
+    }
+}
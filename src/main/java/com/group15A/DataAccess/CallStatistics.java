@@ -0,0 +1,417 @@
+package com.group15A.DataAccess;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Measures every stored procedure call made through the connection pool.
+ *
+ * The pool hands every CallableStatement it prepares to instrument(), which wraps it to time its executions
+ * and count the rows read from its results. For each procedure it keeps the number of calls and errors,
+ * a histogram of the latencies and one of the rows returned. Calls slower than the slow call threshold are
+ * written to the error stream together with their parameters, with anything that is not a number hidden,
+ * and the DataAccess and logic methods they were made from.
+ *
+ * The statistics are registered as MBeans under com.group15A:type=CallStatistics, so they can be read and reset
+ * live with jconsole. The threshold is set with -Dgp.slowCallMs (500 by default) or through JMX, and
+ * -Dgp.callStats=false turns the measuring off.
+ */
+public class CallStatistics implements CallStatisticsMBean
+{
+    private static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("gp.callStats", "true"));
+    private static final long SLOW_CALL_MS = Long.getLong("gp.slowCallMs", 500);
+    private static final String DOMAIN = "com.group15A:type=CallStatistics";
+    private static final String DATA_ACCESS_PACKAGE = CallStatistics.class.getPackageName() + ".";
+    private static final Pattern CALL = Pattern.compile("^\\s*\\{?\\s*CALL\\s+`?(\\w+)", Pattern.CASE_INSENSITIVE);
+
+    private static volatile CallStatistics instance;
+
+    private final Map<String, ProcedureStats> procedures = new ConcurrentHashMap<>();
+    private final Consumer<String> slowCallLog;
+    private final boolean registerMBeans;
+    private volatile long slowCallThresholdNanos;
+
+    /**
+     * Constructor for the CallStatistics class. Use getInstance() to get the statistics shared by the application.
+     * @param slowCallThresholdMillis How long a call can take, in milliseconds, before it is logged as slow
+     * @param slowCallLog Where the slow calls are written to
+     */
+    public CallStatistics(long slowCallThresholdMillis, Consumer<String> slowCallLog)
+    {
+        this(slowCallThresholdMillis, slowCallLog, false);
+    }
+
+    private CallStatistics(long slowCallThresholdMillis, Consumer<String> slowCallLog, boolean registerMBeans)
+    {
+        this.slowCallLog = slowCallLog;
+        this.registerMBeans = registerMBeans;
+        setSlowCallThresholdMillis(slowCallThresholdMillis);
+    }
+
+    /**
+     * Get the statistics shared by the application, registering them with JMX on first use
+     * @return The call statistics
+     */
+    public static CallStatistics getInstance()
+    {
+        CallStatistics statistics = instance;
+        if(statistics == null) {
+            synchronized (CallStatistics.class) {
+                statistics = instance;
+                if(statistics == null) {
+                    statistics = new CallStatistics(SLOW_CALL_MS, System.err::println, true);
+                    statistics.register(DOMAIN, statistics);
+                    instance = statistics;
+                }
+            }
+        }
+        return statistics;
+    }
+
+    /**
+     * Wrap a prepared stored procedure call so that its executions are measured
+     * @param statement The statement
+     * @param sql The SQL it was prepared from, e.g. "CALL find_patient(?);"
+     * @return The measured statement, or the statement itself if measuring is turned off
+     */
+    public CallableStatement instrument(CallableStatement statement, String sql)
+    {
+        if(!ENABLED || statement == null)
+            return statement;
+
+        return (CallableStatement) Proxy.newProxyInstance(
+                CallableStatement.class.getClassLoader(),
+                new Class<?>[]{CallableStatement.class},
+                new MeasuredCall(statement, getProcedureStats(procedureName(sql)))
+        );
+    }
+
+    /**
+     * Get the statistics of the given procedure, creating them the first time it is called
+     * @param procedure The name of the procedure
+     * @return The procedure's statistics
+     */
+    public ProcedureStats getProcedureStats(String procedure)
+    {
+        ProcedureStats stats = procedures.get(procedure);
+        if(stats != null)
+            return stats;
+
+        return procedures.computeIfAbsent(procedure, name -> {
+            ProcedureStats created = new ProcedureStats(name);
+            register(DOMAIN + ",procedure=" + ObjectName.quote(name), created);
+            return created;
+        });
+    }
+
+    /**
+     * @return The statistics of every procedure called so far
+     */
+    public List<ProcedureStats> getAllProcedureStats()
+    {
+        return new ArrayList<>(procedures.values());
+    }
+
+    /**
+     * Register an MBean with the platform MBean server, if this is the shared instance
+     * @param name The object name of the MBean
+     * @param bean The MBean
+     */
+    private void register(String name, Object bean)
+    {
+        if(!registerMBeans)
+            return;
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(bean, new ObjectName(name));
+        } catch (JMException ex) {
+            // The statistics are still kept, they just cannot be read through JMX
+            System.err.println("Could not register " + name + " with JMX: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Get the name of the procedure a call statement calls
+     * @param sql The SQL of the statement
+     * @return The name of the procedure, or the SQL itself if it is not a procedure call
+     */
+    static String procedureName(String sql)
+    {
+        if(sql == null)
+            return "unknown";
+        Matcher matcher = CALL.matcher(sql);
+        return matcher.find() ? matcher.group(1).toLowerCase() : sql.strip();
+    }
+
+    /**
+     * Write a slow call to the slow call log
+     * @param stats The statistics of the procedure that was called
+     * @param nanos How long the call took, in nanoseconds
+     * @param parameters The parameters of the call, indexed from 1
+     */
+    private void logSlowCall(ProcedureStats stats, long nanos, Object[] parameters)
+    {
+        StringBuilder message = new StringBuilder("Slow call: ")
+                .append(stats.getProcedure())
+                .append('(');
+        for(int i = 1; i < parameters.length; i++) {
+            if(i > 1)
+                message.append(", ");
+            message.append(redact(parameters[i]));
+        }
+        message.append(") took ")
+                .append(TimeUnit.NANOSECONDS.toMillis(nanos))
+                .append(" ms, called from ")
+                .append(findCaller());
+        slowCallLog.accept(message.toString());
+    }
+
+    /**
+     * Hide a call parameter, which may be personal data, unless it is a number such as an id
+     * @param value The value of the parameter
+     * @return The text shown for it in the slow call log
+     */
+    static String redact(Object value)
+    {
+        if(value == null)
+            return "null";
+        if(value instanceof Number || value instanceof Boolean)
+            return value.toString();
+        if(value instanceof CharSequence)
+            return "<" + ((CharSequence) value).length() + " chars>";
+        return "<" + value.getClass().getSimpleName() + ">";
+    }
+
+    /**
+     * Find the DataAccess method and the logic method the current call was made from
+     * @return e.g. "DataAccess.getPatient <- LogInLogic.logIn"
+     */
+    private static String findCaller()
+    {
+        return StackWalker.getInstance().walk(frames -> {
+            String dataAccessMethod = null;
+            for(StackWalker.StackFrame frame : (Iterable<StackWalker.StackFrame>) frames::iterator) {
+                String className = frame.getClassName();
+                if(className.startsWith(DATA_ACCESS_PACKAGE)) {
+                    if(dataAccessMethod == null && !className.startsWith(CallStatistics.class.getName()) && !className.startsWith(ConnectionPool.class.getName()))
+                        dataAccessMethod = simpleName(className) + "." + frame.getMethodName();
+                } else if(!isPlatformClass(className)) {
+                    String logicMethod = simpleName(className) + "." + frame.getMethodName();
+                    return dataAccessMethod == null ? logicMethod : dataAccessMethod + " <- " + logicMethod;
+                }
+            }
+            return dataAccessMethod == null ? "unknown" : dataAccessMethod;
+        });
+    }
+
+    /**
+     * Call a method on the object behind a proxy, throwing what the method threw
+     */
+    private static Object invokeOn(Object target, Method method, Object[] args) throws Throwable
+    {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    /**
+     * @return true for the JDK's own classes, such as the reflection and proxy classes between a call and its caller
+     */
+    private static boolean isPlatformClass(String className)
+    {
+        return className.startsWith("java.") || className.startsWith("javax.") || className.startsWith("jdk.")
+                || className.startsWith("sun.") || className.startsWith("com.sun.");
+    }
+
+    private static String simpleName(String className)
+    {
+        return className.substring(className.lastIndexOf('.') + 1);
+    }
+
+    //region MBean
+    @Override
+    public long getSlowCallThresholdMillis()
+    {
+        return TimeUnit.NANOSECONDS.toMillis(slowCallThresholdNanos);
+    }
+
+    @Override
+    public void setSlowCallThresholdMillis(long thresholdMillis)
+    {
+        this.slowCallThresholdNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, thresholdMillis));
+    }
+
+    @Override
+    public int getProcedureCount() {return procedures.size();}
+
+    @Override
+    public long getTotalCalls() {return procedures.values().stream().mapToLong(ProcedureStats::getCalls).sum();}
+
+    @Override
+    public long getTotalErrors() {return procedures.values().stream().mapToLong(ProcedureStats::getErrors).sum();}
+
+    @Override
+    public long getTotalSlowCalls() {return procedures.values().stream().mapToLong(ProcedureStats::getSlowCalls).sum();}
+
+    /**
+     * @return The 10 procedures with the highest 99th percentile latency, slowest first
+     */
+    @Override
+    public String[] getSlowestProcedures()
+    {
+        return procedures.values().stream()
+                .filter(stats -> stats.getCalls() > 0)
+                .sorted(Comparator.comparingDouble(ProcedureStats::get99thPercentileMillis).reversed())
+                .limit(10)
+                .map(ProcedureStats::toString)
+                .toArray(String[]::new);
+    }
+
+    /**
+     * Forget the recorded calls of every procedure
+     */
+    @Override
+    public void reset()
+    {
+        procedures.values().forEach(ProcedureStats::reset);
+    }
+    //endregion
+
+    /**
+     * Measures the executions of one CallableStatement and counts the rows read from its results
+     */
+    private class MeasuredCall implements InvocationHandler
+    {
+        private final CallableStatement statement;
+        private final ProcedureStats stats;
+        private Object[] parameters = new Object[1];
+        private long rows;
+        private boolean hasResult;
+
+        private MeasuredCall(CallableStatement statement, ProcedureStats stats)
+        {
+            this.statement = statement;
+            this.stats = stats;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+        {
+            String name = method.getName();
+            switch (name) {
+                case "execute":
+                case "executeQuery":
+                case "executeUpdate":
+                case "executeLargeUpdate":
+                case "executeBatch":
+                case "executeLargeBatch":
+                    if(args == null)
+                        return execute(method);
+                    break;
+                case "getResultSet":
+                    return countRows((ResultSet) call(method, args));
+                case "close":
+                    finishRows();
+                    break;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    if(name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer)
+                        keepParameter((Integer) args[0], name.equals("setNull") ? null : args[1]);
+            }
+            return call(method, args);
+        }
+
+        /**
+         * Run and time one execution of the statement
+         */
+        private Object execute(Method method) throws Throwable
+        {
+            finishRows();
+            boolean failed = true;
+            long start = System.nanoTime();
+            try {
+                Object result = call(method, null);
+                failed = false;
+                return result instanceof ResultSet ? countRows((ResultSet) result) : result;
+            } finally {
+                long nanos = System.nanoTime() - start;
+                boolean slow = nanos >= slowCallThresholdNanos;
+                stats.recordCall(nanos, failed, slow);
+                if(slow)
+                    logSlowCall(stats, nanos, parameters);
+            }
+        }
+
+        private Object call(Method method, Object[] args) throws Throwable
+        {
+            return invokeOn(statement, method, args);
+        }
+
+        private void keepParameter(int index, Object value)
+        {
+            if(index < 1 || index > 1_000)
+                return;
+            if(index >= parameters.length)
+                parameters = Arrays.copyOf(parameters, index + 1);
+            parameters[index] = value;
+        }
+
+        /**
+         * Wrap a result set of the statement so the rows read from it are counted
+         */
+        private ResultSet countRows(ResultSet result)
+        {
+            if(result == null)
+                return null;
+            hasResult = true;
+            return (ResultSet) Proxy.newProxyInstance(
+                    ResultSet.class.getClassLoader(),
+                    new Class<?>[]{ResultSet.class},
+                    (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "equals":
+                                return proxy == args[0];
+                            case "hashCode":
+                                return System.identityHashCode(proxy);
+                        }
+                        Object value = invokeOn(result, method, args);
+                        if(Boolean.TRUE.equals(value) && method.getName().equals("next"))
+                            rows++;
+                        return value;
+                    }
+            );
+        }
+
+        /**
+         * Record the rows read since the last execution, once the statement is executed again or closed
+         */
+        private void finishRows()
+        {
+            if(hasResult)
+                stats.recordRows(rows);
+            hasResult = false;
+            rows = 0;
+        }
+    }
+}
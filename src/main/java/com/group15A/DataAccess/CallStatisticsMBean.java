@@ -0,0 +1,24 @@
+package com.group15A.DataAccess;
+
+/**
+ * The stored procedure call statistics of the whole application, as shown through JMX (e.g. in jconsole).
+ * Each procedure's own statistics are a ProcedureStatsMBean.
+ */
+public interface CallStatisticsMBean
+{
+    long getSlowCallThresholdMillis();
+
+    void setSlowCallThresholdMillis(long thresholdMillis);
+
+    int getProcedureCount();
+
+    long getTotalCalls();
+
+    long getTotalErrors();
+
+    long getTotalSlowCalls();
+
+    String[] getSlowestProcedures();
+
+    void reset();
+}
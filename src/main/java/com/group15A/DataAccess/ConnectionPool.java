@@ -0,0 +1,411 @@
+package com.group15A.DataAccess;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded pool of database connections shared by every DataAccess object.
+ *
+ * Connections are created lazily, checked before being handed out if they have been idle for a while,
+ * and closed by a background housekeeper once they have been idle for too long or have reached their
+ * maximum lifetime. A thread that borrows a connection while it already holds one is given the same
+ * connection back, so nested DataAccess calls never wait on the pool.
+ *
+ * Every stored procedure call prepared on a borrowed connection is measured by the CallStatistics.
+ */
+public class ConnectionPool
+{
+    private static final int MAX_POOL_SIZE = Integer.getInteger("gp.pool.maxSize", 10);
+    private static final int MIN_IDLE = Integer.getInteger("gp.pool.minIdle", 2);
+    private static final long BORROW_TIMEOUT_MS = 5_000;
+    private static final long IDLE_TIMEOUT_MS = TimeUnit.MINUTES.toMillis(10);
+    private static final long MAX_LIFETIME_MS = TimeUnit.MINUTES.toMillis(30);
+    private static final long VALIDATION_IDLE_THRESHOLD_MS = 500;
+    private static final int VALIDATION_TIMEOUT_S = 2;
+    private static final long HOUSEKEEPING_PERIOD_MS = 30_000;
+
+    private static volatile ConnectionPool instance;
+
+    private final String url;
+    private final String user;
+    private final String password;
+
+    private final Semaphore permits = new Semaphore(MAX_POOL_SIZE, true);
+    private final BlockingDeque<PooledConnection> idleConnections = new LinkedBlockingDeque<>();
+    private final ThreadLocal<PooledConnection> heldConnection = new ThreadLocal<>();
+    private final ScheduledExecutorService housekeeper;
+
+    private final AtomicInteger totalConnections = new AtomicInteger();
+    private final AtomicLong connectionsCreated = new AtomicLong();
+    private final AtomicLong connectionsClosed = new AtomicLong();
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong borrowTimeouts = new AtomicLong();
+    private final AtomicLong failedValidations = new AtomicLong();
+    private final AtomicLong totalBorrowWaitNanos = new AtomicLong();
+
+    private volatile boolean shutdown = false;
+
+    /**
+     * Constructor for the ConnectionPool class. Use getInstance() to get the shared pool.
+     * @param url The JDBC url of the database
+     * @param user The database user
+     * @param password The database password
+     */
+    private ConnectionPool(String url, String user, String password)
+    {
+        this.url = url;
+        this.user = user;
+        this.password = password;
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "connection-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.housekeeper.scheduleWithFixedDelay(this::evictConnections, HOUSEKEEPING_PERIOD_MS, HOUSEKEEPING_PERIOD_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Get the shared connection pool, creating it on first use
+     * @param url The JDBC url of the database
+     * @param user The database user
+     * @param password The database password
+     * @return The connection pool
+     * @throws SQLException if the JDBC driver could not be loaded
+     */
+    public static ConnectionPool getInstance(String url, String user, String password) throws SQLException
+    {
+        ConnectionPool pool = instance;
+        if(pool == null) {
+            synchronized (ConnectionPool.class) {
+                pool = instance;
+                if(pool == null) {
+                    try {
+                        Class.forName("com.mysql.cj.jdbc.Driver");
+                    } catch (ClassNotFoundException ex) {
+                        throw new SQLException("MySQL JDBC driver not found", ex);
+                    }
+                    pool = new ConnectionPool(url, user, password);
+                    instance = pool;
+                }
+            }
+        }
+        return pool;
+    }
+
+    /**
+     * Borrow a connection from the pool. Closing the returned connection gives it back to the pool.
+     * @return The connection
+     * @throws SQLException if no connection became available in time or a new one could not be opened
+     */
+    public Connection getConnection() throws SQLException
+    {
+        if(shutdown)
+            throw new SQLException("The connection pool has been shut down");
+
+        PooledConnection held = heldConnection.get();
+        if(held != null) {
+            held.holdCount++;
+            return held.proxy;
+        }
+
+        long waitStart = System.nanoTime();
+        try {
+            if(!permits.tryAcquire(BORROW_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                borrowTimeouts.incrementAndGet();
+                throw new SQLTransientConnectionException("Timed out waiting for a database connection");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", ex);
+        }
+
+        try {
+            PooledConnection pooled = takeIdleConnection();
+            if(pooled == null)
+                pooled = openConnection();
+
+            pooled.holdCount = 1;
+            heldConnection.set(pooled);
+            borrowCount.incrementAndGet();
+            totalBorrowWaitNanos.addAndGet(System.nanoTime() - waitStart);
+            return pooled.proxy;
+        } catch (SQLException | RuntimeException ex) {
+            permits.release();
+            throw ex;
+        }
+    }
+
+    /**
+     * Take the most recently used idle connection that is still usable
+     * @return The connection, or null if there is no usable idle connection
+     */
+    private PooledConnection takeIdleConnection()
+    {
+        PooledConnection pooled;
+        while((pooled = idleConnections.pollFirst()) != null) {
+            long now = System.currentTimeMillis();
+            if(now - pooled.createdAt >= MAX_LIFETIME_MS) {
+                closePhysical(pooled);
+                continue;
+            }
+            if(now - pooled.lastUsed >= VALIDATION_IDLE_THRESHOLD_MS && !isValid(pooled)) {
+                failedValidations.incrementAndGet();
+                closePhysical(pooled);
+                continue;
+            }
+            return pooled;
+        }
+        return null;
+    }
+
+    /**
+     * Open a new physical connection to the database
+     * @return The pooled connection wrapping it
+     * @throws SQLException if the connection could not be established
+     */
+    private PooledConnection openConnection() throws SQLException
+    {
+        Connection physical = DriverManager.getConnection(url, user, password);
+        totalConnections.incrementAndGet();
+        connectionsCreated.incrementAndGet();
+        return new PooledConnection(physical);
+    }
+
+    /**
+     * Check whether the given connection can still talk to the database
+     * @param pooled The connection
+     * @return true if the connection is usable, false otherwise
+     */
+    private boolean isValid(PooledConnection pooled)
+    {
+        try {
+            return pooled.physical.isValid(VALIDATION_TIMEOUT_S);
+        } catch (SQLException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Give a connection back to the pool once the thread holding it has closed it as many times as it borrowed it
+     * @param pooled The connection
+     */
+    private void release(PooledConnection pooled)
+    {
+        if(--pooled.holdCount > 0)
+            return;
+
+        heldConnection.remove();
+        boolean reusable = pooled.reset();
+        pooled.lastUsed = System.currentTimeMillis();
+
+        if(shutdown || !reusable || pooled.lastUsed - pooled.createdAt >= MAX_LIFETIME_MS)
+            closePhysical(pooled);
+        else
+            idleConnections.offerFirst(pooled);
+
+        permits.release();
+    }
+
+    /**
+     * Close the idle connections that have outlived the idle timeout or their maximum lifetime,
+     * keeping at least MIN_IDLE connections open
+     */
+    private void evictConnections()
+    {
+        long now = System.currentTimeMillis();
+        int idleCount = idleConnections.size();
+        Iterator<PooledConnection> oldestFirst = idleConnections.descendingIterator();
+        while(oldestFirst.hasNext()) {
+            PooledConnection pooled = oldestFirst.next();
+            boolean expired = now - pooled.createdAt >= MAX_LIFETIME_MS;
+            boolean idleTooLong = now - pooled.lastUsed >= IDLE_TIMEOUT_MS && idleCount > MIN_IDLE;
+            if((expired || idleTooLong) && idleConnections.remove(pooled)) {
+                closePhysical(pooled);
+                idleCount--;
+            }
+        }
+    }
+
+    /**
+     * Close the physical connection behind the given pooled connection
+     * @param pooled The connection
+     */
+    private void closePhysical(PooledConnection pooled)
+    {
+        try {
+            pooled.physical.close();
+        } catch (SQLException ignored) {
+            // The connection is being discarded anyway
+        }
+        totalConnections.decrementAndGet();
+        connectionsClosed.incrementAndGet();
+    }
+
+    /**
+     * Close every idle connection and refuse any further borrowing.
+     * Connections that are currently borrowed are closed when they are given back.
+     */
+    public void shutdown()
+    {
+        shutdown = true;
+        housekeeper.shutdownNow();
+        PooledConnection pooled;
+        while((pooled = idleConnections.pollFirst()) != null)
+            closePhysical(pooled);
+    }
+
+    //region Metrics
+    public int getMaxPoolSize() {return MAX_POOL_SIZE;}
+
+    public int getTotalConnections() {return totalConnections.get();}
+
+    public int getIdleConnections() {return idleConnections.size();}
+
+    public int getActiveConnections() {return MAX_POOL_SIZE - permits.availablePermits();}
+
+    public int getThreadsAwaitingConnection() {return permits.getQueueLength();}
+
+    public long getConnectionsCreated() {return connectionsCreated.get();}
+
+    public long getConnectionsClosed() {return connectionsClosed.get();}
+
+    public long getBorrowCount() {return borrowCount.get();}
+
+    public long getBorrowTimeouts() {return borrowTimeouts.get();}
+
+    public long getFailedValidations() {return failedValidations.get();}
+
+    /**
+     * @return The average time, in milliseconds, a thread waited to get a connection
+     */
+    public double getAverageBorrowWaitMillis()
+    {
+        long borrows = borrowCount.get();
+        return borrows == 0 ? 0 : totalBorrowWaitNanos.get() / 1_000_000.0 / borrows;
+    }
+
+    /**
+     * toString method for ConnectionPool
+     *
+     * @return a textual representation of the pool's metrics
+     */
+    @Override
+    public String toString()
+    {
+        return "ConnectionPool{" +
+                "total=" + getTotalConnections() +
+                ", active=" + getActiveConnections() +
+                ", idle=" + getIdleConnections() +
+                ", waiting=" + getThreadsAwaitingConnection() +
+                ", created=" + getConnectionsCreated() +
+                ", closed=" + getConnectionsClosed() +
+                ", borrows=" + getBorrowCount() +
+                ", timeouts=" + getBorrowTimeouts() +
+                ", failedValidations=" + getFailedValidations() +
+                ", avgWaitMs=" + String.format("%.3f", getAverageBorrowWaitMillis()) +
+                '}';
+    }
+    //endregion
+
+    /**
+     * A physical connection owned by the pool, together with the proxy handed out to borrowers
+     */
+    private class PooledConnection implements InvocationHandler
+    {
+        private final Connection physical;
+        private final Connection proxy;
+        private final long createdAt;
+        private final List<Statement> openStatements = new ArrayList<>();
+        private volatile long lastUsed;
+        private int holdCount;
+
+        private PooledConnection(Connection physical)
+        {
+            this.physical = physical;
+            this.createdAt = System.currentTimeMillis();
+            this.lastUsed = createdAt;
+            this.proxy = (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    this
+            );
+        }
+
+        /**
+         * Close what the borrower left open and undo any uncommitted work
+         * @return true if the connection can be reused, false otherwise
+         */
+        private boolean reset()
+        {
+            for(Statement statement : openStatements) {
+                try {
+                    statement.close();
+                } catch (SQLException ignored) {
+                    // Closing the statement is best effort
+                }
+            }
+            openStatements.clear();
+
+            try {
+                if(!physical.getAutoCommit()) {
+                    physical.rollback();
+                    physical.setAutoCommit(true);
+                }
+                return !physical.isClosed();
+            } catch (SQLException ex) {
+                return false;
+            }
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+        {
+            switch (method.getName()) {
+                case "close":
+                    if(holdCount > 0)
+                        release(this);
+                    return null;
+                case "isClosed":
+                    return holdCount <= 0 || physical.isClosed();
+                case "unwrap":
+                case "isWrapperFor":
+                    break;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection@" + Integer.toHexString(System.identityHashCode(proxy));
+                default:
+                    if(holdCount <= 0)
+                        throw new SQLException("Connection has already been returned to the pool");
+            }
+
+            try {
+                Object result = method.invoke(physical, args);
+                if(result instanceof CallableStatement)
+                    result = CallStatistics.getInstance().instrument((CallableStatement) result, (String) args[0]);
+                if(result instanceof Statement)
+                    openStatements.add((Statement) result);
+                return result;
+            } catch (InvocationTargetException ex) {
+                throw ex.getCause();
+            }
+        }
+    }
+}
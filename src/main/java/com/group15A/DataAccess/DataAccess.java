@@ -2,10 +2,16 @@ package com.group15A.DataAccess;
 
 import com.group15A.CustomExceptions.*;
 import com.group15A.DataModel.*;
+import com.group15A.Utils.ErrorCode;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
 
 import static com.group15A.DataAccess.DataAccessValidator.*;
 
@@ -16,14 +22,20 @@ import static com.group15A.DataAccess.DataAccessValidator.*;
  */
 public class DataAccess implements IDataAccess
 {
+    private static final String DB_URL = "jdbc:mysql://localhost/thegeneralpractitioner";
     private static final String DB_USER = "root";
     private static final String DB_PASSWORD = "root";
+    private static final long LOG_FLUSH_WAIT_MS = 1_000;
+    private static final int DUPLICATE_KEY_ERROR = 1062;
+    private static final Timestamp EARLIEST_BOOKING_TIME = Timestamp.valueOf("1000-01-01 00:00:00");
+    private static final Timestamp LATEST_BOOKING_TIME = Timestamp.valueOf("9999-12-31 23:59:59");
 
-    private Connection connection;
+    private ConnectionPool connectionPool;
+    private final DoctorCache doctorCache = DoctorCache.getInstance();
 
     /**
      * Constructor for the DataAccess class.
-     * It sets up the connection to the database
+     * It checks that a connection to the database can be established
      * @throws DatabaseException if there was a problem connecting to the database
      */
     public DataAccess() throws DatabaseException
@@ -32,20 +44,47 @@ public class DataAccess implements IDataAccess
     }
 
     /**
-     * Set up the connection to the database
+     * Get the shared connection pool and check that a connection to the database can be established.
+     * The connection is given back to the pool straight away, so later queries can reuse it.
      * @throws DatabaseException if the connection could not be established
      */
     private void setupConnection() throws DatabaseException
     {
         try {
-            Class.forName("com.mysql.cj.jdbc.Driver");
-            connection = DriverManager.getConnection("jdbc:mysql://localhost/thegeneralpractitioner?user="+DB_USER+"&password="+DB_PASSWORD+"");
+            connectionPool = ConnectionPool.getInstance(DB_URL, DB_USER, DB_PASSWORD);
+            getConnection().close();
         }catch (Exception ex)
         {
             throw new DatabaseException("Could not connect to the database");
         }
     }
 
+    /**
+     * Borrow a connection from the shared connection pool. It must be closed to give it back to the pool.
+     * @return The connection
+     * @throws SQLException if no connection could be obtained
+     */
+    private Connection getConnection() throws SQLException
+    {
+        return connectionPool.getConnection();
+    }
+
+    /**
+     * @return The connection pool shared by all DataAccess objects
+     */
+    public ConnectionPool getConnectionPool()
+    {
+        return connectionPool;
+    }
+
+    /**
+     * @return The doctor cache shared by all DataAccess objects
+     */
+    public DoctorCache getDoctorCache()
+    {
+        return doctorCache;
+    }
+
     //region Patient
     /**
      * Get the patient with the given email and password
@@ -60,7 +99,7 @@ public class DataAccess implements IDataAccess
     {
         if(email==null || email.isBlank() || email.isEmpty())
             throw new NullDataException("Null email in getPatient()");
-        try {
+        try (Connection connection = getConnection()) {
             String query = "CALL find_patient(?);";
             PreparedStatement statement = connection.prepareCall(query);
             statement.setString(1, email);
@@ -119,7 +158,7 @@ public class DataAccess implements IDataAccess
     {
         if(patientID<0)
             throw new InvalidDataException("Negative patient ID in the getPatient method");
-        try {
+        try (Connection connection = getConnection()) {
             String query = "CALL get_patient(?);";
             PreparedStatement statement = connection.prepareCall(query);
             statement.setInt(1, patientID);
@@ -134,6 +173,54 @@ public class DataAccess implements IDataAccess
         }
     }
 
+    /**
+     * Check whether a patient is registered with the given email, ignoring case, using the unique index on email
+     * @param email The email
+     * @return True if the email is in use
+     * @throws NullDataException if a null value was sent as a parameter where a non-null value is expected
+     * @throws DatabaseException if there was a problem querying the database
+     */
+    @Override
+    public boolean isEmailInUse(String email) throws NullDataException, DatabaseException
+    {
+        if(email==null || email.isBlank())
+            throw new NullDataException("Null email in the isEmailInUse method");
+        try (Connection connection = getConnection()) {
+            String query = "CALL email_in_use(?);";
+            PreparedStatement statement = connection.prepareCall(query);
+            statement.setString(1, email);
+
+            ResultSet result = statement.executeQuery();
+            return result.next() && result.getBoolean("in_use");
+        } catch (Exception ex)
+        {
+            throw new DatabaseException("Could not check the email in the database");
+        }
+    }
+
+    /**
+     * Get the email of every registered patient
+     * @return The emails
+     * @throws DatabaseException if there was a problem querying the database
+     */
+    @Override
+    public List<String> getPatientEmails() throws DatabaseException
+    {
+        try (Connection connection = getConnection()) {
+            String query = "CALL get_patient_emails();";
+            PreparedStatement statement = connection.prepareCall(query);
+            ResultSet result = statement.executeQuery();
+            var emails = new ArrayList<String>();
+            while (result.next()) {
+                emails.add(result.getString("email"));
+            }
+            return emails;
+        } catch (Exception ex)
+        {
+            throw new DatabaseException("Could not get the patient emails from the database");
+        }
+    }
+
     /**
      * Registers a new patient
      * @param patient The new patient
@@ -157,7 +244,7 @@ public class DataAccess implements IDataAccess
         if(isInvalidDoctor(doctor))
             throw new InvalidDataException("Invalid doctor in the registerPatient method");
 
-        try {
+        try (Connection connection = getConnection()) {
             String query = "CALL insert_patient(?, ?, ?, ?, ?, ?, ?, ?, ?);";
             PreparedStatement statement = connection.prepareCall(query);
             statement.setString(1, patient.getEmail());
@@ -181,6 +268,96 @@ public class DataAccess implements IDataAccess
         }
     }
 
+    /**
+     * Register many patients at once, each with their own doctor, in one JDBC batch and one transaction.
+     * A patient that cannot be inserted does not stop the others: when the batch fails, the patients it did not
+     * insert are tried again one by one to find out why.
+     * @param patients The patients to register
+     * @param doctors The doctor of each patient, in the same order
+     * @return The outcome for each patient, in the same order: null if it was registered, EMAIL_IN_USE if its
+     * email is taken, or DATABASE_ERROR if it could not be inserted for any other reason
+     * @throws NullDataException if a null value was sent as a parameter where a non-null value is expected
+     * @throws InvalidDataException if the data is invalid
+     * @throws DatabaseException if there was a problem connecting to the database
+     */
+    @Override
+    public List<ErrorCode> registerPatients(List<Patient> patients, List<Doctor> doctors) throws NullDataException, InvalidDataException, DatabaseException
+    {
+        if(patients==null)
+            throw new NullDataException("Null patients in the registerPatients method");
+        if(doctors==null)
+            throw new NullDataException("Null doctors in the registerPatients method");
+        if(patients.size() != doctors.size())
+            throw new InvalidDataException("Different numbers of patients and doctors in the registerPatients method");
+
+        for(int i = 0; i < patients.size(); i++) {
+            if(patients.get(i)==null)
+                throw new NullDataException("Null patient in the registerPatients method");
+            if(doctors.get(i)==null)
+                throw new NullDataException("Null doctor in the registerPatients method");
+            if(isInvalidPatient(patients.get(i)))
+                throw new InvalidDataException("Invalid patient in the registerPatients method");
+            if(isInvalidDoctor(doctors.get(i)))
+                throw new InvalidDataException("Invalid doctor in the registerPatients method");
+        }
+
+        List<ErrorCode> outcomes = new ArrayList<>(Collections.nCopies(patients.size(), (ErrorCode) null));
+        if(patients.isEmpty())
+            return outcomes;
+
+        try (Connection connection = getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareCall("CALL insert_patient(?, ?, ?, ?, ?, ?, ?, ?, ?);")) {
+                for(int i = 0; i < patients.size(); i++) {
+                    setInsertPatientParameters(statement, patients.get(i), doctors.get(i));
+                    statement.addBatch();
+                }
+
+                int[] counts;
+                try {
+                    counts = statement.executeBatch();
+                } catch (BatchUpdateException ex) {
+                    counts = ex.getUpdateCounts();
+                }
+
+                // The driver may stop at the first failure, so anything not reported as done is retried on its own
+                for(int i = 0; i < patients.size(); i++) {
+                    if(i < counts.length && counts[i] != Statement.EXECUTE_FAILED)
+                        continue;
+                    try {
+                        setInsertPatientParameters(statement, patients.get(i), doctors.get(i));
+                        statement.executeUpdate();
+                    } catch (SQLIntegrityConstraintViolationException ex) {
+                        outcomes.set(i, ErrorCode.EMAIL_IN_USE);
+                    } catch (SQLException ex) {
+                        outcomes.set(i, ErrorCode.DATABASE_ERROR);
+                    }
+                }
+                connection.commit();
+            } catch (SQLException ex) {
+                connection.rollback();
+                throw ex;
+            }
+        } catch (Exception ex)
+        {
+            throw new DatabaseException("Could not register the patients in the database");
+        }
+        return outcomes;
+    }
+
+    private static void setInsertPatientParameters(PreparedStatement statement, Patient patient, Doctor doctor) throws SQLException
+    {
+        statement.setString(1, patient.getEmail());
+        statement.setString(2, patient.getPassHash());
+        statement.setString(3, patient.getFirstName());
+        statement.setString(4, patient.getMiddleName());
+        statement.setString(5, patient.getLastName());
+        statement.setDate(6, new Date(patient.getDob().getTime()));
+        statement.setString(7, patient.getGender());
+        statement.setString(8, patient.getPhoneNo());
+        statement.setInt(9, doctor.getDoctorID());
+    }
+
     /**
      * Update the given patient with the new information provided in the object
      * @param patient The modified patient
@@ -193,9 +370,8 @@ public class DataAccess implements IDataAccess
     @Override
     public Patient updatePatient(Patient patient) throws CustomException
     {
-        updatePatientFull(patient, getDoctor(patient));
-
-        return getPatient(patient.getEmail());
+        // No doctor is sent, so the patient keeps their current one
+        return updatePatientFull(patient, null);
     }
 
 
@@ -211,31 +387,32 @@ public class DataAccess implements IDataAccess
     @Override
     public Patient changeDoctor(Patient patient, Doctor doctor) throws CustomException
     {
-        updatePatientFull(patient, doctor);
-        return getPatient(patient.getPatientID());
+        if(doctor==null)
+            throw new NullDataException("Null doctor in the changeDoctor method");
+        return updatePatientFull(patient, doctor);
     }
 
     /**
-     * Update the given patient with the new information, including a new doctor
+     * Update the given patient with the new information, including a new doctor.
+     * The procedure returns the updated row, so the patient is not read again afterwards.
      * @param patient The modified patient
-     * @param doctor The new doctor
+     * @param doctor The new doctor, or null to keep the current one
+     * @return The updated patient from the database
      * @throws InvalidDataException if the data is invalid
      * @throws NullDataException if a null value was sent as a parameter where a non-null value is expected
      * @throws DatabaseException if there was a problem querying the database
      * @throws EmailInUseException if the email address is already in use
      */
-    private void updatePatientFull(Patient patient, Doctor doctor) throws NullDataException, DatabaseException, EmailInUseException, InvalidDataException
+    private Patient updatePatientFull(Patient patient, Doctor doctor) throws NullDataException, DatabaseException, EmailInUseException, InvalidDataException
     {
         if(patient==null)
             throw new NullDataException("Null patient in the updatePatient method");
-        if(doctor==null)
-            throw new NullDataException("Null doctor in the updatePatient method");
         if(isInvalidPatient(patient))
             throw new InvalidDataException("Invalid patient in the updatePatientFull method");
-        if(isInvalidDoctor(doctor))
+        if(doctor!=null && isInvalidDoctor(doctor))
             throw new InvalidDataException("Invalid doctor in the updatePatientFull method");
 
-        try {
+        try (Connection connection = getConnection()) {
             String query = "CALL update_patient(?, ?, ?, ?, ?, ?, ?, ?, ?, ?);";
             PreparedStatement statement = connection.prepareCall(query);
             statement.setInt(1, patient.getPatientID());
@@ -249,9 +426,13 @@ public class DataAccess implements IDataAccess
             statement.setDate(7, new Date(patient.getDob().getTime()));
             statement.setString(8, patient.getGender());
             statement.setString(9, patient.getPhoneNo());
-            statement.setInt(10, doctor.getDoctorID());
+            if(doctor==null)
+                statement.setNull(10, Types.INTEGER);
+            else
+                statement.setInt(10, doctor.getDoctorID());
 
-            statement.executeQuery();
+            ResultSet result = statement.executeQuery();
+            return getPatientFromDB(result);
         } catch (SQLIntegrityConstraintViolationException ex) {
             throw new EmailInUseException();
         } catch (Exception ex)
@@ -266,12 +447,13 @@ public class DataAccess implements IDataAccess
      * @throws InvalidDataException if an invalid value was sent as a parameter
      * @throws DatabaseException if there was a problem querying the database
      */
+    @Override
     public void deletePatient(int patientID) throws InvalidDataException, DatabaseException
     {
         if(patientID<0)
             throw new InvalidDataException("Negative patient ID in the deletePatient method");
 
-        try{
+        try (Connection connection = getConnection()) {
             String query = "CALL delete_patient(?);";
             PreparedStatement statement = connection.prepareCall(query);
             statement.setInt(1, patientID);
@@ -286,7 +468,9 @@ public class DataAccess implements IDataAccess
 
     //region Doctor
     /**
-     * Get the corresponding doctor for the given patient
+     * Get the corresponding doctor for the given patient.
+     * Which doctor a patient is registered with is always looked up in the database, as it changes
+     * whenever the patient is moved to another doctor, including by another copy of the program.
      * @param patient The patient
      * @return The patient's doctor
      * @throws NullDataException if a null value was sent as a parameter where a non-null value is expected
@@ -294,6 +478,7 @@ public class DataAccess implements IDataAccess
      * @throws DatabaseException if there was a problem querying the database
      * @throws InvalidDataException if the data is invalid
      */
+    @Override
     public Doctor getDoctor(Patient patient) throws NullDataException, DoctorNotFoundException, DatabaseException, InvalidDataException
     {
         if(patient==null)
@@ -301,7 +486,7 @@ public class DataAccess implements IDataAccess
         if(isInvalidPatient(patient))
             throw new InvalidDataException("Invalid patient in the getDoctor(patient) method overload");
 
-        try {
+        try (Connection connection = getConnection()) {
             String query = "CALL find_doctor(?);";
             PreparedStatement statement = connection.prepareCall(query);
             statement.setInt(1, patient.getPatientID());
@@ -319,7 +504,7 @@ public class DataAccess implements IDataAccess
     }
 
     /**
-     * Get the doctor with the given id
+     * Get the doctor with the given id, from the doctor cache if possible
      * @param doctorID The id of the doctor
      * @return The doctor
      * @throws InvalidDataException if the data is invalid
@@ -332,12 +517,31 @@ public class DataAccess implements IDataAccess
             throw new InvalidDataException("Negative doctor ID in the getDoctor(doctorID) method overload");
 
         try {
+            return doctorCache.getDoctor(doctorID, () -> loadCachedDoctor(doctorID));
+        } catch (DoctorNotFoundException | DatabaseException ex) {
+            throw ex;
+        } catch (CustomException ex) {
+            throw new DatabaseException("Could not get the doctor from the database");
+        }
+    }
+
+    /**
+     * Query the database for the doctor with the given id and their certifications, to be kept in the doctor cache
+     * @param doctorID The id of the doctor
+     * @return The doctor with their certifications
+     * @throws DoctorNotFoundException if the doctor was not found
+     * @throws DatabaseException if there was a problem querying the database
+     */
+    private DoctorCache.CachedDoctor loadCachedDoctor(int doctorID) throws DoctorNotFoundException, DatabaseException
+    {
+        Doctor doctor;
+        try (Connection connection = getConnection()) {
             String query = "CALL get_doctor(?);";
             PreparedStatement statement = connection.prepareCall(query);
             statement.setInt(1, doctorID);
             ResultSet result = statement.executeQuery();
 
-            return getDoctorFromDB(result);
+            doctor = getDoctorFromDB(result);
         } catch (DoctorNotFoundException ex)
         {
             throw ex;
@@ -345,6 +549,8 @@ public class DataAccess implements IDataAccess
         {
             throw new DatabaseException("Could not get the doctor from the database");
         }
+
+        return new DoctorCache.CachedDoctor(doctor, loadCertifications(doctorID));
     }
 
     /**
@@ -378,13 +584,30 @@ public class DataAccess implements IDataAccess
 
 
     /**
-     * Get the full list of doctors from the database
+     * Get the full list of doctors, from the doctor cache if possible
      * @return The list of doctors
      * @throws DatabaseException if there was a problem querying the database
      */
+    @Override
     public List<Doctor> getDoctors() throws DatabaseException
     {
         try {
+            return doctorCache.getDoctors(this::loadDoctors);
+        } catch (DatabaseException ex) {
+            throw ex;
+        } catch (CustomException ex) {
+            throw new DatabaseException("Could not get doctors from the database");
+        }
+    }
+
+    /**
+     * Query the database for the full list of doctors
+     * @return The list of doctors
+     * @throws DatabaseException if there was a problem querying the database
+     */
+    private List<Doctor> loadDoctors() throws DatabaseException
+    {
+        try (Connection connection = getConnection()) {
             String query = "CALL get_doctors();";
             PreparedStatement statement = connection.prepareCall(query);
             ResultSet result = statement.executeQuery();
@@ -413,7 +636,7 @@ public class DataAccess implements IDataAccess
 
     //region Certification
     /**
-     * Get the certifications of the specified doctor
+     * Get the certifications of the specified doctor, from the doctor cache if possible
      * @param doctor The doctor
      * @return The certifications
      * @throws NullDataException if a null value was sent as a parameter where a non-null value is expected
@@ -429,9 +652,24 @@ public class DataAccess implements IDataAccess
             throw new InvalidDataException("Invalid doctor in the getCertifications method");
 
         try {
+            return doctorCache.getCertifications(doctor.getDoctorID(), () -> loadCachedDoctor(doctor.getDoctorID()));
+        } catch (CustomException ex) {
+            throw new DatabaseException("Could not get certifications from the database");
+        }
+    }
+
+    /**
+     * Query the database for the certifications of the doctor with the given id
+     * @param doctorID The id of the doctor
+     * @return The certifications
+     * @throws DatabaseException if there was a problem querying the database
+     */
+    private List<Certification> loadCertifications(int doctorID) throws DatabaseException
+    {
+        try (Connection connection = getConnection()) {
             String query = "CALL get_certifications_doctor(?);";
             PreparedStatement statement = connection.prepareCall(query);
-            statement.setInt(1, doctor.getDoctorID());
+            statement.setInt(1, doctorID);
             ResultSet result = statement.executeQuery();
             var certifications = new ArrayList<Certification>();
             while (result.next()) {
@@ -466,7 +704,7 @@ public class DataAccess implements IDataAccess
     {
         if(bookingID<0)
             throw new InvalidDataException("Negative booking ID in the getBooking(bookingID) method");
-        try {
+        try (Connection connection = getConnection()) {
             String query = "CALL get_booking(?);";
             PreparedStatement statement = connection.prepareCall(query);
             statement.setInt(1, bookingID);
@@ -499,7 +737,7 @@ public class DataAccess implements IDataAccess
     @Override
     public List<Booking> getBookings() throws DatabaseException
     {
-        try {
+        try (Connection connection = getConnection()) {
             String query = "CALL get_bookings();";
             PreparedStatement statement = connection.prepareCall(query);
             ResultSet result = statement.executeQuery();
@@ -526,7 +764,7 @@ public class DataAccess implements IDataAccess
         if(isInvalidDoctor(doctor))
             throw new InvalidDataException("Invalid doctor in the getBookings(doctor) method overload");
 
-        try {
+        try (Connection connection = getConnection()) {
             String query = "CALL get_bookings_doctor(?);";
             PreparedStatement statement = connection.prepareCall(query);
             statement.setInt(1, doctor.getDoctorID());
@@ -539,6 +777,83 @@ public class DataAccess implements IDataAccess
         }
     }
 
+    /**
+     * Get the bookings of the given doctor with a booking time in the given range, ordered by booking time
+     * @param doctor The doctor
+     * @param from The start of the range, inclusive, or null for no lower bound
+     * @param to The end of the range, exclusive, or null for no upper bound
+     * @return The bookings
+     * @throws NullDataException if a null value was sent as a parameter where a non-null value is expected
+     * @throws DatabaseException if there was a problem querying the database
+     * @throws InvalidDataException if the data is invalid
+     */
+    @Override
+    public List<Booking> getBookings(Doctor doctor, Timestamp from, Timestamp to) throws DatabaseException, NullDataException, InvalidDataException
+    {
+        if(doctor==null)
+            throw new NullDataException("Null doctor in the getBookings(doctor, from, to) method overload.");
+        if(isInvalidDoctor(doctor))
+            throw new InvalidDataException("Invalid doctor in the getBookings(doctor, from, to) method overload");
+
+        try (Connection connection = getConnection()) {
+            String query = "CALL get_bookings_doctor_range(?, ?, ?);";
+            PreparedStatement statement = connection.prepareCall(query);
+            statement.setInt(1, doctor.getDoctorID());
+            statement.setTimestamp(2, from==null ? EARLIEST_BOOKING_TIME : from);
+            statement.setTimestamp(3, to==null ? LATEST_BOOKING_TIME : to);
+            ResultSet result = statement.executeQuery();
+
+            return getBookingsFromDB(result);
+        }catch (Exception ex)
+        {
+            throw new DatabaseException("Could not get bookings from the database");
+        }
+    }
+
+    /**
+     * Get the bookings of all the given doctors with a booking time in the given range, with one query,
+     * ordered by doctor id and then by booking time
+     * @param doctors The doctors
+     * @param from The start of the range, inclusive, or null for no lower bound
+     * @param to The end of the range, exclusive, or null for no upper bound
+     * @return The bookings
+     * @throws NullDataException if a null value was sent as a parameter where a non-null value is expected
+     * @throws DatabaseException if there was a problem querying the database
+     * @throws InvalidDataException if the data is invalid
+     */
+    @Override
+    public List<Booking> getBookings(List<Doctor> doctors, Timestamp from, Timestamp to) throws DatabaseException, NullDataException, InvalidDataException
+    {
+        if(doctors==null)
+            throw new NullDataException("Null doctor list in the getBookings(doctors, from, to) method overload.");
+        var doctorIDs = new TreeSet<Integer>();
+        for(Doctor doctor : doctors)
+        {
+            if(doctor==null)
+                throw new NullDataException("Null doctor in the getBookings(doctors, from, to) method overload.");
+            if(isInvalidDoctor(doctor))
+                throw new InvalidDataException("Invalid doctor in the getBookings(doctors, from, to) method overload");
+            doctorIDs.add(doctor.getDoctorID());
+        }
+        if(doctorIDs.isEmpty())
+            return new ArrayList<>();
+
+        try (Connection connection = getConnection()) {
+            // The doctor ids are sent as a JSON array, which the procedure joins with the bookings
+            String query = "CALL get_bookings_doctors_range(?, ?, ?);";
+            PreparedStatement statement = connection.prepareCall(query);
+            statement.setString(1, doctorIDs.toString());
+            statement.setTimestamp(2, from==null ? EARLIEST_BOOKING_TIME : from);
+            statement.setTimestamp(3, to==null ? LATEST_BOOKING_TIME : to);
+            ResultSet result = statement.executeQuery();
+
+            return getBookingsFromDB(result);
+        }catch (Exception ex)
+        {
+            throw new DatabaseException("Could not get bookings from the database");
+        }
+    }
+
     /**
      * Get all bookings of the given patient
      * @return The bookings
@@ -554,7 +869,7 @@ public class DataAccess implements IDataAccess
         if(isInvalidPatient(patient))
             throw new InvalidDataException("Invalid patient in the getBookings(patient) method overload");
 
-        try {
+        try (Connection connection = getConnection()) {
             String query = "CALL get_bookings_patient(?);";
             PreparedStatement statement = connection.prepareCall(query);
             statement.setInt(1, patient.getPatientID());
@@ -567,13 +882,109 @@ public class DataAccess implements IDataAccess
         }
     }
 
+    /**
+     * Get the bookings of the given patient with a booking time in the given range, ordered by booking time
+     * @param patient The patient
+     * @param from The start of the range, inclusive, or null for no lower bound
+     * @param to The end of the range, exclusive, or null for no upper bound
+     * @param newestFirst True to order the bookings from the latest booking time to the earliest
+     * @param limit The maximum number of bookings to return
+     * @return The bookings
+     * @throws NullDataException if a null value was sent as a parameter where a non-null value is expected
+     * @throws DatabaseException if there was a problem querying the database
+     * @throws InvalidDataException if the data is invalid
+     */
+    @Override
+    public List<Booking> getBookings(Patient patient, Timestamp from, Timestamp to, boolean newestFirst, int limit) throws DatabaseException, NullDataException, InvalidDataException
+    {
+        if(patient==null)
+            throw new NullDataException("Null patient in the getBookings(patient, from, to) method overload.");
+        if(isInvalidPatient(patient))
+            throw new InvalidDataException("Invalid patient in the getBookings(patient, from, to) method overload");
+        if(limit<=0)
+            throw new InvalidDataException("Non-positive limit in the getBookings(patient, from, to) method overload");
+
+        try (Connection connection = getConnection()) {
+            String query = "CALL get_bookings_patient_range(?, ?, ?, ?, ?);";
+            PreparedStatement statement = connection.prepareCall(query);
+            statement.setInt(1, patient.getPatientID());
+            statement.setTimestamp(2, from==null ? EARLIEST_BOOKING_TIME : from);
+            statement.setTimestamp(3, to==null ? LATEST_BOOKING_TIME : to);
+            statement.setBoolean(4, newestFirst);
+            statement.setInt(5, limit);
+            ResultSet result = statement.executeQuery();
+
+            return getBookingsFromDB(result);
+        }catch (Exception ex)
+        {
+            throw new DatabaseException("Could not get bookings from the database");
+        }
+    }
+
+    /**
+     * Get the bookings of the given patient with a booking time in the given range, ordered by booking time,
+     * each with the name of the doctor it is with. The doctors are joined in by the same query.
+     * @param patient The patient
+     * @param from The start of the range, inclusive, or null for no lower bound
+     * @param to The end of the range, exclusive, or null for no upper bound
+     * @param newestFirst True to order the bookings from the latest booking time to the earliest
+     * @param limit The maximum number of bookings to return
+     * @return The bookings with their doctors' names
+     * @throws NullDataException if a null value was sent as a parameter where a non-null value is expected
+     * @throws DatabaseException if there was a problem querying the database
+     * @throws InvalidDataException if the data is invalid
+     */
+    @Override
+    public List<BookingWithDoctor> getBookingsWithDoctor(Patient patient, Timestamp from, Timestamp to, boolean newestFirst, int limit) throws DatabaseException, NullDataException, InvalidDataException
+    {
+        if(patient==null)
+            throw new NullDataException("Null patient in the getBookingsWithDoctor method");
+        if(isInvalidPatient(patient))
+            throw new InvalidDataException("Invalid patient in the getBookingsWithDoctor method");
+        if(limit<=0)
+            throw new InvalidDataException("Non-positive limit in the getBookingsWithDoctor method");
+
+        try (Connection connection = getConnection()) {
+            String query = "CALL get_bookings_patient_range_doctor(?, ?, ?, ?, ?);";
+            PreparedStatement statement = connection.prepareCall(query);
+            statement.setInt(1, patient.getPatientID());
+            statement.setTimestamp(2, from==null ? EARLIEST_BOOKING_TIME : from);
+            statement.setTimestamp(3, to==null ? LATEST_BOOKING_TIME : to);
+            statement.setBoolean(4, newestFirst);
+            statement.setInt(5, limit);
+            ResultSet result = statement.executeQuery();
+
+            var bookings = new ArrayList<BookingWithDoctor>();
+            while (result.next()) {
+                bookings.add(new BookingWithDoctor(
+                        result.getInt("id_booking"),
+                        result.getInt("id_doctor"),
+                        result.getInt("id_patient"),
+                        result.getTimestamp("booking_time"),
+                        result.getTimestamp("timestamp"),
+                        result.getString("type"),
+                        result.getString("details"),
+                        result.getString("prescription"),
+                        result.getString("doctor_first_name"),
+                        result.getString("doctor_middle_name"),
+                        result.getString("doctor_last_name")
+                ));
+            }
+
+            return bookings;
+        }catch (Exception ex)
+        {
+            throw new DatabaseException("Could not get bookings from the database");
+        }
+    }
+
     /**
      * Get a list of bookings from the given result set
      * @param result The result set
      * @return The list of bookings
      * @throws SQLException if there was a problem retrieving the bookings
      */
-    private ArrayList<Booking> getBookingsFromDB(ResultSet result) throws SQLException
+    static ArrayList<Booking> getBookingsFromDB(ResultSet result) throws SQLException
     {
         var bookings = new ArrayList<Booking>();
         while (result.next()) {
@@ -598,13 +1009,14 @@ public class DataAccess implements IDataAccess
      * @param doctor The doctor
      * @param bookingTime The date and time of the booking
      * @param type The type of booking
-     * @return The Booking from the database
+     * @return The new booking, with the id generated by the database
      * @throws NullDataException if a null value was sent as a parameter where a non-null value is expected
      * @throws DatabaseException if there was an error querying the database
      * @throws InvalidDataException if the data is invalid
+     * @throws ExistingBookingException if the patient or the doctor already has a booking at that time
      */
     @Override
-    public Booking createBooking(Patient patient, Doctor doctor, Timestamp bookingTime, String type) throws DatabaseException, NullDataException, InvalidDataException
+    public Booking createBooking(Patient patient, Doctor doctor, Timestamp bookingTime, String type) throws DatabaseException, NullDataException, InvalidDataException, ExistingBookingException
     {
         if(patient==null)
             throw new NullDataException("Null patient in the createBooking method");
@@ -620,7 +1032,7 @@ public class DataAccess implements IDataAccess
         if(isInvalidDoctor(doctor))
             throw new InvalidDataException("Invalid doctor in the createBooking method");
 
-        try {
+        try (Connection connection = getConnection()) {
             String query = "CALL insert_booking(?, ?, ?, ?, ?, ?);";
             PreparedStatement statement = connection.prepareCall(query);
             statement.setInt(1, patient.getPatientID());
@@ -630,10 +1042,22 @@ public class DataAccess implements IDataAccess
             statement.setString(5, null);
             statement.setString(6, null);
 
-            statement.executeQuery();
+            ResultSet result = statement.executeQuery();
+            result.next();
 
-            var bookings = getBookings();
-            return bookings.get(bookings.size()-1);
+            // The procedure returns the generated id and creation time, so the booking is built without re-reading it
+            return new Booking(
+                    result.getInt("id_booking"),
+                    doctor.getDoctorID(),
+                    patient.getPatientID(),
+                    bookingTime,
+                    result.getTimestamp("timestamp"),
+                    type,
+                    null,
+                    null
+            );
+        } catch (SQLIntegrityConstraintViolationException ex) {
+            throw getBookingClash(ex);
         } catch (Exception ex)
         {
             ex.printStackTrace();
@@ -648,16 +1072,17 @@ public class DataAccess implements IDataAccess
      * @throws NullDataException if a null value was sent as a parameter where a non-null value is expected
      * @throws DatabaseException if there was an error querying the database
      * @throws InvalidDataException if the data is invalid
+     * @throws ExistingBookingException if the patient or the doctor already has a booking at that time
      */
     @Override
-    public Booking updateBooking(Booking booking) throws DatabaseException, NullDataException, InvalidDataException
+    public Booking updateBooking(Booking booking) throws DatabaseException, NullDataException, InvalidDataException, ExistingBookingException
     {
         if(booking==null)
             throw new NullDataException("Null booking in the updateBooking method");
         if(isInvalidBooking(booking))
             throw new InvalidDataException("Invalid booking the updateBooking method");
 
-        try {
+        try (Connection connection = getConnection()) {
             String query = "CALL update_booking(?, ?, ?, ?, ?, ?, ?);";
             PreparedStatement statement = connection.prepareCall(query);
             statement.setInt(1, booking.getBookingID());
@@ -668,9 +1093,142 @@ public class DataAccess implements IDataAccess
             statement.setString(6, booking.getDetails());
             statement.setString(7, booking.getPrescription());
 
-            statement.executeQuery();
+            // The procedure returns the updated row
+            ResultSet result = statement.executeQuery();
+            List<Booking> bookings = getBookingsFromDB(result);
+            if(bookings.isEmpty())
+                throw new DatabaseException("Booking " + booking.getBookingID() + " not found");
+            return bookings.get(0);
+        } catch (SQLIntegrityConstraintViolationException ex) {
+            throw getBookingClash(ex);
+        } catch (Exception ex)
+        {
+            ex.printStackTrace();
+            throw new DatabaseException("Could not update booking in the database");
+        }
+    }
+
+    /**
+     * Create a booking together with the patient's notification and audit log about it, in a single transaction.
+     * Either all three rows are saved or none of them is, so a booking is never left without its notification.
+     * @param patient The patient
+     * @param doctor The doctor
+     * @param bookingTime The time of the booking
+     * @param type The type of the booking
+     * @param notificationHeader The header of the patient's notification
+     * @param notificationMessage The main body of the patient's notification
+     * @param logMessage The message of the audit log
+     * @return The booking from the database
+     * @throws NullDataException if a null value was sent as a parameter where a non-null value is expected
+     * @throws DatabaseException if there was an error querying the database
+     * @throws InvalidDataException if the data is invalid
+     * @throws ExistingBookingException if the patient or the doctor already has a booking at that time
+     */
+    @Override
+    public Booking createBooking(Patient patient, Doctor doctor, Timestamp bookingTime, String type, String notificationHeader, String notificationMessage, String logMessage) throws DatabaseException, NullDataException, InvalidDataException, ExistingBookingException
+    {
+        if(patient==null)
+            throw new NullDataException("Null patient in the createBooking method");
+        if(doctor==null)
+            throw new NullDataException("Null doctor in the createBooking method");
+        if(bookingTime==null)
+            throw new NullDataException("Null booking time in the createBooking method");
+        if(isNullOrEmpty(type))
+            throw new NullDataException("Null type in the createBooking method");
+        if(isNullOrEmpty(notificationHeader))
+            throw new NullDataException("Null notification header in the createBooking method");
+        if(isNullOrEmpty(notificationMessage))
+            throw new NullDataException("Null notification message in the createBooking method");
+        if(isNullOrEmpty(logMessage))
+            throw new NullDataException("Null log message in the createBooking method");
+
+        if(isInvalidPatient(patient))
+            throw new InvalidDataException("Invalid patient in the createBooking method");
+        if(isInvalidDoctor(doctor))
+            throw new InvalidDataException("Invalid doctor in the createBooking method");
 
-            return getBooking(booking.getBookingID());
+        try (Connection connection = getConnection()) {
+            String query = "CALL book_appointment(?, ?, ?, ?, ?, ?, ?);";
+            PreparedStatement statement = connection.prepareCall(query);
+            statement.setInt(1, patient.getPatientID());
+            statement.setInt(2, doctor.getDoctorID());
+            statement.setTimestamp(3, bookingTime);
+            statement.setString(4, type);
+            statement.setString(5, notificationHeader);
+            statement.setString(6, notificationMessage);
+            statement.setString(7, logMessage);
+
+            ResultSet result = statement.executeQuery();
+            result.next();
+
+            return new Booking(
+                    result.getInt("id_booking"),
+                    doctor.getDoctorID(),
+                    patient.getPatientID(),
+                    bookingTime,
+                    result.getTimestamp("timestamp"),
+                    type,
+                    null,
+                    null
+            );
+        } catch (SQLIntegrityConstraintViolationException ex) {
+            throw getBookingClash(ex);
+        } catch (Exception ex)
+        {
+            ex.printStackTrace();
+            throw new DatabaseException("Could not insert booking in the database");
+        }
+    }
+
+    /**
+     * Update the booking together with the patient's notification and audit log about it, in a single transaction.
+     * Either all three changes are saved or none of them is.
+     * @param booking The modified booking
+     * @param notificationHeader The header of the patient's notification
+     * @param notificationMessage The main body of the patient's notification
+     * @param logMessage The message of the audit log
+     * @return The corresponding booking from the database
+     * @throws NullDataException if a null value was sent as a parameter where a non-null value is expected
+     * @throws DatabaseException if there was an error querying the database
+     * @throws InvalidDataException if the data is invalid
+     * @throws ExistingBookingException if the patient or the doctor already has a booking at that time
+     */
+    @Override
+    public Booking updateBooking(Booking booking, String notificationHeader, String notificationMessage, String logMessage) throws DatabaseException, NullDataException, InvalidDataException, ExistingBookingException
+    {
+        if(booking==null)
+            throw new NullDataException("Null booking in the updateBooking method");
+        if(isNullOrEmpty(notificationHeader))
+            throw new NullDataException("Null notification header in the updateBooking method");
+        if(isNullOrEmpty(notificationMessage))
+            throw new NullDataException("Null notification message in the updateBooking method");
+        if(isNullOrEmpty(logMessage))
+            throw new NullDataException("Null log message in the updateBooking method");
+        if(isInvalidBooking(booking))
+            throw new InvalidDataException("Invalid booking the updateBooking method");
+
+        try (Connection connection = getConnection()) {
+            String query = "CALL reschedule_appointment(?, ?, ?, ?, ?, ?, ?, ?, ?, ?);";
+            PreparedStatement statement = connection.prepareCall(query);
+            statement.setInt(1, booking.getBookingID());
+            statement.setInt(2, booking.getPatientID());
+            statement.setInt(3, booking.getDoctorID());
+            statement.setTimestamp(4, booking.getBookingTime());
+            statement.setString(5, booking.getType());
+            statement.setString(6, booking.getDetails());
+            statement.setString(7, booking.getPrescription());
+            statement.setString(8, notificationHeader);
+            statement.setString(9, notificationMessage);
+            statement.setString(10, logMessage);
+
+            // The procedure returns the updated row
+            ResultSet result = statement.executeQuery();
+            List<Booking> bookings = getBookingsFromDB(result);
+            if(bookings.isEmpty())
+                throw new DatabaseException("Booking " + booking.getBookingID() + " not found");
+            return bookings.get(0);
+        } catch (SQLIntegrityConstraintViolationException ex) {
+            throw getBookingClash(ex);
         } catch (Exception ex)
         {
             ex.printStackTrace();
@@ -678,6 +1236,25 @@ public class DataAccess implements IDataAccess
         }
     }
 
+    /**
+     * Find out which unique key a booking insert or update broke: the patient's (id_patient, booking_time) key
+     * or the doctor's (id_doctor, booking_time) key
+     * @param ex The exception thrown by the database
+     * @return The exception to throw for the clashing booking
+     * @throws DatabaseException if the exception was not caused by a clashing booking
+     */
+    private ExistingBookingException getBookingClash(SQLIntegrityConstraintViolationException ex) throws DatabaseException
+    {
+        if(ex.getErrorCode() != DUPLICATE_KEY_ERROR)
+            throw new DatabaseException("Could not save the booking in the database");
+
+        // MySQL names the key at the end of the message, e.g. "for key 'booking.id_doctor'"
+        String message = ex.getMessage();
+        if(message != null && message.matches("(?s).*for key '([^']*\\.)?id_doctor'.*"))
+            return new ExistingBookingException(ErrorCode.DOCTOR_BOOKING_CLASH);
+        return new ExistingBookingException(ErrorCode.PATIENT_BOOKING_CLASH);
+    }
+
     /**
      * Delete the booking from the database
      * @param booking The booking
@@ -685,6 +1262,7 @@ public class DataAccess implements IDataAccess
      * @throws DatabaseException if there was a problem querying the database
      * @throws InvalidDataException if the data is invalid
      */
+    @Override
     public void deleteBooking(Booking booking) throws DatabaseException, NullDataException, InvalidDataException
     {
         if(booking==null)
@@ -692,7 +1270,7 @@ public class DataAccess implements IDataAccess
         if(isInvalidBooking(booking))
             throw new InvalidDataException("Invalid booking in the deleteBooking method");
 
-        try{
+        try (Connection connection = getConnection()) {
             String query = "CALL delete_booking(?);";
             PreparedStatement statement = connection.prepareCall(query);
             statement.setInt(1, booking.getBookingID());
@@ -717,7 +1295,7 @@ public class DataAccess implements IDataAccess
     @Override
     public Notification getNotification(int notificationID) throws DatabaseException
     {
-        try {
+        try (Connection connection = getConnection()) {
             String query = "CALL get_notification(?);";
             PreparedStatement statement = connection.prepareCall(query);
             statement.setInt(1, notificationID);
@@ -763,17 +1341,25 @@ public class DataAccess implements IDataAccess
         if(isInvalidPatient(patient))
             throw new InvalidDataException("Invalid patient in the createNotification method");
 
-        try {
+        try (Connection connection = getConnection()) {
             String query = "CALL insert_notification(?, ?, ?);";
             PreparedStatement statement = connection.prepareCall(query);
             statement.setInt(1, patient.getPatientID());
             statement.setString(2, header);
             statement.setString(3, message);
 
-            statement.executeQuery();
+            ResultSet result = statement.executeQuery();
+            result.next();
 
-            var notifications = getNotifications();
-            return notifications.get(notifications.size()-1);
+            // The procedure returns the generated id and creation time, so the table is not scanned for the new row
+            return new Notification(
+                    result.getInt("id_notif"),
+                    patient.getPatientID(),
+                    header,
+                    message,
+                    result.getTimestamp("timestamp"),
+                    true
+            );
         } catch (Exception ex)
         {
             ex.printStackTrace();
@@ -796,7 +1382,7 @@ public class DataAccess implements IDataAccess
             throw new NullDataException("Null patient in the getNotifications method");
         if(isInvalidPatient(patient))
             throw new InvalidDataException("Invalid patient in the getNotification method");
-        try {
+        try (Connection connection = getConnection()) {
             String query = "CALL get_notifications_patient(?);";
             PreparedStatement statement = connection.prepareCall(query);
             statement.setInt(1, patient.getPatientID());
@@ -809,6 +1395,147 @@ public class DataAccess implements IDataAccess
         }
     }
 
+    /**
+     * Get the patient's notifications that were added or changed since the caller last looked,
+     * i.e. those with an id greater than afterID and those whose timestamp is at or after changedSince.
+     * The timestamp of a notification is updated whenever its row changes, e.g. when it is marked as seen.
+     * @param patient The patient
+     * @param afterID The highest notification id already seen, 0 for all notifications
+     * @param changedSince The latest notification timestamp already seen, or null to only get new notifications
+     * @return The new and changed notifications, ordered by id
+     * @throws DatabaseException if there was a problem querying the database
+     * @throws NullDataException if a null value was sent as a parameter where a non-null value is expected
+     * @throws InvalidDataException if the data is invalid
+     */
+    @Override
+    public List<Notification> getNotificationsSince(Patient patient, int afterID, Timestamp changedSince) throws DatabaseException, NullDataException, InvalidDataException
+    {
+        if(patient==null)
+            throw new NullDataException("Null patient in the getNotificationsSince method");
+        if(isInvalidPatient(patient))
+            throw new InvalidDataException("Invalid patient in the getNotificationsSince method");
+        if(afterID<0)
+            throw new InvalidDataException("Negative notification ID in the getNotificationsSince method");
+        try (Connection connection = getConnection()) {
+            String query = "CALL get_notifications_patient_since(?, ?, ?);";
+            PreparedStatement statement = connection.prepareCall(query);
+            statement.setInt(1, patient.getPatientID());
+            statement.setInt(2, afterID);
+            statement.setTimestamp(3, changedSince);
+            ResultSet result = statement.executeQuery();
+
+            return getNotificationsFromDB(result);
+        }catch (Exception ex)
+        {
+            throw new DatabaseException("Could not get notifications from the database");
+        }
+    }
+
+    /**
+     * Get a page of the patient's notifications, newest first.
+     * The page starts after the notification given by the cursor (beforeTimestamp, beforeID),
+     * which is the last notification of the previous page, so each page costs the same however many there are.
+     * @param patient The patient
+     * @param beforeTimestamp The timestamp of the last notification of the previous page, or null for the first page
+     * @param beforeID The id of the last notification of the previous page
+     * @param limit The maximum number of notifications in the page
+     * @return The page of notifications
+     * @throws DatabaseException if there was a problem querying the database
+     * @throws NullDataException if a null value was sent as a parameter where a non-null value is expected
+     * @throws InvalidDataException if the data is invalid
+     */
+    @Override
+    public List<Notification> getNotificationsPage(Patient patient, Timestamp beforeTimestamp, int beforeID, int limit) throws DatabaseException, NullDataException, InvalidDataException
+    {
+        if(patient==null)
+            throw new NullDataException("Null patient in the getNotificationsPage method");
+        if(isInvalidPatient(patient))
+            throw new InvalidDataException("Invalid patient in the getNotificationsPage method");
+        if(isInvalidPage(beforeID, limit))
+            throw new InvalidDataException("Invalid page in the getNotificationsPage method");
+        try (Connection connection = getConnection()) {
+            String query = "CALL get_notifications_patient_page(?, ?, ?, ?);";
+            PreparedStatement statement = connection.prepareCall(query);
+            statement.setInt(1, patient.getPatientID());
+            statement.setTimestamp(2, beforeTimestamp);
+            statement.setInt(3, beforeID);
+            statement.setInt(4, limit);
+            ResultSet result = statement.executeQuery();
+
+            return getNotificationsFromDB(result);
+        }catch (Exception ex)
+        {
+            throw new DatabaseException("Could not get notifications from the database");
+        }
+    }
+
+    /**
+     * Get a page of the patient's new or seen notifications, newest first, like getNotificationsPage
+     * @param patient The patient
+     * @param isNew true for the notifications that have not been seen, false for the ones that have
+     * @param beforeTimestamp The timestamp of the last notification of the previous page, or null for the first page
+     * @param beforeID The id of the last notification of the previous page
+     * @param limit The maximum number of notifications in the page
+     * @return The page of notifications
+     * @throws DatabaseException if there was a problem querying the database
+     * @throws NullDataException if a null value was sent as a parameter where a non-null value is expected
+     * @throws InvalidDataException if the data is invalid
+     */
+    @Override
+    public List<Notification> getNotificationsPage(Patient patient, boolean isNew, Timestamp beforeTimestamp, int beforeID, int limit) throws DatabaseException, NullDataException, InvalidDataException
+    {
+        if(patient==null)
+            throw new NullDataException("Null patient in the getNotificationsPage method");
+        if(isInvalidPatient(patient))
+            throw new InvalidDataException("Invalid patient in the getNotificationsPage method");
+        if(isInvalidPage(beforeID, limit))
+            throw new InvalidDataException("Invalid page in the getNotificationsPage method");
+        try (Connection connection = getConnection()) {
+            String query = "CALL get_notifications_patient_status_page(?, ?, ?, ?, ?);";
+            PreparedStatement statement = connection.prepareCall(query);
+            statement.setInt(1, patient.getPatientID());
+            statement.setBoolean(2, isNew);
+            statement.setTimestamp(3, beforeTimestamp);
+            statement.setInt(4, beforeID);
+            statement.setInt(5, limit);
+            ResultSet result = statement.executeQuery();
+
+            return getNotificationsFromDB(result);
+        }catch (Exception ex)
+        {
+            throw new DatabaseException("Could not get notifications from the database");
+        }
+    }
+
+    /**
+     * Count the patient's notifications that have not been seen, without loading them
+     * @param patient The patient
+     * @return The number of new notifications
+     * @throws DatabaseException if there was a problem querying the database
+     * @throws NullDataException if a null value was sent as a parameter where a non-null value is expected
+     * @throws InvalidDataException if the data is invalid
+     */
+    @Override
+    public int countNewNotifications(Patient patient) throws DatabaseException, NullDataException, InvalidDataException
+    {
+        if(patient==null)
+            throw new NullDataException("Null patient in the countNewNotifications method");
+        if(isInvalidPatient(patient))
+            throw new InvalidDataException("Invalid patient in the countNewNotifications method");
+        try (Connection connection = getConnection()) {
+            String query = "CALL count_new_notifications(?);";
+            PreparedStatement statement = connection.prepareCall(query);
+            statement.setInt(1, patient.getPatientID());
+            ResultSet result = statement.executeQuery();
+
+            result.next();
+            return result.getInt("new_count");
+        }catch (Exception ex)
+        {
+            throw new DatabaseException("Could not count the notifications in the database");
+        }
+    }
+
     /**
      * Set the given notification as seen
      * @param notification The notification
@@ -825,7 +1552,7 @@ public class DataAccess implements IDataAccess
         if(!validateNotification(notification))
             throw new InvalidDataException("Invalid notification in the setNotification method");
 
-        try{
+        try (Connection connection = getConnection()) {
             String query = "CALL notificationNotNew(?);";
             PreparedStatement statement = connection.prepareCall(query);
             statement.setInt(1, notification.getNotifID());
@@ -842,21 +1569,69 @@ public class DataAccess implements IDataAccess
     }
 
     /**
-     * Get all notifications from the database
-     * @return The notifications
+     * Set the patient's notifications with the given ids as seen, in one statement
+     * @param patient The patient
+     * @param notificationIDs The ids of the notifications
+     * @return The number of notifications that were new and are now seen
      * @throws DatabaseException if there was a problem querying the database
+     * @throws NullDataException if a null value was sent as a parameter where a non-null value is expected
+     * @throws InvalidDataException if the data is invalid
      */
-    private List<Notification> getNotifications() throws DatabaseException
+    @Override
+    public int setNotificationsSeen(Patient patient, Collection<Integer> notificationIDs) throws DatabaseException, NullDataException, InvalidDataException
     {
-        try {
-            String query = "CALL get_notifications();";
+        if(patient==null)
+            throw new NullDataException("Null patient in the setNotificationsSeen method");
+        if(notificationIDs==null || notificationIDs.stream().anyMatch(Objects::isNull))
+            throw new NullDataException("Null notification ID in the setNotificationsSeen method");
+        if(isInvalidPatient(patient))
+            throw new InvalidDataException("Invalid patient in the setNotificationsSeen method");
+        if(notificationIDs.stream().anyMatch(id -> id<0))
+            throw new InvalidDataException("Negative notification ID in the setNotificationsSeen method");
+        if(notificationIDs.isEmpty())
+            return 0;
+
+        String idList = notificationIDs.stream().map(String::valueOf).collect(Collectors.joining(","));
+        return notificationsNotNew(patient, idList);
+    }
+
+    /**
+     * Set all the patient's notifications as seen, in one statement
+     * @param patient The patient
+     * @return The number of notifications that were new and are now seen
+     * @throws DatabaseException if there was a problem querying the database
+     * @throws NullDataException if a null value was sent as a parameter where a non-null value is expected
+     * @throws InvalidDataException if the data is invalid
+     */
+    @Override
+    public int setAllNotificationsSeen(Patient patient) throws DatabaseException, NullDataException, InvalidDataException
+    {
+        if(patient==null)
+            throw new NullDataException("Null patient in the setAllNotificationsSeen method");
+        if(isInvalidPatient(patient))
+            throw new InvalidDataException("Invalid patient in the setAllNotificationsSeen method");
+
+        return notificationsNotNew(patient, null);
+    }
+
+    /**
+     * Set the patient's notifications in the comma-separated list of ids as seen, or all of them if the list is null
+     */
+    private int notificationsNotNew(Patient patient, String idList) throws DatabaseException
+    {
+        try (Connection connection = getConnection()) {
+            String query = "CALL notifications_not_new(?, ?);";
             PreparedStatement statement = connection.prepareCall(query);
+            statement.setInt(1, patient.getPatientID());
+            statement.setString(2, idList);
             ResultSet result = statement.executeQuery();
 
-            return getNotificationsFromDB(result);
-        }catch (Exception ex)
+            result.next();
+            return result.getInt("updated");
+        } catch(Exception ex)
         {
-            throw new DatabaseException("Could not get notifications from the database");
+            ex.printStackTrace();
+            throw new DatabaseException("Could not update the notifications");
         }
     }
 
@@ -866,7 +1641,7 @@ public class DataAccess implements IDataAccess
      * @return The list of notifications
      * @throws SQLException if there was a problem retrieving the notifications
      */
-    private List<Notification> getNotificationsFromDB(ResultSet result) throws SQLException
+    static List<Notification> getNotificationsFromDB(ResultSet result) throws SQLException
     {
         var notifications = new ArrayList<Notification>();
         while (result.next()) {
@@ -890,11 +1665,12 @@ public class DataAccess implements IDataAccess
      * @throws DatabaseException if there was a problem querying the database
      * @throws InvalidDataException if the data is invalid
      */
+    @Override
     public void deleteNotification(int notificationID) throws DatabaseException, InvalidDataException
     {
         if(notificationID<0)
             throw new InvalidDataException("Negative notification ID in the deleteNotification method");
-        try{
+        try (Connection connection = getConnection()) {
             String query = "CALL delete_notification(?);";
             PreparedStatement statement = connection.prepareCall(query);
             statement.setInt(1, notificationID);
@@ -917,7 +1693,8 @@ public class DataAccess implements IDataAccess
     @Override
     public List<Log> getLogs() throws DatabaseException
     {
-        try {
+        awaitQueuedLogs();
+        try (Connection connection = getConnection()) {
             String query = "CALL get_logs();";
             PreparedStatement statement = connection.prepareCall(query);
             ResultSet result = statement.executeQuery();
@@ -944,7 +1721,8 @@ public class DataAccess implements IDataAccess
             throw new NullDataException("Null patient in the getLogs method");
         if(isInvalidPatient(patient))
             throw new InvalidDataException("Invalid patient in the getLogs method");
-        try {
+        awaitQueuedLogs();
+        try (Connection connection = getConnection()) {
             String query = "CALL get_logs_patient(?);";
             PreparedStatement statement = connection.prepareCall(query);
             statement.setInt(1, patient.getPatientID());
@@ -957,13 +1735,84 @@ public class DataAccess implements IDataAccess
         }
     }
 
+    /**
+     * Get a page of the patient's logs, newest first.
+     * The page starts after the log given by the cursor (beforeTimestamp, beforeID),
+     * which is the last log of the previous page, so each page costs the same however many there are.
+     * @param patient The patient
+     * @param beforeTimestamp The timestamp of the last log of the previous page, or null for the first page
+     * @param beforeID The id of the last log of the previous page
+     * @param limit The maximum number of logs in the page
+     * @return The page of logs
+     * @throws DatabaseException if there was a problem querying the database
+     * @throws NullDataException if a null value was sent as a parameter where a non-null value is expected
+     * @throws InvalidDataException if the data is invalid
+     */
+    @Override
+    public List<Log> getLogsPage(Patient patient, Timestamp beforeTimestamp, int beforeID, int limit) throws DatabaseException, NullDataException, InvalidDataException
+    {
+        if(patient==null)
+            throw new NullDataException("Null patient in the getLogsPage method");
+        if(isInvalidPatient(patient))
+            throw new InvalidDataException("Invalid patient in the getLogsPage method");
+        if(isInvalidPage(beforeID, limit))
+            throw new InvalidDataException("Invalid page in the getLogsPage method");
+        awaitQueuedLogs();
+        try (Connection connection = getConnection()) {
+            String query = "CALL get_logs_patient_page(?, ?, ?, ?);";
+            PreparedStatement statement = connection.prepareCall(query);
+            statement.setInt(1, patient.getPatientID());
+            statement.setTimestamp(2, beforeTimestamp);
+            statement.setInt(3, beforeID);
+            statement.setInt(4, limit);
+            ResultSet result = statement.executeQuery();
+
+            return getLogsFromDB(result);
+        }catch (Exception ex)
+        {
+            throw new DatabaseException("Could not get logs from the database");
+        }
+    }
+
+    /**
+     * Get a page of the logs of all patients, newest first.
+     * The page starts after the log given by the cursor (beforeTimestamp, beforeID),
+     * which is the last log of the previous page.
+     * @param beforeTimestamp The timestamp of the last log of the previous page, or null for the first page
+     * @param beforeID The id of the last log of the previous page
+     * @param limit The maximum number of logs in the page
+     * @return The page of logs
+     * @throws DatabaseException if there was a problem querying the database
+     * @throws InvalidDataException if the data is invalid
+     */
+    @Override
+    public List<Log> getLogsPage(Timestamp beforeTimestamp, int beforeID, int limit) throws DatabaseException, InvalidDataException
+    {
+        if(isInvalidPage(beforeID, limit))
+            throw new InvalidDataException("Invalid page in the getLogsPage method");
+        awaitQueuedLogs();
+        try (Connection connection = getConnection()) {
+            String query = "CALL get_logs_page(?, ?, ?);";
+            PreparedStatement statement = connection.prepareCall(query);
+            statement.setTimestamp(1, beforeTimestamp);
+            statement.setInt(2, beforeID);
+            statement.setInt(3, limit);
+            ResultSet result = statement.executeQuery();
+
+            return getLogsFromDB(result);
+        }catch (Exception ex)
+        {
+            throw new DatabaseException("Could not get logs from the database");
+        }
+    }
+
     /**
      * Get a list of logs from the given result set
      * @param result The result set
      * @return The list of logs
      * @throws SQLException if there was a problem retrieving the logs
      */
-    private List<Log> getLogsFromDB(ResultSet result) throws SQLException
+    static List<Log> getLogsFromDB(ResultSet result) throws SQLException
     {
         var logs = new ArrayList<Log>();
         while (result.next()) {
@@ -979,7 +1828,7 @@ public class DataAccess implements IDataAccess
     }
 
     /**
-     * Create notification
+     * Create log and wait for it to be written
      * @param patient The patient
      * @param message The content of the log
      * @return The log from the database
@@ -987,6 +1836,7 @@ public class DataAccess implements IDataAccess
      * @throws NullDataException if a null value was sent as a parameter where a non-null value is expected
      * @throws InvalidDataException if the data is invalid
      */
+    @Override
     public Log createLog(Patient patient, String message) throws NullDataException, InvalidDataException, DatabaseException
     {
         if(patient==null)
@@ -996,17 +1846,24 @@ public class DataAccess implements IDataAccess
 
         if(isInvalidPatient(patient))
             throw new InvalidDataException("Invalid patient in the createLog method");
+        if(isInvalidLogMessage(message))
+            throw new InvalidDataException("Message longer than " + MAX_LOG_MESSAGE_LENGTH + " characters in the createLog method");
 
-        try {
+        try (Connection connection = getConnection()) {
             String query = "CALL insert_log(?, ?);";
             PreparedStatement statement = connection.prepareCall(query);
             statement.setString(1, message);
             statement.setInt(2, patient.getPatientID());
 
-            statement.executeQuery();
+            ResultSet result = statement.executeQuery();
+            result.next();
 
-            var logs = getLogs();
-            return logs.get(logs.size()-1);
+            return new Log(
+                    result.getInt("id_log"),
+                    message,
+                    patient.getPatientID(),
+                    result.getTimestamp("timestamp")
+            );
         } catch (Exception ex)
         {
             ex.printStackTrace();
@@ -1014,17 +1871,58 @@ public class DataAccess implements IDataAccess
         }
     }
 
+    /**
+     * Queue a log to be written to the database by the audit log writer, without waiting for it
+     * @param patient The patient
+     * @param message The content of the log
+     * @return True if the log was queued, false if it was dropped because the queue is full
+     * @throws NullDataException if a null value was sent as a parameter where a non-null value is expected
+     * @throws InvalidDataException if the data is invalid
+     */
+    @Override
+    public boolean queueLog(Patient patient, String message) throws NullDataException, InvalidDataException
+    {
+        if(patient==null)
+            throw new NullDataException("Null patient in the queueLog method");
+        if(isNullOrEmpty(message))
+            throw new NullDataException("Null message in the queueLog method");
+
+        if(isInvalidPatient(patient))
+            throw new InvalidDataException("Invalid patient in the queueLog method");
+        if(isInvalidLogMessage(message))
+            throw new InvalidDataException("Message longer than " + MAX_LOG_MESSAGE_LENGTH + " characters in the queueLog method");
+
+        return getAuditLogWriter().submit(new Log(null, message, patient.getPatientID(), new Timestamp(System.currentTimeMillis())));
+    }
+
+    /**
+     * @return The audit log writer shared by all DataAccess objects
+     */
+    public AuditLogWriter getAuditLogWriter()
+    {
+        return AuditLogWriter.getInstance(connectionPool);
+    }
+
+    /**
+     * Give the audit log writer a moment to write the queued logs, so a read sees the logs queued before it
+     */
+    private void awaitQueuedLogs()
+    {
+        getAuditLogWriter().awaitFlushed(LOG_FLUSH_WAIT_MS);
+    }
+
     /**
      * Delete the log with the given id
      * @param logID The log id
      * @throws DatabaseException if there was a problem querying the database
      * @throws InvalidDataException if the data is invalid
      */
+    @Override
     public void deleteLog(int logID) throws DatabaseException, InvalidDataException
     {
         if(logID<0)
             throw new InvalidDataException("Negative log ID in the deleteLog method");
-        try{
+        try (Connection connection = getConnection()) {
             String query = "CALL delete_log(?);";
             PreparedStatement statement = connection.prepareCall(query);
             statement.setInt(1, logID);
@@ -0,0 +1,32 @@
+package com.group15A.DataAccess;
+
+import com.group15A.CustomExceptions.DatabaseException;
+
+/**
+ * Chooses the implementation of the Data Access Layer used by the logic classes.
+ *
+ * The gp.dataAccess system property picks it at startup: "mysql", the default, for the MySQL database,
+ * or "memory" for the in-memory implementation, e.g. java -Dgp.dataAccess=memory -jar ...
+ * Either way it is wrapped in a ScopedDataAccess, so business operations can share the rows they load.
+ */
+public class DataAccessFactory
+{
+    public static final String ENGINE_PROPERTY = "gp.dataAccess";
+    public static final String MYSQL = "mysql";
+    public static final String MEMORY = "memory";
+
+    /**
+     * Get a Data Access Layer of the configured kind. All in-memory ones share the same data.
+     * @return The Data Access Layer
+     * @throws DatabaseException if there was a problem connecting to the database
+     */
+    public static IDataAccess create() throws DatabaseException
+    {
+        String engine = System.getProperty(ENGINE_PROPERTY, MYSQL);
+        if(engine.equalsIgnoreCase(MEMORY))
+            return new ScopedDataAccess(InMemoryDataAccess.getShared());
+        if(!engine.equalsIgnoreCase(MYSQL))
+            throw new DatabaseException("Unknown data access engine: " + engine);
+        return new ScopedDataAccess(new DataAccess());
+    }
+}
@@ -14,6 +14,8 @@ import java.util.Date;
  */
 public class DataAccessValidator
 {
+    public static final int MAX_LOG_MESSAGE_LENGTH = 1000;
+
     /**
      * Check if the given patient is valid or not
      * @param patient The patient to be checked
@@ -94,6 +96,27 @@ public class DataAccessValidator
         return true;
     }
 
+    /**
+     * Check if the given page of a newest-first query is valid or not
+     * @param beforeID The id of the cursor the page starts after
+     * @param limit The maximum number of rows in the page
+     * @return true if the page is invalid, false otherwise
+     */
+    protected static boolean isInvalidPage(int beforeID, int limit)
+    {
+        return beforeID<0 || limit<1;
+    }
+
+    /**
+     * Check if the given log message is too long for the message column of the log table
+     * @param message The message
+     * @return true if the message is invalid, false otherwise
+     */
+    protected static boolean isInvalidLogMessage(String message)
+    {
+        return message.length()>MAX_LOG_MESSAGE_LENGTH;
+    }
+
     /**
      * Check if the given date is after today
      * @param date The date
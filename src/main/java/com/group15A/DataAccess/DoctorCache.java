@@ -0,0 +1,345 @@
+package com.group15A.DataAccess;
+
+import com.group15A.CustomExceptions.CustomException;
+import com.group15A.DataModel.Certification;
+import com.group15A.DataModel.Doctor;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A process-wide read-through cache of the doctors, which almost never change.
+ *
+ * It holds a snapshot of the full doctor list and every doctor loaded by id together with their certifications.
+ * Which doctor a patient is registered with is not cached, as it changes with the patient. Entries expire
+ * TTL_MS after they were loaded, and each map keeps at most MAX_ENTRIES entries, dropping the oldest first.
+ * When several threads miss the same entry at once, only the first one queries the database and the others
+ * wait for its result.
+ *
+ * Cached objects are never handed out, only copies of them, so callers cannot change what is cached.
+ * The program never changes doctors or certifications, so invalidation is only explicit: changes made to the
+ * database directly are picked up once the entries expire, or straight away after invalidateDoctor() or
+ * invalidateAll().
+ *
+ * The shared cache is registered as an MBean under com.group15A:type=DoctorCache, so its hit and miss
+ * counters can be read live with jconsole, and invalidateAll() can be run from there.
+ */
+public class DoctorCache implements DoctorCacheMBean
+{
+    private static final long TTL_MS = Long.getLong("gp.doctorCache.ttlMs", TimeUnit.MINUTES.toMillis(10));
+    private static final int MAX_ENTRIES = Integer.getInteger("gp.doctorCache.maxEntries", 1_000);
+    private static final int DOCTOR_LIST_KEY = 0;
+    private static final String MBEAN_NAME = "com.group15A:type=DoctorCache";
+
+    private static final DoctorCache instance = new DoctorCache(TTL_MS, MAX_ENTRIES);
+
+    static {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(instance, new ObjectName(MBEAN_NAME));
+        } catch (JMException ex) {
+            // The cache still works, its counters just cannot be read through JMX
+            System.err.println("Could not register " + MBEAN_NAME + " with JMX: " + ex.getMessage());
+        }
+    }
+
+    private final long ttlNanos;
+    private final int maxEntries;
+
+    private final Map<Integer, Entry<List<Doctor>>> doctorList = new ConcurrentHashMap<>();
+    private final Map<Integer, Entry<CachedDoctor>> doctors = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong sharedLoads = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * Loads a value from the database on a cache miss
+     * @param <V> The type of the value
+     */
+    @FunctionalInterface
+    public interface Loader<V>
+    {
+        V load() throws CustomException;
+    }
+
+    /**
+     * A doctor together with their certifications
+     */
+    public static final class CachedDoctor
+    {
+        private final Doctor doctor;
+        private final List<Certification> certifications;
+
+        public CachedDoctor(Doctor doctor, List<Certification> certifications)
+        {
+            this.doctor = copy(doctor);
+            var copies = new ArrayList<Certification>(certifications.size());
+            for(Certification certification : certifications)
+                copies.add(copy(certification));
+            this.certifications = Collections.unmodifiableList(copies);
+        }
+    }
+
+    /**
+     * A cached value, or the load of it that is still running
+     */
+    private static final class Entry<V>
+    {
+        private final CompletableFuture<V> value = new CompletableFuture<>();
+        private volatile long loadedAt;
+    }
+
+    /**
+     * Constructor for a cache
+     * @param ttlMs How long an entry is kept after it was loaded, in milliseconds
+     * @param maxEntries The maximum number of entries kept in each of the maps
+     */
+    public DoctorCache(long ttlMs, int maxEntries)
+    {
+        if(ttlMs < 0 || maxEntries < 1)
+            throw new IllegalArgumentException("Invalid doctor cache settings");
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMs);
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * @return The cache shared by all DataAccess objects
+     */
+    public static DoctorCache getInstance()
+    {
+        return instance;
+    }
+
+    /**
+     * Get the list of all doctors
+     * @param loader Loads the list from the database on a miss
+     * @return Copies of the doctors
+     * @throws CustomException if the loader failed
+     */
+    public List<Doctor> getDoctors(Loader<List<Doctor>> loader) throws CustomException
+    {
+        List<Doctor> snapshot = get(doctorList, DOCTOR_LIST_KEY, () -> {
+            var copies = new ArrayList<Doctor>();
+            for(Doctor doctor : loader.load())
+                copies.add(copy(doctor));
+            return Collections.unmodifiableList(copies);
+        });
+
+        var result = new ArrayList<Doctor>(snapshot.size());
+        for(Doctor doctor : snapshot)
+            result.add(copy(doctor));
+        return result;
+    }
+
+    /**
+     * Get the doctor with the given id
+     * @param doctorID The id of the doctor
+     * @param loader Loads the doctor and their certifications from the database on a miss
+     * @return A copy of the doctor
+     * @throws CustomException if the loader failed
+     */
+    public Doctor getDoctor(int doctorID, Loader<CachedDoctor> loader) throws CustomException
+    {
+        return copy(get(doctors, doctorID, loader).doctor);
+    }
+
+    /**
+     * Get the certifications of the doctor with the given id
+     * @param doctorID The id of the doctor
+     * @param loader Loads the doctor and their certifications from the database on a miss
+     * @return Copies of the certifications
+     * @throws CustomException if the loader failed
+     */
+    public List<Certification> getCertifications(int doctorID, Loader<CachedDoctor> loader) throws CustomException
+    {
+        List<Certification> certifications = get(doctors, doctorID, loader).certifications;
+        var result = new ArrayList<Certification>(certifications.size());
+        for(Certification certification : certifications)
+            result.add(copy(certification));
+        return result;
+    }
+
+    /**
+     * Forget the doctor with the given id, and the doctor list
+     * @param doctorID The id of the doctor
+     */
+    public void invalidateDoctor(int doctorID)
+    {
+        doctors.remove(doctorID);
+        doctorList.clear();
+        invalidations.incrementAndGet();
+    }
+
+    /**
+     * Forget everything, e.g. after the doctors were changed in the database directly
+     */
+    @Override
+    public void invalidateAll()
+    {
+        doctorList.clear();
+        doctors.clear();
+        invalidations.incrementAndGet();
+    }
+
+    /**
+     * Get the value for the key, loading it if it is missing or expired.
+     * Only one thread runs the loader for a key, the others wait for its result.
+     */
+    private <V> V get(Map<Integer, Entry<V>> map, int key, Loader<V> loader) throws CustomException
+    {
+        while(true)
+        {
+            Entry<V> entry = map.get(key);
+            if(entry != null && isExpired(entry))
+            {
+                map.remove(key, entry);
+                entry = null;
+            }
+
+            if(entry != null)
+            {
+                if(entry.value.isDone())
+                    hits.incrementAndGet();
+                else
+                    sharedLoads.incrementAndGet();
+                return await(entry);
+            }
+
+            Entry<V> loading = new Entry<>();
+            if(map.putIfAbsent(key, loading) != null)
+                continue;
+
+            misses.incrementAndGet();
+            evictIfFull(map);
+            try {
+                V value = loader.load();
+                loading.loadedAt = System.nanoTime();
+                loading.value.complete(value);
+                return value;
+            } catch (CustomException | RuntimeException ex) {
+                // Failed loads are not cached, the next caller tries again
+                map.remove(key, loading);
+                loading.value.completeExceptionally(ex);
+                throw ex;
+            }
+        }
+    }
+
+    private <V> V await(Entry<V> entry) throws CustomException
+    {
+        try {
+            return entry.value.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new CustomException("Interrupted while waiting for the doctor cache");
+        } catch (ExecutionException ex) {
+            // The thread that ran the loader already threw the same exception
+            if(ex.getCause() instanceof CustomException)
+                throw (CustomException) ex.getCause();
+            if(ex.getCause() instanceof RuntimeException)
+                throw (RuntimeException) ex.getCause();
+            throw new CustomException("Could not load the doctor cache entry");
+        }
+    }
+
+    private boolean isExpired(Entry<?> entry)
+    {
+        return entry.value.isDone() && System.nanoTime() - entry.loadedAt >= ttlNanos;
+    }
+
+    /**
+     * Drop the expired entries and then, if the map is still too big, the oldest ones
+     */
+    private <V> void evictIfFull(Map<Integer, Entry<V>> map)
+    {
+        if(map.size() <= maxEntries)
+            return;
+
+        map.entrySet().removeIf(e -> {
+            boolean expired = isExpired(e.getValue());
+            if(expired)
+                evictions.incrementAndGet();
+            return expired;
+        });
+
+        while(map.size() > maxEntries)
+        {
+            Map.Entry<Integer, Entry<V>> oldest = null;
+            for(Map.Entry<Integer, Entry<V>> e : map.entrySet())
+            {
+                // Loads that are still running are never evicted
+                if(e.getValue().value.isDone() && (oldest == null || e.getValue().loadedAt - oldest.getValue().loadedAt < 0))
+                    oldest = e;
+            }
+            if(oldest == null || !map.remove(oldest.getKey(), oldest.getValue()))
+                return;
+            evictions.incrementAndGet();
+        }
+    }
+
+    private static Doctor copy(Doctor doctor)
+    {
+        return new Doctor(doctor.getDoctorID(), doctor.getEmail(), doctor.getFirstName(), doctor.getMiddleName(),
+                doctor.getLastName(), doctor.getDob() == null ? null : new Date(doctor.getDob().getTime()), doctor.getGender(), doctor.getPhoneNo());
+    }
+
+    private static Certification copy(Certification certification)
+    {
+        return new Certification(certification.getDoctorID(), certification.getCertID(), certification.getName(), certification.getField(),
+                certification.getDateObtained() == null ? null : new Date(certification.getDateObtained().getTime()));
+    }
+
+    //region Metrics
+
+    @Override
+    public long getHits() {return hits.get();}
+
+    @Override
+    public long getMisses() {return misses.get();}
+
+    /**
+     * @return The number of lookups that waited for another thread's load of the same entry
+     */
+    @Override
+    public long getSharedLoads() {return sharedLoads.get();}
+
+    @Override
+    public long getEvictions() {return evictions.get();}
+
+    @Override
+    public long getInvalidations() {return invalidations.get();}
+
+    /**
+     * @return The number of entries, the doctor list counting as one
+     */
+    @Override
+    public int getSize() {return doctorList.size() + doctors.size();}
+
+    @Override
+    public String toString()
+    {
+        return "DoctorCache{" +
+                "hits=" + getHits() +
+                ", misses=" + getMisses() +
+                ", sharedLoads=" + getSharedLoads() +
+                ", evictions=" + getEvictions() +
+                ", invalidations=" + getInvalidations() +
+                ", size=" + getSize() +
+                '}';
+    }
+
+    //endregion
+}
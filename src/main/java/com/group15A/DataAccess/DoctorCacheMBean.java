@@ -0,0 +1,21 @@
+package com.group15A.DataAccess;
+
+/**
+ * The hit and miss counters of the shared doctor cache, as shown through JMX (e.g. in jconsole)
+ */
+public interface DoctorCacheMBean
+{
+    long getHits();
+
+    long getMisses();
+
+    long getSharedLoads();
+
+    long getEvictions();
+
+    long getInvalidations();
+
+    int getSize();
+
+    void invalidateAll();
+}
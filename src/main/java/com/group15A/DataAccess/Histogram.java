@@ -0,0 +1,139 @@
+package com.group15A.DataAccess;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of non-negative values, such as call latencies in microseconds or row counts.
+ *
+ * Like an HDR histogram, the buckets grow with the values: values below 16 each get their own bucket,
+ * and every power of two above that is split into 8 buckets, so any recorded value is known to within
+ * about 12%. All values up to Long.MAX_VALUE fit in under 500 buckets, and recording a value is a couple of
+ * atomic increments, so it is cheap enough to run on every database call.
+ */
+public class Histogram
+{
+    private static final int SUB_BITS = 3;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int EXACT_LIMIT = 2 * SUB_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(index(Long.MAX_VALUE) + 1);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Record a value. Negative values are recorded as 0.
+     * @param value The value
+     */
+    public void record(long value)
+    {
+        value = Math.max(0, value);
+        counts.incrementAndGet(index(value));
+        count.increment();
+        sum.add(value);
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    /**
+     * @return The number of values recorded
+     */
+    public long getCount()
+    {
+        return count.sum();
+    }
+
+    /**
+     * @return The largest value recorded, or 0 if there are none
+     */
+    public long getMax()
+    {
+        return max.get();
+    }
+
+    /**
+     * @return The average of the values recorded, or 0 if there are none
+     */
+    public double getMean()
+    {
+        long values = count.sum();
+        return values == 0 ? 0 : (double) sum.sum() / values;
+    }
+
+    /**
+     * Get the value that the given percentage of the recorded values are at or below.
+     * It is the top of the bucket the value falls in, so it is never lower than the exact value.
+     * @param percentile The percentage, between 0 and 100
+     * @return The value, or 0 if there are none
+     */
+    public long getPercentile(double percentile)
+    {
+        long[] snapshot = new long[counts.length()];
+        long total = 0;
+        for(int i = 0; i < snapshot.length; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if(total == 0)
+            return 0;
+
+        long target = Math.max(1, (long) Math.ceil(Math.min(100, Math.max(0, percentile)) / 100 * total));
+        long seen = 0;
+        for(int i = 0; i < snapshot.length; i++) {
+            seen += snapshot[i];
+            if(seen >= target)
+                return Math.min(highestValue(i), max.get());
+        }
+        return max.get();
+    }
+
+    /**
+     * Forget every recorded value
+     */
+    public void reset()
+    {
+        for(int i = 0; i < counts.length(); i++)
+            counts.set(i, 0);
+        count.reset();
+        sum.reset();
+        max.set(0);
+    }
+
+    /**
+     * @param value A non-negative value
+     * @return The index of the bucket the value is counted in
+     */
+    static int index(long value)
+    {
+        if(value < EXACT_LIMIT)
+            return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_COUNT - 1);
+        return EXACT_LIMIT + (exponent - SUB_BITS - 1) * SUB_COUNT + sub;
+    }
+
+    /**
+     * @param index The index of a bucket
+     * @return The smallest value counted in the bucket
+     */
+    static long lowestValue(int index)
+    {
+        if(index < EXACT_LIMIT)
+            return index;
+        int exponent = (index - EXACT_LIMIT) / SUB_COUNT + SUB_BITS + 1;
+        int sub = (index - EXACT_LIMIT) % SUB_COUNT;
+        return (long) (SUB_COUNT + sub) << (exponent - SUB_BITS);
+    }
+
+    /**
+     * @param index The index of a bucket
+     * @return The largest value counted in the bucket
+     */
+    static long highestValue(int index)
+    {
+        if(index == index(Long.MAX_VALUE))
+            return Long.MAX_VALUE;
+        return lowestValue(index + 1) - 1;
+    }
+}
@@ -1,10 +1,11 @@
 package com.group15A.DataAccess;
 
-import com.group15A.CustomExceptions.CustomException;
-import com.group15A.CustomExceptions.PatientNotFoundException;
+import com.group15A.CustomExceptions.*;
 import com.group15A.DataModel.*;
+import com.group15A.Utils.ErrorCode;
 
 import java.sql.Timestamp;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -14,47 +15,91 @@ import java.util.List;
  */
 public interface IDataAccess
 {
-    Patient getPatient(String email) throws CustomException;
+    Patient getPatient(String email) throws NullDataException, PatientNotFoundException, DatabaseException;
 
-    Patient getPatient(int patientID) throws CustomException;
+    Patient getPatient(int patientID) throws InvalidDataException, PatientNotFoundException, DatabaseException;
 
-    Patient registerPatient(Patient patient, Doctor doctor) throws CustomException;
+    boolean isEmailInUse(String email) throws NullDataException, DatabaseException;
+
+    List<String> getPatientEmails() throws DatabaseException;
+
+    Patient registerPatient(Patient patient, Doctor doctor) throws NullDataException, EmailInUseException, DatabaseException, InvalidDataException;
+
+    List<ErrorCode> registerPatients(List<Patient> patients, List<Doctor> doctors) throws NullDataException, InvalidDataException, DatabaseException;
 
     Patient updatePatient(Patient patient) throws CustomException;
 
     Patient changeDoctor(Patient patient, Doctor doctor) throws CustomException;
 
-    List<Doctor> getDoctors() throws CustomException;
+    void deletePatient(int patientID) throws InvalidDataException, DatabaseException;
+
+    List<Doctor> getDoctors() throws DatabaseException;
+
+    Doctor getDoctor(Patient patient) throws NullDataException, DoctorNotFoundException, DatabaseException, InvalidDataException;
+
+    Doctor getDoctor(int doctorID) throws DoctorNotFoundException, DatabaseException, InvalidDataException;
+
+    List<Certification> getCertifications(Doctor doctor) throws DatabaseException, NullDataException, InvalidDataException;
+
+    Booking getBooking(int bookingID) throws DatabaseException, InvalidDataException;
+
+    List<Booking> getBookings() throws DatabaseException;
+
+    List<Booking> getBookings(Doctor doctor) throws DatabaseException, NullDataException, InvalidDataException;
+
+    List<Booking> getBookings(Doctor doctor, Timestamp from, Timestamp to) throws DatabaseException, NullDataException, InvalidDataException;
+
+    List<Booking> getBookings(List<Doctor> doctors, Timestamp from, Timestamp to) throws DatabaseException, NullDataException, InvalidDataException;
+
+    List<Booking> getBookings(Patient patient) throws DatabaseException, NullDataException, InvalidDataException;
+
+    List<Booking> getBookings(Patient patient, Timestamp from, Timestamp to, boolean newestFirst, int limit) throws DatabaseException, NullDataException, InvalidDataException;
+
+    List<BookingWithDoctor> getBookingsWithDoctor(Patient patient, Timestamp from, Timestamp to, boolean newestFirst, int limit) throws DatabaseException, NullDataException, InvalidDataException;
+
+    Booking createBooking(Patient patient, Doctor doctor, Timestamp bookingTime, String type) throws DatabaseException, NullDataException, InvalidDataException, ExistingBookingException;
+
+    Booking createBooking(Patient patient, Doctor doctor, Timestamp bookingTime, String type, String notificationHeader, String notificationMessage, String logMessage) throws DatabaseException, NullDataException, InvalidDataException, ExistingBookingException;
+
+    Booking updateBooking(Booking booking) throws DatabaseException, NullDataException, InvalidDataException, ExistingBookingException;
+
+    Booking updateBooking(Booking booking, String notificationHeader, String notificationMessage, String logMessage) throws DatabaseException, NullDataException, InvalidDataException, ExistingBookingException;
+
+    void deleteBooking(Booking booking) throws DatabaseException, NullDataException, InvalidDataException;
+
+    Notification getNotification(int notificationID) throws DatabaseException;
+
+    Notification createNotification(Patient patient, String header, String message) throws DatabaseException, NullDataException, InvalidDataException;
 
-    Doctor getDoctor(Patient patient) throws CustomException;
+    List<Notification> getNotifications(Patient patient) throws DatabaseException, NullDataException, InvalidDataException;
 
-    Doctor getDoctor(int doctorID) throws CustomException;
+    List<Notification> getNotificationsSince(Patient patient, int afterID, Timestamp changedSince) throws DatabaseException, NullDataException, InvalidDataException;
 
-    List<Certification> getCertifications(Doctor doctor) throws CustomException;
+    List<Notification> getNotificationsPage(Patient patient, Timestamp beforeTimestamp, int beforeID, int limit) throws DatabaseException, NullDataException, InvalidDataException;
 
-    Booking getBooking(int bookingID) throws CustomException;
+    List<Notification> getNotificationsPage(Patient patient, boolean isNew, Timestamp beforeTimestamp, int beforeID, int limit) throws DatabaseException, NullDataException, InvalidDataException;
 
-    List<Booking> getBookings() throws CustomException;
+    int countNewNotifications(Patient patient) throws DatabaseException, NullDataException, InvalidDataException;
 
-    List<Booking> getBookings(Doctor doctor) throws CustomException;
+    Notification setNotificationSeen(Notification notification) throws DatabaseException, NullDataException, InvalidDataException;
 
-    List<Booking> getBookings(Patient patient) throws CustomException;
+    int setNotificationsSeen(Patient patient, Collection<Integer> notificationIDs) throws DatabaseException, NullDataException, InvalidDataException;
 
-    Booking createBooking(Patient patient, Doctor doctor, Timestamp bookingTime, String type) throws CustomException;
+    int setAllNotificationsSeen(Patient patient) throws DatabaseException, NullDataException, InvalidDataException;
 
-    Booking updateBooking(Booking booking) throws CustomException;
+    void deleteNotification(int notificationID) throws DatabaseException, InvalidDataException;
 
-    Notification getNotification(int notificationID) throws CustomException;
+    List<Log> getLogs(Patient patient) throws DatabaseException, NullDataException, InvalidDataException;
 
-    Notification createNotification(Patient patient, String header, String message) throws CustomException;
+    List<Log> getLogs() throws DatabaseException;
 
-    List<Notification> getNotifications(Patient patient) throws CustomException;
+    List<Log> getLogsPage(Patient patient, Timestamp beforeTimestamp, int beforeID, int limit) throws DatabaseException, NullDataException, InvalidDataException;
 
-    Notification setNotificationSeen(Notification notification) throws CustomException;
+    List<Log> getLogsPage(Timestamp beforeTimestamp, int beforeID, int limit) throws DatabaseException, InvalidDataException;
 
-    List<Log> getLogs(Patient patient) throws CustomException;
+    Log createLog(Patient patient, String message) throws NullDataException, InvalidDataException, DatabaseException;
 
-    List<Log> getLogs() throws CustomException;
+    boolean queueLog(Patient patient, String message) throws NullDataException, InvalidDataException;
 
-    Log createLog(Patient patient, String message) throws CustomException;
+    void deleteLog(int logID) throws DatabaseException, InvalidDataException;
 }
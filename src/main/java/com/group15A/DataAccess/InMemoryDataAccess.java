@@ -0,0 +1,1382 @@
+package com.group15A.DataAccess;
+
+import com.group15A.CustomExceptions.*;
+import com.group15A.DataModel.*;
+import com.group15A.Utils.ErrorCode;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static com.group15A.DataAccess.DataAccessValidator.*;
+
+/**
+ * An implementation of the Data Access Layer that keeps everything in memory, for tests, demos and benchmarks
+ * on machines without MySQL.
+ *
+ * It validates its arguments and throws the same exceptions as DataAccess, and enforces the same rules as the
+ * database schema: unique patient emails (ignoring case), one booking per patient and per doctor at any booking time,
+ * and references to existing patients and doctors. Patients are indexed by id and email, and bookings are indexed by
+ * booking time for every patient and every doctor. Objects are copied on the way in and out, so changing a returned
+ * object does not change the stored data, just like with the database.
+ */
+public class InMemoryDataAccess implements IDataAccess
+{
+    private static volatile InMemoryDataAccess shared;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Integer, Patient> patients = new HashMap<>();
+    private final Map<String, Integer> patientIDsByEmail = new HashMap<>();
+    private final Map<Integer, Integer> patientDoctors = new HashMap<>();
+    private final NavigableMap<Integer, Doctor> doctors = new TreeMap<>();
+    private final Map<Integer, List<Certification>> certifications = new HashMap<>();
+    private final NavigableMap<Integer, Booking> bookings = new TreeMap<>();
+    private final Map<Integer, NavigableMap<Timestamp, Booking>> patientBookings = new HashMap<>();
+    private final Map<Integer, NavigableMap<Timestamp, Booking>> doctorBookings = new HashMap<>();
+    private final NavigableMap<Integer, Notification> notifications = new TreeMap<>();
+    private final NavigableMap<Integer, Log> logs = new TreeMap<>();
+
+    private int nextPatientID = 1;
+    private int nextBookingID = 1;
+    private int nextNotificationID = 1;
+    private int nextLogID = 1;
+
+    /**
+     * Constructor for an empty InMemoryDataAccess. Doctors are added with addDoctor() or loadDump().
+     */
+    public InMemoryDataAccess()
+    {
+    }
+
+    /**
+     * Get the in-memory data shared by every logic class, creating it on first use.
+     * It is filled from the SQL dump named by the gp.dataAccess.seed system property, if that file exists.
+     * @return The shared in-memory data access
+     * @throws DatabaseException if the SQL dump could not be read
+     */
+    public static InMemoryDataAccess getShared() throws DatabaseException
+    {
+        InMemoryDataAccess dataAccess = shared;
+        if(dataAccess == null) {
+            synchronized (InMemoryDataAccess.class) {
+                dataAccess = shared;
+                if(dataAccess == null) {
+                    dataAccess = new InMemoryDataAccess();
+                    Path seed = Path.of(System.getProperty("gp.dataAccess.seed", "TheGP_Database_24_Mar.sql"));
+                    if(Files.exists(seed))
+                        dataAccess.loadDump(seed);
+                    shared = dataAccess;
+                }
+            }
+        }
+        return dataAccess;
+    }
+
+    //region Seeding
+
+    /**
+     * Add a doctor and their certifications
+     * @param doctor The doctor, with their id
+     * @param doctorCertifications The doctor's certifications
+     */
+    public void addDoctor(Doctor doctor, List<Certification> doctorCertifications)
+    {
+        lock.writeLock().lock();
+        try {
+            doctors.put(doctor.getDoctorID(), copy(doctor));
+            var stored = certifications.computeIfAbsent(doctor.getDoctorID(), id -> new ArrayList<>());
+            for(Certification certification : doctorCertifications)
+                stored.add(copy(certification));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Fill the tables from the INSERT statements of a mysqldump file, such as TheGP_Database_24_Mar.sql
+     * @param dump The dump file
+     * @throws DatabaseException if the file could not be read or holds unexpected data
+     */
+    public void loadDump(Path dump) throws DatabaseException
+    {
+        try {
+            List<String> lines = Files.readAllLines(dump, StandardCharsets.UTF_8);
+            // Load the tables in the order of their foreign keys
+            for(String table : List.of("doctor", "certification", "patient", "booking", "notification", "log")) {
+                String prefix = "INSERT INTO `" + table + "` VALUES ";
+                for(String line : lines) {
+                    if(line.startsWith(prefix))
+                        loadRows(table, SqlValues.parse(line.substring(prefix.length())));
+                }
+            }
+        } catch (IOException | RuntimeException ex) {
+            throw new DatabaseException("Could not load the data from " + dump);
+        }
+    }
+
+    private void loadRows(String table, List<List<Object>> rows)
+    {
+        lock.writeLock().lock();
+        try {
+            for(List<Object> row : rows) {
+                switch (table) {
+                    case "doctor" -> doctors.put(integer(row.get(0)), new Doctor(
+                            integer(row.get(0)), (String) row.get(1), (String) row.get(2), (String) row.get(3),
+                            (String) row.get(4), date(row.get(5)), (String) row.get(6), (String) row.get(7)));
+                    case "certification" -> certifications.computeIfAbsent(integer(row.get(1)), id -> new ArrayList<>()).add(new Certification(
+                            integer(row.get(1)), integer(row.get(0)), (String) row.get(2), (String) row.get(3), date(row.get(4))));
+                    case "patient" -> {
+                        Patient patient = new Patient(
+                                integer(row.get(0)), (String) row.get(1), (String) row.get(2), (String) row.get(3), (String) row.get(4),
+                                (String) row.get(5), date(row.get(6)), (String) row.get(7), (String) row.get(8));
+                        patients.put(patient.getPatientID(), patient);
+                        patientIDsByEmail.put(emailKey(patient.getEmail()), patient.getPatientID());
+                        patientDoctors.put(patient.getPatientID(), integer(row.get(9)));
+                        nextPatientID = Math.max(nextPatientID, patient.getPatientID() + 1);
+                    }
+                    case "booking" -> {
+                        Booking booking = new Booking(
+                                integer(row.get(0)), integer(row.get(2)), integer(row.get(1)), timestamp(row.get(3)),
+                                timestamp(row.get(4)), (String) row.get(5), (String) row.get(6), (String) row.get(7));
+                        indexBooking(booking);
+                        nextBookingID = Math.max(nextBookingID, booking.getBookingID() + 1);
+                    }
+                    case "notification" -> {
+                        Notification notification = new Notification(
+                                integer(row.get(0)), integer(row.get(1)), (String) row.get(3), (String) row.get(2),
+                                timestamp(row.get(4)), (Boolean) row.get(5));
+                        notifications.put(notification.getNotifID(), notification);
+                        nextNotificationID = Math.max(nextNotificationID, notification.getNotifID() + 1);
+                    }
+                    case "log" -> {
+                        Log log = new Log(integer(row.get(0)), (String) row.get(1), integer(row.get(2)), timestamp(row.get(3)));
+                        logs.put(log.getLogID(), log);
+                        nextLogID = Math.max(nextLogID, log.getLogID() + 1);
+                    }
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //endregion
+
+    //region Patient
+
+    @Override
+    public Patient getPatient(String email) throws NullDataException, PatientNotFoundException
+    {
+        if(email==null || email.isBlank() || email.isEmpty())
+            throw new NullDataException("Null email in getPatient()");
+
+        lock.readLock().lock();
+        try {
+            Integer patientID = patientIDsByEmail.get(emailKey(email));
+            if(patientID == null)
+                throw new PatientNotFoundException();
+            return copy(patients.get(patientID));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Patient getPatient(int patientID) throws InvalidDataException, PatientNotFoundException
+    {
+        if(patientID<0)
+            throw new InvalidDataException("Negative patient ID in the getPatient method");
+
+        lock.readLock().lock();
+        try {
+            Patient patient = patients.get(patientID);
+            if(patient == null)
+                throw new PatientNotFoundException();
+            return copy(patient);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean isEmailInUse(String email) throws NullDataException
+    {
+        if(email==null || email.isBlank())
+            throw new NullDataException("Null email in the isEmailInUse method");
+
+        lock.readLock().lock();
+        try {
+            return patientIDsByEmail.containsKey(emailKey(email));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<String> getPatientEmails()
+    {
+        lock.readLock().lock();
+        try {
+            var emails = new ArrayList<String>(patients.size());
+            for(Patient patient : patients.values())
+                emails.add(patient.getEmail());
+            return emails;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Patient registerPatient(Patient patient, Doctor doctor) throws NullDataException, EmailInUseException, DatabaseException, InvalidDataException
+    {
+        if(patient==null)
+            throw new NullDataException("Null patient in the registerPatient method");
+        if(doctor==null)
+            throw new NullDataException("Null doctor in the registerPatient method");
+
+        if(isInvalidPatient(patient))
+            throw new InvalidDataException("Invalid patient in the registerPatient method");
+        if(isInvalidDoctor(doctor))
+            throw new InvalidDataException("Invalid doctor in the registerPatient method");
+
+        lock.writeLock().lock();
+        try {
+            if(patientIDsByEmail.containsKey(emailKey(patient.getEmail())))
+                throw new EmailInUseException();
+            if(!doctors.containsKey(doctor.getDoctorID()))
+                throw new DatabaseException("Could not register patient in the database");
+
+            Patient stored = copy(patient, nextPatientID++);
+            patients.put(stored.getPatientID(), stored);
+            patientIDsByEmail.put(emailKey(stored.getEmail()), stored.getPatientID());
+            patientDoctors.put(stored.getPatientID(), doctor.getDoctorID());
+            return copy(stored);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<ErrorCode> registerPatients(List<Patient> patients, List<Doctor> doctors) throws NullDataException, InvalidDataException
+    {
+        if(patients==null)
+            throw new NullDataException("Null patients in the registerPatients method");
+        if(doctors==null)
+            throw new NullDataException("Null doctors in the registerPatients method");
+        if(patients.size() != doctors.size())
+            throw new InvalidDataException("Different numbers of patients and doctors in the registerPatients method");
+
+        for(int i = 0; i < patients.size(); i++) {
+            if(patients.get(i)==null)
+                throw new NullDataException("Null patient in the registerPatients method");
+            if(doctors.get(i)==null)
+                throw new NullDataException("Null doctor in the registerPatients method");
+            if(isInvalidPatient(patients.get(i)))
+                throw new InvalidDataException("Invalid patient in the registerPatients method");
+            if(isInvalidDoctor(doctors.get(i)))
+                throw new InvalidDataException("Invalid doctor in the registerPatients method");
+        }
+
+        List<ErrorCode> outcomes = new ArrayList<>(patients.size());
+        lock.writeLock().lock();
+        try {
+            for(int i = 0; i < patients.size(); i++) {
+                Patient patient = patients.get(i);
+                int doctorID = doctors.get(i).getDoctorID();
+                if(patientIDsByEmail.containsKey(emailKey(patient.getEmail()))) {
+                    outcomes.add(ErrorCode.EMAIL_IN_USE);
+                } else if(!this.doctors.containsKey(doctorID)) {
+                    outcomes.add(ErrorCode.DATABASE_ERROR);
+                } else {
+                    Patient stored = copy(patient, nextPatientID++);
+                    this.patients.put(stored.getPatientID(), stored);
+                    patientIDsByEmail.put(emailKey(stored.getEmail()), stored.getPatientID());
+                    patientDoctors.put(stored.getPatientID(), doctorID);
+                    outcomes.add(null);
+                }
+            }
+            return outcomes;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Patient updatePatient(Patient patient) throws CustomException
+    {
+        updatePatientFull(patient, getDoctor(patient));
+
+        return getPatient(patient.getEmail());
+    }
+
+    @Override
+    public Patient changeDoctor(Patient patient, Doctor doctor) throws CustomException
+    {
+        updatePatientFull(patient, doctor);
+        return getPatient(patient.getPatientID());
+    }
+
+    /**
+     * Update the given patient with the new information, including a new doctor.
+     * Like the update_patient procedure, nothing happens if there is no patient with the patient's id.
+     */
+    private void updatePatientFull(Patient patient, Doctor doctor) throws NullDataException, DatabaseException, EmailInUseException, InvalidDataException
+    {
+        if(patient==null)
+            throw new NullDataException("Null patient in the updatePatient method");
+        if(doctor==null)
+            throw new NullDataException("Null doctor in the updatePatient method");
+        if(isInvalidPatient(patient))
+            throw new InvalidDataException("Invalid patient in the updatePatientFull method");
+        if(isInvalidDoctor(doctor))
+            throw new InvalidDataException("Invalid doctor in the updatePatientFull method");
+
+        lock.writeLock().lock();
+        try {
+            Patient stored = patients.get(patient.getPatientID());
+            if(stored == null)
+                return;
+
+            Integer emailOwner = patientIDsByEmail.get(emailKey(patient.getEmail()));
+            if(emailOwner != null && !emailOwner.equals(stored.getPatientID()))
+                throw new EmailInUseException();
+            if(!doctors.containsKey(doctor.getDoctorID()))
+                throw new DatabaseException("Could not update the patient");
+
+            patientIDsByEmail.remove(emailKey(stored.getEmail()));
+            Patient updated = copy(patient, stored.getPatientID());
+            patients.put(updated.getPatientID(), updated);
+            patientIDsByEmail.put(emailKey(updated.getEmail()), updated.getPatientID());
+            patientDoctors.put(updated.getPatientID(), doctor.getDoctorID());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void deletePatient(int patientID) throws InvalidDataException, DatabaseException
+    {
+        if(patientID<0)
+            throw new InvalidDataException("Negative patient ID in the deletePatient method");
+
+        lock.writeLock().lock();
+        try {
+            Patient patient = patients.get(patientID);
+            if(patient == null)
+                return;
+
+            // The bookings, notifications and logs of the patient reference them, so the patient cannot be deleted first
+            boolean referenced = patientBookings.containsKey(patientID)
+                    || notifications.values().stream().anyMatch(n -> n.getPatientID() == patientID)
+                    || logs.values().stream().anyMatch(l -> l.getPatientID() == patientID);
+            if(referenced)
+                throw new DatabaseException("Could not delete the patient from the database");
+
+            patients.remove(patientID);
+            patientIDsByEmail.remove(emailKey(patient.getEmail()));
+            patientDoctors.remove(patientID);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //endregion
+
+    //region Doctor
+
+    @Override
+    public Doctor getDoctor(Patient patient) throws NullDataException, DoctorNotFoundException, InvalidDataException
+    {
+        if(patient==null)
+            throw new NullDataException("Null patient in the getDoctor(patient) method overload");
+        if(isInvalidPatient(patient))
+            throw new InvalidDataException("Invalid patient in the getDoctor(patient) method overload");
+
+        lock.readLock().lock();
+        try {
+            Integer doctorID = patientDoctors.get(patient.getPatientID());
+            Doctor doctor = doctorID == null ? null : doctors.get(doctorID);
+            if(doctor == null)
+                throw new DoctorNotFoundException();
+            return copy(doctor);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Doctor getDoctor(int doctorID) throws DoctorNotFoundException, InvalidDataException
+    {
+        if(doctorID<0)
+            throw new InvalidDataException("Negative doctor ID in the getDoctor(doctorID) method overload");
+
+        lock.readLock().lock();
+        try {
+            Doctor doctor = doctors.get(doctorID);
+            if(doctor == null)
+                throw new DoctorNotFoundException();
+            return copy(doctor);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Doctor> getDoctors()
+    {
+        lock.readLock().lock();
+        try {
+            var result = new ArrayList<Doctor>(doctors.size());
+            for(Doctor doctor : doctors.values())
+                result.add(copy(doctor));
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //endregion
+
+    //region Certification
+
+    @Override
+    public List<Certification> getCertifications(Doctor doctor) throws NullDataException, InvalidDataException
+    {
+        if(doctor==null)
+            throw new NullDataException("Null doctor in the getCertifications method");
+        if(isInvalidDoctor(doctor))
+            throw new InvalidDataException("Invalid doctor in the getCertifications method");
+
+        lock.readLock().lock();
+        try {
+            var result = new ArrayList<Certification>();
+            for(Certification certification : certifications.getOrDefault(doctor.getDoctorID(), List.of()))
+                result.add(copy(certification));
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //endregion
+
+    //region Booking
+
+    @Override
+    public Booking getBooking(int bookingID) throws DatabaseException, InvalidDataException
+    {
+        if(bookingID<0)
+            throw new InvalidDataException("Negative booking ID in the getBooking(bookingID) method");
+
+        lock.readLock().lock();
+        try {
+            Booking booking = bookings.get(bookingID);
+            if(booking == null)
+                throw new DatabaseException("Could not get booking from the database");
+            return copy(booking);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Booking> getBookings()
+    {
+        lock.readLock().lock();
+        try {
+            return copyBookings(bookings.values(), Integer.MAX_VALUE);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Booking> getBookings(Doctor doctor) throws NullDataException, InvalidDataException
+    {
+        if(doctor==null)
+            throw new NullDataException("Null doctor in the getBookings(doctor) method overload.");
+        if(isInvalidDoctor(doctor))
+            throw new InvalidDataException("Invalid doctor in the getBookings(doctor) method overload");
+
+        return getBookings(doctorBookings, doctor.getDoctorID(), null, null, false, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<Booking> getBookings(Doctor doctor, Timestamp from, Timestamp to) throws NullDataException, InvalidDataException
+    {
+        if(doctor==null)
+            throw new NullDataException("Null doctor in the getBookings(doctor, from, to) method overload.");
+        if(isInvalidDoctor(doctor))
+            throw new InvalidDataException("Invalid doctor in the getBookings(doctor, from, to) method overload");
+
+        return getBookings(doctorBookings, doctor.getDoctorID(), from, to, false, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<Booking> getBookings(List<Doctor> doctors, Timestamp from, Timestamp to) throws NullDataException, InvalidDataException
+    {
+        if(doctors==null)
+            throw new NullDataException("Null doctor list in the getBookings(doctors, from, to) method overload.");
+        var doctorIDs = new TreeSet<Integer>();
+        for(Doctor doctor : doctors)
+        {
+            if(doctor==null)
+                throw new NullDataException("Null doctor in the getBookings(doctors, from, to) method overload.");
+            if(isInvalidDoctor(doctor))
+                throw new InvalidDataException("Invalid doctor in the getBookings(doctors, from, to) method overload");
+            doctorIDs.add(doctor.getDoctorID());
+        }
+
+        lock.readLock().lock();
+        try {
+            var result = new ArrayList<Booking>();
+            for(int doctorID : doctorIDs)
+                result.addAll(getBookings(doctorBookings, doctorID, from, to, false, Integer.MAX_VALUE));
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Booking> getBookings(Patient patient) throws NullDataException, InvalidDataException
+    {
+        if(patient==null)
+            throw new NullDataException("Null patient in the getBookings(patient) method overload.");
+        if(isInvalidPatient(patient))
+            throw new InvalidDataException("Invalid patient in the getBookings(patient) method overload");
+
+        return getBookings(patientBookings, patient.getPatientID(), null, null, false, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<Booking> getBookings(Patient patient, Timestamp from, Timestamp to, boolean newestFirst, int limit) throws NullDataException, InvalidDataException
+    {
+        if(patient==null)
+            throw new NullDataException("Null patient in the getBookings(patient, from, to) method overload.");
+        if(isInvalidPatient(patient))
+            throw new InvalidDataException("Invalid patient in the getBookings(patient, from, to) method overload");
+        if(limit<=0)
+            throw new InvalidDataException("Non-positive limit in the getBookings(patient, from, to) method overload");
+
+        return getBookings(patientBookings, patient.getPatientID(), from, to, newestFirst, limit);
+    }
+
+    @Override
+    public List<BookingWithDoctor> getBookingsWithDoctor(Patient patient, Timestamp from, Timestamp to, boolean newestFirst, int limit) throws NullDataException, InvalidDataException
+    {
+        if(patient==null)
+            throw new NullDataException("Null patient in the getBookingsWithDoctor method");
+        if(isInvalidPatient(patient))
+            throw new InvalidDataException("Invalid patient in the getBookingsWithDoctor method");
+        if(limit<=0)
+            throw new InvalidDataException("Non-positive limit in the getBookingsWithDoctor method");
+
+        lock.readLock().lock();
+        try {
+            var result = new ArrayList<BookingWithDoctor>();
+            for(Booking booking : getBookings(patientBookings, patient.getPatientID(), from, to, newestFirst, limit))
+                result.add(new BookingWithDoctor(booking, doctors.get(booking.getDoctorID())));
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get the bookings in the given range of a patient's or doctor's booking index
+     * @param index The per-patient or per-doctor index
+     * @param id The patient's or doctor's id
+     * @param from The start of the range, inclusive, or null for no lower bound
+     * @param to The end of the range, exclusive, or null for no upper bound
+     * @param newestFirst True to return the latest booking time first
+     * @param limit The maximum number of bookings to return
+     * @return Copies of the bookings
+     */
+    private List<Booking> getBookings(Map<Integer, NavigableMap<Timestamp, Booking>> index, int id, Timestamp from, Timestamp to, boolean newestFirst, int limit)
+    {
+        lock.readLock().lock();
+        try {
+            NavigableMap<Timestamp, Booking> byTime = index.get(id);
+            if(byTime == null)
+                return new ArrayList<>();
+
+            NavigableMap<Timestamp, Booking> range = byTime;
+            if(from != null)
+                range = range.tailMap(from, true);
+            if(to != null)
+                range = range.headMap(to, false);
+            return copyBookings(newestFirst ? range.descendingMap().values() : range.values(), limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Booking createBooking(Patient patient, Doctor doctor, Timestamp bookingTime, String type) throws DatabaseException, NullDataException, InvalidDataException, ExistingBookingException
+    {
+        if(patient==null)
+            throw new NullDataException("Null patient in the createBooking method");
+        if(doctor==null)
+            throw new NullDataException("Null doctor in the createBooking method");
+        if(bookingTime==null)
+            throw new NullDataException("Null booking time in the createBooking method");
+        if(isNullOrEmpty(type))
+            throw new NullDataException("Null type in the createBooking method");
+
+        if(isInvalidPatient(patient))
+            throw new InvalidDataException("Invalid patient in the createBooking method");
+        if(isInvalidDoctor(doctor))
+            throw new InvalidDataException("Invalid doctor in the createBooking method");
+
+        lock.writeLock().lock();
+        try {
+            if(!patients.containsKey(patient.getPatientID()) || !doctors.containsKey(doctor.getDoctorID()))
+                throw new DatabaseException("Could not insert booking in the database");
+
+            Timestamp time = toSeconds(bookingTime);
+            checkBookingClash(patient.getPatientID(), doctor.getDoctorID(), time, null);
+
+            Booking booking = new Booking(nextBookingID++, doctor.getDoctorID(), patient.getPatientID(), time, now(), type, null, null);
+            indexBooking(booking);
+            return copy(booking);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Booking updateBooking(Booking booking) throws DatabaseException, NullDataException, InvalidDataException, ExistingBookingException
+    {
+        if(booking==null)
+            throw new NullDataException("Null booking in the updateBooking method");
+        if(isInvalidBooking(booking))
+            throw new InvalidDataException("Invalid booking the updateBooking method");
+
+        lock.writeLock().lock();
+        try {
+            Booking stored = bookings.get(booking.getBookingID());
+            if(stored == null)
+                throw new DatabaseException("Could not update booking in the database");
+            if(!patients.containsKey(booking.getPatientID()) || !doctors.containsKey(booking.getDoctorID()))
+                throw new DatabaseException("Could not update booking in the database");
+
+            Timestamp time = toSeconds(booking.getBookingTime());
+            checkBookingClash(booking.getPatientID(), booking.getDoctorID(), time, stored.getBookingID());
+
+            unindexBooking(stored);
+            Booking updated = new Booking(stored.getBookingID(), booking.getDoctorID(), booking.getPatientID(), time,
+                    now(), booking.getType(), booking.getDetails(), booking.getPrescription());
+            indexBooking(updated);
+            return copy(updated);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * The write lock is reentrant, so the booking, notification and log are all saved under one hold of it.
+     * The booking is the only step that can fail, and it is saved first.
+     */
+    @Override
+    public Booking createBooking(Patient patient, Doctor doctor, Timestamp bookingTime, String type, String notificationHeader, String notificationMessage, String logMessage) throws DatabaseException, NullDataException, InvalidDataException, ExistingBookingException
+    {
+        checkWorkflowMessages("createBooking", notificationHeader, notificationMessage, logMessage);
+
+        lock.writeLock().lock();
+        try {
+            Booking booking = createBooking(patient, doctor, bookingTime, type);
+            addNotificationAndLog(booking.getPatientID(), booking.getTimestamp(), notificationHeader, notificationMessage, logMessage);
+            return booking;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Booking updateBooking(Booking booking, String notificationHeader, String notificationMessage, String logMessage) throws DatabaseException, NullDataException, InvalidDataException, ExistingBookingException
+    {
+        checkWorkflowMessages("updateBooking", notificationHeader, notificationMessage, logMessage);
+
+        lock.writeLock().lock();
+        try {
+            Booking updated = updateBooking(booking);
+            addNotificationAndLog(updated.getPatientID(), updated.getTimestamp(), notificationHeader, notificationMessage, logMessage);
+            return updated;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static void checkWorkflowMessages(String method, String notificationHeader, String notificationMessage, String logMessage) throws NullDataException
+    {
+        if(isNullOrEmpty(notificationHeader))
+            throw new NullDataException("Null notification header in the " + method + " method");
+        if(isNullOrEmpty(notificationMessage))
+            throw new NullDataException("Null notification message in the " + method + " method");
+        if(isNullOrEmpty(logMessage))
+            throw new NullDataException("Null log message in the " + method + " method");
+    }
+
+    /**
+     * Must be called while holding the write lock, for a patient that exists
+     */
+    private void addNotificationAndLog(int patientID, Timestamp time, String notificationHeader, String notificationMessage, String logMessage)
+    {
+        Notification notification = new Notification(nextNotificationID++, patientID, notificationHeader, notificationMessage, time, true);
+        notifications.put(notification.getNotifID(), notification);
+        Log log = new Log(nextLogID++, logMessage, patientID, time);
+        logs.put(log.getLogID(), log);
+    }
+
+    @Override
+    public void deleteBooking(Booking booking) throws NullDataException, InvalidDataException
+    {
+        if(booking==null)
+            throw new NullDataException("Null booking in the deleteBooking method");
+        if(isInvalidBooking(booking))
+            throw new InvalidDataException("Invalid booking in the deleteBooking method");
+
+        lock.writeLock().lock();
+        try {
+            Booking stored = bookings.get(booking.getBookingID());
+            if(stored != null)
+                unindexBooking(stored);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Check the booking against the (id_patient, booking_time) and (id_doctor, booking_time) unique keys,
+     * in the order MySQL checks them
+     * @param patientID The patient of the booking
+     * @param doctorID The doctor of the booking
+     * @param time The booking time
+     * @param bookingID The id of the booking being updated, or null for a new booking
+     * @throws ExistingBookingException if another booking of the patient or the doctor is at that time
+     */
+    private void checkBookingClash(int patientID, int doctorID, Timestamp time, Integer bookingID) throws ExistingBookingException
+    {
+        Booking patientClash = patientBookings.getOrDefault(patientID, Collections.emptyNavigableMap()).get(time);
+        if(patientClash != null && !patientClash.getBookingID().equals(bookingID))
+            throw new ExistingBookingException(ErrorCode.PATIENT_BOOKING_CLASH);
+
+        Booking doctorClash = doctorBookings.getOrDefault(doctorID, Collections.emptyNavigableMap()).get(time);
+        if(doctorClash != null && !doctorClash.getBookingID().equals(bookingID))
+            throw new ExistingBookingException(ErrorCode.DOCTOR_BOOKING_CLASH);
+    }
+
+    private void indexBooking(Booking booking)
+    {
+        bookings.put(booking.getBookingID(), booking);
+        patientBookings.computeIfAbsent(booking.getPatientID(), id -> new TreeMap<>()).put(booking.getBookingTime(), booking);
+        doctorBookings.computeIfAbsent(booking.getDoctorID(), id -> new TreeMap<>()).put(booking.getBookingTime(), booking);
+    }
+
+    private void unindexBooking(Booking booking)
+    {
+        bookings.remove(booking.getBookingID());
+        removeFromIndex(patientBookings, booking.getPatientID(), booking.getBookingTime());
+        removeFromIndex(doctorBookings, booking.getDoctorID(), booking.getBookingTime());
+    }
+
+    private static void removeFromIndex(Map<Integer, NavigableMap<Timestamp, Booking>> index, int id, Timestamp time)
+    {
+        NavigableMap<Timestamp, Booking> byTime = index.get(id);
+        if(byTime == null)
+            return;
+        byTime.remove(time);
+        if(byTime.isEmpty())
+            index.remove(id);
+    }
+
+    //endregion
+
+    //region Notification
+
+    @Override
+    public Notification getNotification(int notificationID) throws DatabaseException
+    {
+        lock.readLock().lock();
+        try {
+            Notification notification = notifications.get(notificationID);
+            if(notification == null)
+                throw new DatabaseException("Could not get notification from the database");
+            return copy(notification);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Notification createNotification(Patient patient, String header, String message) throws DatabaseException, NullDataException, InvalidDataException
+    {
+        if(patient==null)
+            throw new NullDataException("Null patient in the createNotification method");
+        if(isNullOrEmpty(header))
+            throw new NullDataException("Null header in the createNotification method");
+        if(isNullOrEmpty(message))
+            throw new NullDataException("Null message in the createNotification method");
+
+        if(isInvalidPatient(patient))
+            throw new InvalidDataException("Invalid patient in the createNotification method");
+
+        lock.writeLock().lock();
+        try {
+            if(!patients.containsKey(patient.getPatientID()))
+                throw new DatabaseException("Could not insert booking in the database");
+
+            Notification notification = new Notification(nextNotificationID++, patient.getPatientID(), header, message, now(), true);
+            notifications.put(notification.getNotifID(), notification);
+            return copy(notification);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Notification> getNotifications(Patient patient) throws NullDataException, InvalidDataException
+    {
+        if(patient==null)
+            throw new NullDataException("Null patient in the getNotifications method");
+        if(isInvalidPatient(patient))
+            throw new InvalidDataException("Invalid patient in the getNotification method");
+
+        lock.readLock().lock();
+        try {
+            var result = new ArrayList<Notification>();
+            for(Notification notification : notifications.values()) {
+                if(notification.getPatientID().equals(patient.getPatientID()))
+                    result.add(copy(notification));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Notification> getNotificationsSince(Patient patient, int afterID, Timestamp changedSince) throws NullDataException, InvalidDataException
+    {
+        if(patient==null)
+            throw new NullDataException("Null patient in the getNotificationsSince method");
+        if(isInvalidPatient(patient))
+            throw new InvalidDataException("Invalid patient in the getNotificationsSince method");
+        if(afterID<0)
+            throw new InvalidDataException("Negative notification ID in the getNotificationsSince method");
+
+        lock.readLock().lock();
+        try {
+            var result = new ArrayList<Notification>();
+            for(Notification notification : notifications.values()) {
+                if(notification.getPatientID().equals(patient.getPatientID()) && (notification.getNotifID() > afterID
+                        || (changedSince != null && !notification.getTimestamp().before(changedSince))))
+                    result.add(copy(notification));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Notification> getNotificationsPage(Patient patient, Timestamp beforeTimestamp, int beforeID, int limit) throws NullDataException, InvalidDataException
+    {
+        return notificationsPage(patient, null, beforeTimestamp, beforeID, limit);
+    }
+
+    @Override
+    public List<Notification> getNotificationsPage(Patient patient, boolean isNew, Timestamp beforeTimestamp, int beforeID, int limit) throws NullDataException, InvalidDataException
+    {
+        return notificationsPage(patient, isNew, beforeTimestamp, beforeID, limit);
+    }
+
+    /**
+     * Get a page of the patient's notifications, newest first, only the new or seen ones unless isNew is null
+     */
+    private List<Notification> notificationsPage(Patient patient, Boolean isNew, Timestamp beforeTimestamp, int beforeID, int limit) throws NullDataException, InvalidDataException
+    {
+        if(patient==null)
+            throw new NullDataException("Null patient in the getNotificationsPage method");
+        if(isInvalidPatient(patient))
+            throw new InvalidDataException("Invalid patient in the getNotificationsPage method");
+        if(isInvalidPage(beforeID, limit))
+            throw new InvalidDataException("Invalid page in the getNotificationsPage method");
+
+        lock.readLock().lock();
+        try {
+            var page = new ArrayList<Notification>();
+            for(Notification notification : notifications.values()) {
+                if(notification.getPatientID().equals(patient.getPatientID())
+                        && (isNew == null || notification.isNew() == isNew)
+                        && isBeforeCursor(notification.getTimestamp(), notification.getNotifID(), beforeTimestamp, beforeID))
+                    page.add(notification);
+            }
+            page.sort(Comparator.comparing(Notification::getTimestamp).thenComparing(Notification::getNotifID).reversed());
+
+            var result = new ArrayList<Notification>();
+            for(Notification notification : page.subList(0, Math.min(limit, page.size())))
+                result.add(copy(notification));
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int countNewNotifications(Patient patient) throws NullDataException, InvalidDataException
+    {
+        if(patient==null)
+            throw new NullDataException("Null patient in the countNewNotifications method");
+        if(isInvalidPatient(patient))
+            throw new InvalidDataException("Invalid patient in the countNewNotifications method");
+
+        lock.readLock().lock();
+        try {
+            int count = 0;
+            for(Notification notification : notifications.values()) {
+                if(notification.getPatientID().equals(patient.getPatientID()) && notification.isNew())
+                    count++;
+            }
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Notification setNotificationSeen(Notification notification) throws NullDataException, InvalidDataException
+    {
+        if(notification==null)
+            throw new NullDataException("Null notification in the setNotificationSeen method");
+        if(!validateNotification(notification))
+            throw new InvalidDataException("Invalid notification in the setNotification method");
+
+        lock.writeLock().lock();
+        try {
+            Notification stored = notifications.get(notification.getNotifID());
+            if(stored != null) {
+                // The timestamp column is updated with the row, like ON UPDATE CURRENT_TIMESTAMP
+                notifications.put(stored.getNotifID(), new Notification(stored.getNotifID(), stored.getPatientID(),
+                        stored.getHeader(), stored.getMessage(), stored.isNew() ? now() : stored.getTimestamp(), false));
+            }
+            notification.setIsNew(false);
+            return notification;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public int setNotificationsSeen(Patient patient, Collection<Integer> notificationIDs) throws NullDataException, InvalidDataException
+    {
+        if(patient==null)
+            throw new NullDataException("Null patient in the setNotificationsSeen method");
+        if(notificationIDs==null || notificationIDs.stream().anyMatch(Objects::isNull))
+            throw new NullDataException("Null notification ID in the setNotificationsSeen method");
+        if(isInvalidPatient(patient))
+            throw new InvalidDataException("Invalid patient in the setNotificationsSeen method");
+        if(notificationIDs.stream().anyMatch(id -> id<0))
+            throw new InvalidDataException("Negative notification ID in the setNotificationsSeen method");
+
+        return notificationsNotNew(patient.getPatientID(), new HashSet<>(notificationIDs));
+    }
+
+    @Override
+    public int setAllNotificationsSeen(Patient patient) throws NullDataException, InvalidDataException
+    {
+        if(patient==null)
+            throw new NullDataException("Null patient in the setAllNotificationsSeen method");
+        if(isInvalidPatient(patient))
+            throw new InvalidDataException("Invalid patient in the setAllNotificationsSeen method");
+
+        return notificationsNotNew(patient.getPatientID(), null);
+    }
+
+    /**
+     * Set the patient's new notifications with the given ids as seen, or all of them if the ids are null
+     */
+    private int notificationsNotNew(int patientID, Set<Integer> notificationIDs)
+    {
+        lock.writeLock().lock();
+        try {
+            int updated = 0;
+            Timestamp now = now();
+            for(Notification stored : notifications.values()) {
+                if(stored.getPatientID() == patientID && stored.isNew()
+                        && (notificationIDs == null || notificationIDs.contains(stored.getNotifID()))) {
+                    // Replacing a value does not change the map's structure, so this is safe while iterating
+                    notifications.put(stored.getNotifID(), new Notification(stored.getNotifID(), stored.getPatientID(),
+                            stored.getHeader(), stored.getMessage(), now, false));
+                    updated++;
+                }
+            }
+            return updated;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void deleteNotification(int notificationID) throws InvalidDataException
+    {
+        if(notificationID<0)
+            throw new InvalidDataException("Negative notification ID in the deleteNotification method");
+
+        lock.writeLock().lock();
+        try {
+            notifications.remove(notificationID);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //endregion
+
+    //region Log
+
+    @Override
+    public List<Log> getLogs()
+    {
+        lock.readLock().lock();
+        try {
+            var result = new ArrayList<Log>(logs.size());
+            for(Log log : logs.values())
+                result.add(copy(log));
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Log> getLogs(Patient patient) throws NullDataException, InvalidDataException
+    {
+        if(patient==null)
+            throw new NullDataException("Null patient in the getLogs method");
+        if(isInvalidPatient(patient))
+            throw new InvalidDataException("Invalid patient in the getLogs method");
+
+        lock.readLock().lock();
+        try {
+            var result = new ArrayList<Log>();
+            for(Log log : logs.values()) {
+                if(log.getPatientID().equals(patient.getPatientID()))
+                    result.add(copy(log));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Log> getLogsPage(Patient patient, Timestamp beforeTimestamp, int beforeID, int limit) throws NullDataException, InvalidDataException
+    {
+        if(patient==null)
+            throw new NullDataException("Null patient in the getLogsPage method");
+        if(isInvalidPatient(patient))
+            throw new InvalidDataException("Invalid patient in the getLogsPage method");
+
+        return logsPage(patient.getPatientID(), beforeTimestamp, beforeID, limit);
+    }
+
+    @Override
+    public List<Log> getLogsPage(Timestamp beforeTimestamp, int beforeID, int limit) throws InvalidDataException
+    {
+        return logsPage(null, beforeTimestamp, beforeID, limit);
+    }
+
+    /**
+     * Get a page of logs, newest first, of the given patient or of everyone if patientID is null
+     */
+    private List<Log> logsPage(Integer patientID, Timestamp beforeTimestamp, int beforeID, int limit) throws InvalidDataException
+    {
+        if(isInvalidPage(beforeID, limit))
+            throw new InvalidDataException("Invalid page in the getLogsPage method");
+
+        lock.readLock().lock();
+        try {
+            var page = new ArrayList<Log>();
+            for(Log log : logs.values()) {
+                if((patientID == null || log.getPatientID().equals(patientID))
+                        && isBeforeCursor(log.getTimestamp(), log.getLogID(), beforeTimestamp, beforeID))
+                    page.add(log);
+            }
+            page.sort(Comparator.comparing(Log::getTimestamp).thenComparing(Log::getLogID).reversed());
+
+            var result = new ArrayList<Log>();
+            for(Log log : page.subList(0, Math.min(limit, page.size())))
+                result.add(copy(log));
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Log createLog(Patient patient, String message) throws NullDataException, InvalidDataException, DatabaseException
+    {
+        if(patient==null)
+            throw new NullDataException("Null patient in the createLog method");
+        if(isNullOrEmpty(message))
+            throw new NullDataException("Null message in the createLog method");
+
+        if(isInvalidPatient(patient))
+            throw new InvalidDataException("Invalid patient in the createLog method");
+        if(isInvalidLogMessage(message))
+            throw new InvalidDataException("Message longer than " + MAX_LOG_MESSAGE_LENGTH + " characters in the createLog method");
+
+        lock.writeLock().lock();
+        try {
+            if(!patients.containsKey(patient.getPatientID()))
+                throw new DatabaseException("Could not insert log in the database");
+
+            Log log = new Log(nextLogID++, message, patient.getPatientID(), now());
+            logs.put(log.getLogID(), log);
+            return copy(log);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Writing to memory is as cheap as queueing, so the log is written straight away
+     */
+    @Override
+    public boolean queueLog(Patient patient, String message) throws NullDataException, InvalidDataException
+    {
+        try {
+            createLog(patient, message);
+            return true;
+        } catch (DatabaseException ex) {
+            return false;
+        }
+    }
+
+    @Override
+    public void deleteLog(int logID) throws InvalidDataException
+    {
+        if(logID<0)
+            throw new InvalidDataException("Negative log ID in the deleteLog method");
+
+        lock.writeLock().lock();
+        try {
+            logs.remove(logID);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //endregion
+
+    //region Copies and conversions
+
+    private static String emailKey(String email)
+    {
+        return email.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * @return The current time, to the second like a TIMESTAMP column
+     */
+    private static Timestamp now()
+    {
+        return toSeconds(new Timestamp(System.currentTimeMillis()));
+    }
+
+    /**
+     * @return The given time, to the second like a DATETIME column
+     */
+    private static Timestamp toSeconds(Timestamp time)
+    {
+        return new Timestamp(Math.floorDiv(time.getTime(), 1000L) * 1000L);
+    }
+
+    /**
+     * @return true if (timestamp, id) comes after the cursor in newest-first order, or there is no cursor,
+     * like the row comparison in the paged procedures
+     */
+    private static boolean isBeforeCursor(Timestamp timestamp, int id, Timestamp beforeTimestamp, int beforeID)
+    {
+        if(beforeTimestamp == null)
+            return true;
+        int compare = timestamp.compareTo(beforeTimestamp);
+        return compare < 0 || (compare == 0 && id < beforeID);
+    }
+
+    private static Patient copy(Patient patient)
+    {
+        return copy(patient, patient.getPatientID());
+    }
+
+    private static Patient copy(Patient patient, int patientID)
+    {
+        return new Patient(patientID, patient.getEmail(), patient.getPassHash(), patient.getFirstName(), patient.getMiddleName(),
+                patient.getLastName(), new Date(patient.getDob().getTime()), patient.getGender(), patient.getPhoneNo());
+    }
+
+    private static Doctor copy(Doctor doctor)
+    {
+        return new Doctor(doctor.getDoctorID(), doctor.getEmail(), doctor.getFirstName(), doctor.getMiddleName(),
+                doctor.getLastName(), doctor.getDob() == null ? null : new Date(doctor.getDob().getTime()), doctor.getGender(), doctor.getPhoneNo());
+    }
+
+    private static Certification copy(Certification certification)
+    {
+        return new Certification(certification.getDoctorID(), certification.getCertID(), certification.getName(), certification.getField(),
+                certification.getDateObtained() == null ? null : new Date(certification.getDateObtained().getTime()));
+    }
+
+    private static Booking copy(Booking booking)
+    {
+        return new Booking(booking.getBookingID(), booking.getDoctorID(), booking.getPatientID(), booking.getBookingTime(),
+                booking.getTimestamp(), booking.getType(), booking.getDetails(), booking.getPrescription());
+    }
+
+    private static List<Booking> copyBookings(Collection<Booking> bookings, int limit)
+    {
+        var result = new ArrayList<Booking>(Math.min(bookings.size(), limit));
+        for(Booking booking : bookings) {
+            if(result.size() == limit)
+                break;
+            result.add(copy(booking));
+        }
+        return result;
+    }
+
+    private static Notification copy(Notification notification)
+    {
+        return new Notification(notification.getNotifID(), notification.getPatientID(), notification.getHeader(),
+                notification.getMessage(), notification.getTimestamp(), notification.isNew());
+    }
+
+    private static Log copy(Log log)
+    {
+        return new Log(log.getLogID(), log.getMessage(), log.getPatientID(), log.getTimestamp());
+    }
+
+    private static Integer integer(Object value)
+    {
+        return value == null ? null : Integer.valueOf(value.toString());
+    }
+
+    private static Date date(Object value)
+    {
+        return value == null ? null : Date.valueOf(value.toString().substring(0, 10));
+    }
+
+    private static Timestamp timestamp(Object value)
+    {
+        return value == null ? null : Timestamp.valueOf(value.toString());
+    }
+
+    //endregion
+
+    /**
+     * Reads the rows of the VALUES part of a mysqldump INSERT statement
+     */
+    private static class SqlValues
+    {
+        private final String sql;
+        private int position = 0;
+
+        private SqlValues(String sql)
+        {
+            this.sql = sql;
+        }
+
+        /**
+         * @param values The text after VALUES, e.g. (1,'a',NULL),(2,'b',_binary '')
+         * @return The rows, with strings, numbers as strings, bits as booleans and nulls
+         */
+        static List<List<Object>> parse(String values)
+        {
+            return new SqlValues(values).rows();
+        }
+
+        private List<List<Object>> rows()
+        {
+            var rows = new ArrayList<List<Object>>();
+            while (position < sql.length() && sql.charAt(position) == '(') {
+                position++;
+                var row = new ArrayList<Object>();
+                row.add(value());
+                while (sql.charAt(position) == ',') {
+                    position++;
+                    row.add(value());
+                }
+                expect(')');
+                rows.add(row);
+                if(position < sql.length() && sql.charAt(position) == ',')
+                    position++;
+            }
+            return rows;
+        }
+
+        private Object value()
+        {
+            if(sql.startsWith("NULL", position)) {
+                position += 4;
+                return null;
+            }
+            if(sql.startsWith("_binary ", position)) {
+                position += 8;
+                String bits = string();
+                return !bits.isEmpty() && bits.charAt(0) != 0 && bits.charAt(0) != '0';
+            }
+            if(sql.charAt(position) == '\'')
+                return string();
+
+            int start = position;
+            while (sql.charAt(position) != ',' && sql.charAt(position) != ')')
+                position++;
+            return sql.substring(start, position);
+        }
+
+        private String string()
+        {
+            expect('\'');
+            StringBuilder value = new StringBuilder();
+            while (true) {
+                char c = sql.charAt(position++);
+                if(c == '\'') {
+                    if(position < sql.length() && sql.charAt(position) == '\'') {
+                        value.append('\'');
+                        position++;
+                        continue;
+                    }
+                    return value.toString();
+                }
+                if(c == '\\') {
+                    char escaped = sql.charAt(position++);
+                    switch (escaped) {
+                        case 'n' -> value.append('\n');
+                        case 'r' -> value.append('\r');
+                        case 't' -> value.append('\t');
+                        case '0' -> value.append('\0');
+                        case 'Z' -> value.append((char) 26);
+                        default -> value.append(escaped);
+                    }
+                    continue;
+                }
+                value.append(c);
+            }
+        }
+
+        private void expect(char c)
+        {
+            if(sql.charAt(position) != c)
+                throw new IllegalArgumentException("Expected " + c + " at " + position);
+            position++;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.group15A.DataAccess;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The calls, errors, latencies and returned row counts of one stored procedure.
+ * Latencies are kept in microseconds and shown in milliseconds.
+ */
+public class ProcedureStats implements ProcedureStatsMBean
+{
+    private final String procedure;
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder slowCalls = new LongAdder();
+    private final Histogram latencyMicros = new Histogram();
+    private final Histogram rows = new Histogram();
+
+    /**
+     * Constructor for the ProcedureStats class
+     * @param procedure The name of the stored procedure
+     */
+    public ProcedureStats(String procedure)
+    {
+        this.procedure = procedure;
+    }
+
+    /**
+     * Record one call of the procedure
+     * @param nanos How long the call took, in nanoseconds
+     * @param failed Whether the call threw an exception
+     * @param slow Whether the call took longer than the slow call threshold
+     */
+    void recordCall(long nanos, boolean failed, boolean slow)
+    {
+        calls.increment();
+        if(failed)
+            errors.increment();
+        if(slow)
+            slowCalls.increment();
+        latencyMicros.record(nanos / 1_000);
+    }
+
+    /**
+     * Record how many rows one call of the procedure returned
+     * @param count The number of rows
+     */
+    void recordRows(long count)
+    {
+        rows.record(count);
+    }
+
+    @Override
+    public String getProcedure() {return procedure;}
+
+    @Override
+    public long getCalls() {return calls.sum();}
+
+    @Override
+    public long getErrors() {return errors.sum();}
+
+    @Override
+    public long getSlowCalls() {return slowCalls.sum();}
+
+    @Override
+    public double getMeanMillis() {return latencyMicros.getMean() / 1_000;}
+
+    @Override
+    public double getMedianMillis() {return latencyMicros.getPercentile(50) / 1_000.0;}
+
+    @Override
+    public double get95thPercentileMillis() {return latencyMicros.getPercentile(95) / 1_000.0;}
+
+    @Override
+    public double get99thPercentileMillis() {return latencyMicros.getPercentile(99) / 1_000.0;}
+
+    @Override
+    public double getMaxMillis() {return latencyMicros.getMax() / 1_000.0;}
+
+    @Override
+    public double getMeanRows() {return rows.getMean();}
+
+    @Override
+    public long get95thPercentileRows() {return rows.getPercentile(95);}
+
+    @Override
+    public long getMaxRows() {return rows.getMax();}
+
+    /**
+     * Forget every recorded call
+     */
+    @Override
+    public void reset()
+    {
+        calls.reset();
+        errors.reset();
+        slowCalls.reset();
+        latencyMicros.reset();
+        rows.reset();
+    }
+
+    /**
+     * toString method for ProcedureStats
+     *
+     * @return a textual representation of the procedure's statistics
+     */
+    @Override
+    public String toString()
+    {
+        return procedure + "{" +
+                "calls=" + getCalls() +
+                ", errors=" + getErrors() +
+                ", slow=" + getSlowCalls() +
+                ", p50Ms=" + String.format("%.3f", getMedianMillis()) +
+                ", p99Ms=" + String.format("%.3f", get99thPercentileMillis()) +
+                ", maxMs=" + String.format("%.3f", getMaxMillis()) +
+                ", meanRows=" + String.format("%.1f", getMeanRows()) +
+                '}';
+    }
+}
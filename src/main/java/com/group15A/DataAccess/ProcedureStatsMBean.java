@@ -0,0 +1,33 @@
+package com.group15A.DataAccess;
+
+/**
+ * The call statistics of one stored procedure, as shown through JMX (e.g. in jconsole)
+ */
+public interface ProcedureStatsMBean
+{
+    String getProcedure();
+
+    long getCalls();
+
+    long getErrors();
+
+    long getSlowCalls();
+
+    double getMeanMillis();
+
+    double getMedianMillis();
+
+    double get95thPercentileMillis();
+
+    double get99thPercentileMillis();
+
+    double getMaxMillis();
+
+    double getMeanRows();
+
+    long get95thPercentileRows();
+
+    long getMaxRows();
+
+    void reset();
+}
@@ -0,0 +1,510 @@
+package com.group15A.DataAccess;
+
+import com.group15A.CustomExceptions.*;
+import com.group15A.DataModel.*;
+import com.group15A.Utils.ErrorCode;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A Data Access Layer that remembers the patients, doctors and bookings it has loaded for the length of a scope,
+ * so a business operation that needs the same row several times only loads it once.
+ *
+ * Scopes are opt-in and belong to the thread that opened them: outside a scope, every call goes straight to the
+ * wrapped Data Access Layer. Inside one, getPatient, getDoctor and getBooking are answered from memory after the
+ * first load of the same key. Any write to patients, doctors or bookings forgets everything loaded in the scope,
+ * so a scope never returns rows older than its own writes. Copies are returned, as with the database.
+ */
+public class ScopedDataAccess implements IDataAccess
+{
+    private static final ThreadLocal<Scope> currentScope = new ThreadLocal<>();
+
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+
+    private final IDataAccess dataAccess;
+
+    /**
+     * Work to run inside a scope
+     * @param <T> The type of the result
+     */
+    @FunctionalInterface
+    public interface Work<T>
+    {
+        T run() throws CustomException;
+    }
+
+    /**
+     * The rows loaded in one scope
+     */
+    private static final class Scope
+    {
+        private final Map<Integer, Patient> patientsByID = new HashMap<>();
+        private final Map<String, Patient> patientsByEmail = new HashMap<>();
+        private final Map<Integer, Doctor> doctorsByID = new HashMap<>();
+        private final Map<Integer, Doctor> doctorsByPatientID = new HashMap<>();
+        private final Map<Integer, Booking> bookings = new HashMap<>();
+
+        private void clear()
+        {
+            patientsByID.clear();
+            patientsByEmail.clear();
+            doctorsByID.clear();
+            doctorsByPatientID.clear();
+            bookings.clear();
+        }
+    }
+
+    /**
+     * Constructor for a ScopedDataAccess
+     * @param dataAccess The Data Access Layer that the calls are passed to
+     */
+    public ScopedDataAccess(IDataAccess dataAccess)
+    {
+        this.dataAccess = dataAccess;
+    }
+
+    /**
+     * Run the work inside a scope. If the thread is already in a scope, the work joins it.
+     * @param work The work, e.g. one business operation
+     * @param <T> The type of the result
+     * @return The result of the work
+     * @throws CustomException if the work threw it
+     */
+    public static <T> T withScope(Work<T> work) throws CustomException
+    {
+        if(currentScope.get() != null)
+            return work.run();
+
+        currentScope.set(new Scope());
+        try {
+            return work.run();
+        } finally {
+            currentScope.remove();
+        }
+    }
+
+    /**
+     * @return true if the current thread is in a scope
+     */
+    public static boolean inScope()
+    {
+        return currentScope.get() != null;
+    }
+
+    /**
+     * @return The number of reads answered from a scope
+     */
+    public static long getHits() {return hits.get();}
+
+    /**
+     * @return The number of reads in a scope that had to be loaded
+     */
+    public static long getMisses() {return misses.get();}
+
+    /**
+     * Forget everything loaded in the current scope, after a write
+     */
+    private static void invalidate()
+    {
+        Scope scope = currentScope.get();
+        if(scope != null)
+            scope.clear();
+    }
+
+    //region Patient
+
+    @Override
+    public Patient getPatient(String email) throws NullDataException, PatientNotFoundException, DatabaseException
+    {
+        Scope scope = currentScope.get();
+        if(scope == null || email == null)
+            return dataAccess.getPatient(email);
+
+        Patient patient = scope.patientsByEmail.get(email.toLowerCase(Locale.ROOT));
+        if(patient != null) {
+            hits.incrementAndGet();
+            return copy(patient);
+        }
+
+        misses.incrementAndGet();
+        patient = dataAccess.getPatient(email);
+        remember(scope, patient);
+        return copy(patient);
+    }
+
+    @Override
+    public Patient getPatient(int patientID) throws InvalidDataException, PatientNotFoundException, DatabaseException
+    {
+        Scope scope = currentScope.get();
+        if(scope == null)
+            return dataAccess.getPatient(patientID);
+
+        Patient patient = scope.patientsByID.get(patientID);
+        if(patient != null) {
+            hits.incrementAndGet();
+            return copy(patient);
+        }
+
+        misses.incrementAndGet();
+        patient = dataAccess.getPatient(patientID);
+        remember(scope, patient);
+        return copy(patient);
+    }
+
+    private static void remember(Scope scope, Patient patient)
+    {
+        Patient stored = copy(patient);
+        scope.patientsByID.put(stored.getPatientID(), stored);
+        scope.patientsByEmail.put(stored.getEmail().toLowerCase(Locale.ROOT), stored);
+    }
+
+    @Override
+    public boolean isEmailInUse(String email) throws NullDataException, DatabaseException
+    {
+        return dataAccess.isEmailInUse(email);
+    }
+
+    @Override
+    public List<String> getPatientEmails() throws DatabaseException
+    {
+        return dataAccess.getPatientEmails();
+    }
+
+    @Override
+    public Patient registerPatient(Patient patient, Doctor doctor) throws NullDataException, EmailInUseException, DatabaseException, InvalidDataException
+    {
+        invalidate();
+        return dataAccess.registerPatient(patient, doctor);
+    }
+
+    @Override
+    public List<ErrorCode> registerPatients(List<Patient> patients, List<Doctor> doctors) throws NullDataException, InvalidDataException, DatabaseException
+    {
+        invalidate();
+        return dataAccess.registerPatients(patients, doctors);
+    }
+
+    @Override
+    public Patient updatePatient(Patient patient) throws CustomException
+    {
+        invalidate();
+        return dataAccess.updatePatient(patient);
+    }
+
+    @Override
+    public Patient changeDoctor(Patient patient, Doctor doctor) throws CustomException
+    {
+        invalidate();
+        return dataAccess.changeDoctor(patient, doctor);
+    }
+
+    @Override
+    public void deletePatient(int patientID) throws InvalidDataException, DatabaseException
+    {
+        invalidate();
+        dataAccess.deletePatient(patientID);
+    }
+
+    //endregion
+
+    //region Doctor
+
+    @Override
+    public List<Doctor> getDoctors() throws DatabaseException
+    {
+        return dataAccess.getDoctors();
+    }
+
+    @Override
+    public Doctor getDoctor(Patient patient) throws NullDataException, DoctorNotFoundException, DatabaseException, InvalidDataException
+    {
+        Scope scope = currentScope.get();
+        if(scope == null || patient == null || patient.getPatientID() == null)
+            return dataAccess.getDoctor(patient);
+
+        Doctor doctor = scope.doctorsByPatientID.get(patient.getPatientID());
+        if(doctor != null) {
+            hits.incrementAndGet();
+            return copy(doctor);
+        }
+
+        misses.incrementAndGet();
+        doctor = copy(dataAccess.getDoctor(patient));
+        scope.doctorsByPatientID.put(patient.getPatientID(), doctor);
+        scope.doctorsByID.put(doctor.getDoctorID(), doctor);
+        return copy(doctor);
+    }
+
+    @Override
+    public Doctor getDoctor(int doctorID) throws DoctorNotFoundException, DatabaseException, InvalidDataException
+    {
+        Scope scope = currentScope.get();
+        if(scope == null)
+            return dataAccess.getDoctor(doctorID);
+
+        Doctor doctor = scope.doctorsByID.get(doctorID);
+        if(doctor != null) {
+            hits.incrementAndGet();
+            return copy(doctor);
+        }
+
+        misses.incrementAndGet();
+        doctor = copy(dataAccess.getDoctor(doctorID));
+        scope.doctorsByID.put(doctorID, doctor);
+        return copy(doctor);
+    }
+
+    @Override
+    public List<Certification> getCertifications(Doctor doctor) throws DatabaseException, NullDataException, InvalidDataException
+    {
+        return dataAccess.getCertifications(doctor);
+    }
+
+    //endregion
+
+    //region Booking
+
+    @Override
+    public Booking getBooking(int bookingID) throws DatabaseException, InvalidDataException
+    {
+        Scope scope = currentScope.get();
+        if(scope == null)
+            return dataAccess.getBooking(bookingID);
+
+        Booking booking = scope.bookings.get(bookingID);
+        if(booking != null) {
+            hits.incrementAndGet();
+            return copy(booking);
+        }
+
+        misses.incrementAndGet();
+        booking = copy(dataAccess.getBooking(bookingID));
+        scope.bookings.put(bookingID, booking);
+        return copy(booking);
+    }
+
+    @Override
+    public List<Booking> getBookings() throws DatabaseException
+    {
+        return dataAccess.getBookings();
+    }
+
+    @Override
+    public List<Booking> getBookings(Doctor doctor) throws DatabaseException, NullDataException, InvalidDataException
+    {
+        return dataAccess.getBookings(doctor);
+    }
+
+    @Override
+    public List<Booking> getBookings(Doctor doctor, Timestamp from, Timestamp to) throws DatabaseException, NullDataException, InvalidDataException
+    {
+        return dataAccess.getBookings(doctor, from, to);
+    }
+
+    @Override
+    public List<Booking> getBookings(List<Doctor> doctors, Timestamp from, Timestamp to) throws DatabaseException, NullDataException, InvalidDataException
+    {
+        return dataAccess.getBookings(doctors, from, to);
+    }
+
+    @Override
+    public List<Booking> getBookings(Patient patient) throws DatabaseException, NullDataException, InvalidDataException
+    {
+        return dataAccess.getBookings(patient);
+    }
+
+    @Override
+    public List<Booking> getBookings(Patient patient, Timestamp from, Timestamp to, boolean newestFirst, int limit) throws DatabaseException, NullDataException, InvalidDataException
+    {
+        return dataAccess.getBookings(patient, from, to, newestFirst, limit);
+    }
+
+    @Override
+    public List<BookingWithDoctor> getBookingsWithDoctor(Patient patient, Timestamp from, Timestamp to, boolean newestFirst, int limit) throws DatabaseException, NullDataException, InvalidDataException
+    {
+        return dataAccess.getBookingsWithDoctor(patient, from, to, newestFirst, limit);
+    }
+
+    @Override
+    public Booking createBooking(Patient patient, Doctor doctor, Timestamp bookingTime, String type) throws DatabaseException, NullDataException, InvalidDataException, ExistingBookingException
+    {
+        invalidate();
+        return dataAccess.createBooking(patient, doctor, bookingTime, type);
+    }
+
+    @Override
+    public Booking createBooking(Patient patient, Doctor doctor, Timestamp bookingTime, String type, String notificationHeader, String notificationMessage, String logMessage) throws DatabaseException, NullDataException, InvalidDataException, ExistingBookingException
+    {
+        invalidate();
+        return dataAccess.createBooking(patient, doctor, bookingTime, type, notificationHeader, notificationMessage, logMessage);
+    }
+
+    @Override
+    public Booking updateBooking(Booking booking) throws DatabaseException, NullDataException, InvalidDataException, ExistingBookingException
+    {
+        invalidate();
+        return dataAccess.updateBooking(booking);
+    }
+
+    @Override
+    public Booking updateBooking(Booking booking, String notificationHeader, String notificationMessage, String logMessage) throws DatabaseException, NullDataException, InvalidDataException, ExistingBookingException
+    {
+        invalidate();
+        return dataAccess.updateBooking(booking, notificationHeader, notificationMessage, logMessage);
+    }
+
+    @Override
+    public void deleteBooking(Booking booking) throws DatabaseException, NullDataException, InvalidDataException
+    {
+        invalidate();
+        dataAccess.deleteBooking(booking);
+    }
+
+    //endregion
+
+    //region Notification
+
+    @Override
+    public Notification getNotification(int notificationID) throws DatabaseException
+    {
+        return dataAccess.getNotification(notificationID);
+    }
+
+    @Override
+    public Notification createNotification(Patient patient, String header, String message) throws DatabaseException, NullDataException, InvalidDataException
+    {
+        return dataAccess.createNotification(patient, header, message);
+    }
+
+    @Override
+    public List<Notification> getNotifications(Patient patient) throws DatabaseException, NullDataException, InvalidDataException
+    {
+        return dataAccess.getNotifications(patient);
+    }
+
+    @Override
+    public List<Notification> getNotificationsSince(Patient patient, int afterID, Timestamp changedSince) throws DatabaseException, NullDataException, InvalidDataException
+    {
+        return dataAccess.getNotificationsSince(patient, afterID, changedSince);
+    }
+
+    @Override
+    public List<Notification> getNotificationsPage(Patient patient, Timestamp beforeTimestamp, int beforeID, int limit) throws DatabaseException, NullDataException, InvalidDataException
+    {
+        return dataAccess.getNotificationsPage(patient, beforeTimestamp, beforeID, limit);
+    }
+
+    @Override
+    public List<Notification> getNotificationsPage(Patient patient, boolean isNew, Timestamp beforeTimestamp, int beforeID, int limit) throws DatabaseException, NullDataException, InvalidDataException
+    {
+        return dataAccess.getNotificationsPage(patient, isNew, beforeTimestamp, beforeID, limit);
+    }
+
+    @Override
+    public int countNewNotifications(Patient patient) throws DatabaseException, NullDataException, InvalidDataException
+    {
+        return dataAccess.countNewNotifications(patient);
+    }
+
+    @Override
+    public Notification setNotificationSeen(Notification notification) throws DatabaseException, NullDataException, InvalidDataException
+    {
+        return dataAccess.setNotificationSeen(notification);
+    }
+
+    @Override
+    public int setNotificationsSeen(Patient patient, Collection<Integer> notificationIDs) throws DatabaseException, NullDataException, InvalidDataException
+    {
+        return dataAccess.setNotificationsSeen(patient, notificationIDs);
+    }
+
+    @Override
+    public int setAllNotificationsSeen(Patient patient) throws DatabaseException, NullDataException, InvalidDataException
+    {
+        return dataAccess.setAllNotificationsSeen(patient);
+    }
+
+    @Override
+    public void deleteNotification(int notificationID) throws DatabaseException, InvalidDataException
+    {
+        dataAccess.deleteNotification(notificationID);
+    }
+
+    //endregion
+
+    //region Log
+
+    @Override
+    public List<Log> getLogs(Patient patient) throws DatabaseException, NullDataException, InvalidDataException
+    {
+        return dataAccess.getLogs(patient);
+    }
+
+    @Override
+    public List<Log> getLogs() throws DatabaseException
+    {
+        return dataAccess.getLogs();
+    }
+
+    @Override
+    public List<Log> getLogsPage(Patient patient, Timestamp beforeTimestamp, int beforeID, int limit) throws DatabaseException, NullDataException, InvalidDataException
+    {
+        return dataAccess.getLogsPage(patient, beforeTimestamp, beforeID, limit);
+    }
+
+    @Override
+    public List<Log> getLogsPage(Timestamp beforeTimestamp, int beforeID, int limit) throws DatabaseException, InvalidDataException
+    {
+        return dataAccess.getLogsPage(beforeTimestamp, beforeID, limit);
+    }
+
+    @Override
+    public Log createLog(Patient patient, String message) throws NullDataException, InvalidDataException, DatabaseException
+    {
+        return dataAccess.createLog(patient, message);
+    }
+
+    @Override
+    public boolean queueLog(Patient patient, String message) throws NullDataException, InvalidDataException
+    {
+        return dataAccess.queueLog(patient, message);
+    }
+
+    @Override
+    public void deleteLog(int logID) throws DatabaseException, InvalidDataException
+    {
+        dataAccess.deleteLog(logID);
+    }
+
+    //endregion
+
+    //region Copies
+
+    private static Patient copy(Patient patient)
+    {
+        return new Patient(patient.getPatientID(), patient.getEmail(), patient.getPassHash(), patient.getFirstName(), patient.getMiddleName(),
+                patient.getLastName(), patient.getDob() == null ? null : new Date(patient.getDob().getTime()), patient.getGender(), patient.getPhoneNo());
+    }
+
+    private static Doctor copy(Doctor doctor)
+    {
+        return new Doctor(doctor.getDoctorID(), doctor.getEmail(), doctor.getFirstName(), doctor.getMiddleName(),
+                doctor.getLastName(), doctor.getDob() == null ? null : new Date(doctor.getDob().getTime()), doctor.getGender(), doctor.getPhoneNo());
+    }
+
+    private static Booking copy(Booking booking)
+    {
+        return new Booking(booking.getBookingID(), booking.getDoctorID(), booking.getPatientID(), booking.getBookingTime(),
+                booking.getTimestamp(), booking.getType(), booking.getDetails(), booking.getPrescription());
+    }
+
+    //endregion
+}
@@ -0,0 +1,75 @@
+package com.group15A.DataModel;
+
+import java.sql.Timestamp;
+
+/**
+ *  A booking together with the name of the doctor it is with, so a list of bookings
+ *  can be displayed without looking up each booking's doctor.
+ */
+public class BookingWithDoctor extends Booking {
+
+    private final String doctorFirstName;
+    private final String doctorMiddleName;
+    private final String doctorLastName;
+
+    /**
+     *
+     * @param bookingID the bookingID when patient do the booking
+     * @param doctorID the doctor id
+     * @param patientID the patient id
+     * @param bookingTime the time the booking
+     * @param timestamp time booking has been created
+     * @param type the type of the booking
+     * @param details the details for the booking
+     * @param prescription the prescription from the doctor
+     * @param doctorFirstName the first name of the doctor
+     * @param doctorMiddleName the middle name of the doctor
+     * @param doctorLastName the last name of the doctor
+     */
+    public BookingWithDoctor(Integer bookingID, Integer doctorID, Integer patientID, Timestamp bookingTime, Timestamp timestamp, String type, String details, String prescription,
+                             String doctorFirstName, String doctorMiddleName, String doctorLastName) {
+        super(bookingID, doctorID, patientID, bookingTime, timestamp, type, details, prescription);
+        this.doctorFirstName = doctorFirstName;
+        this.doctorMiddleName = doctorMiddleName;
+        this.doctorLastName = doctorLastName;
+    }
+
+    /**
+     *
+     * @param booking the booking
+     * @param doctor the doctor the booking is with
+     */
+    public BookingWithDoctor(Booking booking, Doctor doctor) {
+        this(booking.getBookingID(), booking.getDoctorID(), booking.getPatientID(), booking.getBookingTime(), booking.getTimestamp(),
+                booking.getType(), booking.getDetails(), booking.getPrescription(),
+                doctor.getFirstName(), doctor.getMiddleName(), doctor.getLastName());
+    }
+
+    /**
+     * @return the doctor's name the same way as Doctor.getFullName()
+     */
+    public String getDoctorFullName() {
+        return this.doctorFirstName+" "+this.doctorLastName;
+    }
+
+    public String getDoctorFirstName() {return doctorFirstName;}
+
+    public String getDoctorMiddleName() {return doctorMiddleName;}
+
+    public String getDoctorLastName() {return doctorLastName;}
+
+    /**
+     * toString method for BookingWithDoctor
+     *
+     * @return a textual representation of the booking and its doctor's name
+     */
+    @Override
+    public String toString() {
+        return "BookingWithDoctor{" +
+                "booking=" + super.toString() +
+                ", doctorFirstName='" + doctorFirstName + '\'' +
+                ", doctorMiddleName='" + doctorMiddleName + '\'' +
+                ", doctorLastName='" + doctorLastName + '\'' +
+                '}';
+    }
+}
@@ -8,6 +8,7 @@ import com.group15A.CustomExceptions.ExistingBookingException;
 import com.group15A.DataModel.Booking;
 import com.group15A.DataModel.Doctor;
 import com.group15A.DataModel.Patient;
+import com.group15A.Utils.DataModification;
 import com.group15A.Utils.JWidgetShortcuts;
 import com.group15A.Utils.PageType;
 import com.group15A.Utils.ReceivePair;
@@ -15,7 +16,9 @@ import com.group15A.Utils.ReceiveType;
 import javax.swing.*;
 import java.sql.Timestamp;
 import java.text.SimpleDateFormat;
+import java.time.LocalDateTime;
 import java.util.Calendar;
+import java.util.List;
 
 /**
  * To allow for communication to the business layer and to take care of event handling
@@ -111,6 +114,18 @@ public class AddBookingPanel extends BasePanel {
         }
     }
 
+    /**
+     * Forget the previous patient's doctor and the booking they were rescheduling
+     */
+    @Override
+    public void resetSession() {
+        super.resetSession();
+        this.bookingToEdit = null;
+        this.promptLabel.setText("Make your appointment");
+        this.bookingErrorLabel.setVisible(false);
+        this.resetBookingForm();
+    }
+
     /**
      * Populates the booking form with the information of the booking to be rescheduled
      * @param booking The booking's information to use to populate the add booking page
@@ -147,18 +162,38 @@ public class AddBookingPanel extends BasePanel {
     }
 
     /**
-     * Update the name of the doctor in the title label
+     * Update the name of the doctor and their next free slot in the title label,
+     * once they have been loaded in the background
      * @param patientID The ID of the patient
      */
     private void updateDoctorLabels(Integer patientID) {
-        try {
-            Patient patient = this.addBookingLogic.getPatient(patientID);
-            Doctor patientDoctor = this.addBookingLogic.getPatientDoctor(patient);
-            this.promptLabel.setText("Make your appointment with Dr "+patientDoctor.getFullName());
-            this.bookingErrorLabel.setVisible(false);
-        } catch (CustomException e) {
-            JWidgetShortcuts.showDatabaseExceptionPopupAndExit(addBookingPanel);
-        }
+        this.runInBackground(
+                () -> {
+                    Patient patient = this.addBookingLogic.getPatient(patientID);
+                    Doctor patientDoctor = this.addBookingLogic.getPatientDoctor(patient);
+                    List<LocalDateTime> freeSlots = this.addBookingLogic.getNextFreeSlots(patient, 1);
+                    return "Make your appointment with Dr "+patientDoctor.getFullName()+
+                            (freeSlots.isEmpty() ? "" : ", next free slot: "+DataModification.shortDateTime(Timestamp.valueOf(freeSlots.get(0))));
+                },
+                prompt -> {
+                    this.promptLabel.setText(prompt);
+                    this.bookingErrorLabel.setVisible(false);
+                },
+                e -> JWidgetShortcuts.showDatabaseExceptionPopupAndExit(addBookingPanel)
+        );
+    }
+
+    /**
+     * Disable the booking button while the doctor is being loaded or a booking is being saved,
+     * so a booking cannot be sent twice
+     *
+     * @param loading true while a background task is running
+     */
+    @Override
+    protected void setLoading(boolean loading)
+    {
+        super.setLoading(loading);
+        createBookingButton.setEnabled(!loading);
     }
 
     /**
@@ -185,42 +220,59 @@ public class AddBookingPanel extends BasePanel {
      * Otherwise, shows different error messages depending on the thrown exception
      */
     private void createOrEditBooking() {
-        try {
+        String date = yearCombo.getSelectedItem().toString()+"-"+
+                      monthCombo.getSelectedItem().toString()+"-"+
+                      dayCombo.getSelectedItem().toString();
 
-            String date = yearCombo.getSelectedItem().toString()+"-"+
-                          monthCombo.getSelectedItem().toString()+"-"+
-                          dayCombo.getSelectedItem().toString();
+        String hour = hourCombo.getSelectedItem().toString();
+        String minute = minuteCombo.getSelectedItem().toString();
+        Integer patientID = this.panelController.getSession().getLoggedInPatientID();
+        String type = typeComboBox.getSelectedItem().toString();
+        Booking booking = this.bookingToEdit;
 
-            String hour = hourCombo.getSelectedItem().toString();
-            String minute = minuteCombo.getSelectedItem().toString();
-            Integer patientID = this.panelController.getSession().getLoggedInPatientID();
-            String type = typeComboBox.getSelectedItem().toString();
+        this.runInBackground(
+                () -> {
+                    if (booking == null) {
+                        this.addBookingLogic.createNewBooking(date, hour, minute, type, patientID);
+                    } else {
+                        this.addBookingLogic.rescheduleBooking(date, hour, minute, type, patientID, booking);
+                    }
+                    return null;
+                },
+                done -> {
+                    this.bookingErrorLabel.setVisible(false);
+                    this.panelController.showPage(
+                            PageType.VIEW_BOOKINGS,
+                            new ReceivePair(ReceiveType.PATIENT_ID, patientID)
+                    );
 
-            if (bookingToEdit == null) {
-                this.addBookingLogic.createNewBooking(date, hour, minute, type, patientID);
-            } else {
-                this.addBookingLogic.rescheduleBooking(date, hour, minute, type, patientID, bookingToEdit);
-            }
-
-            this.bookingErrorLabel.setVisible(false);
-            this.panelController.showPage(
-                    PageType.VIEW_BOOKINGS,
-                    new ReceivePair(ReceiveType.PATIENT_ID, patientID)
-            );
+                    bookingToEdit = null;
+                },
+                this::showBookingError
+        );
+    }
 
-            bookingToEdit = null;
-        } catch (DoctorNotFoundException e) {
+    /**
+     * Shows different error messages depending on the exception thrown when saving the booking
+     * @param e the exception
+     */
+    private void showBookingError(CustomException e) {
+        if (e instanceof DoctorNotFoundException) {
             this.bookingErrorLabel.setVisible(true);
             this.bookingErrorLabel.setText("The requested doctor is unavailable");
 
-        } catch (DatabaseException e) {
+        } else if (e instanceof DatabaseException) {
             JWidgetShortcuts.showDatabaseExceptionPopupAndExit(addBookingPanel);
 
-        } catch (ExistingBookingException e) {
+        } else if (e instanceof ExistingBookingException) {
             this.bookingErrorLabel.setVisible(true);
-            this.bookingErrorLabel.setText("A booking with that time already exists");
+            if (((ExistingBookingException) e).isDoctorClash()) {
+                this.bookingErrorLabel.setText("Your doctor already has a booking at that time");
+            } else {
+                this.bookingErrorLabel.setText("You already have a booking at that time");
+            }
 
-        } catch (CustomException e) {
+        } else {
             this.bookingErrorLabel.setVisible(true);
             this.bookingErrorLabel.setText("The requested booking slot is unavailable");
         }
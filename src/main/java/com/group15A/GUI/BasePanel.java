@@ -1,7 +1,12 @@
 package com.group15A.GUI;
 
+import com.group15A.CustomExceptions.CustomException;
+import com.group15A.DataAccess.ScopedDataAccess;
 import com.group15A.Utils.ReceivePair;
 import javax.swing.*;
+import java.awt.*;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
 
 /**
  * All panels in the card layout inherit from this, allows using JPanels
@@ -12,6 +17,12 @@ import javax.swing.*;
  * panelController is the instance of multiPanelWindow in order for
  * events from this panel to call showPage
  *
+ * Database work is run with runInBackground, so it never blocks the Event Dispatch Thread.
+ * Its results are only used if they are still wanted when they arrive: starting another task
+ * on the same panel, or navigating away from it, makes the results of earlier tasks stale.
+ * Each task is one user action, so it runs in a ScopedDataAccess scope: the patients, doctors and
+ * bookings it loads more than once are only queried once.
+ *
  * @author Milovan Gveric
  * @author Filip Fois
  */
@@ -20,6 +31,17 @@ public abstract class BasePanel {
     protected String windowTitle;
     private final String panelFieldName;
 
+    // Only used on the Event Dispatch Thread
+    private int taskGeneration = 0;
+
+    /**
+     * Work to run off the Event Dispatch Thread
+     * @param <T> The type of the result
+     */
+    @FunctionalInterface
+    public interface BackgroundTask<T> {
+        T run() throws CustomException;
+    }
 
     /**
      * Constructor for BasePanel class
@@ -46,6 +68,86 @@ public abstract class BasePanel {
         return this.windowTitle;
     }
 
+    /**
+     * Run the task on a background thread, then pass its result or exception to the given handlers on the
+     * Event Dispatch Thread. The panel shows its loading state until the task is done.
+     * The rows the task loads are shared between its calls to the business logic.
+     * The handlers are not called if the task has become stale by then.
+     * An exception that is not a CustomException is handed on as a CustomException caused by it.
+     *
+     * @param task the work to run, e.g. calls to the business logic
+     * @param onSuccess handles the result on the Event Dispatch Thread
+     * @param onFailure handles the exception thrown by the task on the Event Dispatch Thread
+     * @param <T> the type of the result
+     */
+    protected <T> void runInBackground(BackgroundTask<T> task, Consumer<T> onSuccess, Consumer<CustomException> onFailure)
+    {
+        int generation = ++this.taskGeneration;
+        this.setLoading(true);
+
+        new SwingWorker<T, Void>() {
+            @Override
+            protected T doInBackground() throws Exception {
+                return ScopedDataAccess.withScope(task::run);
+            }
+
+            @Override
+            protected void done() {
+                if (generation != taskGeneration) {
+                    // The user has moved on, and whatever replaced this task clears the loading state
+                    return;
+                }
+                setLoading(false);
+
+                try {
+                    onSuccess.accept(get());
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof CustomException) {
+                        onFailure.accept((CustomException) e.getCause());
+                    } else {
+                        CustomException unexpected = new CustomException("Unexpected error: " + e.getCause());
+                        unexpected.initCause(e.getCause());
+                        onFailure.accept(unexpected);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }.execute();
+    }
+
+    /**
+     * Make the results of all running tasks stale, e.g. when the user navigates away from the panel
+     */
+    public void discardBackgroundTasks()
+    {
+        this.taskGeneration++;
+        this.setLoading(false);
+    }
+
+    /**
+     * Called when the logged in patient changes, as pages are kept across sessions.
+     * Panels override this to forget anything they show or hold for the previous session.
+     */
+    public void resetSession()
+    {
+        this.discardBackgroundTasks();
+    }
+
+    /**
+     * Show or hide the loading state of the panel.
+     * Panels can override this to also disable the widgets that start new tasks.
+     *
+     * @param loading true while a background task is running
+     */
+    protected void setLoading(boolean loading)
+    {
+        JPanel pagePanel = this.getPagePanel();
+        if (pagePanel != null) {
+            pagePanel.setCursor(loading ? Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR) : Cursor.getDefaultCursor());
+        }
+    }
+
     public abstract JPanel getPagePanel();
 
     public abstract void receiveData(ReceivePair pair);
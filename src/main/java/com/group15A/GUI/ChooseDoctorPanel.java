@@ -51,12 +51,24 @@ public class ChooseDoctorPanel extends BasePanel {
         try {
             doctorLogic = new DoctorLogic();
             doctorButtons = new ArrayList<JButton>();
-            doctorsList = doctorLogic.getDoctors();
         } catch (DatabaseException e) {
             JWidgetShortcuts.showDatabaseExceptionPopupAndExit(chooseDoctorPanel);
         }
+    }
 
-        addDoctorsToPanel();
+    /**
+     * Load the doctors in the background the first time the page is shown,
+     * then add them to the panel
+     */
+    private void loadDoctors() {
+        this.runInBackground(
+                () -> doctorLogic.getDoctors(),
+                doctors -> {
+                    doctorsList = doctors;
+                    addDoctorsToPanel();
+                },
+                e -> JWidgetShortcuts.showDatabaseExceptionPopupAndExit(chooseDoctorPanel)
+        );
     }
 
     private void chooseDoctor(JButton clickedButton) {
@@ -96,13 +108,18 @@ public class ChooseDoctorPanel extends BasePanel {
 
     /**
      * Receives:
+     *  - That the page is being shown, to load the doctors if they are not loaded yet
      *  - Which page to switch back to (as Choose Doctor Panel is shared)
      *
      * @param pair the received data from another page
      */
     @Override
     public void receiveData(ReceivePair pair) {
-        if (pair.getFirst().equals(ReceiveType.RETURN_PAGE)) {
+        if (pair.getFirst().equals(ReceiveType.EVENT)) {
+            if (doctorsList == null) {
+                this.loadDoctors();
+            }
+        } else if (pair.getFirst().equals(ReceiveType.RETURN_PAGE)) {
             this.returningPage = (PageType) pair.getSecond();
         }
     }
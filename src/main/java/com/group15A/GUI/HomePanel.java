@@ -1,6 +1,8 @@
 package com.group15A.GUI;
 
 import com.group15A.BusinessLogic.HomeLogic;
+import com.group15A.BusinessLogic.NotificationPoller;
+import com.group15A.BusinessLogic.NotificationSync;
 import com.group15A.CustomExceptions.CustomException;
 import com.group15A.DataModel.Notification;
 import com.group15A.DataModel.Patient;
@@ -8,7 +10,11 @@ import com.group15A.Session;
 import com.group15A.Utils.*;
 
 import javax.swing.*;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * To allow for communication to the business layer and to take care of event handling
@@ -38,7 +44,18 @@ public class HomePanel extends BasePanel {
     private JButton myActivityButton;
 
     private HomeLogic homeLogic;
-    private List<Notification> notifList;
+    private NotificationSync notificationSync;
+    private NotificationPoller notificationPoller;
+    private int displayedVersion;
+    private boolean archiveStale = true;
+    private Notification lastArchived;
+
+    // Notifications marked as read that have not been saved yet. They are saved together
+    // READ_FLUSH_DELAY_MS after the last click, or straight away when leaving the page.
+    private static final int READ_FLUSH_DELAY_MS = 1_500;
+    private final Set<Integer> pendingRead = new LinkedHashSet<>();
+    private final Timer readFlushTimer;
+    private final JButton markAllReadButton = new JButton("Mark all as read");
 
     private final MessageListPanel newMessageList;
     private final MessageListPanel oldMessageList;
@@ -67,6 +84,11 @@ public class HomePanel extends BasePanel {
         );
 
         inboxPanel.add(newMessageList.getPanel());
+        inboxPanel.add(markAllReadButton, BorderLayout.SOUTH);
+        markAllReadButton.setVisible(false);
+
+        readFlushTimer = new Timer(READ_FLUSH_DELAY_MS, e -> flushReadNotifications());
+        readFlushTimer.setRepeats(false);
         archivePanel.add(oldMessageList.getPanel());
 
         try {
@@ -79,59 +101,180 @@ public class HomePanel extends BasePanel {
     }
 
     /**
-     * For each notification in `notifList`,
-     * if it's marked as new, add a message to the new MessageListPanel
-     * and assign an action to the "mark as read" button,
-     * otherwise, add it the old MessageListPanel
+     * For each new notification of the patient, as of the last sync,
+     * add a message to the new MessageListPanel and assign an action to the "mark as read" button.
+     * The inbox tab shows how many new notifications there are in total.
+     * The archived notifications are only loaded when the archive tab is shown,
+     * and again after notifications were archived.
      */
     private void displayNotifications() {
         newMessageList.clearMessages();
-        oldMessageList.clearMessages();
         newMessageList.showNoMessagesLabel();
-        oldMessageList.showNoMessagesLabel();
-
-        if(!notifList.isEmpty()) {
-            for (int i=notifList.size()-1; i>=0; i--) {
-                Notification notification = notifList.get(i);
-                if (!notification.isNew()) {
-                    oldMessageList.hideNoMessagesLabel();
-                    oldMessageList.addMessage(
-                            notification.getHeader(),
-                            "(" + DataModification.shortDateTime(notification.getTimestamp()) + ")",
-                            notification.getMessage(),
-                            ""
-                    );
-                }
-                else{
-                    newMessageList.hideNoMessagesLabel();
-                    MessagePanel newNotificationDisplay = newMessageList.addMessage(
-                            notification.getHeader(),
-                            "(" + DataModification.shortDateTime(notification.getTimestamp()) + ")",
-                            notification.getMessage(),
-                            "Mark as read"
-                    );
-
-                    newNotificationDisplay.getButton().addActionListener(e -> {
-                        newNotificationDisplay.getButton().setVisible(false);
-                        this.markAsRead(notification);
-                    });
-                }
+        List<Notification> notifList = this.notificationSync.getNewNotifications();
+        notifList.removeIf(notification -> pendingRead.contains(notification.getNotifID()));
+        int newCount = Math.max(this.notificationSync.getNewCount() - pendingRead.size(), 0);
+        this.displayedVersion = this.notificationSync.getVersion();
 
-            }
+        for (int i=notifList.size()-1; i>=0; i--) {
+            Notification notification = notifList.get(i);
+            newMessageList.hideNoMessagesLabel();
+            MessagePanel newNotificationDisplay = newMessageList.addMessage(
+                    notification.getHeader(),
+                    "(" + DataModification.shortDateTime(notification.getTimestamp()) + ")",
+                    notification.getMessage(),
+                    "Mark as read"
+            );
+
+            newNotificationDisplay.getButton().addActionListener(e -> {
+                newNotificationDisplay.getMainPanel().setVisible(false);
+                this.markAsRead(notification);
+            });
+        }
+
+        if (newCount > notifList.size()) {
+            newMessageList.setHeaderText("New messages (" + notifList.size() + " of " + newCount + ")");
+        }
+        updateInboxBadge(newCount);
 
+        if (this.notificationSync.takeArchiveChanged()) {
+            this.archiveStale = true;
+        }
+        if (this.archiveStale && messagesTabbedPane.getSelectedComponent() == archivePanel) {
+            this.displayArchive();
         }
     }
 
+    /**
+     * Show the archived notifications, newest first, in a virtual list that loads them a page at a time
+     */
+    private void displayArchive() {
+        this.archiveStale = false;
+        this.lastArchived = null;
+        oldMessageList.showVirtualList(this::loadMoreArchived);
+    }
 
     /**
-     * Mark a given notification's isNew attribute to false
+     * Load the next page of archived notifications in the background and give it to the virtual list.
+     * One more notification than a page is asked for, to know if there are more after it.
+     */
+    private void loadMoreArchived() {
+        NotificationSync sync = this.notificationSync;
+        Notification after = this.lastArchived;
+        this.runInBackground(
+                () -> this.homeLogic.getArchivedNotifications(sync.getPatient(), after, MessageListPanel.PAGE_SIZE + 1),
+                notifications -> {
+                    boolean hasMore = notifications.size() > MessageListPanel.PAGE_SIZE;
+                    List<MessageListPanel.MessageRow> rows = new ArrayList<>();
+                    for (Notification notification : notifications.subList(0, Math.min(notifications.size(), MessageListPanel.PAGE_SIZE))) {
+                        rows.add(new MessageListPanel.MessageRow(
+                                notification.getHeader(),
+                                "(" + DataModification.shortDateTime(notification.getTimestamp()) + ")",
+                                notification.getMessage()
+                        ));
+                        this.lastArchived = notification;
+                    }
+                    oldMessageList.appendRows(rows, hasMore);
+
+                    // Loading the page made the result of any other task of this panel stale,
+                    // so show what a sync it replaced may have found
+                    if (sync.getVersion() != this.displayedVersion) {
+                        this.displayNotifications();
+                    }
+                },
+                e -> {
+                    oldMessageList.cancelLoadMore();
+                    JWidgetShortcuts.showDatabaseExceptionPopupAndExit(homePanel);
+                }
+        );
+    }
+
+    /**
+     * Show the number of new notifications on the inbox tab
+     */
+    private void updateInboxBadge(int newCount) {
+        messagesTabbedPane.setTitleAt(messagesTabbedPane.indexOfComponent(inboxPanel),
+                newCount > 0 ? "Inbox (" + newCount + ")" : "Inbox");
+        markAllReadButton.setVisible(newCount > 0);
+    }
+
+    /**
+     * Mark a given notification's isNew attribute to false.
+     * It is only saved once the user stops marking notifications for a moment,
+     * together with the others marked in the meantime.
      */
     private void markAsRead(Notification notification) {
-        try {
-            this.homeLogic.readNotification(notification);
-            this.receiveData(null);
-        } catch (CustomException e) {
-            JWidgetShortcuts.showDatabaseExceptionPopupAndExit(homePanel);
+        pendingRead.add(notification.getNotifID());
+        updateInboxBadge(Math.max(this.notificationSync.getNewCount() - pendingRead.size(), 0));
+        readFlushTimer.restart();
+    }
+
+    /**
+     * Save the notifications marked as read since the last flush in one batch, in the background,
+     * then sync and redisplay the notifications
+     */
+    private void flushReadNotifications() {
+        readFlushTimer.stop();
+        if (pendingRead.isEmpty() || this.notificationSync == null) {
+            pendingRead.clear();
+            return;
+        }
+
+        NotificationSync sync = this.notificationSync;
+        List<Integer> notificationIDs = new ArrayList<>(pendingRead);
+        this.runInBackground(
+                () -> {
+                    this.homeLogic.readNotifications(sync.getPatient(), notificationIDs);
+                    // Even if the page was left and this result is dropped, they are saved now
+                    SwingUtilities.invokeLater(() -> pendingRead.removeAll(notificationIDs));
+                    return sync.sync();
+                },
+                changed -> this.displayNotifications(),
+                e -> JWidgetShortcuts.showDatabaseExceptionPopupAndExit(homePanel)
+        );
+    }
+
+    /**
+     * Mark all the patient's notifications as read in one go, in the background,
+     * then sync and redisplay the notifications
+     */
+    private void markAllAsRead() {
+        readFlushTimer.stop();
+        NotificationSync sync = this.notificationSync;
+        if (sync == null) {
+            return;
+        }
+
+        List<Integer> notificationIDs = new ArrayList<>(pendingRead);
+        this.runInBackground(
+                () -> {
+                    this.homeLogic.readAllNotifications(sync.getPatient());
+                    SwingUtilities.invokeLater(() -> pendingRead.removeAll(notificationIDs));
+                    return sync.sync();
+                },
+                changed -> this.displayNotifications(),
+                e -> JWidgetShortcuts.showDatabaseExceptionPopupAndExit(homePanel)
+        );
+    }
+
+    /**
+     * Poll for new notifications while the page is shown, redisplaying them when they change
+     */
+    private void startPolling() {
+        stopPolling();
+        NotificationSync sync = this.notificationSync;
+        NotificationPoller poller = new NotificationPoller(sync, () -> SwingUtilities.invokeLater(() -> {
+            if (this.notificationSync == sync) {
+                this.displayNotifications();
+            }
+        }));
+        this.notificationPoller = poller;
+        poller.start();
+    }
+
+    private void stopPolling() {
+        if (this.notificationPoller != null) {
+            this.notificationPoller.stop();
+            this.notificationPoller = null;
         }
     }
 
@@ -145,19 +288,74 @@ public class HomePanel extends BasePanel {
     }
 
     /**
+     * The first time the page is shown for a patient, load the patient and all their notifications
+     * in the background. After that, only fetch the notifications added or changed since, and only
+     * redisplay them if there were any. Either way, poll for new ones while the page is shown.
+     *
      * @param pair the received data from another page
      */
     @Override
     public void receiveData(ReceivePair pair) {
-        try {
-            Patient patient = homeLogic.getPatient(panelController.getSession().getLoggedInPatientID());
-            titleLabel.setText("Welcome, " + patient.getFirstName() + ".");
-            this.notifList = this.homeLogic.getNotifications(patient);
-            this.displayNotifications();
-        } catch (CustomException e) {
-            JWidgetShortcuts.showDatabaseExceptionPopupAndExit(homePanel);
+        Integer patientID = panelController.getSession().getLoggedInPatientID();
+        NotificationSync sync = this.notificationSync;
+
+        if (sync != null && sync.getPatient().getPatientID().equals(patientID)) {
+            this.runInBackground(
+                    sync::sync,
+                    changed -> {
+                        // A sync whose result was dropped while the page was left may also have found changes
+                        if (changed || sync.getVersion() != this.displayedVersion) {
+                            this.displayNotifications();
+                        }
+                        this.startPolling();
+                    },
+                    e -> JWidgetShortcuts.showDatabaseExceptionPopupAndExit(homePanel)
+            );
+            return;
         }
 
+        this.runInBackground(
+                () -> {
+                    Patient patient = homeLogic.getPatient(patientID);
+                    NotificationSync newSync = new NotificationSync(patient);
+                    newSync.sync();
+                    return newSync;
+                },
+                newSync -> {
+                    titleLabel.setText("Welcome, " + newSync.getPatient().getFirstName() + ".");
+                    this.notificationSync = newSync;
+                    this.displayNotifications();
+                    this.startPolling();
+                },
+                e -> JWidgetShortcuts.showDatabaseExceptionPopupAndExit(homePanel)
+        );
+    }
+
+    /**
+     * Stop polling as well when the user navigates away from the page
+     */
+    @Override
+    public void discardBackgroundTasks() {
+        super.discardBackgroundTasks();
+        stopPolling();
+        // The notifications marked as read are still saved, even though the page is left
+        flushReadNotifications();
+    }
+
+    /**
+     * Forget the previous patient's name and notifications
+     */
+    @Override
+    public void resetSession() {
+        super.resetSession();
+        titleLabel.setText("Welcome.");
+        this.notificationSync = null;
+        this.pendingRead.clear();
+        this.archiveStale = true;
+        this.lastArchived = null;
+        updateInboxBadge(0);
+        newMessageList.clearMessages();
+        oldMessageList.clearMessages();
     }
 
     /**
@@ -179,6 +377,14 @@ public class HomePanel extends BasePanel {
         ));
 
         viewProfileButton.addActionListener(e -> this.panelController.showPage(PageType.VIEW_PROFILE));
+
+        markAllReadButton.addActionListener(e -> markAllAsRead());
+
+        messagesTabbedPane.addChangeListener(e -> {
+            if (this.archiveStale && this.notificationSync != null && messagesTabbedPane.getSelectedComponent() == archivePanel) {
+                this.displayArchive();
+            }
+        });
     }
 
     /**
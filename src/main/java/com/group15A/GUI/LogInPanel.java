@@ -79,6 +79,18 @@ public class LogInPanel extends BasePanel {
 
     }
 
+    /**
+     * Clear the log in form
+     */
+    @Override
+    public void resetSession() {
+        super.resetSession();
+        emailField.setText("");
+        passwordField.setText("");
+        stayLoggedInCheckBox.setSelected(false);
+        logInErrorLabel.setVisible(false);
+    }
+
     /**
      * To create all event handlers, which will point to other methods in the class
      */
@@ -89,30 +101,40 @@ public class LogInPanel extends BasePanel {
     }
 
     /**
-     * Pass email and password for LogInLogic to attempt a login
+     * Pass email and password for LogInLogic to attempt a login,
+     * in the background as checking the password is slow
      *
      * If successful, go to the home page,
      * otherwise, stay on log in page and show error label
      */
     private void logInPatient() {
         Boolean stayLoggedIn = stayLoggedInCheckBox.isSelected();
+        String email = emailField.getText();
+        String password = new String(passwordField.getPassword());
         logInErrorLabel.setVisible(false);
+        passwordField.setText("");
 
-        try {
-            Session newSession = logInLogic.login(
-                    emailField.getText(),
-                    new String(passwordField.getPassword()),
-                    stayLoggedIn
-            );
-            panelController.setSession(newSession);
-            panelController.showPage(PageType.HOME);
-            logInErrorLabel.setVisible(false);
-
-        } catch (CustomException e) {
-            logInErrorLabel.setVisible(true);
-        }
+        this.runInBackground(
+                () -> logInLogic.login(email, password, stayLoggedIn),
+                newSession -> {
+                    panelController.setSession(newSession);
+                    panelController.showPage(PageType.HOME);
+                    logInErrorLabel.setVisible(false);
+                },
+                e -> logInErrorLabel.setVisible(true)
+        );
+    }
 
-        passwordField.setText("");
+    /**
+     * Disable logging in again while a log in is being checked
+     *
+     * @param loading true while a background task is running
+     */
+    @Override
+    protected void setLoading(boolean loading)
+    {
+        super.setLoading(loading);
+        logInButton.setEnabled(!loading);
     }
 
 }
@@ -6,6 +6,7 @@ import com.group15A.DataModel.Log;
 import com.group15A.Utils.*;
 
 import javax.swing.*;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -24,7 +25,8 @@ public class LogPanel extends BasePanel {
     private JPanel logsPanel;
     private final MessageListPanel messageListPanel;
 
-    private List<Log> userLogs;
+    private Integer patientID;
+    private Log lastLog;
     private LogLogic logLogic;
 
     /**
@@ -52,27 +54,57 @@ public class LogPanel extends BasePanel {
     }
 
     /**
-     * For each message provided by the LogLogic object,
-     * create a LogDisplay object and add it to the log display panel.
+     * Show the patient's logs, newest first, in a virtual list,
+     * so only the rows that are scrolled to are ever drawn or loaded.
      */
-    private void displayLogs() throws CustomException {
-        messageListPanel.clearMessages();
-        if(!userLogs.isEmpty()){
-            messageListPanel.hideNoMessagesLabel();
-            for (int i = userLogs.size()-1; i >= 0; i--) {
-                Log log = userLogs.get(i);
-                messageListPanel.addMessage(
-                        "",
-                        DataModification.shortDateTime(log.getTimestamp()),
-                        log.getMessage(),
-                        ""
-                );
-            }
-        }
+    private void displayLogs() {
+        this.lastLog = null;
+        messageListPanel.showVirtualList(this::loadMoreLogs);
+    }
 
+    /**
+     * Load the next page of logs, older than the last one shown, in the background
+     * and give it to the virtual list. One more log than a page is asked for,
+     * to know if there are more after it.
+     */
+    private void loadMoreLogs() {
+        Integer patientID = this.patientID;
+        Log after = this.lastLog;
+        this.runInBackground(
+                () -> this.logLogic.getLogsPage(patientID, after, MessageListPanel.PAGE_SIZE + 1),
+                logs -> {
+                    boolean hasMore = logs.size() > MessageListPanel.PAGE_SIZE;
+                    List<MessageListPanel.MessageRow> rows = new ArrayList<>();
+                    for (Log log : logs.subList(0, Math.min(logs.size(), MessageListPanel.PAGE_SIZE))) {
+                        rows.add(new MessageListPanel.MessageRow(
+                                "",
+                                DataModification.shortDateTime(log.getTimestamp()),
+                                log.getMessage()
+                        ));
+                        this.lastLog = log;
+                    }
+                    messageListPanel.appendRows(rows, hasMore);
+                },
+                e -> {
+                    messageListPanel.cancelLoadMore();
+                    JWidgetShortcuts.showDatabaseExceptionPopupAndExit(loggingPanel);
+                }
+        );
     }
 
 
+    /**
+     * Forget the previous patient's logs
+     */
+    @Override
+    public void resetSession()
+    {
+        super.resetSession();
+        this.patientID = null;
+        this.lastLog = null;
+        messageListPanel.clearMessages();
+    }
+
     /**
      * @return homePanel
      */
@@ -89,13 +121,8 @@ public class LogPanel extends BasePanel {
     public void receiveData(ReceivePair pair)
     {
         if (pair.getFirst().equals(ReceiveType.EVENT)) {
-            try {
-                this.userLogs = this.logLogic.getLogs(panelController.getSession().getLoggedInPatientID());
-                this.displayLogs();
-            } catch (CustomException e) {
-                e.printStackTrace();
-                JWidgetShortcuts.showDatabaseExceptionPopupAndExit(loggingPanel);
-            }
+            this.patientID = panelController.getSession().getLoggedInPatientID();
+            this.displayLogs();
         }
     }
 
@@ -0,0 +1,75 @@
+package com.group15A.GUI;
+
+import javax.swing.*;
+import java.awt.*;
+
+/**
+ * Draws one row of the virtual list of a MessageListPanel
+ *
+ * The same component is reused for every row, so a list of any length only
+ * ever has this one set of components. The heading and subheading are shown on the
+ * first line and the message is wrapped over at most MESSAGE_LINES lines below them.
+ */
+class MessageCellRenderer extends JPanel implements ListCellRenderer<MessageListPanel.MessageRow>
+{
+    private static final long serialVersionUID = 1L;
+    private static final int MESSAGE_LINES = 2;
+
+    private final JLabel headingLabel = new JLabel();
+    private final JLabel subheadingLabel = new JLabel();
+    private final JTextArea messageArea = new JTextArea();
+    private final int cellHeight;
+
+    /**
+     * Constructor for the MessageCellRenderer class
+     */
+    MessageCellRenderer()
+    {
+        super(new BorderLayout(0, 4));
+        setBorder(BorderFactory.createCompoundBorder(
+                BorderFactory.createMatteBorder(0, 0, 1, 0, Color.LIGHT_GRAY),
+                BorderFactory.createEmptyBorder(8, 8, 8, 8)
+        ));
+
+        headingLabel.setFont(headingLabel.getFont().deriveFont(Font.BOLD));
+        JPanel headingPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 8, 0));
+        headingPanel.setOpaque(false);
+        headingPanel.add(headingLabel);
+        headingPanel.add(subheadingLabel);
+
+        messageArea.setLineWrap(true);
+        messageArea.setWrapStyleWord(true);
+        messageArea.setEditable(false);
+        messageArea.setOpaque(false);
+        messageArea.setRows(MESSAGE_LINES);
+
+        add(headingPanel, BorderLayout.NORTH);
+        add(messageArea, BorderLayout.CENTER);
+
+        // Every row has the same height, so the list never measures rows it does not show
+        headingLabel.setText(" ");
+        subheadingLabel.setText(" ");
+        cellHeight = getPreferredSize().height;
+    }
+
+    /**
+     * @return the height of every row
+     */
+    int getCellHeight()
+    {
+        return cellHeight;
+    }
+
+    @Override
+    public Component getListCellRendererComponent(JList<? extends MessageListPanel.MessageRow> list, MessageListPanel.MessageRow row,
+                                                  int index, boolean isSelected, boolean cellHasFocus)
+    {
+        // Keep the first line's height when there is no heading, like a blank subheading does
+        headingLabel.setText(row.getHeading().isEmpty() ? " " : row.getHeading());
+        subheadingLabel.setText(row.getSubheading());
+        messageArea.setText(row.getMessage());
+        messageArea.setFont(list.getFont());
+        setBackground(list.getBackground());
+        return this;
+    }
+}
@@ -4,6 +4,9 @@ import com.group15A.Utils.JWidgetShortcuts;
 
 import javax.swing.*;
 import java.awt.*;
+import java.awt.event.MouseEvent;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * A JPanel containing:
@@ -11,6 +14,10 @@ import java.awt.*;
  * - a JLabel title
  * - a JLabel "no messages" message
  *
+ * Long lists without buttons can be shown in virtual mode instead (see showVirtualList()),
+ * where only the visible rows are drawn and more rows are asked for while scrolling.
+ * Lists with buttons are paged with a "Load more" button instead (see setLoadMoreAction()).
+ *
  * @author Filip Fois
  */
 public class MessageListPanel {
@@ -25,6 +32,88 @@ public class MessageListPanel {
     private final String noMessagesText;
     private final boolean showCount;
 
+    /**
+     * The number of rows a page of a virtual list should have
+     */
+    public static final int PAGE_SIZE = 50;
+
+    /**
+     * More rows are asked for when fewer than this many rows are left below the visible ones
+     */
+    private static final int LOAD_MORE_THRESHOLD = 10;
+
+    private final MessageRowModel virtualModel = new MessageRowModel();
+    private final JList<MessageRow> virtualList;
+    private boolean virtualMode = false;
+    private Runnable loadMore;
+    private boolean hasMore = false;
+    private boolean loadingMore = false;
+
+    private final JButton loadMoreButton = new JButton("Load more");
+    private Runnable loadMoreAction;
+
+    /**
+     * One row of a virtual list
+     */
+    public static final class MessageRow
+    {
+        private final String heading;
+        private final String subheading;
+        private final String message;
+
+        /**
+         * @param heading The text for the message heading
+         * @param subheading The text for the message subheading
+         * @param message The text of the message
+         */
+        public MessageRow(String heading, String subheading, String message)
+        {
+            this.heading = heading == null ? "" : heading;
+            this.subheading = subheading == null ? "" : subheading;
+            this.message = message == null ? "" : message;
+        }
+
+        public String getHeading() {return heading;}
+
+        public String getSubheading() {return subheading;}
+
+        public String getMessage() {return message;}
+    }
+
+    /**
+     * The rows of a virtual list, which are only ever appended a page at a time
+     */
+    private static class MessageRowModel extends AbstractListModel<MessageRow>
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final List<MessageRow> rows = new ArrayList<>();
+
+        @Override
+        public int getSize() {return rows.size();}
+
+        @Override
+        public MessageRow getElementAt(int index) {return rows.get(index);}
+
+        private void addAll(List<MessageRow> page)
+        {
+            if(page.isEmpty())
+                return;
+            int first = rows.size();
+            rows.addAll(page);
+            fireIntervalAdded(this, first, rows.size()-1);
+        }
+
+        private void clear()
+        {
+            if(rows.isEmpty())
+                return;
+            int last = rows.size()-1;
+            rows.clear();
+            fireIntervalRemoved(this, 0, last);
+        }
+    }
+
     /**
      * The constructor for the MessageListPanel
      *
@@ -40,6 +129,31 @@ public class MessageListPanel {
         this.headerLabel.setText(this.headerText);
         this.noMessagesLabel.setText(this.noMessagesText);
         gbc = JWidgetShortcuts.getStackGBC();
+
+        MessageCellRenderer renderer = new MessageCellRenderer();
+        virtualList = new JList<>(virtualModel) {
+            @Override
+            public String getToolTipText(MouseEvent event) {
+                // The rows only show the start of long messages, so show the whole message on hover
+                int index = locationToIndex(event.getPoint());
+                return index < 0 ? null : getModel().getElementAt(index).getMessage();
+            }
+        };
+        virtualList.setCellRenderer(renderer);
+        virtualList.setFixedCellHeight(renderer.getCellHeight());
+        virtualList.setFocusable(false);
+        virtualList.setSelectionModel(new DefaultListSelectionModel() {
+            @Override
+            public void setSelectionInterval(int index0, int index1) {
+                // Rows cannot be selected
+            }
+        });
+        ToolTipManager.sharedInstance().registerComponent(virtualList);
+        messageScrollPanel.getVerticalScrollBar().addAdjustmentListener(e -> loadMoreIfNeeded());
+        loadMoreButton.addActionListener(e -> {
+            if(loadMoreAction != null)
+                loadMoreAction.run();
+        });
     }
 
     /**
@@ -54,21 +168,137 @@ public class MessageListPanel {
     public MessagePanel addMessage(String heading, String subheading, String message, String buttonText)
     {
         MessagePanel messagePanel = new MessagePanel(heading,subheading,message,buttonText);
-        messageContentPanel.add(messagePanel.getMainPanel(),gbc);
+        if(loadMoreAction != null) {
+            // Keep the "Load more" button below the messages
+            messageContentPanel.add(messagePanel.getMainPanel(),gbc,messageContentPanel.getComponentCount()-1);
+        }
+        else {
+            messageContentPanel.add(messagePanel.getMainPanel(),gbc);
+        }
         updateCount();
         return messagePanel;
     }
 
     /**
      * If the count is to be shown,
-     * get the number of components in the messageContentPanel JPanel (besides the "no message" label)
-     * and display the count in the panel header
+     * get the number of components in the messageContentPanel JPanel (besides the "no message" label
+     * and the "Load more" button) and display the count in the panel header, followed by a "+" if there are more
      */
     private void updateCount()
     {
         if(showCount) {
-            setHeaderText(headerText + " (" + (messageContentPanel.getComponentCount()-1) + ")");
+            if(virtualMode) {
+                setHeaderText(headerText + " (" + virtualModel.getSize() + (hasMore ? "+" : "") + ")");
+            }
+            else {
+                boolean more = loadMoreAction != null;
+                setHeaderText(headerText + " (" + (messageContentPanel.getComponentCount()-(more ? 2 : 1)) + (more ? "+" : "") + ")");
+            }
+        }
+    }
+
+    /**
+     * Switch to virtual mode, where the messages are rows of a list drawn by one reusable renderer,
+     * so only the visible rows cost anything, however many there are.
+     *
+     * The list starts empty and loadMore is run to ask for the first page. It is run again each time
+     * the user scrolls near the end of the loaded rows, until appendRows() is told there are no more.
+     * loadMore must eventually call appendRows(), once for every time it is run.
+     *
+     * @param loadMore Asks for the next page of rows
+     */
+    public void showVirtualList(Runnable loadMore)
+    {
+        clearMessages();
+        this.virtualMode = true;
+        this.loadMore = loadMore;
+        this.hasMore = true;
+        messageScrollPanel.setViewportView(virtualList);
+        messageScrollPanel.getVerticalScrollBar().setUnitIncrement(virtualList.getFixedCellHeight() / 2);
+        updateCount();
+        requestMore();
+    }
+
+    /**
+     * Add a page of rows to the end of the virtual list
+     *
+     * @param rows The rows of the page
+     * @param hasMore Whether there are rows after these
+     */
+    public void appendRows(List<MessageRow> rows, boolean hasMore)
+    {
+        if(!virtualMode)
+            return;
+
+        virtualModel.addAll(rows);
+        this.hasMore = hasMore;
+        this.loadingMore = false;
+        updateCount();
+
+        if(virtualModel.getSize() == 0) {
+            messageScrollPanel.setViewportView(messageExtraPanel);
+            showNoMessagesLabel();
         }
+
+        // Keep loading until the rows fill the visible part of the list
+        SwingUtilities.invokeLater(this::loadMoreIfNeeded);
+    }
+
+    /**
+     * Show a "Load more" button below the messages, which runs the given action when pressed,
+     * or remove the button if the action is null.
+     * The action should add the next messages with addMessage() and then call this again,
+     * with null once there are no more messages.
+     *
+     * @param loadMoreAction Adds the next messages, or null if there are no more
+     */
+    public void setLoadMoreAction(Runnable loadMoreAction)
+    {
+        if(this.loadMoreAction != null)
+            messageContentPanel.remove(loadMoreButton);
+        this.loadMoreAction = loadMoreAction;
+        if(loadMoreAction != null)
+            messageContentPanel.add(loadMoreButton,gbc);
+        messageContentPanel.revalidate();
+        messageContentPanel.repaint();
+        updateCount();
+    }
+
+    /**
+     * @return the number of rows in the virtual list
+     */
+    public int getRowCount()
+    {
+        return virtualModel.getSize();
+    }
+
+    /**
+     * Stop waiting for a page that will not arrive, e.g. because loading it failed.
+     * The page is asked for again the next time the list is scrolled.
+     */
+    public void cancelLoadMore()
+    {
+        this.loadingMore = false;
+    }
+
+    /**
+     * Ask for the next page if the virtual list is scrolled close to the end of the loaded rows
+     */
+    private void loadMoreIfNeeded()
+    {
+        if(!virtualMode || !hasMore || loadingMore)
+            return;
+
+        JScrollBar scrollBar = messageScrollPanel.getVerticalScrollBar();
+        int remaining = scrollBar.getMaximum() - (scrollBar.getValue() + scrollBar.getVisibleAmount());
+        if(remaining <= LOAD_MORE_THRESHOLD * virtualList.getFixedCellHeight())
+            requestMore();
+    }
+
+    private void requestMore()
+    {
+        this.loadingMore = true;
+        this.loadMore.run();
     }
 
 
@@ -95,11 +325,21 @@ public class MessageListPanel {
     /**
      * Remove all elements from the panel given by getContentPanel()
      * Add the "no messages" label after it was removed
+     * Leave virtual mode, if the list is in it, and remove the "Load more" button
      * Update the count
      * Show the no messages label
      */
     public void clearMessages()
     {
+        if(virtualMode) {
+            virtualMode = false;
+            loadMore = null;
+            hasMore = false;
+            loadingMore = false;
+            virtualModel.clear();
+            messageScrollPanel.setViewportView(messageExtraPanel);
+        }
+        loadMoreAction = null;
         JWidgetShortcuts.clearJPanel(getContentPanel());
         messageContentPanel.add(noMessagesLabel);
         updateCount();
@@ -16,8 +16,9 @@ import java.awt.*;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
 import java.io.File;
-import java.util.HashMap;
+import java.util.EnumMap;
 import java.util.Map;
+import java.util.function.Function;
 
 /**
  * The window which will be shown, consists of a card layout
@@ -25,7 +26,11 @@ import java.util.Map;
  *
  * cardLayout is needed to add pages to be switched between
  *
- * cards is the list of BasePanels to be stored
+ * cards is the list of BasePanels to be stored. Each page is created the first
+ * time it is shown and kept for the life of the window; when the session changes
+ * the pages reset their per-session state instead of being created again.
+ *
+ * pageFactories creates each type of page
  *
  * panelCards is the parent that holds all JPanels, of which
  * its layout is cardLayout
@@ -36,7 +41,9 @@ import java.util.Map;
 public class MultiPanelWindow extends JFrame {
     private CardLayout cardLayout;
     private JPanel panelCards;
-    private Map<PageType, BasePanel> cards;
+    private final Map<PageType, Function<MultiPanelWindow, BasePanel>> pageFactories = new EnumMap<>(PageType.class);
+    private final Map<PageType, BasePanel> cards = new EnumMap<>(PageType.class);
+    private BasePanel currentPanel;
     private Session session;
     private MultiPanelWindowLogic multiPanelWindowLogic;
     private Patient patient;
@@ -52,7 +59,16 @@ public class MultiPanelWindow extends JFrame {
         // Create session
         this.session = new Session(null, false);
 
-        // Set session (if file exists) and creates pages
+        this.cardLayout = (CardLayout) (panelCards.getLayout());
+        registerPages();
+        // Building every page up front is only useful to compare startup times
+        if (Boolean.getBoolean("gp.eagerPages")) {
+            for (PageType page : PageType.values()) {
+                getPage(page);
+            }
+        }
+
+        // Set session (if file exists)
         refreshSession();
 
         try {
@@ -103,27 +119,51 @@ public class MultiPanelWindow extends JFrame {
 
 
     /**
-     * Creates a hashmap linking the types of pages to the actual
-     * BasePanel instances
+     * Links the types of pages to the constructors of the actual BasePanel instances
      */
-    private void createPages() {
-        this.cards = new HashMap<>();
-        this.cards.put(PageType.LOGIN, new LogInPanel(this));
-        this.cards.put(PageType.REGISTER, new RegisterPanel(this));
-        this.cards.put(PageType.HOME, new HomePanel(this));
-        this.cards.put(PageType.CHOOSE_DOCTOR, new ChooseDoctorPanel(this));
-        this.cards.put(PageType.VIEW_BOOKINGS, new ViewBookingsPanel(this));
-        this.cards.put(PageType.ADD_BOOKING, new AddBookingPanel(this));
-        this.cards.put(PageType.VIEW_PROFILE, new ViewProfilePanel(this));
-        this.cards.put(PageType.LOG, new LogPanel(this));
-
-        PageType[] pages = PageType.values();
+    private void registerPages() {
+        this.pageFactories.put(PageType.LOGIN, LogInPanel::new);
+        this.pageFactories.put(PageType.REGISTER, RegisterPanel::new);
+        this.pageFactories.put(PageType.HOME, HomePanel::new);
+        this.pageFactories.put(PageType.CHOOSE_DOCTOR, ChooseDoctorPanel::new);
+        this.pageFactories.put(PageType.VIEW_BOOKINGS, ViewBookingsPanel::new);
+        this.pageFactories.put(PageType.ADD_BOOKING, AddBookingPanel::new);
+        this.pageFactories.put(PageType.VIEW_PROFILE, ViewProfilePanel::new);
+        this.pageFactories.put(PageType.LOG, LogPanel::new);
+    }
 
-        this.cardLayout = (CardLayout) (panelCards.getLayout());
-        for (PageType page: pages) {
-            BasePanel basePanel = this.cards.get(page);
+    /**
+     * Gets the page of the given type, creating it and adding it to the card layout
+     * the first time it is needed
+     *
+     * @param page the type of the page
+     * @return the page
+     */
+    private BasePanel getPage(PageType page) {
+        BasePanel basePanel = this.cards.get(page);
+        if (basePanel == null) {
+            basePanel = this.pageFactories.get(page).apply(this);
             basePanel.getPagePanel().setBorder(new EmptyBorder(20,20,20,20));
-           this.panelCards.add(basePanel.getPagePanel(), basePanel.getPanelFieldName());
+            this.panelCards.add(basePanel.getPagePanel(), basePanel.getPanelFieldName());
+            this.cards.put(page, basePanel);
+        }
+        return basePanel;
+    }
+
+    /**
+     * @return the number of pages that have been created so far
+     */
+    public int getCreatedPageCount() {
+        return this.cards.size();
+    }
+
+    /**
+     * Tells every page created so far that the session has changed,
+     * so they forget what they were showing for the previous session
+     */
+    private void resetPages() {
+        for (BasePanel basePanel : this.cards.values()) {
+            basePanel.resetSession();
         }
     }
 
@@ -133,7 +173,12 @@ public class MultiPanelWindow extends JFrame {
      * @param page the page to switch to, contains window title and the required JPanel
      */
     public void showPage(PageType page, ReceivePair... pairs) {
-        BasePanel nextPanel = this.cards.get(page);
+        BasePanel nextPanel = this.getPage(page);
+        // Results of the database work started by the page being left are no longer needed
+        if (this.currentPanel != null && this.currentPanel != nextPanel) {
+            this.currentPanel.discardBackgroundTasks();
+        }
+        this.currentPanel = nextPanel;
         this.setTitle(nextPanel.getWindowTitle());
         this.cardLayout.show(panelCards, nextPanel.getPanelFieldName());
         // To trigger any passive events in pages, such as dynamically updating notifications on the home panel
@@ -151,38 +196,37 @@ public class MultiPanelWindow extends JFrame {
     }
 
     /**
-     * Set session based on content of session file
+     * Set session based on content of session file, or an empty session if there is none,
+     * and reset the pages
      */
     public void refreshSession()
     {
+        Session fromFile = null;
         try{
-            Session fromFile = Session.loadFromFile();
-            if (fromFile != null) {
-                setSession(fromFile);
-            }
+            fromFile = Session.loadFromFile();
         } catch (Exception e) {
             System.out.println("No session file found. Going to log-in page.");
         }
-        createPages();
+        setSession(fromFile != null ? fromFile : new Session(null, false));
     }
 
     /**
-     * A method for other classes to call createPages()
+     * A method for other classes to reset the per-session state of the pages
      */
     public void refreshPages()
     {
-        createPages();
+        resetPages();
     }
 
     /**
-     * Sets session and refreshes pages.
+     * Sets session and resets the per-session state of the pages.
      *
      * @param session new session (Patient object and stay-logged-in status)
      */
     public void setSession(Session session)
     {
         this.session = session;
-        createPages();
+        resetPages();
     }
 
     /**
@@ -9,10 +9,13 @@ import com.group15A.Session;
 import com.group15A.Utils.*;
 
 import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import java.awt.*;
 
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
 
 /**
  * To allow for communication to the business layer and to take care of event handling
@@ -24,6 +27,11 @@ import java.util.List;
  * @author Filip Fois
  */
 public class RegisterPanel extends BasePanel {
+    // The email is checked once the user stops typing for EMAIL_CHECK_DELAY_MS
+    private static final int EMAIL_CHECK_DELAY_MS = 400;
+    private static final String INVALID_EMAIL_TEXT = "Invalid email";
+    private static final String EMAIL_IN_USE_TEXT = "Email already in use";
+
     private JPanel registerPanel;
 
     private JLabel registerTitleLabel;
@@ -84,6 +92,10 @@ public class RegisterPanel extends BasePanel {
     private Doctor chosenDoctor;
     private HashMap<ErrorCode,JLabel> errorLabelCodes;
 
+    private final Timer emailCheckTimer;
+    // Only used on the Event Dispatch Thread
+    private int emailCheckGeneration = 0;
+
     /**
      * Constructor for RegisterPanel class
      *
@@ -103,6 +115,9 @@ public class RegisterPanel extends BasePanel {
         JWidgetShortcuts.addItemsToCombo(monthCombo,1,12,1,"Month");
         JWidgetShortcuts.addItemsToCombo(yearCombo,2022,1900,1,"Year");
 
+        emailCheckTimer = new Timer(EMAIL_CHECK_DELAY_MS, e -> checkEmail());
+        emailCheckTimer.setRepeats(false);
+
         createErrorMap();
         createActionListeners();
 
@@ -159,6 +174,25 @@ public class RegisterPanel extends BasePanel {
         }
     }
 
+    /**
+     * Clear the registration form
+     */
+    @Override
+    public void resetSession() {
+        super.resetSession();
+        for (JTextField field : new JTextField[]{firstNameField, middleNameField, lastNameField, phoneField,
+                emailField, confirmEmailField, passwordField, confirmPasswordField}) {
+            field.setText("");
+        }
+        dayCombo.setSelectedIndex(0);
+        monthCombo.setSelectedIndex(0);
+        yearCombo.setSelectedIndex(0);
+        sexCombo.setSelectedIndex(0);
+        this.chosenDoctor = null;
+        this.chooseDoctorButton.setText("Choose doctor");
+        clearErrorLabels();
+    }
+
     /**
      * To create all event handlers, which will point to other methods in the class
      */
@@ -173,46 +207,138 @@ public class RegisterPanel extends BasePanel {
                         new ReceivePair(ReceiveType.RETURN_PAGE, PageType.REGISTER)
                 )
         );
+        emailField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                emailCheckTimer.restart();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                emailCheckTimer.restart();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                emailCheckTimer.restart();
+            }
+        });
+    }
+
+    /**
+     * Tell the user straight away if the email they typed is already registered, by checking it
+     * in the background. A badly formatted email is only pointed out when registering.
+     * The result is ignored if the email has changed again by the time it arrives.
+     */
+    private void checkEmail() {
+        int generation = ++this.emailCheckGeneration;
+        String email = emailField.getText();
+        if (email.isBlank() || registerLogic == null) {
+            hideEmailInUse();
+            return;
+        }
+
+        new SwingWorker<ErrorCode, Void>() {
+            @Override
+            protected ErrorCode doInBackground() throws Exception {
+                return registerLogic.checkEmail(email);
+            }
+
+            @Override
+            protected void done() {
+                if (generation != emailCheckGeneration) {
+                    return;
+                }
+                try {
+                    if (get() == ErrorCode.EMAIL_IN_USE) {
+                        emailErrorLabel.setText(EMAIL_IN_USE_TEXT);
+                        emailErrorLabel.setVisible(true);
+                    } else {
+                        hideEmailInUse();
+                    }
+                } catch (InterruptedException | ExecutionException e) {
+                    // Only a hint, the email is checked again when registering
+                    hideEmailInUse();
+                }
+            }
+        }.execute();
+    }
+
+    /**
+     * Hide the email error label if it is showing that the email is in use
+     */
+    private void hideEmailInUse() {
+        if (EMAIL_IN_USE_TEXT.equals(emailErrorLabel.getText())) {
+            emailErrorLabel.setVisible(false);
+        }
     }
 
     /**
      * Try to register patient by passing given inputs to
-     * registerLogic.register() method
+     * registerLogic.register() method, in the background as hashing the password is slow
      *
      * If registration is successful, go to the home panel,
      * otherwise, show relevant error labels for invalid inputs
      */
     private void registerNewPatient() {
-        try {
-            Patient newPatient = registerLogic.register(
-                firstNameField.getText(),
-                middleNameField.getText(),
-                lastNameField.getText(),
-            yearCombo.getSelectedItem().toString()+"-"+
+        String firstName = firstNameField.getText();
+        String middleName = middleNameField.getText();
+        String lastName = lastNameField.getText();
+        String dob = yearCombo.getSelectedItem().toString()+"-"+
                 monthCombo.getSelectedItem().toString()+"-"+
-                dayCombo.getSelectedItem().toString(),
-                sexCombo.getSelectedItem().toString(),
-                phoneField.getText(),
-                emailField.getText(),
-                confirmEmailField.getText(),
-                new String(passwordField.getPassword()),
-                new String(confirmPasswordField.getPassword()),
-                chosenDoctor
-            );
-
-            Session currentSession = panelController.getSession();
-            currentSession.setLoggedInPatient(newPatient);
-            currentSession.setKeepLoggedIn(false);
-            registerLogic.registerNotification(newPatient);
-            registerLogic.registerLog(newPatient);
-            panelController.refreshPages();
-            currentSession.saveToFile();
-            panelController.showPage(PageType.HOME);
-        } catch (CustomException e) {
-            clearErrorLabels();
-            setErrorLabels(e);
-        }
+                dayCombo.getSelectedItem().toString();
+        String sex = sexCombo.getSelectedItem().toString();
+        String phone = phoneField.getText();
+        String email = emailField.getText();
+        String confirmEmail = confirmEmailField.getText();
+        String password = new String(passwordField.getPassword());
+        String confirmPassword = new String(confirmPasswordField.getPassword());
+        Doctor doctor = chosenDoctor;
 
+        this.runInBackground(
+                () -> {
+                    Patient newPatient = registerLogic.register(
+                            firstName,
+                            middleName,
+                            lastName,
+                            dob,
+                            sex,
+                            phone,
+                            email,
+                            confirmEmail,
+                            password,
+                            confirmPassword,
+                            doctor
+                    );
+                    registerLogic.registerNotification(newPatient);
+                    registerLogic.registerLog(newPatient);
+                    return newPatient;
+                },
+                newPatient -> {
+                    Session currentSession = panelController.getSession();
+                    currentSession.setLoggedInPatient(newPatient);
+                    currentSession.setKeepLoggedIn(false);
+                    panelController.refreshPages();
+                    currentSession.saveToFile();
+                    panelController.showPage(PageType.HOME);
+                },
+                e -> {
+                    clearErrorLabels();
+                    setErrorLabels(e);
+                }
+        );
+    }
+
+    /**
+     * Disable registering again while a registration is being saved
+     *
+     * @param loading true while a background task is running
+     */
+    @Override
+    protected void setLoading(boolean loading)
+    {
+        super.setLoading(loading);
+        continueButton.setEnabled(!loading);
     }
 
     /**
@@ -229,6 +355,9 @@ public class RegisterPanel extends BasePanel {
         for (ErrorCode errorCode : errorCodes) {
             System.out.println(errorCode);
             JLabel errLabel = errorLabelCodes.get(errorCode);
+            if (errLabel == emailErrorLabel) {
+                emailErrorLabel.setText(errorCode == ErrorCode.EMAIL_IN_USE ? EMAIL_IN_USE_TEXT : INVALID_EMAIL_TEXT);
+            }
             if (errLabel != null) {
                 errLabel.setVisible(true);
             }
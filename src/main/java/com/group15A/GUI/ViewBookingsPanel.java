@@ -4,7 +4,7 @@ import com.group15A.BusinessLogic.ViewBookingLogic;
 import com.group15A.CustomExceptions.CustomException;
 import com.group15A.CustomExceptions.DatabaseException;
 import com.group15A.DataModel.Booking;
-import com.group15A.DataModel.Doctor;
+import com.group15A.DataModel.BookingWithDoctor;
 import com.group15A.Utils.*;
 
 import javax.swing.*;
@@ -37,13 +37,20 @@ public class ViewBookingsPanel extends BasePanel {
     private JLabel yearLabel;
 
     private ViewBookingLogic viewBookingLogic;
-    private List<Booking> bookingsList;
+    private List<BookingWithDoctor> bookingsList;
     private List<JPanel> bookingLabelsList;
 
     private final MessageListPanel messageListPanel;
 
     private Boolean pastBookingFlag = false;
 
+    // The filters of the bookings being shown, and the last booking shown, where the next page starts
+    private String shownMonth;
+    private String shownYear;
+    private Integer shownPatientID;
+    private boolean shownPast;
+    private Booking lastBooking;
+
     /**
      * Constructor for ViewBookingsPanel
      *
@@ -84,13 +91,7 @@ public class ViewBookingsPanel extends BasePanel {
     {
         if (pair.getFirst().equals(ReceiveType.PATIENT_ID)) {
             Integer patientID = (Integer) pair.getSecond();
-            try {
-                bookingsList = this.viewBookingLogic.getBookings(patientID, pastBookingFlag);
-                messageListPanel.hideNoMessagesLabel();
-                this.displayBookings();
-            } catch (CustomException e) {
-                JWidgetShortcuts.showDatabaseExceptionPopupAndExit(viewBookingsPanel);
-            }
+            this.showBookings("Month (All)", "Year (All)", patientID);
         } else if (pair.getFirst().equals(ReceiveType.NEW_BOOKINGS)) {
             pastBookingFlag = false;
             this.updateBookingLabels("My current bookings");
@@ -111,31 +112,119 @@ public class ViewBookingsPanel extends BasePanel {
     }
 
     /**
-     * For each notification in `notifList`,
-     * add a message to the new MessageListPanel
-     * and assign an action to the "Reschedule" button
+     * Give the past bookings that have no prescription yet a random prescription and details.
+     * Run in the background, as it updates the bookings in the database.
+     *
+     * @param bookings the bookings to display
+     * @param past whether the bookings are past bookings
+     * @return the same bookings
+     * @throws CustomException if a booking could not be updated
+     */
+    private List<BookingWithDoctor> fillMissingPrescriptions(List<BookingWithDoctor> bookings, boolean past) throws CustomException {
+        if (past) {
+            Randomiser randomiser = new Randomiser();
+            for (BookingWithDoctor b : bookings) {
+                if (b.getPrescription() == null) {
+                    b.setPrescription(randomiser.getRandPrescription());
+                    b.setDetails(randomiser.getRandDetails());
+                    this.viewBookingLogic.updateBooking(b);
+                }
+            }
+        }
+        return bookings;
+    }
+
+    /**
+     * Show the first page of the bookings that match the filters
+     *
+     * @param month the month filter, as in the month combo-box
+     * @param year the year filter, as in the year combo-box
+     * @param patientID the patient whose bookings to show
+     */
+    private void showBookings(String month, String year, Integer patientID)
+    {
+        this.shownMonth = month;
+        this.shownYear = year;
+        this.shownPatientID = patientID;
+        this.shownPast = pastBookingFlag;
+        this.lastBooking = null;
+        this.loadBookingsPage(true);
+    }
+
+    /**
+     * Load the next page of the bookings being shown.
+     * One booking more than a page is asked for, to know whether to show the "Load more" button.
      *
-     * @throws CustomException when patient's doctor cannot be accessed
+     * @param firstPage true to replace the bookings shown, false to add to them
+     */
+    private void loadBookingsPage(boolean firstPage)
+    {
+        String month = shownMonth;
+        String year = shownYear;
+        Integer patientID = shownPatientID;
+        boolean past = shownPast;
+        Booking after = lastBooking;
+        messageListPanel.setLoadMoreAction(null);
+
+        this.runInBackground(
+                () -> this.fillMissingPrescriptions(
+                        this.viewBookingLogic.filterBookingsPage(month, year, patientID, past, after, ViewBookingLogic.PAGE_SIZE + 1), past),
+                bookings -> {
+                    boolean hasMore = bookings.size() > ViewBookingLogic.PAGE_SIZE;
+                    List<BookingWithDoctor> page = bookings.subList(0, Math.min(bookings.size(), ViewBookingLogic.PAGE_SIZE));
+                    dateErrorLabel.setVisible(false);
+                    if (firstPage) {
+                        bookingsList = new ArrayList<>(page);
+                        this.displayBookings();
+                    } else {
+                        bookingsList.addAll(page);
+                        this.addBookingMessages(page);
+                    }
+                    if (!page.isEmpty()) {
+                        lastBooking = page.get(page.size() - 1);
+                    }
+                    if (hasMore) {
+                        messageListPanel.setLoadMoreAction(() -> this.loadBookingsPage(false));
+                    }
+                },
+                e -> {
+                    if (e instanceof DatabaseException) {
+                        JWidgetShortcuts.showDatabaseExceptionPopupAndExit(viewBookingsPanel);
+                    } else if (firstPage) {
+                        dateErrorLabel.setVisible(true);
+                    } else {
+                        // Let the user try the page again
+                        messageListPanel.setLoadMoreAction(() -> this.loadBookingsPage(false));
+                    }
+                }
+        );
+    }
+
+    /**
+     * Replace the messages with one for each booking in `bookingsList`
      */
-    public void displayBookings() throws CustomException {
+    public void displayBookings() {
         messageListPanel.clearMessages();
         messageListPanel.showNoMessagesLabel();
+        bookingLabelsList.clear();
+        this.addBookingMessages(bookingsList);
+    }
 
+    /**
+     * For each of the given bookings,
+     * add a message to the MessageListPanel
+     * and assign an action to the "Reschedule" button
+     *
+     * @param bookings the bookings to add
+     */
+    private void addBookingMessages(List<BookingWithDoctor> bookings) {
         String message;
-        Randomiser randomiser = new Randomiser();
 
-        if(!bookingsList.isEmpty()){
+        if(!bookings.isEmpty()){
             messageListPanel.hideNoMessagesLabel();
-            for (Booking b : bookingsList) {
-                Doctor doctor = this.viewBookingLogic.getDoctor(b.getDoctorID());
-
-                if (pastBookingFlag) {
-                    if (b.getPrescription() == null) {
-                        b.setPrescription(randomiser.getRandPrescription());
-                        b.setDetails(randomiser.getRandDetails());
-                        this.viewBookingLogic.updateBooking(b);
-                    }
-
+            // Each booking already has its doctor's name, so the list takes no doctor lookups
+            for (BookingWithDoctor b : bookings) {
+                if (shownPast) {
                     message = "Booking at "+
                             DataModification.getTime(b.getBookingTime())+
                             " on "+DataModification.fullDate(b.getBookingTime())+"."+
@@ -149,13 +238,13 @@ public class ViewBookingsPanel extends BasePanel {
 
                 MessagePanel bookingMessage = messageListPanel.addMessage(
                         "",
-                        "With Dr. "+doctor.getFullName()+" ("+b.getType()+")",
+                        "With Dr. "+b.getDoctorFullName()+" ("+b.getType()+")",
                         message,
                         "Reschedule");
 
                 bookingLabelsList.add(bookingMessage.getMainPanel());
 
-                if (!pastBookingFlag) {
+                if (!shownPast) {
                     bookingMessage.getButton().addActionListener(e -> this.rescheduleBooking(b));
                 } else {
                     bookingMessage.getButton().setVisible(false);
@@ -187,20 +276,39 @@ public class ViewBookingsPanel extends BasePanel {
      */
     private void filterBookings()
     {
-        try {
-            bookingsList = this.viewBookingLogic.filterBookings(
-                    monthComboBox.getSelectedItem().toString(),
-                    yearComboBox.getSelectedItem().toString(),
-                    panelController.getSession().getLoggedInPatientID(),
-                    pastBookingFlag
-            );
-            dateErrorLabel.setVisible(false);
-            this.displayBookings();
-        } catch (DatabaseException e) {
-            JWidgetShortcuts.showDatabaseExceptionPopupAndExit(viewBookingsPanel);
-        } catch (CustomException e) {
-            dateErrorLabel.setVisible(true);
-        }
+        String month = monthComboBox.getSelectedItem().toString();
+        String year = yearComboBox.getSelectedItem().toString();
+        Integer patientID = panelController.getSession().getLoggedInPatientID();
+
+        this.showBookings(month, year, patientID);
+    }
+
+    /**
+     * Disable searching while the bookings are being loaded
+     *
+     * @param loading true while a background task is running
+     */
+    @Override
+    protected void setLoading(boolean loading)
+    {
+        super.setLoading(loading);
+        searchButton.setEnabled(!loading);
+    }
+
+    /**
+     * Forget the previous patient's bookings and filters
+     */
+    @Override
+    public void resetSession()
+    {
+        super.resetSession();
+        bookingsList = new ArrayList<>();
+        bookingLabelsList.clear();
+        lastBooking = null;
+        messageListPanel.clearMessages();
+        monthComboBox.setSelectedIndex(0);
+        yearComboBox.setSelectedIndex(0);
+        dateErrorLabel.setVisible(false);
     }
 
     /**
@@ -72,22 +72,27 @@ public class ViewProfilePanel extends BasePanel {
     @Override
     public void receiveData(ReceivePair pair) {
         if (pair.getFirst().equals(ReceiveType.DOCTOR)) {
-            try {
-                this.viewProfileLogic.updatePatientDoctor(
-                        this.panelController.getSession().getLoggedInPatientID(),
-                        (Doctor) pair.getSecond()
-                );
-                this.panelController.showPage(PageType.HOME);
-            } catch (SameDoctorException e) {
-                JOptionPane.showMessageDialog(
-                        viewProfilePanel,
-                        "You can't change to the same doctor as you already have",
-                        "ERROR: Same Doctor",
-                        JOptionPane.ERROR_MESSAGE
-                );
-            } catch (CustomException e) {
-                JWidgetShortcuts.showDatabaseExceptionPopupAndExit(viewProfilePanel);
-            }
+            Integer patientID = this.panelController.getSession().getLoggedInPatientID();
+            Doctor doctor = (Doctor) pair.getSecond();
+            this.runInBackground(
+                    () -> {
+                        this.viewProfileLogic.updatePatientDoctor(patientID, doctor);
+                        return null;
+                    },
+                    done -> this.panelController.showPage(PageType.HOME),
+                    e -> {
+                        if (e instanceof SameDoctorException) {
+                            JOptionPane.showMessageDialog(
+                                    viewProfilePanel,
+                                    "You can't change to the same doctor as you already have",
+                                    "ERROR: Same Doctor",
+                                    JOptionPane.ERROR_MESSAGE
+                            );
+                        } else {
+                            JWidgetShortcuts.showDatabaseExceptionPopupAndExit(viewProfilePanel);
+                        }
+                    }
+            );
         }
     }
 
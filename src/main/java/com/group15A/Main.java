@@ -1,8 +1,12 @@
 package com.group15A;
 
+import com.group15A.BusinessLogic.EmailAvailability;
+import com.group15A.CustomExceptions.DatabaseException;
 import com.group15A.GUI.MultiPanelWindow;
+import com.group15A.Utils.PageType;
 
 import javax.swing.*;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @author Milovan Gveric
@@ -11,10 +15,28 @@ public class Main {
 
     /**
      * Entry into the GUI
+     *
+     * Running with -Dgp.startupTiming=true prints how long it took to show the window and how many pages
+     * had to be created for it. Running with -Dgp.eagerPages=true creates every page up front, to compare against.
+     * The registered emails start loading for EmailAvailability while the window opens.
      */
     public static void main(String[] args) {
-        JFrame panelHandler = new MultiPanelWindow();
-        panelHandler.setVisible(true);
+        long start = System.nanoTime();
+        SwingUtilities.invokeLater(() -> {
+            MultiPanelWindow panelHandler = new MultiPanelWindow();
+            panelHandler.setVisible(true);
+
+            if (Boolean.getBoolean("gp.startupTiming")) {
+                System.out.println("Window shown in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms, " +
+                        panelHandler.getCreatedPageCount() + " of " + PageType.values().length + " pages created");
+            }
+        });
+
+        try {
+            EmailAvailability.getShared();
+        } catch (DatabaseException e) {
+            // The pages report the database being unreachable once they use it
+        }
     }
 
 }
@@ -82,11 +82,17 @@ public class Session implements Serializable {
     }
 
     /**
-     * Get the file name + path for the session save location
+     * Get the file name + path for the session save location.
+     * The gp.sessionFile system property overrides it, e.g. so that tools logging in many patients
+     * do not overwrite the session of the person using the application.
      * @return The file name + path
      */
     private static String getFileName()
     {
+        String configured = System.getProperty("gp.sessionFile");
+        if(configured != null)
+            return configured;
+
         File directory = new File(new JFileChooser().getFileSystemView().getDefaultDirectory().toString());
         if(!directory.exists())
             directory.mkdir();
@@ -0,0 +1,135 @@
+package com.group15A.Utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free Bloom filter of strings: it can say for certain that a string was never added,
+ * but a string it says might have been added may not have been.
+ *
+ * It is sized for an expected number of strings and a false positive rate, and holds about 10 bits per string
+ * for a 1% rate. Each string sets a few bits picked by double hashing one 64 bit hash of its UTF-8 bytes,
+ * so adding and checking are a hash and a few array reads, and any number of threads can do both at once.
+ * Strings cannot be removed, and the false positive rate grows once more strings than expected are added.
+ */
+public class BloomFilter {
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final AtomicLongArray words;
+    private final long bitCount;
+    private final int hashCount;
+    private final long capacity;
+    private final LongAdder added = new LongAdder();
+
+    /**
+     * Constructor for an empty BloomFilter
+     * @param capacity The number of strings expected to be added
+     * @param falsePositiveRate The chance, between 0 and 1, of a string that was never added seeming to be there
+     *                          once the expected number of strings have been added
+     */
+    public BloomFilter(long capacity, double falsePositiveRate) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("The capacity must be positive");
+        }
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("The false positive rate must be between 0 and 1");
+        }
+
+        long bits = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int wordCount = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, (bits + 63) / 64));
+        this.words = new AtomicLongArray(wordCount);
+        this.bitCount = wordCount * 64L;
+        this.hashCount = (int) Math.max(1, Math.round((double) bitCount / capacity * Math.log(2)));
+        this.capacity = capacity;
+    }
+
+    /**
+     * Add a string
+     * @param value The string
+     */
+    public void add(String value) {
+        long hash = hash(value);
+        long h1 = mix(hash);
+        long h2 = mix(hash ^ 0x9e3779b97f4a7c15L) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            if ((words.get(word) & mask) == 0) {
+                words.getAndUpdate(word, current -> current | mask);
+            }
+        }
+        added.increment();
+    }
+
+    /**
+     * @param value The string
+     * @return False if the string was certainly never added, true if it might have been
+     */
+    public boolean mightContain(String value) {
+        long hash = hash(value);
+        long h1 = mix(hash);
+        long h2 = mix(hash ^ 0x9e3779b97f4a7c15L) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return The number of strings added, counting a string added twice twice
+     */
+    public long getAddedCount() {
+        return added.sum();
+    }
+
+    /**
+     * @return The number of strings the filter was sized for
+     */
+    public long getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return The number of bits in the filter
+     */
+    public long getBitCount() {
+        return bitCount;
+    }
+
+    /**
+     * @return The number of bits set by each string
+     */
+    public int getHashCount() {
+        return hashCount;
+    }
+
+    /**
+     * @return The 64 bit FNV-1a hash of the string's UTF-8 bytes
+     */
+    private static long hash(String value) {
+        long hash = FNV_OFFSET;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+
+    /**
+     * Spread the bits of a hash, as in the finaliser of MurmurHash3
+     */
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
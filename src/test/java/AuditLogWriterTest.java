@@ -0,0 +1,194 @@
+import com.group15A.CustomExceptions.CustomException;
+import com.group15A.CustomExceptions.InvalidDataException;
+import com.group15A.DataAccess.AuditLogWriter;
+import com.group15A.DataAccess.InMemoryDataAccess;
+import com.group15A.DataModel.Log;
+import junit.framework.TestCase;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the audit log writer and its spool file, using a stand-in database that rejects
+ * events whose message is "bad", as the database does for an event of a deleted patient
+ */
+public class AuditLogWriterTest extends TestCase {
+    private Path directory;
+    private Path spoolFile;
+    private final List<String> committed = new ArrayList<>();
+    private volatile boolean databaseDown = false;
+    private final List<AuditLogWriter> writers = new ArrayList<>();
+
+    @Override
+    protected void setUp() throws IOException {
+        this.directory = Files.createTempDirectory("audit-log-test");
+        this.spoolFile = this.directory.resolve("audit-log.spool");
+    }
+
+    @Override
+    protected void tearDown() throws IOException {
+        for (AuditLogWriter writer : this.writers) {
+            writer.shutdown();
+        }
+        try (Stream<Path> files = Files.walk(this.directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    /**
+     * A connection to the stand-in database. Inserted messages are added to committed when the transaction commits.
+     */
+    private Connection connect() throws SQLException {
+        if (this.databaseDown) {
+            throw new SQLException("Communications link failure", "08S01");
+        }
+        List<String> transaction = new ArrayList<>();
+        List<String> batch = new ArrayList<>();
+        String[] message = new String[1];
+
+        CallableStatement statement = (CallableStatement) Proxy.newProxyInstance(CallableStatement.class.getClassLoader(),
+                new Class<?>[]{CallableStatement.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "setString" -> message[0] = (String) args[1];
+                        case "addBatch" -> batch.add(message[0]);
+                        case "executeBatch" -> {
+                            List<String> rows = new ArrayList<>(batch);
+                            batch.clear();
+                            for (String row : rows) {
+                                if (row.equals("bad")) {
+                                    throw new SQLIntegrityConstraintViolationException("Cannot add or update a child row", "23000");
+                                }
+                                transaction.add(row);
+                            }
+                            return new int[rows.size()];
+                        }
+                    }
+                    return null;
+                });
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "prepareCall":
+                            return statement;
+                        case "commit":
+                            synchronized (this.committed) {
+                                this.committed.addAll(transaction);
+                            }
+                            transaction.clear();
+                            return null;
+                        case "rollback":
+                            transaction.clear();
+                            return null;
+                        default:
+                            return null;
+                    }
+                });
+    }
+
+    private AuditLogWriter startWriter() {
+        AuditLogWriter writer = new AuditLogWriter(this::connect, this.spoolFile);
+        this.writers.add(writer);
+        return writer;
+    }
+
+    private static Log log(String message, int patientID) {
+        return new Log(null, message, patientID, new Timestamp(System.currentTimeMillis()));
+    }
+
+    private List<String> committed() {
+        synchronized (this.committed) {
+            return new ArrayList<>(this.committed);
+        }
+    }
+
+    @Test
+    public void testRejectedEventIsQuarantinedAndTheRestWritten() throws IOException {
+        AuditLogWriter writer = startWriter();
+        writer.submit(log("first", 1));
+        writer.submit(log("bad", 2));
+        writer.submit(log("third", 3));
+        assertTrue(writer.awaitFlushed(5_000));
+
+        assertEquals(List.of("first", "third"), committed());
+        assertEquals(2, writer.getWritten());
+        assertEquals(1, writer.getDropped());
+        assertEquals(1, writer.getQuarantined());
+        assertFalse(writer.hasSpooledEvents());
+
+        List<String> quarantine = Files.readAllLines(this.directory.resolve("audit-log.spool.rejected"), StandardCharsets.UTF_8);
+        assertEquals(1, quarantine.size());
+        assertTrue(quarantine.get(0).endsWith("\t2\tbad"));
+    }
+
+    @Test
+    public void testEventsAreSpooledWhileTheDatabaseIsDownAndReplayedLater() {
+        this.databaseDown = true;
+        AuditLogWriter offline = startWriter();
+        offline.submit(log("first", 1));
+        offline.submit(log("second\twith a tab", 1));
+        assertTrue(offline.awaitFlushed(5_000));
+
+        assertEquals(2, offline.getSpooled());
+        assertEquals(0, offline.getDropped());
+        assertTrue(offline.hasSpooledEvents());
+        assertTrue(committed().isEmpty());
+        offline.shutdown();
+
+        this.databaseDown = false;
+        AuditLogWriter online = startWriter();
+        online.submit(log("third", 1));
+        assertTrue(online.awaitFlushed(5_000));
+
+        assertEquals(List.of("first", "second\twith a tab", "third"), committed());
+        assertEquals(2, online.getReplayed());
+        assertFalse(online.hasSpooledEvents());
+    }
+
+    @Test
+    public void testReplayHittingABadEventDoesNotHoldUpNewerEvents() throws IOException {
+        long time = System.currentTimeMillis();
+        Files.writeString(this.spoolFile, time + "\t1\tfirst\n" + time + "\t2\tbad\n" + time + "\t3\tthird\n", StandardCharsets.UTF_8);
+
+        AuditLogWriter writer = startWriter();
+        writer.submit(log("newer", 4));
+        assertTrue(writer.awaitFlushed(5_000));
+
+        assertEquals(List.of("first", "third", "newer"), committed());
+        assertEquals(2, writer.getReplayed());
+        assertEquals(1, writer.getQuarantined());
+        assertFalse(writer.hasSpooledEvents());
+        assertEquals(0, writer.getSpooled());
+    }
+
+    @Test
+    public void testOnlyConnectionErrorsCountAsTheDatabaseBeingDown() {
+        assertTrue(AuditLogWriter.isConnectionError(new SQLTransientConnectionException("Timed out")));
+        assertTrue(AuditLogWriter.isConnectionError(new SQLException("Communications link failure", "08S01")));
+        assertTrue(AuditLogWriter.isConnectionError(new BatchUpdateException(new int[0], new SQLRecoverableException("Lost"))));
+        assertFalse(AuditLogWriter.isConnectionError(new SQLIntegrityConstraintViolationException("Foreign key", "23000")));
+        assertFalse(AuditLogWriter.isConnectionError(new SQLDataException("Data too long for column 'message'", "22001")));
+    }
+
+    @Test
+    public void testOverLongMessageIsNotQueued() throws CustomException {
+        InMemoryDataAccess dataAccess = new InMemoryDataAccess();
+        dataAccess.loadDump(Path.of("TheGP_Database_24_Mar.sql"));
+
+        assertThrows(InvalidDataException.class, () -> dataAccess.queueLog(dataAccess.getPatient(1), "x".repeat(1001)));
+        assertTrue(dataAccess.queueLog(dataAccess.getPatient(1), "x".repeat(1000)));
+    }
+}
@@ -0,0 +1,130 @@
+import com.group15A.DataAccess.CallStatistics;
+import com.group15A.DataAccess.Histogram;
+import com.group15A.DataAccess.ProcedureStats;
+import junit.framework.TestCase;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the stored procedure call statistics, using stand-in statements instead of a database
+ */
+public class CallStatisticsTest extends TestCase {
+    private List<String> slowCalls;
+
+    @Override
+    protected void setUp() {
+        this.slowCalls = new ArrayList<>();
+    }
+
+    /**
+     * A statement whose executeQuery returns the given number of rows, or throws if rows is negative
+     */
+    private static CallableStatement statement(int rows) {
+        ResultSet result = (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                new java.lang.reflect.InvocationHandler() {
+                    private int read = 0;
+
+                    @Override
+                    public Object invoke(Object proxy, java.lang.reflect.Method method, Object[] args) {
+                        return method.getName().equals("next") ? read++ < rows : null;
+                    }
+                });
+        return (CallableStatement) Proxy.newProxyInstance(CallableStatement.class.getClassLoader(), new Class<?>[]{CallableStatement.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("executeQuery")) {
+                        if (rows < 0)
+                            throw new SQLException("Broken");
+                        return result;
+                    }
+                    return null;
+                });
+    }
+
+    private static void readAll(ResultSet result) throws SQLException {
+        while (result.next()) {
+            // Only the rows are counted
+        }
+    }
+
+    @Test
+    public void testCallsAndRowsArePerProcedure() throws SQLException {
+        CallStatistics statistics = new CallStatistics(60_000, this.slowCalls::add);
+
+        for (int rows : new int[]{1, 3, 5}) {
+            CallableStatement statement = statistics.instrument(statement(rows), "CALL get_bookings_patient(?);");
+            statement.setInt(1, 7);
+            readAll(statement.executeQuery());
+            statement.close();
+        }
+        CallableStatement other = statistics.instrument(statement(0), "call find_patient(?);");
+        other.executeQuery();
+        other.close();
+
+        ProcedureStats bookings = statistics.getProcedureStats("get_bookings_patient");
+        assertEquals(3, bookings.getCalls());
+        assertEquals(0, bookings.getErrors());
+        assertEquals(3.0, bookings.getMeanRows(), 0.001);
+        assertEquals(5, bookings.getMaxRows());
+        assertEquals(1, statistics.getProcedureStats("find_patient").getCalls());
+        assertEquals(2, statistics.getProcedureCount());
+        assertEquals(4, statistics.getTotalCalls());
+        assertTrue(this.slowCalls.isEmpty());
+    }
+
+    @Test
+    public void testFailedCallsAreCounted() {
+        CallStatistics statistics = new CallStatistics(60_000, this.slowCalls::add);
+        CallableStatement statement = statistics.instrument(statement(-1), "CALL insert_log(?, ?);");
+
+        assertThrows(SQLException.class, statement::executeQuery);
+
+        assertEquals(1, statistics.getProcedureStats("insert_log").getCalls());
+        assertEquals(1, statistics.getTotalErrors());
+    }
+
+    @Test
+    public void testSlowCallsAreLoggedWithoutPersonalData() throws SQLException {
+        CallStatistics statistics = new CallStatistics(0, this.slowCalls::add);
+        CallableStatement statement = statistics.instrument(statement(1), "CALL update_patient(?, ?, ?);");
+        statement.setInt(1, 42);
+        statement.setString(2, "someone@email.com");
+        statement.setNull(3, java.sql.Types.INTEGER);
+        statement.executeQuery();
+
+        assertEquals(1, this.slowCalls.size());
+        String logged = this.slowCalls.get(0);
+        assertTrue(logged, logged.startsWith("Slow call: update_patient(42, <17 chars>, null) took "));
+        assertFalse(logged, logged.contains("someone"));
+        assertTrue(logged, logged.contains("CallStatisticsTest.testSlowCallsAreLoggedWithoutPersonalData"));
+        assertEquals(1, statistics.getTotalSlowCalls());
+    }
+
+    @Test
+    public void testHistogramPercentilesAreClose() {
+        Histogram histogram = new Histogram();
+        for (int value = 1; value <= 10_000; value++) {
+            histogram.record(value);
+        }
+
+        assertEquals(10_000, histogram.getCount());
+        assertEquals(10_000, histogram.getMax());
+        assertEquals(5_000.5, histogram.getMean(), 0.001);
+        for (double percentile : new double[]{50, 90, 99}) {
+            long exact = (long) (percentile * 100);
+            long value = histogram.getPercentile(percentile);
+            assertTrue(percentile + "th was " + value, value >= exact && value <= exact * 1.13);
+        }
+        assertEquals(10_000, histogram.getPercentile(100));
+
+        histogram.reset();
+        assertEquals(0, histogram.getPercentile(50));
+    }
+}
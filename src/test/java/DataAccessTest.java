@@ -314,6 +314,158 @@ public class DataAccessTest extends TestCase {
         }
     }
 
+    public void testCreateBookingReturnsGeneratedID()
+    {
+        try {
+            Patient patient = dataAccess.getPatient(1);
+            Doctor doctor = dataAccess.getDoctor(patient);
+            var time = Timestamp.valueOf(LocalDateTime.of(2022, Calendar.SEPTEMBER, 5, 15, 15, 0));
+            Booking booking = dataAccess.createBooking(patient, doctor, time, "Check-up");
+            Booking bookingFromDB = dataAccess.getBooking(booking.getBookingID());
+            dataAccess.deleteBooking(booking);
+
+            assertEquals(bookingFromDB.getBookingID(), booking.getBookingID());
+            assertEquals(bookingFromDB.getPatientID(), patient.getPatientID());
+            assertEquals(bookingFromDB.getBookingTime(), time);
+            assertEquals(bookingFromDB.getTimestamp(), booking.getTimestamp());
+
+        } catch(Exception ex) {
+            System.err.println(ex.getMessage());
+            fail();
+        }
+    }
+
+    public void testCreateBookingClash()
+    {
+        Booking booking = null;
+        try {
+            Patient patient = dataAccess.getPatient(1);
+            Patient otherPatient = dataAccess.getPatient(2);
+            Doctor doctor = dataAccess.getDoctor(patient);
+            var time = Timestamp.valueOf(LocalDateTime.of(2150, 5, 1, 10, 30));
+            Doctor otherDoctor = dataAccess.getDoctors().stream()
+                    .filter(d -> !d.getDoctorID().equals(doctor.getDoctorID()))
+                    .findFirst().orElseThrow();
+            booking = dataAccess.createBooking(patient, doctor, time, "Check-up");
+
+            try {
+                dataAccess.createBooking(patient, otherDoctor, time, "Check-up");
+                fail();
+            } catch (ExistingBookingException ex) {
+                assertFalse(ex.isDoctorClash());
+            }
+
+            try {
+                dataAccess.createBooking(otherPatient, doctor, time, "Check-up");
+                fail();
+            } catch (ExistingBookingException ex) {
+                assertTrue(ex.isDoctorClash());
+            }
+
+        } catch(Exception ex) {
+            System.err.println(ex.getMessage());
+            fail();
+        } finally {
+            //Delete the dummy data from the database
+            try {
+                if(booking!=null)
+                    dataAccess.deleteBooking(booking);
+            } catch (CustomException ex) {
+                System.err.println(ex.getMessage());
+            }
+        }
+    }
+
+    public void testCreateBookingWorkflow()
+    {
+        Booking booking = null;
+        Notification notification = null;
+        Log log = null;
+        try {
+            Patient patient = dataAccess.getPatient(1);
+            Doctor doctor = dataAccess.getDoctor(patient);
+            var time = Timestamp.valueOf(LocalDateTime.of(2150, 5, 2, 11, 0));
+            int notificationCount = dataAccess.getNotifications(patient).size();
+            int logCount = dataAccess.getLogs(patient).size();
+
+            booking = dataAccess.createBooking(patient, doctor, time, "Check-up", "Workflow header", "Workflow message", "Workflow log");
+            var notifications = dataAccess.getNotifications(patient);
+            var logs = dataAccess.getLogs(patient);
+            assertEquals(notificationCount + 1, notifications.size());
+            assertEquals(logCount + 1, logs.size());
+            notification = notifications.stream().filter(n -> n.getHeader().equals("Workflow header")).findFirst().orElseThrow();
+            log = logs.stream().filter(l -> l.getMessage().equals("Workflow log")).findFirst().orElseThrow();
+
+            // A clashing booking rolls back, so it leaves no notification or log behind
+            try {
+                dataAccess.createBooking(patient, doctor, time, "Check-up", "Workflow header", "Workflow message", "Workflow log");
+                fail();
+            } catch (ExistingBookingException ex) {
+                assertFalse(ex.isDoctorClash());
+            }
+            assertEquals(notificationCount + 1, dataAccess.getNotifications(patient).size());
+            assertEquals(logCount + 1, dataAccess.getLogs(patient).size());
+
+        } catch(Exception ex) {
+            System.err.println(ex.getMessage());
+            fail();
+        } finally {
+            //Delete the dummy data from the database
+            try {
+                if(booking!=null)
+                    dataAccess.deleteBooking(booking);
+                if(notification!=null)
+                    dataAccess.deleteNotification(notification.getNotifID());
+                if(log!=null)
+                    dataAccess.deleteLog(log.getLogID());
+            } catch (CustomException ex) {
+                System.err.println(ex.getMessage());
+            }
+        }
+    }
+
+    public void testGetBookingsInRange()
+    {
+        Booking early = null;
+        Booking middle = null;
+        Booking late = null;
+        try {
+            Patient patient = dataAccess.getPatient(1);
+            Doctor doctor = dataAccess.getDoctor(patient);
+            early = dataAccess.createBooking(patient, doctor, Timestamp.valueOf(LocalDateTime.of(2150, 3, 1, 9, 0)), "Check-up");
+            middle = dataAccess.createBooking(patient, doctor, Timestamp.valueOf(LocalDateTime.of(2150, 3, 15, 9, 0)), "Check-up");
+            late = dataAccess.createBooking(patient, doctor, Timestamp.valueOf(LocalDateTime.of(2150, 4, 1, 9, 0)), "Check-up");
+
+            var from = Timestamp.valueOf(LocalDateTime.of(2150, 3, 1, 0, 0));
+            var to = Timestamp.valueOf(LocalDateTime.of(2150, 4, 1, 9, 0));
+
+            var oldestFirst = dataAccess.getBookings(patient, from, to, false, 10);
+            assertEquals(2, oldestFirst.size());
+            assertEquals(early.getBookingID(), oldestFirst.get(0).getBookingID());
+            assertEquals(middle.getBookingID(), oldestFirst.get(1).getBookingID());
+
+            var newestFirst = dataAccess.getBookings(patient, from, null, true, 1);
+            assertEquals(1, newestFirst.size());
+            assertEquals(late.getBookingID(), newestFirst.get(0).getBookingID());
+
+        } catch(Exception ex) {
+            System.err.println(ex.getMessage());
+            fail();
+        } finally {
+            //Delete the dummy data from the database
+            try {
+                if(early!=null)
+                    dataAccess.deleteBooking(early);
+                if(middle!=null)
+                    dataAccess.deleteBooking(middle);
+                if(late!=null)
+                    dataAccess.deleteBooking(late);
+            } catch (CustomException ex) {
+                System.err.println(ex.getMessage());
+            }
+        }
+    }
+
     public void testUpdateBooking()
     {
         try {
@@ -392,6 +544,37 @@ public class DataAccessTest extends TestCase {
         }
     }
 
+    public void testGetNotificationsSince()
+    {
+        Notification notification = null;
+        try
+        {
+            Patient patient = dataAccess.getPatient(1);
+            var notifications = dataAccess.getNotifications(patient);
+            int lastID = notifications.isEmpty() ? 0 : notifications.get(notifications.size()-1).getNotifID();
+
+            notification = dataAccess.createNotification(patient, "Test", "This is a test");
+
+            var added = dataAccess.getNotificationsSince(patient, lastID, null);
+            assertEquals(1, added.size());
+            assertEquals(notification.getNotifID(), added.get(0).getNotifID());
+            assertTrue(dataAccess.getNotificationsSince(patient, notification.getNotifID(), null).isEmpty());
+
+        } catch(Exception ex) {
+            ex.printStackTrace();
+            fail();
+        } finally {
+            if (notification!=null) {
+                try {
+                    dataAccess.deleteNotification(notification.getNotifID());
+                } catch (CustomException e) {
+                    e.printStackTrace();
+                    fail();
+                }
+            }
+        }
+    }
+
     public void testCreateLog()
     {
         Log log = null;
@@ -0,0 +1,129 @@
+import com.group15A.BusinessLogic.DoctorAvailability;
+import com.group15A.DataModel.Booking;
+import junit.framework.TestCase;
+import org.junit.Test;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the free slot finder
+ */
+public class DoctorAvailabilityTest extends TestCase {
+    private static final LocalDate DAY = LocalDate.of(2150, 1, 5);
+
+    private DoctorAvailability availability;
+
+    @Override
+    protected void setUp() {
+        this.availability = new DoctorAvailability(1, DAY, DAY.plusDays(6));
+    }
+
+    private static Booking booking(LocalDateTime time) {
+        return new Booking(1, 1, 1, Timestamp.valueOf(time), null, "Other", null, null);
+    }
+
+    @Test
+    public void testSlotOfWorkingDay() {
+        assertEquals(0, DoctorAvailability.slotOf(LocalTime.of(9, 0)));
+        assertEquals(1, DoctorAvailability.slotOf(LocalTime.of(9, 5)));
+        assertEquals(107, DoctorAvailability.slotOf(LocalTime.of(17, 55)));
+        assertEquals(-1, DoctorAvailability.slotOf(LocalTime.of(8, 59, 30)));
+        assertEquals(-1, DoctorAvailability.slotOf(LocalTime.of(18, 0)));
+    }
+
+    @Test
+    public void testEmptyDayIsFree() {
+        assertEquals(DoctorAvailability.SLOTS_PER_DAY, this.availability.countFreeSlots(DAY));
+        assertEquals(0, this.availability.countFreeSlots(DAY.minusDays(1)));
+    }
+
+    @Test
+    public void testBookedSlotIsNotFree() {
+        LocalDateTime time = LocalDateTime.of(DAY, LocalTime.of(14, 25));
+        this.availability.markBooked(time);
+
+        assertFalse(this.availability.isFree(time));
+        assertTrue(this.availability.isFree(time.plusMinutes(5)));
+        assertEquals(DoctorAvailability.SLOTS_PER_DAY - 1, this.availability.countFreeSlots(DAY));
+    }
+
+    @Test
+    public void testNextFreeSlotsSkipsBookings() {
+        this.availability.markBooked(LocalDateTime.of(DAY, LocalTime.of(9, 0)));
+        this.availability.markBooked(LocalDateTime.of(DAY, LocalTime.of(9, 10)));
+
+        List<LocalDateTime> slots = this.availability.nextFreeSlots(LocalDateTime.of(DAY, LocalTime.of(8, 0)), 3);
+
+        assertEquals(List.of(
+                LocalDateTime.of(DAY, LocalTime.of(9, 5)),
+                LocalDateTime.of(DAY, LocalTime.of(9, 15)),
+                LocalDateTime.of(DAY, LocalTime.of(9, 20))
+        ), slots);
+    }
+
+    @Test
+    public void testNextFreeSlotsRoundsUpToSlot() {
+        List<LocalDateTime> slots = this.availability.nextFreeSlots(LocalDateTime.of(DAY, LocalTime.of(10, 2, 30)), 1);
+
+        assertEquals(LocalDateTime.of(DAY, LocalTime.of(10, 5)), slots.get(0));
+    }
+
+    @Test
+    public void testNextFreeSlotsCrossesSecondWordAndDay() {
+        // Book everything from 14:20 (slot 64) to the end of the day, and the first slot of the next day
+        for (LocalTime t = LocalTime.of(14, 20); t.isBefore(LocalTime.of(18, 0)); t = t.plusMinutes(5)) {
+            this.availability.markBooked(LocalDateTime.of(DAY, t));
+        }
+        this.availability.markBooked(LocalDateTime.of(DAY.plusDays(1), LocalTime.of(9, 0)));
+
+        List<LocalDateTime> slots = this.availability.nextFreeSlots(LocalDateTime.of(DAY, LocalTime.of(14, 15)), 2);
+
+        assertEquals(List.of(
+                LocalDateTime.of(DAY, LocalTime.of(14, 15)),
+                LocalDateTime.of(DAY.plusDays(1), LocalTime.of(9, 5))
+        ), slots);
+    }
+
+    @Test
+    public void testNextFreeSlotsStopsAtEndOfRange() {
+        List<LocalDateTime> slots = this.availability.nextFreeSlots(LocalDateTime.of(DAY.plusDays(6), LocalTime.of(17, 50)), 5);
+
+        assertEquals(List.of(LocalDateTime.of(DAY.plusDays(6), LocalTime.of(17, 50)), LocalDateTime.of(DAY.plusDays(6), LocalTime.of(17, 55))), slots);
+    }
+
+    @Test
+    public void testFromBookingsIgnoresBookingsOutsideRange() {
+        List<Booking> bookings = new ArrayList<>();
+        bookings.add(booking(LocalDateTime.of(DAY, LocalTime.of(9, 0))));
+        bookings.add(booking(LocalDateTime.of(DAY.minusDays(1), LocalTime.of(9, 0))));
+        bookings.add(booking(LocalDateTime.of(DAY, LocalTime.of(20, 0))));
+
+        DoctorAvailability fromBookings = DoctorAvailability.fromBookings(1, DAY, DAY, bookings);
+
+        assertEquals(DoctorAvailability.SLOTS_PER_DAY - 1, fromBookings.countFreeSlots(DAY));
+    }
+
+    @Test
+    public void testYearForManyDoctors() {
+        LocalDate lastDay = DAY.plusDays(364);
+        for (int doctor = 0; doctor < 300; doctor++) {
+            DoctorAvailability year = new DoctorAvailability(doctor, DAY, lastDay);
+            for (LocalDate d = DAY; !d.isAfter(lastDay); d = d.plusDays(1)) {
+                for (int slot = 0; slot < DoctorAvailability.SLOTS_PER_DAY; slot += 2) {
+                    year.markBooked(LocalDateTime.of(d, DoctorAvailability.timeOf(slot)));
+                }
+            }
+
+            List<LocalDateTime> slots = year.nextFreeSlots(LocalDateTime.of(DAY, LocalTime.MIDNIGHT), 100);
+            assertEquals(100, slots.size());
+            assertEquals(LocalDateTime.of(DAY, LocalTime.of(9, 5)), slots.get(0));
+        }
+    }
+}
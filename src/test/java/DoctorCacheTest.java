@@ -0,0 +1,164 @@
+import com.group15A.CustomExceptions.CustomException;
+import com.group15A.CustomExceptions.DatabaseException;
+import com.group15A.DataAccess.DoctorCache;
+import com.group15A.DataModel.Certification;
+import com.group15A.DataModel.Doctor;
+import junit.framework.TestCase;
+import org.junit.Test;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the doctor cache
+ */
+public class DoctorCacheTest extends TestCase {
+    private DoctorCache cache;
+    private AtomicInteger loads;
+
+    @Override
+    protected void setUp() {
+        this.cache = new DoctorCache(TimeUnit.MINUTES.toMillis(10), 3);
+        this.loads = new AtomicInteger();
+    }
+
+    private static Doctor doctor(int id) {
+        return new Doctor(id, "doctor" + id + "@email.com", "First", null, "Last" + id, new Date(0), "Female", "0123");
+    }
+
+    private DoctorCache.CachedDoctor load(int id) {
+        loads.incrementAndGet();
+        return new DoctorCache.CachedDoctor(doctor(id), List.of(new Certification(id, 1, "Certification", "Field", new Date(0))));
+    }
+
+    @Test
+    public void testSecondLookupIsHit() throws CustomException {
+        assertEquals("Last1", this.cache.getDoctor(1, () -> load(1)).getLastName());
+        assertEquals("Last1", this.cache.getDoctor(1, () -> load(1)).getLastName());
+        assertEquals(1, this.cache.getCertifications(1, () -> load(1)).size());
+
+        assertEquals(1, this.loads.get());
+        assertEquals(1, this.cache.getMisses());
+        assertEquals(2, this.cache.getHits());
+    }
+
+    @Test
+    public void testReturnedDoctorsAreCopies() throws CustomException {
+        this.cache.getDoctor(1, () -> load(1)).setLastName("Changed");
+        this.cache.getDoctors(() -> List.of(doctor(1), doctor(2))).clear();
+
+        assertEquals("Last1", this.cache.getDoctor(1, () -> load(1)).getLastName());
+        assertEquals(2, this.cache.getDoctors(() -> List.of()).size());
+    }
+
+    @Test
+    public void testExpiredEntryIsReloaded() throws CustomException {
+        DoctorCache expiring = new DoctorCache(0, 3);
+        expiring.getDoctor(1, () -> load(1));
+        expiring.getDoctor(1, () -> load(1));
+
+        assertEquals(2, this.loads.get());
+    }
+
+    @Test
+    public void testFailedLoadIsNotCached() throws CustomException {
+        try {
+            this.cache.getDoctor(1, () -> {
+                throw new DatabaseException("Could not get the doctor from the database");
+            });
+            fail();
+        } catch (DatabaseException e) {
+            // Expected
+        }
+
+        assertEquals("Last1", this.cache.getDoctor(1, () -> load(1)).getLastName());
+    }
+
+    @Test
+    public void testInvalidation() throws CustomException {
+        this.cache.getDoctor(1, () -> load(1));
+        this.cache.getDoctor(2, () -> load(2));
+
+        this.cache.invalidateDoctor(1);
+
+        this.cache.getDoctor(1, () -> load(1));
+        this.cache.getDoctor(2, () -> load(2));
+        assertEquals(3, this.loads.get());
+    }
+
+    @Test
+    public void testSizeBoundEvictsOldest() throws CustomException {
+        for (int id = 1; id <= 4; id++) {
+            int doctorID = id;
+            this.cache.getDoctor(doctorID, () -> load(doctorID));
+        }
+        assertEquals(1, this.cache.getEvictions());
+
+        // Doctor 1 was the oldest, so it is loaded again
+        this.cache.getDoctor(4, () -> load(4));
+        this.cache.getDoctor(1, () -> load(1));
+        assertEquals(5, this.loads.get());
+    }
+
+    @Test
+    public void testConcurrentMissesShareOneLoad() throws Exception {
+        int threads = 8;
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            Future<?> first = executor.submit(() -> this.cache.getDoctor(1, () -> {
+                loading.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new DatabaseException("Interrupted");
+                }
+                return load(1);
+            }));
+            loading.await();
+
+            Future<?>[] others = new Future<?>[threads - 1];
+            for (int i = 0; i < others.length; i++) {
+                others[i] = executor.submit(() -> this.cache.getDoctor(1, () -> load(1)));
+            }
+            while (this.cache.getSharedLoads() < others.length) {
+                Thread.sleep(1);
+            }
+            release.countDown();
+
+            first.get(5, TimeUnit.SECONDS);
+            for (Future<?> other : others) {
+                other.get(5, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, this.loads.get());
+        assertEquals(1, this.cache.getMisses());
+        assertEquals(threads - 1, this.cache.getSharedLoads());
+    }
+
+    @Test
+    public void testSharedCacheCountersAreReadableThroughJmx() throws Exception {
+        DoctorCache shared = DoctorCache.getInstance();
+        shared.getDoctor(Integer.MAX_VALUE, () -> load(Integer.MAX_VALUE));
+        shared.getDoctor(Integer.MAX_VALUE, () -> load(Integer.MAX_VALUE));
+
+        Object hits = ManagementFactory.getPlatformMBeanServer().getAttribute(new ObjectName("com.group15A:type=DoctorCache"), "Hits");
+        assertEquals(shared.getHits(), hits);
+        assertTrue(shared.getHits() >= 1);
+        shared.invalidateDoctor(Integer.MAX_VALUE);
+    }
+}
@@ -0,0 +1,78 @@
+import com.group15A.BusinessLogic.EmailAvailability;
+import com.group15A.CustomExceptions.*;
+import com.group15A.DataAccess.InMemoryDataAccess;
+import com.group15A.DataModel.Patient;
+import com.group15A.Utils.BloomFilter;
+import junit.framework.TestCase;
+import org.junit.Test;
+
+import java.nio.file.Path;
+import java.util.Date;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the Bloom filter and the email availability checks built on it, using the in-memory Data Access Layer
+ */
+public class EmailAvailabilityTest extends TestCase {
+    private InMemoryDataAccess dataAccess;
+    private EmailAvailability availability;
+
+    @Override
+    protected void setUp() throws DatabaseException {
+        this.dataAccess = new InMemoryDataAccess();
+        this.dataAccess.loadDump(Path.of("TheGP_Database_24_Mar.sql"));
+        this.availability = new EmailAvailability(this.dataAccess);
+    }
+
+    @Test
+    public void testBloomFilterHasNoFalseNegativesAndFewFalsePositives() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.add("patient" + i + "@email.com");
+        }
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain("patient" + i + "@email.com"));
+        }
+
+        int falsePositives = 0;
+        for (int i = 10_000; i < 110_000; i++) {
+            if (filter.mightContain("patient" + i + "@email.com")) {
+                falsePositives++;
+            }
+        }
+        assertTrue("False positives: " + falsePositives, falsePositives < 2_000);
+        assertEquals(10_000, filter.getAddedCount());
+    }
+
+    @Test
+    public void testEmailsAreCheckedInTheDatabaseUntilLoaded() throws CustomException {
+        assertFalse(this.availability.isLoaded());
+        assertTrue(this.availability.isEmailInUse("dneal@email.com"));
+        assertFalse(this.availability.isEmailInUse("nobody@email.com"));
+        assertEquals(2, this.availability.getDatabaseChecks());
+    }
+
+    @Test
+    public void testFreeEmailsAreAnsweredByTheFilter() throws CustomException {
+        this.availability.load();
+
+        assertTrue(this.availability.isLoaded());
+        assertTrue(this.availability.isEmailInUse(" DNeal@Email.com"));
+        for (int i = 0; i < 100; i++) {
+            assertFalse(this.availability.isEmailInUse("free" + i + "@email.com"));
+        }
+        assertTrue(this.availability.getFilterAnswers() >= 95);
+    }
+
+    @Test
+    public void testRegisteredEmailsAreAddedToTheFilter() throws CustomException {
+        this.availability.load();
+        this.dataAccess.registerPatient(
+                new Patient("just.registered@email.com", "hash", "Test", null, "Testing", new Date(0), "Male", "0123"),
+                this.dataAccess.getDoctor(1));
+        this.availability.emailRegistered("just.registered@email.com");
+
+        assertTrue(this.availability.isEmailInUse("just.registered@email.com"));
+    }
+}
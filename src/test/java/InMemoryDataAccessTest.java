@@ -0,0 +1,399 @@
+import com.group15A.BusinessLogic.AddBookingLogic;
+import com.group15A.BusinessLogic.ImportReport;
+import com.group15A.BusinessLogic.PatientImportLogic;
+import com.group15A.BusinessLogic.ViewBookingLogic;
+import com.group15A.CustomExceptions.*;
+import com.group15A.DataAccess.DataAccessFactory;
+import com.group15A.DataAccess.InMemoryDataAccess;
+import com.group15A.DataModel.*;
+import com.group15A.Utils.ErrorCode;
+import junit.framework.TestCase;
+import org.mindrot.jbcrypt.BCrypt;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the in-memory Data Access Layer, loaded with the data of the SQL dump
+ */
+public class InMemoryDataAccessTest extends TestCase {
+    private static final Path DUMP = Path.of("TheGP_Database_24_Mar.sql");
+
+    private InMemoryDataAccess dataAccess;
+
+    @Override
+    protected void setUp() {
+        this.dataAccess = new InMemoryDataAccess();
+        try {
+            this.dataAccess.loadDump(DUMP);
+        } catch (DatabaseException e) {
+            System.err.println(e.getMessage());
+        }
+    }
+
+    private static Timestamp time(int year, int month, int day, int hour, int minute) {
+        return Timestamp.valueOf(LocalDateTime.of(year, month, day, hour, minute));
+    }
+
+    @Test
+    public void testLoadDump() throws CustomException {
+        assertEquals(10, this.dataAccess.getDoctors().size());
+        Patient patient = this.dataAccess.getPatient("dneal@email.com");
+        assertEquals(Integer.valueOf(1), patient.getPatientID());
+        assertEquals(Integer.valueOf(1), this.dataAccess.getDoctor(patient).getDoctorID());
+        assertEquals(1, this.dataAccess.getCertifications(this.dataAccess.getDoctor(1)).size());
+        assertFalse(this.dataAccess.getBookings(patient).isEmpty());
+        assertTrue(this.dataAccess.getNotifications(patient).get(0).isNew());
+    }
+
+    @Test
+    public void testRegisterPatientEmailInUseIgnoresCase() throws CustomException {
+        Patient patient = new Patient("DNEAL@email.com", "hash", "Test", null, "Testing", new Date(0), "Male", "0123");
+        try {
+            this.dataAccess.registerPatient(patient, this.dataAccess.getDoctor(1));
+            fail();
+        } catch (EmailInUseException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void testRegisterPatientGetsNewID() throws CustomException {
+        Patient patient = new Patient("new.patient@email.com", "hash", "Test", null, "Testing", new Date(0), "Male", "0123");
+        Patient registered = this.dataAccess.registerPatient(patient, this.dataAccess.getDoctor(2));
+
+        assertEquals(Integer.valueOf(11), registered.getPatientID());
+        assertEquals(registered.getPatientID(), this.dataAccess.getPatient("new.patient@email.com").getPatientID());
+        assertEquals(Integer.valueOf(2), this.dataAccess.getDoctor(registered).getDoctorID());
+    }
+
+    @Test
+    public void testRegisterPatientsReportsEachRow() throws CustomException {
+        List<Patient> patients = List.of(
+                new Patient("first.new@email.com", "hash", "First", null, "Testing", new Date(0), "Male", "0123"),
+                new Patient("dneal@email.com", "hash", "Taken", null, "Testing", new Date(0), "Male", "0123"),
+                new Patient("second.new@email.com", "hash", "Second", null, "Testing", new Date(0), "Female", "0123"));
+        List<Doctor> doctors = List.of(this.dataAccess.getDoctor(2), this.dataAccess.getDoctor(2), this.dataAccess.getDoctor(3));
+
+        List<ErrorCode> outcomes = this.dataAccess.registerPatients(patients, doctors);
+
+        assertEquals(Arrays.asList(null, ErrorCode.EMAIL_IN_USE, null), outcomes);
+        assertEquals(Integer.valueOf(3), this.dataAccess.getDoctor(this.dataAccess.getPatient("second.new@email.com")).getDoctorID());
+        assertFalse("Taken".equals(this.dataAccess.getPatient("dneal@email.com").getFirstName()));
+    }
+
+    @Test
+    public void testImportPatientsReportsBadRows() throws Exception {
+        System.setProperty(DataAccessFactory.ENGINE_PROPERTY, DataAccessFactory.MEMORY);
+        System.setProperty("gp.dataAccess.seed", DUMP.toString());
+        try {
+            String csv = "email,first_name,middle_name,last_name,date_of_birth,gender,phone_no,password,doctor\n"
+                    + "import.one@email.com,ann,,smith,1990-01-31,Female,07123456789,Passw0rd!,3\n"
+                    + "\"IMPORT.TWO@email.com\",bob,,jones,1985-06-01,Male,07123456789,Passw0rd!,\n"
+                    + "import.three@email.com,carl,,brown,1985-13-01,Male,07123456789,Passw0rd!,\n"
+                    + "import.one@email.com,dan,,green,1970-02-02,Male,07123456789,Passw0rd!,\n"
+                    + "import.four@email.com,eve,,white,1970-02-02,Female,07123456789,Passw0rd!,nobody@email.com\n";
+
+            ImportReport report = new PatientImportLogic().importPatients(new StringReader(csv));
+
+            assertEquals(2, report.getImported());
+            assertEquals(3, report.getFailed());
+            assertEquals(List.of(4, 5, 6), report.getRowErrors().stream().map(ImportReport.RowError::getLine).collect(Collectors.toList()));
+            assertEquals(List.of(ErrorCode.WRONG_DATE), report.getRowErrors().get(0).getErrors());
+            assertEquals(List.of(ErrorCode.EMAIL_IN_USE), report.getRowErrors().get(1).getErrors());
+            assertEquals(List.of(ErrorCode.DOCTOR_NOT_CHOSEN), report.getRowErrors().get(2).getErrors());
+
+            InMemoryDataAccess shared = InMemoryDataAccess.getShared();
+            Patient imported = shared.getPatient("import.two@email.com");
+            assertEquals("Bob", imported.getFirstName());
+            assertTrue(BCrypt.checkpw("Passw0rd!", imported.getPassHash()));
+            assertEquals(Integer.valueOf(3), shared.getDoctor(shared.getPatient("import.one@email.com")).getDoctorID());
+        } finally {
+            System.clearProperty(DataAccessFactory.ENGINE_PROPERTY);
+            System.clearProperty("gp.dataAccess.seed");
+        }
+    }
+
+    @Test
+    public void testPatientNotFound() throws CustomException {
+        try {
+            this.dataAccess.getPatient(999);
+            fail();
+        } catch (PatientNotFoundException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void testCreateBookingClashes() throws CustomException {
+        Patient patient = this.dataAccess.getPatient(1);
+        Doctor doctor = this.dataAccess.getDoctor(patient);
+        Timestamp time = time(2150, 1, 5, 10, 0);
+        this.dataAccess.createBooking(patient, doctor, time, "Other");
+
+        try {
+            this.dataAccess.createBooking(patient, this.dataAccess.getDoctor(2), time, "Other");
+            fail();
+        } catch (ExistingBookingException e) {
+            assertFalse(e.isDoctorClash());
+        }
+
+        try {
+            this.dataAccess.createBooking(this.dataAccess.getPatient(3), doctor, time, "Other");
+            fail();
+        } catch (ExistingBookingException e) {
+            assertTrue(e.isDoctorClash());
+        }
+    }
+
+    @Test
+    public void testCreateBookingWorkflowIsAtomic() throws CustomException {
+        Patient patient = this.dataAccess.getPatient(1);
+        Doctor doctor = this.dataAccess.getDoctor(patient);
+        int notificationCount = this.dataAccess.getNotifications(patient).size();
+        int logCount = this.dataAccess.getLogs(patient).size();
+
+        Booking booking = this.dataAccess.createBooking(patient, doctor, time(2150, 1, 5, 10, 0), "Other", "Header", "Message", "Log");
+        List<Notification> notifications = this.dataAccess.getNotifications(patient);
+        assertEquals(notificationCount + 1, notifications.size());
+        assertEquals("Header", notifications.get(notifications.size() - 1).getHeader());
+        assertEquals(booking.getTimestamp(), notifications.get(notifications.size() - 1).getTimestamp());
+        assertEquals(logCount + 1, this.dataAccess.getLogs(patient).size());
+
+        try {
+            this.dataAccess.createBooking(this.dataAccess.getPatient(3), doctor, time(2150, 1, 5, 10, 0), "Other", "Header", "Message", "Log");
+            fail();
+        } catch (ExistingBookingException e) {
+            assertTrue(e.isDoctorClash());
+        }
+        assertEquals(0, this.dataAccess.getNotifications(this.dataAccess.getPatient(3)).stream().filter(n -> n.getHeader().equals("Header")).count());
+        assertEquals(0, this.dataAccess.getLogs(this.dataAccess.getPatient(3)).stream().filter(l -> l.getMessage().equals("Log")).count());
+
+        booking.setBookingTime(time(2150, 1, 6, 10, 0));
+        Booking updated = this.dataAccess.updateBooking(booking, "Moved", "Moved message", "Moved log");
+        assertEquals(time(2150, 1, 6, 10, 0), updated.getBookingTime());
+        assertEquals(notificationCount + 2, this.dataAccess.getNotifications(patient).size());
+        assertEquals(logCount + 2, this.dataAccess.getLogs(patient).size());
+    }
+
+    @Test
+    public void testUpdateBookingMovesIndexes() throws CustomException {
+        Patient patient = this.dataAccess.getPatient(1);
+        Doctor doctor = this.dataAccess.getDoctor(patient);
+        Booking booking = this.dataAccess.createBooking(patient, doctor, time(2150, 1, 5, 10, 0), "Other");
+
+        // Changing only the type keeps the same booking time
+        booking.setType("Surgery");
+        assertEquals("Surgery", this.dataAccess.updateBooking(booking).getType());
+
+        booking.setBookingTime(time(2150, 1, 6, 11, 0));
+        this.dataAccess.updateBooking(booking);
+
+        List<Booking> moved = this.dataAccess.getBookings(doctor, time(2150, 1, 1, 0, 0), time(2150, 2, 1, 0, 0));
+        assertEquals(1, moved.size());
+        assertEquals(time(2150, 1, 6, 11, 0), moved.get(0).getBookingTime());
+
+        // The old time is free again
+        this.dataAccess.createBooking(this.dataAccess.getPatient(3), doctor, time(2150, 1, 5, 10, 0), "Other");
+    }
+
+    @Test
+    public void testPatientBookingRange() throws CustomException {
+        Patient patient = this.dataAccess.getPatient(1);
+        Doctor doctor = this.dataAccess.getDoctor(patient);
+        Booking first = this.dataAccess.createBooking(patient, doctor, time(2150, 3, 1, 9, 0), "Other");
+        Booking second = this.dataAccess.createBooking(patient, doctor, time(2150, 3, 15, 9, 0), "Other");
+        Booking third = this.dataAccess.createBooking(patient, doctor, time(2150, 4, 1, 9, 0), "Other");
+
+        List<Booking> march = this.dataAccess.getBookings(patient, time(2150, 3, 1, 0, 0), time(2150, 4, 1, 0, 0), false, 10);
+        assertEquals(List.of(first.getBookingID(), second.getBookingID()), List.of(march.get(0).getBookingID(), march.get(1).getBookingID()));
+
+        List<Booking> latest = this.dataAccess.getBookings(patient, time(2150, 1, 1, 0, 0), null, true, 1);
+        assertEquals(1, latest.size());
+        assertEquals(third.getBookingID(), latest.get(0).getBookingID());
+    }
+
+    @Test
+    public void testBookingsOfSeveralDoctors() throws CustomException {
+        Doctor first = this.dataAccess.getDoctor(1);
+        Doctor second = this.dataAccess.getDoctor(2);
+        Booking secondBooking = this.dataAccess.createBooking(this.dataAccess.getPatient(1), second, time(2150, 5, 1, 9, 0), "Other");
+        Booking firstBooking = this.dataAccess.createBooking(this.dataAccess.getPatient(3), first, time(2150, 5, 2, 9, 0), "Other");
+        this.dataAccess.createBooking(this.dataAccess.getPatient(4), this.dataAccess.getDoctor(3), time(2150, 5, 1, 9, 0), "Other");
+
+        List<Booking> bookings = this.dataAccess.getBookings(List.of(second, first), time(2150, 5, 1, 0, 0), time(2150, 6, 1, 0, 0));
+        assertEquals(List.of(firstBooking.getBookingID(), secondBooking.getBookingID()),
+                bookings.stream().map(Booking::getBookingID).collect(Collectors.toList()));
+        assertTrue(this.dataAccess.getBookings(List.of(), null, null).isEmpty());
+    }
+
+    @Test
+    public void testBookingsWithDoctor() throws CustomException {
+        Patient patient = this.dataAccess.getPatient(1);
+        Doctor doctor = this.dataAccess.getDoctor(patient);
+        Booking booking = this.dataAccess.createBooking(patient, doctor, time(2150, 3, 1, 9, 0), "Other");
+
+        List<BookingWithDoctor> bookings = this.dataAccess.getBookingsWithDoctor(patient, time(2150, 1, 1, 0, 0), null, false, 10);
+        assertEquals(1, bookings.size());
+        assertEquals(booking.getBookingID(), bookings.get(0).getBookingID());
+        assertEquals(doctor.getFullName(), bookings.get(0).getDoctorFullName());
+    }
+
+    @Test
+    public void testNotificationsSince() throws CustomException {
+        Patient patient = this.dataAccess.getPatient(1);
+        List<Notification> all = this.dataAccess.getNotifications(patient);
+        int lastID = all.get(all.size()-1).getNotifID();
+        assertEquals(all.size(), this.dataAccess.getNotificationsSince(patient, 0, null).size());
+        assertTrue(this.dataAccess.getNotificationsSince(patient, lastID, null).isEmpty());
+
+        Notification created = this.dataAccess.createNotification(patient, "Header", "Message");
+        List<Notification> added = this.dataAccess.getNotificationsSince(patient, lastID, null);
+        assertEquals(1, added.size());
+        assertEquals(created.getNotifID(), added.get(0).getNotifID());
+
+        // Marking it as seen updates its timestamp, so it is returned as changed
+        this.dataAccess.setNotificationSeen(created);
+        List<Notification> changed = this.dataAccess.getNotificationsSince(patient, created.getNotifID(), created.getTimestamp());
+        assertEquals(1, changed.size());
+        assertFalse(changed.get(0).isNew());
+    }
+
+    @Test
+    public void testNewNotificationCountAndArchivePage() throws CustomException {
+        Patient patient = this.dataAccess.getPatient(1);
+        int newCount = this.dataAccess.countNewNotifications(patient);
+        int seenCount = this.dataAccess.getNotifications(patient).size() - newCount;
+
+        Notification created = this.dataAccess.createNotification(patient, "Header", "Message");
+        assertEquals(newCount + 1, this.dataAccess.countNewNotifications(patient));
+        assertEquals(created.getNotifID(), this.dataAccess.getNotificationsPage(patient, true, null, 0, 1).get(0).getNotifID());
+
+        this.dataAccess.setNotificationSeen(created);
+        assertEquals(newCount, this.dataAccess.countNewNotifications(patient));
+        List<Notification> archive = this.dataAccess.getNotificationsPage(patient, false, null, 0, 1000);
+        assertEquals(seenCount + 1, archive.size());
+        assertTrue(archive.stream().noneMatch(Notification::isNew));
+    }
+
+    @Test
+    public void testSetNotificationsSeenInBulk() throws CustomException {
+        Patient patient = this.dataAccess.getPatient(1);
+        int newCount = this.dataAccess.countNewNotifications(patient);
+        Notification first = this.dataAccess.createNotification(patient, "Header", "First");
+        Notification second = this.dataAccess.createNotification(patient, "Header", "Second");
+        this.dataAccess.createNotification(patient, "Header", "Third");
+
+        assertEquals(2, this.dataAccess.setNotificationsSeen(patient, List.of(first.getNotifID(), second.getNotifID())));
+        assertEquals(0, this.dataAccess.setNotificationsSeen(patient, List.of(first.getNotifID())));
+        assertEquals(newCount + 1, this.dataAccess.countNewNotifications(patient));
+
+        assertEquals(newCount + 1, this.dataAccess.setAllNotificationsSeen(patient));
+        assertEquals(0, this.dataAccess.countNewNotifications(patient));
+    }
+
+    @Test
+    public void testLogsPagesAreNewestFirst() throws CustomException {
+        Patient patient = this.dataAccess.getPatient(1);
+        for (int i = 0; i < 5; i++) {
+            this.dataAccess.createLog(patient, "Log " + i);
+        }
+        List<Log> all = this.dataAccess.getLogs(patient);
+
+        // Logs created in the same second are ordered by id, so paging neither skips nor repeats them
+        List<Log> paged = new ArrayList<>();
+        List<Log> page = this.dataAccess.getLogsPage(patient, null, 0, 2);
+        while (!page.isEmpty()) {
+            assertTrue(page.size() <= 2);
+            paged.addAll(page);
+            Log last = page.get(page.size()-1);
+            page = this.dataAccess.getLogsPage(patient, last.getTimestamp(), last.getLogID(), 2);
+        }
+
+        assertEquals(all.size(), paged.size());
+        assertEquals("Log 4", paged.get(0).getMessage());
+        for (int i = 1; i < paged.size(); i++) {
+            Log newer = paged.get(i-1);
+            Log older = paged.get(i);
+            assertTrue(older.getTimestamp().before(newer.getTimestamp())
+                    || (older.getTimestamp().equals(newer.getTimestamp()) && older.getLogID() < newer.getLogID()));
+        }
+        assertTrue(this.dataAccess.getLogsPage(null, 0, 1000).size() >= paged.size());
+    }
+
+    @Test
+    public void testReturnedObjectsAreCopies() throws CustomException {
+        Patient patient = this.dataAccess.getPatient(1);
+        patient.setFirstName("Changed");
+
+        assertEquals("Dwayne", this.dataAccess.getPatient(1).getFirstName());
+    }
+
+    @Test
+    public void testDeleteReferencedPatientFails() throws CustomException {
+        try {
+            this.dataAccess.deletePatient(1);
+            fail();
+        } catch (DatabaseException e) {
+            // Expected, patient 1 has bookings, notifications and logs
+        }
+    }
+
+    @Test
+    public void testLogicClassesUseMemoryEngine() throws Exception {
+        System.setProperty(DataAccessFactory.ENGINE_PROPERTY, DataAccessFactory.MEMORY);
+        System.setProperty("gp.dataAccess.seed", DUMP.toString());
+        try {
+            LocalDate day = LocalDate.now().plusYears(1);
+            new AddBookingLogic().createNewBooking(day.toString(), "10", "30", "Blood Testing", 4);
+
+            List<BookingWithDoctor> futureBookings = new ViewBookingLogic().getBookings(4, false);
+            assertTrue(futureBookings.stream().anyMatch(b -> b.getBookingTime().equals(Timestamp.valueOf(day.atTime(10, 30)))));
+        } finally {
+            System.clearProperty(DataAccessFactory.ENGINE_PROPERTY);
+            System.clearProperty("gp.dataAccess.seed");
+        }
+    }
+
+    @Test
+    public void testBookingPagesAddUpToAllTheBookings() throws Exception {
+        System.setProperty(DataAccessFactory.ENGINE_PROPERTY, DataAccessFactory.MEMORY);
+        System.setProperty("gp.dataAccess.seed", DUMP.toString());
+        try {
+            LocalDate day = LocalDate.now().plusYears(2).withDayOfMonth(1);
+            AddBookingLogic addBookingLogic = new AddBookingLogic();
+            for (int i = 0; i < 5; i++) {
+                addBookingLogic.createNewBooking(day.plusDays(i).toString(), "10", "30", "Blood Testing", 4);
+            }
+
+            ViewBookingLogic viewBookingLogic = new ViewBookingLogic();
+            for (String month : List.of("Month (All)", Integer.toString(day.getMonthValue()))) {
+                List<BookingWithDoctor> all = viewBookingLogic.filterBookings(month, "Year (All)", 4, false);
+                List<BookingWithDoctor> paged = new ArrayList<>();
+                List<BookingWithDoctor> page = viewBookingLogic.filterBookingsPage(month, "Year (All)", 4, false, null, 2);
+                while (!page.isEmpty()) {
+                    paged.addAll(page);
+                    page = viewBookingLogic.filterBookingsPage(month, "Year (All)", 4, false, page.get(page.size() - 1), 2);
+                }
+
+                assertTrue(all.size() >= 5);
+                assertEquals(all.stream().map(Booking::getBookingID).collect(Collectors.toList()),
+                        paged.stream().map(Booking::getBookingID).collect(Collectors.toList()));
+            }
+        } finally {
+            System.clearProperty(DataAccessFactory.ENGINE_PROPERTY);
+            System.clearProperty("gp.dataAccess.seed");
+        }
+    }
+}
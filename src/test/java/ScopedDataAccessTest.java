@@ -0,0 +1,94 @@
+import com.group15A.CustomExceptions.*;
+import com.group15A.DataAccess.InMemoryDataAccess;
+import com.group15A.DataAccess.ScopedDataAccess;
+import com.group15A.DataModel.Doctor;
+import com.group15A.DataModel.Patient;
+import junit.framework.TestCase;
+import org.junit.Test;
+
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the scopes of the ScopedDataAccess
+ */
+public class ScopedDataAccessTest extends TestCase {
+    private CountingDataAccess engine;
+    private ScopedDataAccess dataAccess;
+
+    /**
+     * Counts the patient and doctor loads that reach the engine
+     */
+    private static class CountingDataAccess extends InMemoryDataAccess {
+        private int patientLoads = 0;
+        private int doctorLoads = 0;
+
+        @Override
+        public Patient getPatient(int patientID) throws InvalidDataException, PatientNotFoundException {
+            patientLoads++;
+            return super.getPatient(patientID);
+        }
+
+        @Override
+        public Doctor getDoctor(Patient patient) throws NullDataException, DoctorNotFoundException, InvalidDataException {
+            doctorLoads++;
+            return super.getDoctor(patient);
+        }
+    }
+
+    @Override
+    protected void setUp() {
+        this.engine = new CountingDataAccess();
+        try {
+            this.engine.loadDump(Path.of("TheGP_Database_24_Mar.sql"));
+        } catch (DatabaseException e) {
+            System.err.println(e.getMessage());
+        }
+        this.dataAccess = new ScopedDataAccess(this.engine);
+    }
+
+    @Test
+    public void testNoScopeAlwaysLoads() throws CustomException {
+        this.dataAccess.getPatient(1);
+        this.dataAccess.getPatient(1);
+
+        assertFalse(ScopedDataAccess.inScope());
+        assertEquals(2, this.engine.patientLoads);
+    }
+
+    @Test
+    public void testScopeLoadsOnce() throws CustomException {
+        ScopedDataAccess.withScope(() -> {
+            Patient patient = this.dataAccess.getPatient(1);
+            patient.setFirstName("Changed");
+            this.dataAccess.getDoctor(patient);
+
+            // Nested scopes join the outer one
+            return ScopedDataAccess.withScope(() -> {
+                assertEquals("Dwayne", this.dataAccess.getPatient(1).getFirstName());
+                return this.dataAccess.getDoctor(this.dataAccess.getPatient(1));
+            });
+        });
+
+        assertEquals(1, this.engine.patientLoads);
+        assertEquals(1, this.engine.doctorLoads);
+        assertFalse(ScopedDataAccess.inScope());
+    }
+
+    @Test
+    public void testWriteInvalidatesScope() throws CustomException {
+        ScopedDataAccess.withScope(() -> {
+            Patient patient = this.dataAccess.getPatient(1);
+            Doctor doctor = this.dataAccess.getDoctor(patient);
+            this.dataAccess.createBooking(patient, doctor, Timestamp.valueOf(LocalDateTime.of(2150, 1, 5, 10, 0)), "Other");
+
+            this.dataAccess.getPatient(1);
+            return null;
+        });
+
+        assertEquals(2, this.engine.patientLoads);
+    }
+}